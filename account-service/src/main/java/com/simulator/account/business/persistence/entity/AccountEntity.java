@@ -1,24 +1,28 @@
 package com.simulator.account.business.persistence.entity;
 
+import com.simulator.account.business.service.AccountEntityListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.Table;
+import javax.persistence.Version;
 import java.math.BigDecimal;
 
 @Table(name = "account")
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @Data
 @Entity
+@EntityListeners(AccountEntityListener.class)
 public class AccountEntity {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -32,4 +36,6 @@ public class AccountEntity {
   private BigDecimal balance;
 
   private BigDecimal overdraft;
+
+  @Version private Long version;
 }
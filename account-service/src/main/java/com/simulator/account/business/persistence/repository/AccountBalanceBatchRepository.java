@@ -0,0 +1,70 @@
+package com.simulator.account.business.persistence.repository;
+
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class AccountBalanceBatchRepository {
+  private static final String UPDATE_BALANCE =
+      "UPDATE account SET balance = ?, version = version + 1 WHERE account_number = ?";
+  private static final String APPLY_CHANGE =
+      "UPDATE account SET balance = balance + ?, version = version + 1"
+          + " WHERE account_number = ?"
+          + " AND (? > 0 OR balance + overdraft + ? >= 0)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AccountBalanceBatchRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /** Overwrites the balance of every account in {@code balances} in one JDBC batch. */
+  public void updateBalances(Map<String, BigDecimal> balances) {
+    final List<Object[]> arguments = new ArrayList<>(balances.size());
+    balances.forEach(
+        (accountNumber, balance) -> arguments.add(new Object[] {balance, accountNumber}));
+    jdbcTemplate.batchUpdate(UPDATE_BALANCE, arguments);
+  }
+
+  /**
+   * Adds every change to its account in one JDBC batch, each guarded like {@link
+   * AccountRepository#debit} or {@link AccountRepository#credit}. Returns, per change, {@code 1}
+   * when it was applied and {@code 0} when the account does not exist or a debit exceeds the funds.
+   */
+  public int[] applyChanges(List<BalanceChange> changes) {
+    final List<Object[]> arguments = new ArrayList<>(changes.size());
+    for (BalanceChange change : changes) {
+      final var amount = change.getAmount();
+      arguments.add(new Object[] {amount, change.getAccountNumber(), amount, amount});
+    }
+    return jdbcTemplate.batchUpdate(APPLY_CHANGE, arguments);
+  }
+
+  /**
+   * Applies every change like {@link #applyChanges}, but one statement at a time, for drivers that
+   * answer a batch with {@link java.sql.Statement#SUCCESS_NO_INFO} instead of a count per change.
+   */
+  public int[] applyEach(List<BalanceChange> changes) {
+    final var counts = new int[changes.size()];
+    for (int i = 0; i < counts.length; i++) {
+      final var amount = changes.get(i).getAmount();
+      counts[i] =
+          jdbcTemplate.update(
+              APPLY_CHANGE, amount, changes.get(i).getAccountNumber(), amount, amount);
+    }
+    return counts;
+  }
+
+  /** An amount to add to a balance, negative for a debit. */
+  @Value
+  public static class BalanceChange {
+    String accountNumber;
+    BigDecimal amount;
+  }
+}
@@ -0,0 +1,58 @@
+package com.simulator.account.business.persistence.repository;
+
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class AccountPinRepository {
+  private static final String FIND_NOT_HASHED =
+      "SELECT account_number, pin FROM account WHERE pin NOT LIKE ?";
+  private static final String REPLACE_PIN =
+      "UPDATE account SET pin = ?, version = version + 1 WHERE account_number = ? AND pin = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AccountPinRepository(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /** The accounts whose pin does not start with {@code prefix}. */
+  public List<StoredPin> findPinsNotStartingWith(String prefix) {
+    return jdbcTemplate.query(
+        FIND_NOT_HASHED,
+        (rs, row) -> new StoredPin(rs.getString("account_number"), rs.getString("pin")),
+        prefix + '%');
+  }
+
+  /**
+   * Replaces every pin in one JDBC batch, each only if it is still the one that was read. Returns,
+   * per replacement, {@code 1} when it was made and {@code 0} when the pin changed meanwhile.
+   */
+  public int[] replacePins(List<PinReplacement> replacements) {
+    final List<Object[]> arguments = new ArrayList<>(replacements.size());
+    for (PinReplacement replacement : replacements) {
+      arguments.add(
+          new Object[] {
+            replacement.getPin(), replacement.getAccountNumber(), replacement.getPreviousPin()
+          });
+    }
+    return jdbcTemplate.batchUpdate(REPLACE_PIN, arguments);
+  }
+
+  @Value
+  public static class StoredPin {
+    String accountNumber;
+    String pin;
+  }
+
+  @Value
+  public static class PinReplacement {
+    String accountNumber;
+    String previousPin;
+    String pin;
+  }
+}
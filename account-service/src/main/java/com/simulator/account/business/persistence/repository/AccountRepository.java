@@ -2,14 +2,52 @@ package com.simulator.account.business.persistence.repository;
 
 import com.simulator.account.business.persistence.entity.AccountEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AccountRepository extends JpaRepository<AccountEntity, Long> {
 
-  Optional<AccountEntity> findByAccountNumberAndPin(String accountNumber, String pin);
-
   Optional<AccountEntity> findByAccountNumber(String accountNumber);
+
+  @Query("SELECT a.accountNumber FROM AccountEntity a")
+  List<String> findAllAccountNumbers();
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT a FROM AccountEntity a WHERE a.accountNumber = :accountNumber")
+  Optional<AccountEntity> findForUpdate(@Param("accountNumber") String accountNumber);
+
+  /**
+   * Debits {@code amount} in a single guarded statement, so concurrent withdrawals cannot overdraw
+   * the account. Returns {@code 0} when the account does not exist or the funds are insufficient,
+   * {@code 1} otherwise. The pin is checked before, as only a hash of it is stored.
+   */
+  @Modifying
+  @Query(
+      value =
+          "UPDATE account SET balance = balance - :amount, version = version + 1"
+              + " WHERE account_number = :accountNumber"
+              + " AND balance + overdraft >= :amount",
+      nativeQuery = true)
+  int debit(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
+
+  /**
+   * Credits {@code amount} in a single statement. Returns {@code 0} when the account does not
+   * exist, {@code 1} otherwise.
+   */
+  @Modifying
+  @Query(
+      value =
+          "UPDATE account SET balance = balance + :amount, version = version + 1"
+              + " WHERE account_number = :accountNumber",
+      nativeQuery = true)
+  int credit(@Param("accountNumber") String accountNumber, @Param("amount") BigDecimal amount);
 }
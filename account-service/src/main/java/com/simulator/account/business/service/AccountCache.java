@@ -0,0 +1,159 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.infrastructure.config.AccountCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of accounts by account number, in front of the database. It is split into segments,
+ * each a small LRU map behind its own lock, and every entry expires {@code ttl} after it was
+ * stored. Callers always get their own copy of a cached account.
+ *
+ * <p>Writes keep it coherent: one that knows the row as committed {@link #put puts} it, and the
+ * higher version wins; one that changed the row without reading it {@link #evict evicts} it. Both
+ * bump a stamp of the account's segment, and a load only stores what it read if the stamp did not
+ * move meanwhile, so a read that raced with a write cannot bring back the old balance. Hits,
+ * misses, evictions and the size are exported as {@code account.cache.*}.
+ */
+@Component
+public class AccountCache {
+  private static final int SEGMENTS = 16;
+
+  private final AccountCacheProperties properties;
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter evictions;
+
+  public AccountCache(AccountCacheProperties properties, MeterRegistry registry) {
+    this.properties = properties;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment();
+    }
+    this.hits = registry.counter("account.cache.gets", "result", "hit");
+    this.misses = registry.counter("account.cache.gets", "result", "miss");
+    this.evictions = registry.counter("account.cache.evictions");
+    Gauge.builder("account.cache.size", this, AccountCache::size).register(registry);
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  /** The cached account, or what {@code loader} returns, which is cached unless it throws. */
+  public AccountEntity get(String accountNumber, Function<String, AccountEntity> loader) {
+    if (!isEnabled()) return loader.apply(accountNumber);
+    final var segment = segmentOf(accountNumber);
+    final var cached = segment.get(accountNumber, System.nanoTime());
+    if (cached != null) {
+      hits.increment();
+      return cached.toBuilder().build();
+    }
+    misses.increment();
+    final var stamp = segment.stamp();
+    final var loaded = loader.apply(accountNumber);
+    segment.store(loaded.toBuilder().build(), stamp, expiry());
+    return loaded;
+  }
+
+  /** Caches {@code account} as a write just committed it. */
+  public void put(AccountEntity account) {
+    if (!isEnabled()) return;
+    segmentOf(account.getAccountNumber()).written(account.toBuilder().build(), expiry());
+  }
+
+  /** Drops the account after a write changed it without reading it back. */
+  public void evict(String accountNumber) {
+    if (!isEnabled()) return;
+    segmentOf(accountNumber).written(accountNumber);
+  }
+
+  public int size() {
+    var size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  private long expiry() {
+    return System.nanoTime() + properties.getTtl().toNanos();
+  }
+
+  private Segment segmentOf(String accountNumber) {
+    final var hash = accountNumber.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  private static long version(AccountEntity account) {
+    return account.getVersion() == null ? -1 : account.getVersion();
+  }
+
+  private static final class Entry {
+    private final AccountEntity account;
+    private final long expiresAt;
+
+    private Entry(AccountEntity account, long expiresAt) {
+      this.account = account;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final class Segment {
+    private final Map<String, Entry> entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() <= Math.max(1, properties.getMaxSize() / SEGMENTS)) return false;
+            evictions.increment();
+            return true;
+          }
+        };
+    private long stamp;
+
+    private synchronized AccountEntity get(String accountNumber, long now) {
+      final var entry = entries.get(accountNumber);
+      if (entry == null) return null;
+      if (now - entry.expiresAt >= 0) {
+        entries.remove(accountNumber);
+        return null;
+      }
+      return entry.account;
+    }
+
+    private synchronized long stamp() {
+      return stamp;
+    }
+
+    private synchronized void store(AccountEntity account, long stamp, long expiresAt) {
+      if (this.stamp == stamp) putIfNewer(account, expiresAt);
+    }
+
+    private synchronized void written(AccountEntity account, long expiresAt) {
+      stamp++;
+      putIfNewer(account, expiresAt);
+    }
+
+    private synchronized void written(String accountNumber) {
+      stamp++;
+      entries.remove(accountNumber);
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+
+    private void putIfNewer(AccountEntity account, long expiresAt) {
+      final var current = entries.get(account.getAccountNumber());
+      if (current == null || version(account) >= version(current.account))
+        entries.put(account.getAccountNumber(), new Entry(account, expiresAt));
+    }
+  }
+}
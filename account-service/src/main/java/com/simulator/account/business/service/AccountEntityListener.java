@@ -0,0 +1,25 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.PostPersist;
+
+/**
+ * Adds every account inserted through JPA to the {@link AccountNumberFilter}. The filter is looked
+ * up on first use, because JPA creates this listener before the repositories the filter loads from.
+ */
+@Component
+public class AccountEntityListener {
+  private final ObjectProvider<AccountNumberFilter> filter;
+
+  public AccountEntityListener(ObjectProvider<AccountNumberFilter> filter) {
+    this.filter = filter;
+  }
+
+  @PostPersist
+  public void inserted(AccountEntity account) {
+    filter.getObject().add(account.getAccountNumber());
+  }
+}
@@ -0,0 +1,300 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountLockoutProperties;
+import com.simulator.exception.UnauthorizedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Failed pin attempts per account, to stop pins being guessed. An account whose last {@code
+ * max-attempts} invalid pins all fell within the sliding {@code window} is locked for {@code
+ * lock-duration}, and while it is locked {@link #requireUnlocked} turns it away before the account
+ * is read, so guessing costs neither a database read nor a pin hash. A valid pin clears the
+ * account's failures.
+ *
+ * <p>Like the {@link AccountCache} the counters are split into segments, each a small LRU map
+ * behind its own lock, so accounts on different segments never wait for each other and accounts
+ * without failures take no space. A locked account is never evicted to make room for others. Times
+ * are wall-clock milliseconds, so a {@link #snapshot} read back by {@link #restore} after a restart
+ * keeps the lockouts that were still running. Invalid pins, locks and rejections are counted as
+ * {@code account.lockout.failures}, {@code account.lockout.locks} and {@code
+ * account.lockout.rejections}, invalid pins that found their segment full of locks as {@code
+ * account.lockout.overflows}, and the number of accounts tracked is exported as {@code
+ * account.lockout.size}.
+ */
+@Slf4j
+@Component
+public class AccountLockout {
+  private static final int SEGMENTS = 16;
+  private static final int SNAPSHOT_MAGIC = 0x4c4f434b;
+  private static final int SNAPSHOT_VERSION = 1;
+  private static final UnauthorizedException LOCKED =
+      UnauthorizedException.rejection(
+          "Account is locked after too many invalid pins, please try again later");
+
+  private final AccountLockoutProperties properties;
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final Counter failures;
+  private final Counter locks;
+  private final Counter rejections;
+  private final Counter overflows;
+
+  public AccountLockout(AccountLockoutProperties properties, MeterRegistry registry) {
+    this.properties = properties;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment();
+    }
+    this.failures = registry.counter("account.lockout.failures");
+    this.locks = registry.counter("account.lockout.locks");
+    this.rejections = registry.counter("account.lockout.rejections");
+    this.overflows = registry.counter("account.lockout.overflows");
+    Gauge.builder("account.lockout.size", this, AccountLockout::size).register(registry);
+  }
+
+  /** Turns the account away while it is locked. */
+  public void requireUnlocked(String accountNumber) {
+    if (!properties.isEnabled()) return;
+    if (segmentOf(accountNumber).locked(accountNumber, System.currentTimeMillis())) {
+      rejections.increment();
+      throw LOCKED;
+    }
+  }
+
+  /** Counts an invalid pin, and locks the account when it was one too many. */
+  public void failed(String accountNumber) {
+    if (!properties.isEnabled()) return;
+    failures.increment();
+    if (segmentOf(accountNumber).failed(accountNumber, System.currentTimeMillis())) {
+      locks.increment();
+      log.warn("Account locked after too many invalid pins: account number: [{}]", accountNumber);
+    }
+  }
+
+  /** Clears the failures of an account after a valid pin. */
+  public void succeeded(String accountNumber) {
+    if (!properties.isEnabled()) return;
+    segmentOf(accountNumber).clear(accountNumber);
+  }
+
+  public int size() {
+    var size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  /**
+   * Writes the running lockouts and the failures still within the window to {@code file}, through a
+   * temporary file moved over it, so a crash leaves the previous snapshot whole.
+   */
+  public void snapshot(Path file) {
+    final var now = System.currentTimeMillis();
+    final List<Map.Entry<String, Attempts>> tracked = new ArrayList<>();
+    for (Segment segment : segments) {
+      segment.copyLive(now, tracked);
+    }
+    try {
+      final var directory = file.toAbsolutePath().getParent();
+      Files.createDirectories(directory);
+      final var temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (var out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(tracked.size());
+        for (Map.Entry<String, Attempts> entry : tracked) {
+          out.writeUTF(entry.getKey());
+          entry.getValue().write(out);
+        }
+      }
+      Files.move(
+          temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write the account lockout snapshot", e);
+    }
+    log.debug("Account lockout snapshot of {} accounts written", tracked.size());
+  }
+
+  /** Reads back a {@link #snapshot}, dropping what expired since; a missing file is no lockouts. */
+  public void restore(Path file) {
+    if (!Files.exists(file)) return;
+    final var now = System.currentTimeMillis();
+    var restored = 0;
+    try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION)
+        throw new IOException("Not an account lockout snapshot: " + file);
+      final var count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        final var accountNumber = in.readUTF();
+        final var attempts = read(in);
+        if (attempts.isLive(now)) {
+          segmentOf(accountNumber).restored(accountNumber, attempts, now);
+          restored++;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read the account lockout snapshot", e);
+    }
+    log.info("Account lockout restored {} accounts from {}", restored, file);
+  }
+
+  private Segment segmentOf(String accountNumber) {
+    final var hash = accountNumber.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  /** The latest invalid pins of one account, oldest first, and when its lock ends. */
+  private final class Attempts {
+    private final long[] times;
+    private int next;
+    private int count;
+    private long lockedUntil;
+
+    private Attempts(int maxAttempts) {
+      this.times = new long[Math.max(1, maxAttempts)];
+    }
+
+    /** Whether this failure locks the account. */
+    private boolean fail(long now) {
+      times[next] = now;
+      next = (next + 1) % times.length;
+      count = Math.min(count + 1, times.length);
+      if (count < times.length || now - times[next] >= properties.getWindow().toMillis())
+        return false;
+      lockedUntil = now + properties.getLockDuration().toMillis();
+      count = 0;
+      next = 0;
+      return true;
+    }
+
+    private boolean isLocked(long now) {
+      return now < lockedUntil;
+    }
+
+    private boolean isLive(long now) {
+      if (isLocked(now)) return true;
+      if (count == 0) return false;
+      final var newest = times[Math.floorMod(next - 1, times.length)];
+      return now - newest < properties.getWindow().toMillis();
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+      out.writeLong(lockedUntil);
+      out.writeInt(count);
+      for (int i = 0; i < count; i++) {
+        out.writeLong(times[Math.floorMod(next - count + i, times.length)]);
+      }
+    }
+
+    private Attempts copy() {
+      final var copy = new Attempts(times.length);
+      System.arraycopy(times, 0, copy.times, 0, times.length);
+      copy.next = next;
+      copy.count = count;
+      copy.lockedUntil = lockedUntil;
+      return copy;
+    }
+  }
+
+  private Attempts read(DataInputStream in) throws IOException {
+    final var attempts = new Attempts(properties.getMaxAttempts());
+    attempts.lockedUntil = in.readLong();
+    final var count = in.readInt();
+    for (int i = 0; i < count; i++) {
+      attempts.times[attempts.next] = in.readLong();
+      attempts.next = (attempts.next + 1) % attempts.times.length;
+      attempts.count = Math.min(attempts.count + 1, attempts.times.length);
+    }
+    return attempts;
+  }
+
+  /**
+   * Accounts in least recently used order. A full segment makes room by dropping an account whose
+   * failures expired, or else the least recently used one that is not locked, so churning through
+   * other accounts cannot push a lock out. A segment full of running locks tracks no new accounts
+   * until one of them ends.
+   */
+  private final class Segment {
+    private final Map<String, Attempts> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private synchronized boolean locked(String accountNumber, long now) {
+      final var attempts = entries.get(accountNumber);
+      if (attempts == null) return false;
+      if (attempts.isLocked(now)) return true;
+      if (!attempts.isLive(now)) entries.remove(accountNumber);
+      return false;
+    }
+
+    private synchronized boolean failed(String accountNumber, long now) {
+      var attempts = entries.get(accountNumber);
+      if (attempts == null || !attempts.isLive(now)) {
+        attempts = new Attempts(properties.getMaxAttempts());
+        if (!put(accountNumber, attempts, now)) return false;
+      }
+      return !attempts.isLocked(now) && attempts.fail(now);
+    }
+
+    /** Tracks {@code attempts}, unless the segment is full and every account in it is locked. */
+    private boolean put(String accountNumber, Attempts attempts, long now) {
+      if (!entries.containsKey(accountNumber)
+          && entries.size() >= Math.max(1, properties.getMaxSize() / SEGMENTS)
+          && !evict(now)) {
+        overflows.increment();
+        return false;
+      }
+      entries.put(accountNumber, attempts);
+      return true;
+    }
+
+    private boolean evict(long now) {
+      String unlocked = null;
+      for (Map.Entry<String, Attempts> entry : entries.entrySet()) {
+        if (!entry.getValue().isLive(now)) {
+          entries.remove(entry.getKey());
+          return true;
+        }
+        if (unlocked == null && !entry.getValue().isLocked(now)) unlocked = entry.getKey();
+      }
+      return unlocked != null && entries.remove(unlocked) != null;
+    }
+
+    private synchronized void clear(String accountNumber) {
+      final var attempts = entries.get(accountNumber);
+      if (attempts != null && !attempts.isLocked(System.currentTimeMillis()))
+        entries.remove(accountNumber);
+    }
+
+    private synchronized void restored(String accountNumber, Attempts attempts, long now) {
+      put(accountNumber, attempts, now);
+    }
+
+    private synchronized void copyLive(long now, List<Map.Entry<String, Attempts>> into) {
+      entries.forEach(
+          (accountNumber, attempts) -> {
+            if (attempts.isLive(now)) into.add(Map.entry(accountNumber, attempts.copy()));
+          });
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountLockoutProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restores the {@link AccountLockout} from its snapshot file at startup, snapshots it on a
+ * background thread every {@code snapshot.interval}, and once more on shutdown, so a restart lifts
+ * no lockout that was still running, give or take the failures of the last interval.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "account.lockout.snapshot", name = "enabled", havingValue = "true")
+public class AccountLockoutScheduler {
+
+  private final AccountLockout lockout;
+  private final AccountLockoutProperties properties;
+  private final Path file;
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            final var thread = new Thread(runnable, "account-lockout-snapshot");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public AccountLockoutScheduler(AccountLockout lockout, AccountLockoutProperties properties) {
+    this.lockout = lockout;
+    this.properties = properties;
+    this.file = Path.of(properties.getSnapshot().getFile());
+  }
+
+  @PostConstruct
+  public void start() {
+    if (!properties.isEnabled()) return;
+    try {
+      lockout.restore(file);
+    } catch (RuntimeException e) {
+      log.error("Could not restore the account lockouts, starting without them", e);
+    }
+    final var interval = properties.getSnapshot().getInterval().toNanos();
+    executor.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.NANOSECONDS);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    if (properties.isEnabled()) snapshot();
+  }
+
+  private void snapshot() {
+    try {
+      lockout.snapshot(file);
+    } catch (RuntimeException e) {
+      log.error("Could not snapshot the account lockouts", e);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.infrastructure.config.AccountFilterProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of the account numbers in the {@code account} table, so requests for accounts that
+ * do not exist are turned away before they reach the cache or the database. It is rebuilt from the
+ * table at startup and learns every account inserted through JPA; an account inserted by other
+ * means is only known after a restart. {@link #mightExist} never answers {@code false} for a known
+ * account and answers {@code true} for an unknown one at about the configured false-positive rate.
+ * Rejected lookups are counted as {@code account.filter.rejections}.
+ */
+@Slf4j
+@Component
+public class AccountNumberFilter {
+  private final AccountFilterProperties properties;
+  private final AccountRepository repository;
+  private final Counter rejections;
+  private final long bits;
+  private final int hashes;
+  private final AtomicLongArray words;
+
+  public AccountNumberFilter(
+      AccountFilterProperties properties, AccountRepository repository, MeterRegistry registry) {
+    this.properties = properties;
+    this.repository = repository;
+    this.rejections = registry.counter("account.filter.rejections");
+    final var expected = Math.max(1, properties.getExpectedAccounts());
+    final var ln2 = Math.log(2);
+    this.bits =
+        Math.max(
+            64,
+            (long)
+                Math.ceil(-expected * Math.log(properties.getFalsePositiveRate()) / (ln2 * ln2)));
+    this.hashes = Math.max(1, (int) Math.round((double) bits / expected * ln2));
+    this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+  }
+
+  @PostConstruct
+  public void load() {
+    if (!properties.isEnabled()) return;
+    final var accountNumbers = repository.findAllAccountNumbers();
+    accountNumbers.forEach(this::add);
+    log.info(
+        "Account number filter loaded {} accounts into {} KiB with {} hashes",
+        accountNumbers.size(),
+        words.length() / 128,
+        hashes);
+  }
+
+  public void add(String accountNumber) {
+    final var hash = hash(accountNumber);
+    final var h1 = (int) hash;
+    final var h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      final var bit = Math.floorMod(h1 + (long) i * h2, bits);
+      final var word = (int) (bit >>> 6);
+      final var mask = 1L << bit;
+      var current = words.get(word);
+      while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask)) {
+        current = words.get(word);
+      }
+    }
+  }
+
+  /** {@code false} when {@code accountNumber} is certainly not an account, or the filter is off. */
+  public boolean mightExist(String accountNumber) {
+    if (!properties.isEnabled()) return true;
+    final var hash = hash(accountNumber);
+    final var h1 = (int) hash;
+    final var h2 = (int) (hash >>> 32);
+    for (int i = 0; i < hashes; i++) {
+      final var bit = Math.floorMod(h1 + (long) i * h2, bits);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        rejections.increment();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** 64-bit FNV-1a over the characters, finished with the MurmurHash3 mixer. */
+  private static long hash(String accountNumber) {
+    var hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < accountNumber.length(); i++) {
+      hash = (hash ^ accountNumber.charAt(i)) * 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    return hash ^ (hash >>> 33);
+  }
+}
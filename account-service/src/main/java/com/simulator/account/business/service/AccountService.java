@@ -2,87 +2,308 @@ package com.simulator.account.business.service;
 
 import com.simulator.account.business.persistence.entity.AccountEntity;
 import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import com.simulator.dto.SessionResponse;
 import com.simulator.dto.TransactionRequest;
 import com.simulator.exception.BadRequestException;
 import com.simulator.exception.DataNotFoundException;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+/**
+ * Account operations. Withdrawals and deposits update the balance as the configured {@link
+ * WriteMode} says, so the modes can be compared under the same load.
+ *
+ * <p>Every operation takes the account's pin or a session token that {@link #openSession} issued
+ * for it, and checks them before it touches the balance. A token is checked from its signature
+ * alone; a pin against the hash stored for the account, through {@link VerifiedPins} so a pin that
+ * was just verified is not hashed again, unless the {@link AccountLockout} locked the account after
+ * too many invalid ones.
+ */
 @Slf4j
 @Service
 public class AccountService {
+  private static final String WITHDRAW = "withdraw";
+  private static final String DEPOSIT = "deposit";
+  private static final BadRequestException INSUFFICIENT_FUNDS =
+      BadRequestException.rejection("Your Account has insufficient funds to complete this request");
+  private static final BadRequestException INVALID_PIN =
+      BadRequestException.rejection("Pin account is invalid!");
+  private static final DataNotFoundException ACCOUNT_NOT_FOUND =
+      DataNotFoundException.rejection("Account number was not found");
 
   private final AccountRepository repository;
+  private final AccountWriteProperties properties;
+  private final TransactionOperations transactions;
+  private final OptimisticWriteRetry retry;
+  private final AccountShards shards;
+  private final GroupCommitWriter groupCommit;
+  private final AccountCache cache;
+  private final AccountNumberFilter filter;
+  private final IdempotencyStore idempotency;
+  private final SessionTokens sessions;
+  private final VerifiedPins pins;
+  private final AccountLockout lockout;
+  private final Function<String, AccountEntity> loader;
 
-  public AccountService(AccountRepository repository) {
+  public AccountService(
+      AccountRepository repository,
+      AccountWriteProperties properties,
+      TransactionOperations transactions,
+      OptimisticWriteRetry retry,
+      AccountShards shards,
+      GroupCommitWriter groupCommit,
+      AccountCache cache,
+      AccountNumberFilter filter,
+      IdempotencyStore idempotency,
+      SessionTokens sessions,
+      VerifiedPins pins,
+      AccountLockout lockout) {
     this.repository = repository;
+    this.properties = properties;
+    this.transactions = transactions;
+    this.retry = retry;
+    this.shards = shards;
+    this.groupCommit = groupCommit;
+    this.cache = cache;
+    this.filter = filter;
+    this.idempotency = idempotency;
+    this.sessions = sessions;
+    this.pins = pins;
+    this.lockout = lockout;
+    this.loader = this::load;
+  }
+
+  /** Checks the pin and issues a session token that stands in for it until it expires. */
+  public SessionResponse openSession(String accountNumber, String pin) {
+    log.info("Open session: account number: [{}]", accountNumber);
+    balance(accountNumber, Credentials.pin(pin));
+    return sessions.issue(accountNumber);
+  }
+
+  public void closeSession(String sessionToken) {
+    final var session = sessions.revoke(sessionToken);
+    log.info("Session closed: account number: [{}]", session.getAccountNumber());
   }
 
   public void withdraw(String accountNumber, String pin, TransactionRequest request) {
+    withdraw(accountNumber, Credentials.pin(pin), request, null);
+  }
+
+  private void debit(String accountNumber, TransactionRequest request) {
     log.info(
         "Withdraw funds: account number: [{}], amount: [{}]", accountNumber, request.getAmount());
-    final var accountEntity = findByAccountNumber(accountNumber);
-
-    log.info("Checking pin account...");
-    checkPin(pin, accountEntity);
+    final var amount = request.getAmount();
+    switch (properties.getMode()) {
+      case ATOMIC -> {
+        if (transactions.execute(status -> repository.debit(accountNumber, amount)) == 1) {
+          cache.evict(accountNumber);
+          return;
+        }
+        findByAccountNumber(accountNumber);
+        throw INSUFFICIENT_FUNDS;
+      }
+      case OPTIMISTIC -> retry.run(
+          WITHDRAW, () -> update(accountNumber, repository::findByAccountNumber, amount.negate()));
+      case PESSIMISTIC -> update(accountNumber, repository::findForUpdate, amount.negate());
+      case SHARDED -> {
+        shards.update(accountNumber, loader, account -> apply(account, amount.negate()));
+        cache.evict(accountNumber);
+      }
+      case GROUP_COMMIT -> {
+        try {
+          debited(accountNumber, groupCommit.apply(accountNumber, amount.negate()));
+        } catch (WriteOutcomeUnknownException e) {
+          throw e.<Boolean>settle(applied -> debited(accountNumber, applied));
+        }
+      }
+    }
+  }
 
-    log.info("Checking balance...");
-    final var totalBalance =
-        accountEntity.getBalance().add(accountEntity.getOverdraft()).subtract(request.getAmount());
-    if (totalBalance.compareTo(BigDecimal.ZERO) < 0) {
-      throw new BadRequestException("Your Account has insufficient funds to complete this request");
+  /**
+   * Finishes a group commit debit: it went through, or the account is unknown or short of funds.
+   */
+  private void debited(String accountNumber, boolean applied) {
+    if (applied) {
+      cache.evict(accountNumber);
+      return;
     }
+    findByAccountNumber(accountNumber);
+    throw INSUFFICIENT_FUNDS;
+  }
 
-    final var updatedBalance = accountEntity.getBalance().subtract(request.getAmount());
-    accountEntity.setBalance(updatedBalance);
+  /**
+   * Withdraws once per {@code idempotencyKey}: a retry of a withdrawal that already went through,
+   * with the same key, account and amount, succeeds without debiting the account again. Without a
+   * key every call is a new withdrawal.
+   */
+  public void withdraw(
+      String accountNumber, String pin, TransactionRequest request, String idempotencyKey) {
+    withdraw(accountNumber, Credentials.pin(pin), request, idempotencyKey);
+  }
 
-    log.info("Saving account with new balance: [{}]", updatedBalance);
-    repository.save(accountEntity);
+  public void withdraw(
+      String accountNumber,
+      Credentials credentials,
+      TransactionRequest request,
+      String idempotencyKey) {
+    requireKnown(accountNumber);
+    authorize(accountNumber, credentials);
+    if (idempotencyKey == null) {
+      debit(accountNumber, request);
+      return;
+    }
+    idempotency.execute(
+        accountNumber + '/' + idempotencyKey,
+        request.getAmount().stripTrailingZeros(),
+        () -> debit(accountNumber, request),
+        () -> log.info("Replaying withdrawal: account number: [{}]", accountNumber));
   }
 
   public void deposit(String accountNumber, String pin, TransactionRequest request) {
+    deposit(accountNumber, Credentials.pin(pin), request);
+  }
+
+  public void deposit(String accountNumber, Credentials credentials, TransactionRequest request) {
+    requireKnown(accountNumber);
+    authorize(accountNumber, credentials);
     log.info(
         "Deposit funds: account number: [{}], amount: [{}]", accountNumber, request.getAmount());
-    final var accountEntity = findByAccountNumber(accountNumber);
+    final var amount = request.getAmount();
+    switch (properties.getMode()) {
+      case ATOMIC -> {
+        if (transactions.execute(status -> repository.credit(accountNumber, amount)) == 1) {
+          cache.evict(accountNumber);
+          return;
+        }
+        findByAccountNumber(accountNumber);
+      }
+      case OPTIMISTIC -> retry.run(
+          DEPOSIT, () -> update(accountNumber, repository::findByAccountNumber, amount));
+      case PESSIMISTIC -> update(accountNumber, repository::findForUpdate, amount);
+      case SHARDED -> {
+        shards.update(accountNumber, loader, account -> apply(account, amount));
+        cache.evict(accountNumber);
+      }
+      case GROUP_COMMIT -> {
+        final boolean applied;
+        try {
+          applied = groupCommit.apply(accountNumber, amount);
+        } catch (WriteOutcomeUnknownException e) {
+          throw e.<Boolean>settle(
+              credited -> {
+                if (credited) cache.evict(accountNumber);
+              });
+        }
+        if (applied) {
+          cache.evict(accountNumber);
+          return;
+        }
+        findByAccountNumber(accountNumber);
+      }
+    }
+  }
 
-    log.info("Checking pin account...");
-    checkPin(pin, accountEntity);
+  public AccountEntity findByAccountNumber(String accountNumber) {
+    return cache.get(accountNumber, loader);
+  }
 
-    log.info("Calculating new balance...");
-    final var balance = accountEntity.getBalance().add(request.getAmount());
+  public AccountEntity balance(String accountNumber, String pin) {
+    return balance(accountNumber, Credentials.pin(pin));
+  }
 
-    accountEntity.setBalance(balance);
+  public AccountEntity balance(String accountNumber, Credentials credentials) {
+    log.info("Balance account: account number: [{}]", accountNumber);
+    requireKnown(accountNumber);
+    if (credentials.isSession()) {
+      sessions.verify(credentials.getSessionToken(), accountNumber);
+      return read(accountNumber);
+    }
+    lockout.requireUnlocked(accountNumber);
+    final var accountEntity = read(accountNumber);
+    checkPin(accountNumber, credentials.getPin(), accountEntity::getPin);
 
-    log.info("Saving account with new balance: [{}]", balance);
-    repository.save(accountEntity);
+    return accountEntity;
   }
 
-  public AccountEntity findByAccountNumber(String accountNumber) {
-    log.info("Account number: [{}]", accountNumber);
-    final var accountEntityOptional = repository.findByAccountNumber(accountNumber);
+  /** The account as the write mode holds it: in its shard when sharded, else cached or stored. */
+  private AccountEntity read(String accountNumber) {
+    return properties.getMode() == WriteMode.SHARDED
+        ? shards.read(accountNumber, loader)
+        : findByAccountNumber(accountNumber);
+  }
 
-    if (accountEntityOptional.isEmpty()) {
-      throw new DataNotFoundException(
-          String.format("Account number '%s' was not found", accountNumber));
-    }
+  /**
+   * Reads the account with {@code finder}, checks the funds of a debit, and saves the new balance,
+   * all in one transaction, then caches the account as committed. With a versioned read the commit
+   * fails if another request changed the account meanwhile; with a locking read that request waits
+   * for this one instead.
+   */
+  private void update(
+      String accountNumber, Function<String, Optional<AccountEntity>> finder, BigDecimal change) {
+    final var written =
+        transactions.execute(
+            status -> {
+              final var accountEntity = found(accountNumber, finder.apply(accountNumber));
+              apply(accountEntity, change);
+              log.info("Saving account with new balance: [{}]", accountEntity.getBalance());
+              repository.save(accountEntity);
+              return accountEntity;
+            });
+    cache.put(written);
+  }
+
+  /** Checks the funds of a debit, then changes the balance of {@code accountEntity}. */
+  private void apply(AccountEntity accountEntity, BigDecimal change) {
+    final var balance = accountEntity.getBalance().add(change);
+    if (change.signum() < 0 && balance.add(accountEntity.getOverdraft()).signum() < 0)
+      throw INSUFFICIENT_FUNDS;
 
-    return accountEntityOptional.get();
+    accountEntity.setBalance(balance);
   }
 
-  public AccountEntity balance(String accountNumber, String pin) {
-    log.info("Balance account: account number: [{}]", accountNumber);
-    final var accountEntity = findByAccountNumber(accountNumber);
+  private AccountEntity load(String accountNumber) {
+    return found(accountNumber, repository.findByAccountNumber(accountNumber));
+  }
 
-    log.info("Checking pin account...");
-    checkPin(pin, accountEntity);
+  private AccountEntity found(String accountNumber, Optional<AccountEntity> accountEntity) {
+    log.info("Account number: [{}]", accountNumber);
+    return accountEntity.orElseThrow(() -> ACCOUNT_NOT_FOUND);
+  }
 
-    return accountEntity;
+  /** Turns away account numbers the {@link AccountNumberFilter} knows do not exist. */
+  private void requireKnown(String accountNumber) {
+    if (!filter.mightExist(accountNumber)) throw ACCOUNT_NOT_FOUND;
   }
 
-  private void checkPin(String pin, AccountEntity accountEntity) {
-    if (!accountEntity.getPin().equals(pin))
-      throw new BadRequestException("Pin account is invalid!");
+  /** Accepts a valid session token for the account, or its pin. */
+  private void authorize(String accountNumber, Credentials credentials) {
+    if (credentials.isSession()) {
+      sessions.verify(credentials.getSessionToken(), accountNumber);
+      return;
+    }
+    lockout.requireUnlocked(accountNumber);
+    checkPin(accountNumber, credentials.getPin(), () -> read(accountNumber).getPin());
+  }
+
+  /**
+   * Checks {@code pin} against the hash {@code storedPin} reads, which is only read when the pin
+   * was not verified recently, and tells the {@link AccountLockout} how it went.
+   */
+  private void checkPin(String accountNumber, String pin, Supplier<String> storedPin) {
+    log.info("Checking pin account...");
+    if (!pins.matches(accountNumber, pin, storedPin)) {
+      lockout.failed(accountNumber);
+      throw INVALID_PIN;
+    }
+    lockout.succeeded(accountNumber);
   }
 }
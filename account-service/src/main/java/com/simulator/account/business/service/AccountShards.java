@@ -0,0 +1,190 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Single-writer engine behind {@link WriteMode#SHARDED}. Every account number hashes onto one of N
+ * single-threaded shards; the shard loads the account on first use and from then on applies its
+ * withdrawals and deposits to the in-memory copy one after another, so neither locks nor version
+ * checks are needed and accounts on different shards never wait for each other. Changed balances
+ * are written back in one JDBC batch per shard at most {@code flush-interval} later. A change that
+ * was acknowledged but not yet written back is lost if the process dies.
+ */
+@Slf4j
+@Component
+public class AccountShards {
+  private static final int MAX_BATCH = 512;
+
+  private final AccountBalanceBatchRepository batchRepository;
+  private final Duration flushInterval;
+  private final ScheduledExecutorService writeBehind;
+  private final Shard[] shards;
+
+  public AccountShards(
+      AccountBalanceBatchRepository batchRepository, AccountWriteProperties properties) {
+    this.batchRepository = batchRepository;
+    this.flushInterval = properties.getFlushInterval();
+    this.writeBehind = Executors.newSingleThreadScheduledExecutor(daemon("account-write-behind"));
+    final var count =
+        properties.getShards() > 0
+            ? properties.getShards()
+            : Runtime.getRuntime().availableProcessors();
+    this.shards = new Shard[count];
+    for (int i = 0; i < count; i++) {
+      shards[i] = new Shard(Executors.newSingleThreadExecutor(daemon("account-shard-" + i)));
+    }
+  }
+
+  /**
+   * Runs {@code change} against the account on its shard, loading it with {@code loader} the first
+   * time, and schedules the new balance to be written back. An exception thrown by {@code change}
+   * reaches the caller and must leave the account untouched.
+   */
+  public void update(
+      String accountNumber,
+      Function<String, AccountEntity> loader,
+      Consumer<AccountEntity> change) {
+    await(
+        shardOf(accountNumber)
+            .submit(
+                accountNumber,
+                loader,
+                account -> {
+                  change.accept(account);
+                  return account;
+                },
+                true));
+  }
+
+  /** A copy of the account as its shard has it, including changes not written back yet. */
+  public AccountEntity read(String accountNumber, Function<String, AccountEntity> loader) {
+    return await(shardOf(accountNumber).submit(accountNumber, loader, AccountShards::copy, false));
+  }
+
+  /** Writes back every pending change and waits until the database has it. */
+  public void flush() {
+    for (Shard shard : shards) {
+      await(shard.executor.submit(shard::flush));
+    }
+    await(writeBehind.submit(() -> {}));
+  }
+
+  @PreDestroy
+  public void close() throws InterruptedException {
+    flush();
+    for (Shard shard : shards) {
+      shard.executor.shutdown();
+    }
+    writeBehind.shutdown();
+    writeBehind.awaitTermination(10, TimeUnit.SECONDS);
+  }
+
+  private Shard shardOf(String accountNumber) {
+    final var hash = accountNumber.hashCode();
+    return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+  }
+
+  private static AccountEntity copy(AccountEntity account) {
+    return account.toBuilder().build();
+  }
+
+  private static <T> T await(Future<T> future) {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) throw cause;
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the account shard", e);
+    }
+  }
+
+  private static ThreadFactory daemon(String name) {
+    return runnable -> {
+      final var thread = new Thread(runnable, name);
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /** State of one shard; everything but {@link #executor} is only touched by its own thread. */
+  private final class Shard {
+    private final ExecutorService executor;
+    private final Map<String, AccountEntity> accounts = new HashMap<>();
+    private final Map<String, AccountEntity> dirty = new HashMap<>();
+    private boolean flushScheduled;
+
+    private Shard(ExecutorService executor) {
+      this.executor = executor;
+    }
+
+    private <T> Future<T> submit(
+        String accountNumber,
+        Function<String, AccountEntity> loader,
+        Function<AccountEntity, T> operation,
+        boolean write) {
+      return executor.submit(
+          () -> {
+            final var account = accounts.computeIfAbsent(accountNumber, loader);
+            final var result = operation.apply(account);
+            if (write) changed(account);
+            return result;
+          });
+    }
+
+    private void changed(AccountEntity account) {
+      dirty.put(account.getAccountNumber(), account);
+      if (dirty.size() >= MAX_BATCH) {
+        flush();
+      } else if (!flushScheduled) {
+        flushScheduled = true;
+        writeBehind.schedule(
+            () -> executor.execute(this::flush), flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+
+    private void flush() {
+      flushScheduled = false;
+      if (dirty.isEmpty()) return;
+      final Map<String, BigDecimal> balances = new HashMap<>(dirty.size() * 2);
+      dirty.forEach((accountNumber, account) -> balances.put(accountNumber, account.getBalance()));
+      dirty.clear();
+      writeBehind.execute(() -> write(balances));
+    }
+
+    /** Runs on the write-behind thread, so batches reach the database in the order they left. */
+    private void write(Map<String, BigDecimal> balances) {
+      try {
+        batchRepository.updateBalances(balances);
+      } catch (RuntimeException e) {
+        log.error("Could not write back {} account balances, retrying", balances.size(), e);
+        try {
+          executor.execute(() -> balances.keySet().forEach(n -> changed(accounts.get(n))));
+        } catch (RejectedExecutionException rejected) {
+          log.error("Lost the balances of accounts {}", balances.keySet());
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository;
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository.BalanceChange;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.annotation.PreDestroy;
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Group commit for {@link WriteMode#GROUP_COMMIT}. Requests queue their balance change and wait; a
+ * single committer thread takes the first one, gathers whatever else arrives within {@code
+ * batch-window}, up to {@code max-batch} writes, and applies them as one JDBC batch in one
+ * transaction, so concurrent requests share a commit instead of paying for one each. A request
+ * returns only after the transaction holding its change committed. The number of writes per batch
+ * and the time each write waited until its commit are recorded as {@code account.write.batch.size}
+ * and {@code account.write.batch.wait} histograms.
+ *
+ * <p>A write waits at most {@code commit-timeout} for its commit, failing with a {@link
+ * WriteOutcomeUnknownException} if the committer had already taken it, and a committer thread that
+ * died is replaced by the next write that finds it gone. Drivers that answer the batch without a
+ * count per write have it rolled back and applied again one statement at a time, in a new
+ * transaction, so a refused debit is never taken for an applied one.
+ */
+@Slf4j
+@Component
+public class GroupCommitWriter {
+  private static final long LIVENESS_CHECK = TimeUnit.SECONDS.toNanos(1);
+
+  private final AccountBalanceBatchRepository batchRepository;
+  private final TransactionOperations transactions;
+  private final AccountWriteProperties properties;
+  private final DistributionSummary batchSize;
+  private final Timer batchWait;
+  private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+  private volatile Thread committer;
+  private volatile boolean closed;
+
+  public GroupCommitWriter(
+      AccountBalanceBatchRepository batchRepository,
+      TransactionOperations transactions,
+      AccountWriteProperties properties,
+      MeterRegistry registry) {
+    this.batchRepository = batchRepository;
+    this.transactions = transactions;
+    this.properties = properties;
+    this.batchSize =
+        DistributionSummary.builder("account.write.batch.size")
+            .description("Writes committed together in one group commit")
+            .publishPercentileHistogram()
+            .register(registry);
+    this.batchWait =
+        Timer.builder("account.write.batch.wait")
+            .description("Time a write waited until its group commit finished")
+            .publishPercentileHistogram()
+            .register(registry);
+    this.committer = newCommitter();
+  }
+
+  /**
+   * Adds {@code amount}, negative for a debit, to the balance in the next group commit and waits
+   * for it. Returns {@code false} when the account does not exist or a debit exceeds the funds.
+   */
+  public boolean apply(String accountNumber, BigDecimal amount) {
+    if (closed) throw new IllegalStateException("The group commit writer is closed");
+    start();
+    final var write = new PendingWrite(new BalanceChange(accountNumber, amount));
+    queue.add(write);
+    if (closed && queue.remove(write))
+      throw new IllegalStateException("The group commit writer is closed");
+    final var deadline = System.nanoTime() + properties.getCommitTimeout().toNanos();
+    try {
+      while (true) {
+        final var wait = Math.min(deadline - System.nanoTime(), LIVENESS_CHECK);
+        try {
+          return write.applied.get(Math.max(wait, 0), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          if (System.nanoTime() - deadline >= 0) throw timedOut(write);
+          start();
+        }
+      }
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) throw cause;
+      throw new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the group commit", e);
+    }
+  }
+
+  @PreDestroy
+  public void close() throws InterruptedException {
+    closed = true;
+    if (committer.isAlive()) committer.join(TimeUnit.SECONDS.toMillis(10));
+    final List<PendingWrite> abandoned = new ArrayList<>();
+    queue.drainTo(abandoned);
+    abandoned.forEach(
+        write ->
+            write.applied.completeExceptionally(
+                new IllegalStateException("The group commit writer is closed")));
+  }
+
+  /** Starts the committer, or a new one when the previous thread died. */
+  private synchronized void start() {
+    if (closed || committer.isAlive()) return;
+    if (committer.getState() == Thread.State.TERMINATED) {
+      log.warn("Group commit thread stopped, starting a new one");
+      committer = newCommitter();
+    }
+    committer.start();
+  }
+
+  private Thread newCommitter() {
+    final var thread = new Thread(this::run, "account-group-commit");
+    thread.setDaemon(true);
+    return thread;
+  }
+
+  /**
+   * Fails a write that got no answer in time. One still queued is withdrawn and was never applied;
+   * one the committer already took may still commit, so its outcome is left to be settled.
+   */
+  private RuntimeException timedOut(PendingWrite write) {
+    if (queue.remove(write))
+      return new IllegalStateException(
+          "The group commit did not start in time, nothing was applied");
+    return new WriteOutcomeUnknownException(
+        "The group commit did not finish in time", write.applied);
+  }
+
+  private void run() {
+    final List<PendingWrite> batch = new ArrayList<>();
+    try {
+      while (!closed) {
+        collect(batch);
+        if (!batch.isEmpty()) commit(batch);
+        batch.clear();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      final var stopped = new IllegalStateException("The group commit thread stopped");
+      batch.forEach(write -> write.applied.completeExceptionally(stopped));
+    }
+  }
+
+  /** Waits for a first write, checking now and then whether the writer was closed meanwhile. */
+  private void collect(List<PendingWrite> batch) throws InterruptedException {
+    final var first = queue.poll(100, TimeUnit.MILLISECONDS);
+    if (first == null) return;
+    batch.add(first);
+    final var deadline = System.nanoTime() + properties.getBatchWindow().toNanos();
+    while (batch.size() < properties.getMaxBatch()) {
+      final var wait = deadline - System.nanoTime();
+      final var next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+      if (next == null) return;
+      batch.add(next);
+      queue.drainTo(batch, properties.getMaxBatch() - batch.size());
+    }
+  }
+
+  private void commit(List<PendingWrite> batch) {
+    final List<BalanceChange> changes = new ArrayList<>(batch.size());
+    batch.forEach(write -> changes.add(write.change));
+    batchSize.record(batch.size());
+    try {
+      var counts =
+          transactions.execute(
+              status -> {
+                final var applied = batchRepository.applyChanges(changes);
+                if (withoutInfo(applied)) status.setRollbackOnly();
+                return applied;
+              });
+      if (withoutInfo(counts))
+        counts = transactions.execute(status -> batchRepository.applyEach(changes));
+      final var committed = System.nanoTime();
+      for (int i = 0; i < batch.size(); i++) {
+        final var write = batch.get(i);
+        batchWait.record(committed - write.queued, TimeUnit.NANOSECONDS);
+        write.applied.complete(counts[i] > 0);
+      }
+    } catch (RuntimeException e) {
+      log.error("Group commit of {} writes failed", batch.size(), e);
+      batch.forEach(write -> write.applied.completeExceptionally(e));
+    }
+  }
+
+  private static boolean withoutInfo(int[] counts) {
+    for (int count : counts) {
+      if (count == Statement.SUCCESS_NO_INFO) return true;
+    }
+    return false;
+  }
+
+  private static final class PendingWrite {
+    private final BalanceChange change;
+    private final long queued = System.nanoTime();
+    private final CompletableFuture<Boolean> applied = new CompletableFuture<>();
+
+    private PendingWrite(BalanceChange change) {
+      this.change = change;
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountIdempotencyProperties;
+import com.simulator.exception.ConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Bounded, time-expiring memory of the writes made under an {@code Idempotency-Key}, so a client
+ * that timed out can send the same write again without applying it twice. Like the {@link
+ * AccountCache} it is split into segments, each a small LRU map behind its own lock, and every key
+ * expires {@code ttl} after it was first seen.
+ *
+ * <p>The first request with a key runs the write; a repeat that arrives while it runs waits for it
+ * and shares its outcome, and one that arrives after it succeeded returns at once without writing.
+ * A write that failed changed nothing, so its key is forgotten and a retry runs it again; one whose
+ * outcome is not known yet keeps its key until it is, and a retry shares that outcome. A key sent
+ * again with a different request is a client error and is rejected. Keys live in memory only, so
+ * they do not survive a restart. Requests are counted as {@code account.idempotency.requests} by
+ * result, and the number of keys is exported as {@code account.idempotency.size}.
+ */
+@Component
+public class IdempotencyStore {
+  private static final int SEGMENTS = 16;
+
+  private final AccountIdempotencyProperties properties;
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final Counter executed;
+  private final Counter replayed;
+  private final Counter mismatched;
+
+  public IdempotencyStore(AccountIdempotencyProperties properties, MeterRegistry registry) {
+    this.properties = properties;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment();
+    }
+    this.executed = registry.counter("account.idempotency.requests", "result", "executed");
+    this.replayed = registry.counter("account.idempotency.requests", "result", "replayed");
+    this.mismatched = registry.counter("account.idempotency.requests", "result", "mismatched");
+    Gauge.builder("account.idempotency.size", this, IdempotencyStore::size).register(registry);
+  }
+
+  /**
+   * Runs {@code write} unless {@code key} was already used for {@code request}. A repeat runs
+   * {@code onReplay} first, which can reject it, and then shares the outcome of the first run.
+   */
+  public void execute(String key, Object request, Runnable write, Runnable onReplay) {
+    if (!properties.isEnabled()) {
+      write.run();
+      return;
+    }
+    final var segment = segmentOf(key);
+    final var entry = new Entry(request, System.nanoTime() + properties.getTtl().toNanos());
+    final var existing = segment.putIfAbsent(key, entry, System.nanoTime());
+    if (existing == null) {
+      executed.increment();
+      run(segment, key, entry, write);
+      return;
+    }
+    if (!existing.request.equals(request)) {
+      mismatched.increment();
+      throw new ConflictException("Idempotency-Key was already used for a different request");
+    }
+    replayed.increment();
+    onReplay.run();
+    try {
+      existing.outcome.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) throw cause;
+      throw e;
+    }
+  }
+
+  public int size() {
+    var size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  private static void run(Segment segment, String key, Entry entry, Runnable write) {
+    try {
+      write.run();
+      entry.outcome.complete(null);
+    } catch (WriteOutcomeUnknownException e) {
+      e.outcome()
+          .whenComplete(
+              (result, failure) -> {
+                if (failure == null) {
+                  entry.outcome.complete(null);
+                  return;
+                }
+                segment.remove(key, entry);
+                entry.outcome.completeExceptionally(
+                    failure instanceof CompletionException ? failure.getCause() : failure);
+              });
+      throw e;
+    } catch (RuntimeException | Error e) {
+      segment.remove(key, entry);
+      entry.outcome.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  private Segment segmentOf(String key) {
+    final var hash = key.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  private static final class Entry {
+    private final Object request;
+    private final long expiresAt;
+    private final CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+    private Entry(Object request, long expiresAt) {
+      this.request = request;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final class Segment {
+    private final Map<String, Entry> entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > Math.max(1, properties.getMaxSize() / SEGMENTS);
+          }
+        };
+
+    private synchronized Entry putIfAbsent(String key, Entry entry, long now) {
+      final var current = entries.get(key);
+      if (current != null && now - current.expiresAt < 0) return current;
+      entries.put(key, entry);
+      return null;
+    }
+
+    private synchronized void remove(String key, Entry entry) {
+      entries.remove(key, entry);
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,63 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import com.simulator.exception.ConflictException;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs an optimistic write again when another request changed the account first, waiting a random
+ * time of up to {@code backoff * 2^(attempt - 1)} (full jitter) between attempts so the writers of
+ * a hot account spread out instead of colliding again. Conflicts, retries and writes that ran out
+ * of attempts are counted per endpoint.
+ */
+@Slf4j
+@Component
+public class OptimisticWriteRetry {
+  private final AccountWriteProperties properties;
+  private final MeterRegistry registry;
+
+  public OptimisticWriteRetry(AccountWriteProperties properties, MeterRegistry registry) {
+    this.properties = properties;
+    this.registry = registry;
+  }
+
+  public void run(String endpoint, Runnable write) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        write.run();
+        return;
+      } catch (OptimisticLockingFailureException e) {
+        registry.counter("account.write.conflicts", "endpoint", endpoint).increment();
+        if (attempt >= properties.getMaxAttempts()) {
+          registry.counter("account.write.exhausted", "endpoint", endpoint).increment();
+          log.warn("Giving up {} after {} conflicting attempts", endpoint, attempt);
+          throw new ConflictException(
+              "The account is being updated by another request, please try again");
+        }
+        registry.counter("account.write.retries", "endpoint", endpoint).increment();
+        backOff(attempt);
+      }
+    }
+  }
+
+  private void backOff(int attempt) {
+    final var bound =
+        Math.min(
+            properties.getMaxBackoff().toNanos(),
+            properties.getBackoff().toNanos() << Math.min(attempt - 1, 20));
+    if (bound <= 0) return;
+    try {
+      final var nanos = ThreadLocalRandom.current().nextLong(bound);
+      Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConflictException(
+          "The account is being updated by another request, please try again");
+    }
+  }
+}
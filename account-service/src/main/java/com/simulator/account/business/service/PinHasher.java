@@ -0,0 +1,86 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Salted, deliberately slow pin hashes, as stored in {@code account.pin}. A hash is PBKDF2 with
+ * HMAC-SHA256 over the pin and a random 16-byte salt, written as {@code
+ * pbkdf2-sha256$<iterations>$<salt>$<hash>} in Base64, so raising the iterations does not break the
+ * hashes already stored. A value without that prefix is a plaintext pin from before hashing, still
+ * accepted until {@link PinMigration} hashes it. Both are compared in constant time.
+ */
+@Component
+public class PinHasher {
+  static final String PREFIX = "pbkdf2-sha256$";
+
+  private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+  private static final int SALT_BYTES = 16;
+  private static final int HASH_BITS = 256;
+
+  private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+  private final AccountPinProperties properties;
+  private final SecureRandom random = new SecureRandom();
+
+  public PinHasher(AccountPinProperties properties) {
+    this.properties = properties;
+  }
+
+  public String hash(String pin) {
+    final var salt = new byte[SALT_BYTES];
+    random.nextBytes(salt);
+    final var iterations = properties.getIterations();
+    final var hash = derive(pin, salt, iterations, HASH_BITS);
+    return PREFIX
+        + iterations
+        + '$'
+        + ENCODER.encodeToString(salt)
+        + '$'
+        + ENCODER.encodeToString(hash);
+  }
+
+  /**
+   * Whether {@code pin} is the one {@code stored} was made from, or equals it for a plaintext pin.
+   */
+  public boolean matches(String pin, String stored) {
+    if (!isHashed(stored))
+      return MessageDigest.isEqual(
+          pin.getBytes(StandardCharsets.UTF_8), stored.getBytes(StandardCharsets.UTF_8));
+    final var parts = stored.substring(PREFIX.length()).split("\\$");
+    if (parts.length != 3) return false;
+    try {
+      final var iterations = Integer.parseInt(parts[0]);
+      final var salt = DECODER.decode(parts[1]);
+      final var hash = DECODER.decode(parts[2]);
+      if (iterations < 1 || hash.length == 0) return false;
+      return MessageDigest.isEqual(derive(pin, salt, iterations, hash.length * 8), hash);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  public static boolean isHashed(String stored) {
+    return stored.startsWith(PREFIX);
+  }
+
+  private static byte[] derive(String pin, byte[] salt, int iterations, int bits) {
+    final var spec = new PBEKeySpec(pin.toCharArray(), salt, iterations, bits);
+    try {
+      return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot hash pins", e);
+    } finally {
+      spec.clearPassword();
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.repository.AccountPinRepository;
+import com.simulator.account.business.persistence.repository.AccountPinRepository.PinReplacement;
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashes, at startup, the pins still stored in plaintext, such as the seed accounts of {@code
+ * data.sql}, so existing rows move to hashed pins without a separate migration step. A row is only
+ * rewritten if its pin is still the one that was read, and its version is bumped, so a write
+ * holding the account as read before cannot put the plaintext pin back.
+ */
+@Slf4j
+@Component
+public class PinMigration {
+  private static final int BATCH_SIZE = 500;
+
+  private final AccountPinProperties properties;
+  private final AccountPinRepository repository;
+  private final PinHasher hasher;
+  private final AccountCache cache;
+
+  public PinMigration(
+      AccountPinProperties properties,
+      AccountPinRepository repository,
+      PinHasher hasher,
+      AccountCache cache) {
+    this.properties = properties;
+    this.repository = repository;
+    this.hasher = hasher;
+    this.cache = cache;
+  }
+
+  @PostConstruct
+  public void migrate() {
+    if (!properties.isMigrate()) return;
+    final var plaintext = repository.findPinsNotStartingWith(PinHasher.PREFIX);
+    var migrated = 0;
+    for (int from = 0; from < plaintext.size(); from += BATCH_SIZE) {
+      final List<PinReplacement> batch = new ArrayList<>(BATCH_SIZE);
+      for (var stored : plaintext.subList(from, Math.min(from + BATCH_SIZE, plaintext.size()))) {
+        batch.add(
+            new PinReplacement(
+                stored.getAccountNumber(), stored.getPin(), hasher.hash(stored.getPin())));
+      }
+      final var results = repository.replacePins(batch);
+      for (int i = 0; i < results.length; i++) {
+        cache.evict(batch.get(i).getAccountNumber());
+        if (results[i] != 0) migrated++;
+      }
+    }
+    if (!plaintext.isEmpty()) log.info("Hashed {} plaintext pins", migrated);
+  }
+}
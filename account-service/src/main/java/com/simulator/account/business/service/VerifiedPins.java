@@ -0,0 +1,154 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, short-lived memory of the pins that recently passed the {@link PinHasher}, so the slow
+ * hash is paid about once per card session rather than on every request of it. Like the {@link
+ * AccountCache} it is split into segments, each a small LRU map behind its own lock, and an entry
+ * expires {@code ttl} after the pin was verified.
+ *
+ * <p>Pins are not kept: an entry holds the HMAC-SHA256 of the account number and pin under a key
+ * drawn at random when the service starts, and a later pin is accepted when its HMAC equals it,
+ * compared in constant time. Only a successful check is remembered, so a wrong pin always pays the
+ * full hash. Lookups are counted as {@code account.pin.cache.gets} by result, and the number of
+ * entries is exported as {@code account.pin.cache.size}.
+ */
+@Component
+public class VerifiedPins {
+  private static final int SEGMENTS = 16;
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final AccountPinProperties properties;
+  private final PinHasher hasher;
+  private final Segment[] segments = new Segment[SEGMENTS];
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+  private final Counter hits;
+  private final Counter misses;
+
+  public VerifiedPins(AccountPinProperties properties, PinHasher hasher, MeterRegistry registry) {
+    this.properties = properties;
+    this.hasher = hasher;
+    for (int i = 0; i < SEGMENTS; i++) {
+      segments[i] = new Segment();
+    }
+    final var secret = new byte[32];
+    new SecureRandom().nextBytes(secret);
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+    this.hits = registry.counter("account.pin.cache.gets", "result", "hit");
+    this.misses = registry.counter("account.pin.cache.gets", "result", "miss");
+    Gauge.builder("account.pin.cache.size", this, VerifiedPins::size).register(registry);
+  }
+
+  /**
+   * Whether {@code pin} is the pin of the account: at once when it was verified recently, and
+   * otherwise against the hash {@code storedPin} reads, which is only called then.
+   */
+  public boolean matches(String accountNumber, String pin, Supplier<String> storedPin) {
+    if (!properties.getCache().isEnabled()) return hasher.matches(pin, storedPin.get());
+    final var fingerprint = fingerprint(accountNumber, pin);
+    final var segment = segmentOf(accountNumber);
+    final var cached = segment.get(accountNumber, System.nanoTime());
+    if (cached != null && MessageDigest.isEqual(cached, fingerprint)) {
+      hits.increment();
+      return true;
+    }
+    misses.increment();
+    if (!hasher.matches(pin, storedPin.get())) return false;
+    segment.put(
+        accountNumber, fingerprint, System.nanoTime() + properties.getCache().getTtl().toNanos());
+    return true;
+  }
+
+  /** Forgets the pin verified for the account, after it changed. */
+  public void evict(String accountNumber) {
+    segmentOf(accountNumber).remove(accountNumber);
+  }
+
+  public int size() {
+    var size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  private byte[] fingerprint(String accountNumber, String pin) {
+    final var mac = macs.get();
+    mac.update(accountNumber.getBytes(StandardCharsets.UTF_8));
+    mac.update((byte) 0);
+    return mac.doFinal(pin.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private Mac newMac() {
+    try {
+      final var mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot fingerprint pins", e);
+    }
+  }
+
+  private Segment segmentOf(String accountNumber) {
+    final var hash = accountNumber.hashCode();
+    return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  private static final class Entry {
+    private final byte[] fingerprint;
+    private final long expiresAt;
+
+    private Entry(byte[] fingerprint, long expiresAt) {
+      this.fingerprint = fingerprint;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final class Segment {
+    private final Map<String, Entry> entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > Math.max(1, properties.getCache().getMaxSize() / SEGMENTS);
+          }
+        };
+
+    private synchronized byte[] get(String accountNumber, long now) {
+      final var entry = entries.get(accountNumber);
+      if (entry == null) return null;
+      if (now - entry.expiresAt >= 0) {
+        entries.remove(accountNumber);
+        return null;
+      }
+      return entry.fingerprint;
+    }
+
+    private synchronized void put(String accountNumber, byte[] fingerprint, long expiresAt) {
+      entries.put(accountNumber, new Entry(fingerprint, expiresAt));
+    }
+
+    private synchronized void remove(String accountNumber) {
+      entries.remove(accountNumber);
+    }
+
+    private synchronized int size() {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.simulator.account.business.service;
+
+/** How {@link AccountService} applies a withdrawal or deposit to the balance. */
+public enum WriteMode {
+  /** One guarded {@code UPDATE}, checked and applied by the database. */
+  ATOMIC,
+  /** Read, check and write in a transaction, retried when the row's version moved meanwhile. */
+  OPTIMISTIC,
+  /** Read with {@code SELECT ... FOR UPDATE}, so concurrent writers queue on the row. */
+  PESSIMISTIC,
+  /**
+   * Applied in memory by the account's {@link AccountShards} executor and written back in batches;
+   * only safe while this is the single account-service instance writing the accounts.
+   */
+  SHARDED,
+  /**
+   * Guarded updates like {@link #ATOMIC}, collected from concurrent requests by {@link
+   * GroupCommitWriter} and committed together as one JDBC batch in one transaction.
+   */
+  GROUP_COMMIT
+}
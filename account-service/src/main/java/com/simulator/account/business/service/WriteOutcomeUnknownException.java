@@ -0,0 +1,34 @@
+package com.simulator.account.business.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * A write that was already handed over to the database but did not finish in time, so it may still
+ * take effect. {@link #outcome()} completes once it is known: normally when the write went through,
+ * exceptionally with what answers it otherwise. Clients are told to send the request again with the
+ * same {@code Idempotency-Key}, which then shares that outcome.
+ */
+public class WriteOutcomeUnknownException extends RuntimeException {
+  private final transient CompletableFuture<?> outcome;
+
+  public WriteOutcomeUnknownException(String message, CompletableFuture<?> outcome) {
+    super(message);
+    this.outcome = outcome;
+  }
+
+  public CompletableFuture<?> outcome() {
+    return outcome;
+  }
+
+  /**
+   * The same write, with its result turned into the outcome of the request by {@code settle}, which
+   * throws when the write did not go through. It runs off the thread that completed the write, so a
+   * lookup it makes does not hold up the next commit.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> WriteOutcomeUnknownException settle(Consumer<? super T> settle) {
+    return new WriteOutcomeUnknownException(
+        getMessage(), ((CompletableFuture<T>) outcome).thenAcceptAsync(settle));
+  }
+}
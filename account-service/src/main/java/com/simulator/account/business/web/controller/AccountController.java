@@ -3,8 +3,15 @@ package com.simulator.account.business.web.controller;
 import com.simulator.account.business.persistence.entity.AccountEntity;
 import com.simulator.account.business.service.AccountService;
 import com.simulator.account.business.web.helper.AccountHelper;
+import com.simulator.account.business.web.helper.BatchExecutor;
 import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.BatchWithdrawRequest;
+import com.simulator.dto.BatchWithdrawResponse;
+import com.simulator.dto.SessionResponse;
 import com.simulator.dto.TransactionRequest;
+import com.simulator.dto.WithdrawalResult;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -13,9 +20,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -36,13 +46,17 @@ public class AccountController {
 
   private final AccountService service;
   private final AccountHelper helper;
+  private final BatchExecutor batches;
 
-  public AccountController(AccountService service, AccountHelper helper) {
+  public AccountController(AccountService service, AccountHelper helper, BatchExecutor batches) {
     this.service = service;
     this.helper = helper;
+    this.batches = batches;
   }
 
-  @GetMapping(value = "/{accountNumber}/balance", produces = "application/json")
+  @GetMapping(
+      value = "/{accountNumber}/balance",
+      produces = {"application/json", "application/cbor"})
   @Operation(summary = "Get balance from account")
   @ApiResponses(
       value = {
@@ -97,6 +111,10 @@ public class AccountController {
         @ApiResponse(
             responseCode = "404",
             description = "Account number not found",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Account kept changing under concurrent requests",
             content = @Content)
       })
   public ResponseEntity<Void> withdraw(
@@ -107,12 +125,59 @@ public class AccountController {
           @RequestHeader(value = "pin")
           @NotNull(message = "Missing pin")
           String pin,
+      @Parameter(
+              description = "Identifies the withdrawal, so a retry with the same key is applied once",
+              example = "5f0c6c1e-8f4b-4a43-9b1e-2f0e4d7c9a11")
+          @RequestHeader(value = "Idempotency-Key", required = false)
+          String idempotencyKey,
       @RequestBody @Valid TransactionRequest request) {
 
-    service.withdraw(accountNumber, pin, request);
+    service.withdraw(accountNumber, pin, request, idempotencyKey);
     return ResponseEntity.ok().build();
   }
 
+  @PutMapping(path = "/withdraw:batch")
+  @Operation(
+      summary = "Withdraw funds from many accounts at once",
+      description =
+          "Each withdrawal is applied as the single withdraw endpoint would, and gets its own result")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "One result per withdrawal, in the order they were sent",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = BatchWithdrawResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid batch supplied",
+            content = @Content)
+      })
+  public ResponseEntity<BatchWithdrawResponse> withdrawBatch(
+      @RequestBody @Valid BatchWithdrawRequest request) {
+
+    log.info("Request for a batch of {} withdrawals", request.getWithdrawals().size());
+    final var results =
+        batches.map(
+            request.getWithdrawals(),
+            withdrawal -> {
+              try {
+                service.withdraw(
+                    withdrawal.getAccountNumber(),
+                    Credentials.of(withdrawal.getPin(), withdrawal.getSessionToken()),
+                    new TransactionRequest(withdrawal.getAmount()),
+                    withdrawal.getIdempotencyKey());
+                return WithdrawalResult.ok();
+              } catch (RuntimeException e) {
+                return helper.toResult(e);
+              }
+            });
+    return ResponseEntity.ok(new BatchWithdrawResponse(results));
+  }
+
   @PutMapping(path = "/{accountNumber}/deposit")
   @Operation(summary = "Deposit a funds")
   @ApiResponses(
@@ -131,6 +196,10 @@ public class AccountController {
         @ApiResponse(
             responseCode = "404",
             description = "Account number not found",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "409",
+            description = "Account kept changing under concurrent requests",
             content = @Content)
       })
   public ResponseEntity<Void> deposit(
@@ -150,4 +219,152 @@ public class AccountController {
     service.deposit(accountNumber, pin, request);
     return ResponseEntity.ok().build();
   }
+
+  @PostMapping(path = "/{accountNumber}/sessions")
+  @Operation(
+      summary = "Open a session",
+      description =
+          "Checks the pin once and issues a short-lived token that stands in for it")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Session opened",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = SessionResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid pin supplied",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Account number not found",
+            content = @Content)
+      })
+  public ResponseEntity<SessionResponse> openSession(
+      @Parameter(name = "Account number", example = "328762", required = true)
+          @PathVariable(value = "accountNumber")
+          String accountNumber,
+      @Parameter(description = "Pin of account", example = "1234", required = true)
+          @RequestHeader(value = "pin")
+          @NotNull(message = "Missing pin")
+          String pin) {
+
+    return ResponseEntity.status(HttpStatus.CREATED).body(service.openSession(accountNumber, pin));
+  }
+
+  @DeleteMapping(path = "/sessions")
+  @Operation(summary = "Close a session, so its token is no longer accepted")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "Session closed"),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<Void> closeSession(
+      @Parameter(description = "Session token to close", required = true)
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken) {
+
+    service.closeSession(sessionToken);
+    return ResponseEntity.noContent().build();
+  }
+
+  @GetMapping(
+      value = "/{accountNumber}/balance",
+      headers = SessionTokens.HEADER,
+      produces = {"application/json", "application/cbor"})
+  @Operation(summary = "Get balance from account, with a session token instead of the pin")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Balance of the account",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = AccountBalanceDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<AccountBalanceDto> findInSession(
+      @Parameter(description = "Account number to be searched") @PathVariable String accountNumber,
+      @Parameter(description = "Session token of the account")
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken) {
+    log.info("Finding account by account number in a session: {}", accountNumber);
+    return ResponseEntity.ok(
+        helper.toModel(service.balance(accountNumber, Credentials.session(sessionToken))));
+  }
+
+  @PutMapping(path = "/{accountNumber}/withdraw", headers = SessionTokens.HEADER)
+  @Operation(summary = "Withdraw a funds, with a session token instead of the pin")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Withdraw funds request completed successfully"),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Insufficient funds",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<Void> withdrawInSession(
+      @Parameter(name = "Account number", example = "328762", required = true)
+          @PathVariable(value = "accountNumber")
+          String accountNumber,
+      @Parameter(description = "Session token of the account", required = true)
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken,
+      @Parameter(
+              description = "Identifies the withdrawal, so a retry with the same key is applied once",
+              example = "5f0c6c1e-8f4b-4a43-9b1e-2f0e4d7c9a11")
+          @RequestHeader(value = "Idempotency-Key", required = false)
+          String idempotencyKey,
+      @RequestBody @Valid TransactionRequest request) {
+
+    service.withdraw(accountNumber, Credentials.session(sessionToken), request, idempotencyKey);
+    return ResponseEntity.ok().build();
+  }
+
+  @PutMapping(path = "/{accountNumber}/deposit", headers = SessionTokens.HEADER)
+  @Operation(summary = "Deposit a funds, with a session token instead of the pin")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Deposit funds request completed successfully"),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<Void> depositInSession(
+      @Parameter(name = "Account number", example = "328762", required = true)
+          @PathVariable(value = "accountNumber")
+          String accountNumber,
+      @Parameter(description = "Session token of the account", required = true)
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken,
+      @RequestBody @Valid TransactionRequest request) {
+
+    log.info(
+        "Request for deposit funds in a session, account number {}, amount {}",
+        accountNumber,
+        request.getAmount());
+    service.deposit(accountNumber, Credentials.session(sessionToken), request);
+    return ResponseEntity.ok().build();
+  }
 }
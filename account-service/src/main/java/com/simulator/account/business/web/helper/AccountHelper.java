@@ -1,19 +1,43 @@
 package com.simulator.account.business.web.helper;
 
 import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.service.WriteOutcomeUnknownException;
 import com.simulator.dto.AccountBalanceDto;
-import org.modelmapper.ModelMapper;
+import com.simulator.dto.WithdrawalResult;
+import com.simulator.exception.BadRequestException;
+import com.simulator.exception.ConflictException;
+import com.simulator.exception.DataNotFoundException;
+import com.simulator.exception.UnauthorizedException;
+import com.simulator.exception.model.ExceptionResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+@Slf4j
 @Component
 public class AccountHelper {
-  private final ModelMapper modelMapper;
-
-  public AccountHelper(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
+  public AccountBalanceDto toModel(AccountEntity entity) {
+    return new AccountBalanceDto(entity.getBalance(), entity.getOverdraft());
   }
 
-  public AccountBalanceDto toModel(AccountEntity entity) {
-    return modelMapper.map(entity, AccountBalanceDto.class);
+  /** The result of a failed withdrawal of a batch, as the single withdraw endpoint answers it. */
+  public WithdrawalResult toResult(RuntimeException e) {
+    if (e instanceof BadRequestException badRequest)
+      return WithdrawalResult.failed(
+          new ExceptionResponse(
+              HttpStatus.BAD_REQUEST, badRequest.getMessage(), badRequest.getMessages()));
+    if (e instanceof DataNotFoundException)
+      return WithdrawalResult.failed(new ExceptionResponse(HttpStatus.NOT_FOUND, e.getMessage()));
+    if (e instanceof ConflictException)
+      return WithdrawalResult.failed(new ExceptionResponse(HttpStatus.CONFLICT, e.getMessage()));
+    if (e instanceof UnauthorizedException)
+      return WithdrawalResult.failed(
+          new ExceptionResponse(HttpStatus.UNAUTHORIZED, e.getMessage()));
+    if (e instanceof WriteOutcomeUnknownException)
+      return WithdrawalResult.failed(
+          new ExceptionResponse(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    log.error("Withdrawal of a batch failed", e);
+    return WithdrawalResult.failed(
+        new ExceptionResponse(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage()));
   }
 }
@@ -0,0 +1,73 @@
+package com.simulator.account.business.web.helper;
+
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import com.simulator.dto.BatchWithdrawRequest;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Runs the withdrawals of a {@code withdraw:batch} request side by side instead of one after
+ * another, so a batch waits about as long as its slowest withdrawal: their pin checks overlap, and
+ * in {@code GROUP_COMMIT} mode they join the same commit. The {@code account.write.batch-threads}
+ * threads are shared by every batch; once they and their queue are busy, the request thread runs
+ * the next withdrawal itself.
+ */
+@Component
+public class BatchExecutor {
+  private final ThreadPoolExecutor executor;
+
+  public BatchExecutor(AccountWriteProperties properties) {
+    final var threads = properties.getBatchThreads();
+    final var count = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            1,
+            TimeUnit.MINUTES,
+            new LinkedBlockingQueue<>(BatchWithdrawRequest.MAX_WITHDRAWALS),
+            runnable -> {
+              final var thread = new Thread(runnable, "account-batch-" + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  /** Applies {@code task} to every item at once and answers the results in the items' order. */
+  public <T, R> List<R> map(List<T> items, Function<? super T, ? extends R> task) {
+    if (items.size() == 1) return List.of(task.apply(items.get(0)));
+
+    final List<CompletableFuture<? extends R>> pending = new ArrayList<>(items.size());
+    for (T item : items) {
+      pending.add(CompletableFuture.supplyAsync(() -> task.apply(item), executor));
+    }
+    final List<R> results = new ArrayList<>(items.size());
+    for (CompletableFuture<? extends R> result : pending) {
+      try {
+        results.add(result.join());
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) throw cause;
+        if (e.getCause() instanceof Error cause) throw cause;
+        throw e;
+      }
+    }
+    return results;
+  }
+
+  @PreDestroy
+  public void close() {
+    executor.shutdown();
+  }
+}
@@ -1,7 +1,23 @@
 package com.simulator.account.commons.exception;
 
+import com.simulator.account.business.service.WriteOutcomeUnknownException;
 import com.simulator.exception.handler.ControllerExceptionHandler;
+import com.simulator.exception.model.ExceptionResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
 @RestControllerAdvice
-public class AccountControllerExceptionHandler extends ControllerExceptionHandler {}
+public class AccountControllerExceptionHandler extends ControllerExceptionHandler {
+
+  /** A write that may still go through: the client retries it with the same Idempotency-Key. */
+  @ExceptionHandler(WriteOutcomeUnknownException.class)
+  @ResponseBody
+  public ResponseEntity<ExceptionResponse> writeOutcomeUnknownException(
+      WriteOutcomeUnknownException e) {
+    ExceptionResponse err = new ExceptionResponse(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(err);
+  }
+}
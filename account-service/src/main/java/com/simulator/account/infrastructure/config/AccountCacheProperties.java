@@ -0,0 +1,22 @@
+package com.simulator.account.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** The in-memory account cache in front of the database, under {@code account.cache}. */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "account.cache")
+public class AccountCacheProperties {
+
+  private boolean enabled = true;
+
+  /** Accounts kept before the least recently used ones are evicted. */
+  private int maxSize = 10_000;
+
+  /** How long an account is served from the cache before it is read from the database again. */
+  private Duration ttl = Duration.ofMinutes(5);
+}
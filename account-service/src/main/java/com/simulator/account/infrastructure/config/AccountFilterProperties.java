@@ -0,0 +1,23 @@
+package com.simulator.account.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The Bloom filter of existing account numbers, under {@code account.filter}. It takes about
+ * {@code -expected-accounts * ln(false-positive-rate) / ln(2)^2} bits, roughly 1.2 MB for a
+ * million accounts at 1%; more accounts than expected raise the false-positive rate.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "account.filter")
+public class AccountFilterProperties {
+
+  private boolean enabled = true;
+
+  private int expectedAccounts = 100_000;
+
+  /** Share of unknown account numbers that still get through to the database. */
+  private double falsePositiveRate = 0.01;
+}
@@ -0,0 +1,22 @@
+package com.simulator.account.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** The {@code Idempotency-Key} dedupe store of withdrawals, under {@code account.idempotency}. */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "account.idempotency")
+public class AccountIdempotencyProperties {
+
+  private boolean enabled = true;
+
+  /** Keys remembered before the least recently used ones are forgotten. */
+  private int maxSize = 100_000;
+
+  /** How long a key is remembered, so how late a retry can come and still be recognized. */
+  private Duration ttl = Duration.ofHours(1);
+}
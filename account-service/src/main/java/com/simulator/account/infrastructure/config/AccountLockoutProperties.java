@@ -0,0 +1,41 @@
+package com.simulator.account.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** Locking accounts out after repeated invalid pins, under {@code account.lockout}. */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "account.lockout")
+public class AccountLockoutProperties {
+
+  private boolean enabled = true;
+
+  /** Invalid pins within {@code window} that lock the account. */
+  private int maxAttempts = 5;
+
+  /** How far back invalid pins are counted. */
+  private Duration window = Duration.ofMinutes(15);
+
+  /** How long an account stays locked once locked. */
+  private Duration lockDuration = Duration.ofMinutes(15);
+
+  /** Accounts tracked before the least recently used ones are forgotten. */
+  private int maxSize = 100_000;
+
+  private Snapshot snapshot = new Snapshot();
+
+  @Data
+  public static class Snapshot {
+
+    /** Without snapshots, every lockout is lifted by a restart. */
+    private boolean enabled = false;
+
+    private String file = "data/account-lockout.bin";
+
+    private Duration interval = Duration.ofSeconds(10);
+  }
+}
@@ -0,0 +1,34 @@
+package com.simulator.account.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** How pins are hashed, and the cache of recently verified pins, under {@code account.pin}. */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "account.pin")
+public class AccountPinProperties {
+
+  /** PBKDF2 iterations of a new hash. Stored hashes keep the count they were made with. */
+  private int iterations = 100_000;
+
+  /** Whether plaintext pins left in the {@code account} table are hashed at startup. */
+  private boolean migrate = true;
+
+  private Cache cache = new Cache();
+
+  @Data
+  public static class Cache {
+
+    private boolean enabled = true;
+
+    /** Accounts whose last verified pin is kept before the least recently used ones are evicted. */
+    private int maxSize = 10_000;
+
+    /** How long a verified pin is accepted without hashing it again, about one card session. */
+    private Duration ttl = Duration.ofMinutes(5);
+  }
+}
@@ -0,0 +1,43 @@
+package com.simulator.account.infrastructure.config;
+
+import com.simulator.account.business.service.WriteMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/** How withdrawals and deposits update an account, under {@code account.write}. */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "account.write")
+public class AccountWriteProperties {
+
+  private WriteMode mode = WriteMode.ATOMIC;
+
+  /** Attempts an {@link WriteMode#OPTIMISTIC} write makes before it gives up with a conflict. */
+  private int maxAttempts = 5;
+
+  /** Upper bound of the random wait before the first retry, doubled on every further one. */
+  private Duration backoff = Duration.ofMillis(2);
+
+  private Duration maxBackoff = Duration.ofMillis(50);
+
+  /** Single-threaded {@link WriteMode#SHARDED} executors, one per available processor when 0. */
+  private int shards;
+
+  /** How long a {@link WriteMode#SHARDED} change may stay in memory before it is written back. */
+  private Duration flushInterval = Duration.ofMillis(10);
+
+  /** Longest a {@link WriteMode#GROUP_COMMIT} write waits for others to join its transaction. */
+  private Duration batchWindow = Duration.ofMillis(1);
+
+  /** Writes after which a {@link WriteMode#GROUP_COMMIT} batch commits without waiting longer. */
+  private int maxBatch = 256;
+
+  /** Longest a {@link WriteMode#GROUP_COMMIT} write waits for its commit before it fails. */
+  private Duration commitTimeout = Duration.ofSeconds(10);
+
+  /** Threads, shared by every {@code withdraw:batch} request, that run its withdrawals at once. */
+  private int batchThreads = 64;
+}
@@ -0,0 +1,33 @@
+package com.simulator.account.infrastructure.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Bodies can also be sent and asked for as CBOR ({@code application/cbor}), a binary form of the
+ * same fields that is smaller and cheaper to parse than JSON, for internal callers such as
+ * atm-service. The converter goes after the JSON one, so a request that does not name CBOR in its
+ * {@code Content-Type} or {@code Accept} header still gets JSON.
+ */
+@Configuration
+public class CborWebConfig implements WebMvcConfigurer {
+
+  private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+  public CborWebConfig(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+    this.objectMapperBuilder = objectMapperBuilder;
+  }
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.add(
+        new MappingJackson2CborHttpMessageConverter(
+            objectMapperBuilder.factory(new CBORFactory()).build()));
+  }
+}
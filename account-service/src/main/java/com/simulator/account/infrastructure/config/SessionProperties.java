@@ -0,0 +1,22 @@
+package com.simulator.account.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Card-session tokens, under {@code session}. atm-service and account-service must share the
+ * {@code secret}, at least 32 bytes, so each can check the tokens the other issued.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "session")
+public class SessionProperties {
+
+  private String secret;
+
+  /** How long a token stands in for the pin after the pin check that issued it. */
+  private Duration ttl = Duration.ofMinutes(5);
+}
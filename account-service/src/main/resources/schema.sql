@@ -2,7 +2,10 @@ CREATE TABLE account
 (
     id             INTEGER AUTO_INCREMENT PRIMARY KEY,
     account_number VARCHAR(20) NOT NULL,
-    pin            VARCHAR(10) NOT NULL,
+    pin            VARCHAR(128) NOT NULL,
     balance        DECIMAL     NOT NULL,
-    overdraft      DECIMAL     NOT NULL
-);
\ No newline at end of file
+    overdraft      DECIMAL     NOT NULL,
+    version        BIGINT      DEFAULT 0 NOT NULL
+);
+
+CREATE UNIQUE INDEX account_number_idx ON account (account_number);
@@ -14,7 +14,11 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.test.web.servlet.setup.StandaloneMockMvcBuilder;
 
 @ExtendWith(SpringExtension.class)
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.MOCK)
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        properties = {
+            "account.lockout.snapshot.enabled=false",
+            "session.secret=atm-simulator-test-session-secret-0001"})
 @DirtiesContext
 @AutoConfigureMessageVerifier
 public class AccountBase {
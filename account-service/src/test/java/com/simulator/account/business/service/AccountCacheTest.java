@@ -0,0 +1,115 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.infrastructure.config.AccountCacheProperties;
+import com.simulator.exception.DataNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.simulator.account.business.service.utils.AccountServiceUtils.getAccountEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountCacheTest {
+
+  private final AccountCacheProperties properties = new AccountCacheProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AtomicInteger loads = new AtomicInteger();
+  private final Function<String, AccountEntity> loader =
+      accountNumber -> {
+        loads.incrementAndGet();
+        return account(accountNumber, 800, 1);
+      };
+
+  @Test
+  public void get_shouldLoadOnceAndHandOutCopies() {
+    final var cache = new AccountCache(properties, registry);
+
+    final var first = cache.get("111", loader);
+    first.setBalance(BigDecimal.ZERO);
+    final var second = cache.get("111", loader);
+
+    assertEquals(1, loads.get());
+    assertNotSame(first, second);
+    assertEquals(BigDecimal.valueOf(800), second.getBalance());
+    assertEquals(1, registry.get("account.cache.size").gauge().value());
+  }
+
+  @Test
+  public void get_shouldNotCacheAccountsThatWereNotFound() {
+    final var cache = new AccountCache(properties, registry);
+    final Function<String, AccountEntity> missing =
+        accountNumber -> {
+          loads.incrementAndGet();
+          throw new DataNotFoundException("Account number '111' was not found");
+        };
+
+    assertThrows(DataNotFoundException.class, () -> cache.get("111", missing));
+    assertThrows(DataNotFoundException.class, () -> cache.get("111", missing));
+
+    assertEquals(2, loads.get());
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  public void get_shouldEvictTheLeastRecentlyUsedAccountsBeyondTheMaximumSize() {
+    properties.setMaxSize(16);
+    final var cache = new AccountCache(properties, registry);
+
+    for (int i = 0; i < 1_000; i++) {
+      cache.get(String.valueOf(i), loader);
+    }
+
+    assertTrue(cache.size() <= 16);
+    assertEquals(1_000 - cache.size(), registry.get("account.cache.evictions").counter().count());
+  }
+
+  @Test
+  public void get_shouldLoadAgainOnceTheEntryExpired() {
+    properties.setTtl(Duration.ZERO);
+    final var cache = new AccountCache(properties, registry);
+
+    cache.get("111", loader);
+    cache.get("111", loader);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void put_shouldKeepTheNewestVersion() {
+    final var cache = new AccountCache(properties, registry);
+
+    cache.put(account("111", 300, 3));
+    cache.put(account("111", 500, 2));
+
+    assertEquals(BigDecimal.valueOf(300), cache.get("111", loader).getBalance());
+    assertEquals(0, loads.get());
+  }
+
+  @Test
+  public void get_shouldNotStoreALoadThatRacedWithAWrite() {
+    final var cache = new AccountCache(properties, registry);
+    final Function<String, AccountEntity> racing =
+        accountNumber -> {
+          final var stale = loader.apply(accountNumber);
+          cache.evict(accountNumber);
+          return stale;
+        };
+
+    assertEquals(BigDecimal.valueOf(800), cache.get("111", racing).getBalance());
+    assertEquals(0, cache.size());
+  }
+
+  private static AccountEntity account(String accountNumber, int balance, long version) {
+    final var account = getAccountEntity(accountNumber, "1234", balance, 200);
+    account.setVersion(version);
+    return account;
+  }
+}
@@ -0,0 +1,41 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:account_filter_db",
+      "account.lockout.snapshot.enabled=false",
+      "session.secret=atm-simulator-test-session-secret-0001"
+    })
+public class AccountEntityListenerTest {
+
+  @Autowired private AccountNumberFilter filter;
+  @Autowired private AccountRepository accountRepository;
+
+  @Test
+  public void inserted_shouldAddNewAccountsToTheFilterLoadedAtStartup() {
+    assertTrue(filter.mightExist("123456789"));
+    assertTrue(filter.mightExist("987654321"));
+    assertFalse(filter.mightExist("555555555"));
+
+    accountRepository.save(
+        AccountEntity.builder()
+            .accountNumber("555555555")
+            .pin("5555")
+            .balance(BigDecimal.TEN)
+            .overdraft(BigDecimal.ZERO)
+            .build());
+
+    assertTrue(filter.mightExist("555555555"));
+  }
+}
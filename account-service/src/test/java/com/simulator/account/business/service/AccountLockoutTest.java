@@ -0,0 +1,177 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountLockoutProperties;
+import com.simulator.exception.UnauthorizedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccountLockoutTest {
+
+  private static final String ACCOUNT_NUMBER = "123456789";
+
+  private final AccountLockoutProperties properties = new AccountLockoutProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  {
+    properties.setMaxAttempts(3);
+  }
+
+  @Test
+  public void failed_shouldLockOnceMaxAttemptsFellWithinTheWindow() {
+    final var lockout = new AccountLockout(properties, registry);
+
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.requireUnlocked(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+
+    assertThrows(UnauthorizedException.class, () -> lockout.requireUnlocked(ACCOUNT_NUMBER));
+    assertDoesNotThrow(() -> lockout.requireUnlocked("987654321"));
+    assertEquals(3, registry.get("account.lockout.failures").counter().count());
+    assertEquals(1, registry.get("account.lockout.locks").counter().count());
+    assertEquals(1, registry.get("account.lockout.rejections").counter().count());
+  }
+
+  @Test
+  public void failed_shouldNotLockWhenTheFailuresAreFurtherApartThanTheWindow()
+      throws InterruptedException {
+    properties.setWindow(Duration.ofMillis(50));
+    final var lockout = new AccountLockout(properties, registry);
+
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+    Thread.sleep(80);
+    lockout.failed(ACCOUNT_NUMBER);
+
+    lockout.requireUnlocked(ACCOUNT_NUMBER);
+    assertEquals(0, registry.get("account.lockout.locks").counter().count());
+  }
+
+  @Test
+  public void requireUnlocked_shouldLetTheAccountInOnceTheLockEnded() throws InterruptedException {
+    properties.setLockDuration(Duration.ofMillis(50));
+    final var lockout = new AccountLockout(properties, registry);
+
+    for (int i = 0; i < 3; i++) {
+      lockout.failed(ACCOUNT_NUMBER);
+    }
+    assertThrows(UnauthorizedException.class, () -> lockout.requireUnlocked(ACCOUNT_NUMBER));
+    Thread.sleep(80);
+
+    lockout.requireUnlocked(ACCOUNT_NUMBER);
+    assertEquals(0, lockout.size());
+  }
+
+  @Test
+  public void succeeded_shouldClearTheFailuresButNotALock() {
+    final var lockout = new AccountLockout(properties, registry);
+
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.succeeded(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.requireUnlocked(ACCOUNT_NUMBER);
+    lockout.failed(ACCOUNT_NUMBER);
+    lockout.succeeded(ACCOUNT_NUMBER);
+
+    assertThrows(UnauthorizedException.class, () -> lockout.requireUnlocked(ACCOUNT_NUMBER));
+  }
+
+  @Test
+  public void failed_shouldKeepALockWhileOtherAccountsChurnThroughTheSegments() {
+    properties.setMaxSize(16);
+    final var lockout = new AccountLockout(properties, registry);
+    for (int i = 0; i < 3; i++) {
+      lockout.failed(ACCOUNT_NUMBER);
+    }
+
+    for (int i = 0; i < 10_000; i++) {
+      lockout.failed(String.valueOf(100_000_000 + i));
+    }
+
+    assertThrows(UnauthorizedException.class, () -> lockout.requireUnlocked(ACCOUNT_NUMBER));
+    assertTrue(lockout.size() <= 16);
+  }
+
+  @Test
+  public void failed_shouldOnlyCountTheFailuresWhenTheSegmentIsFullOfLocks() {
+    properties.setMaxSize(16);
+    final var lockout = new AccountLockout(properties, registry);
+
+    for (int account = 0; account < 200; account++) {
+      for (int i = 0; i < 3; i++) {
+        lockout.failed(String.valueOf(100_000_000 + account));
+      }
+    }
+
+    assertEquals(16, lockout.size());
+    assertEquals(16, registry.get("account.lockout.locks").counter().count());
+    assertEquals(600, registry.get("account.lockout.failures").counter().count());
+    assertTrue(registry.get("account.lockout.overflows").counter().count() > 0);
+  }
+
+  @Test
+  public void snapshot_shouldKeepTheLockoutsAcrossARestart(@TempDir Path directory) {
+    final var file = directory.resolve("lockout").resolve("account-lockout.bin");
+    final var lockout = new AccountLockout(properties, registry);
+    for (int i = 0; i < 3; i++) {
+      lockout.failed(ACCOUNT_NUMBER);
+    }
+    lockout.failed("987654321");
+    lockout.failed("987654321");
+
+    lockout.snapshot(file);
+    final var restarted = new AccountLockout(properties, new SimpleMeterRegistry());
+    restarted.restore(file);
+
+    assertEquals(2, restarted.size());
+    assertThrows(UnauthorizedException.class, () -> restarted.requireUnlocked(ACCOUNT_NUMBER));
+    restarted.requireUnlocked("987654321");
+    restarted.failed("987654321");
+    assertThrows(UnauthorizedException.class, () -> restarted.requireUnlocked("987654321"));
+  }
+
+  @Test
+  public void restore_shouldDropWhatExpiredSinceTheSnapshot(@TempDir Path directory)
+      throws InterruptedException {
+    properties.setWindow(Duration.ofMillis(50));
+    properties.setLockDuration(Duration.ofMillis(50));
+    final var file = directory.resolve("account-lockout.bin");
+    final var lockout = new AccountLockout(properties, registry);
+    for (int i = 0; i < 3; i++) {
+      lockout.failed(ACCOUNT_NUMBER);
+    }
+    lockout.failed("987654321");
+    lockout.snapshot(file);
+    Thread.sleep(80);
+
+    final var restarted = new AccountLockout(properties, new SimpleMeterRegistry());
+    restarted.restore(file);
+    restarted.restore(directory.resolve("missing.bin"));
+
+    assertEquals(0, restarted.size());
+  }
+
+  @Test
+  public void failed_shouldNeverLockWhenOff() {
+    properties.setEnabled(false);
+    final var lockout = new AccountLockout(properties, registry);
+
+    for (int i = 0; i < 10; i++) {
+      lockout.failed(ACCOUNT_NUMBER);
+    }
+
+    lockout.requireUnlocked(ACCOUNT_NUMBER);
+    assertEquals(0, lockout.size());
+  }
+}
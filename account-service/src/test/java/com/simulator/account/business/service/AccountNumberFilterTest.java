@@ -0,0 +1,60 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.infrastructure.config.AccountFilterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AccountNumberFilterTest {
+
+  private final AccountFilterProperties properties = new AccountFilterProperties();
+  private final AccountRepository repositoryMock = mock(AccountRepository.class);
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  public void load_shouldKnowEveryAccountInTheTable() {
+    when(repositoryMock.findAllAccountNumbers()).thenReturn(List.of("123456789", "987654321"));
+    final var filter = new AccountNumberFilter(properties, repositoryMock, registry);
+
+    filter.load();
+
+    assertTrue(filter.mightExist("123456789"));
+    assertTrue(filter.mightExist("987654321"));
+    assertFalse(filter.mightExist("123456780"));
+  }
+
+  @Test
+  public void mightExist_shouldStayNearTheConfiguredFalsePositiveRate() {
+    properties.setExpectedAccounts(10_000);
+    properties.setFalsePositiveRate(0.01);
+    final var filter = new AccountNumberFilter(properties, repositoryMock, registry);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("1%08d".formatted(i));
+    }
+
+    var falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      assertTrue(i >= 10_000 || filter.mightExist("1%08d".formatted(i)));
+      if (filter.mightExist("2%08d".formatted(i))) falsePositives++;
+    }
+
+    assertTrue(falsePositives < 2_000, falsePositives + " false positives out of 100000");
+  }
+
+  @Test
+  public void mightExist_shouldLetEveryAccountThroughWhenDisabled() {
+    properties.setEnabled(false);
+    final var filter = new AccountNumberFilter(properties, repositoryMock, registry);
+
+    filter.load();
+
+    assertTrue(filter.mightExist("123456789"));
+  }
+}
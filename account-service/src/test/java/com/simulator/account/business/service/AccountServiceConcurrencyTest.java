@@ -0,0 +1,99 @@
+package com.simulator.account.business.service;
+
+import com.simulator.exception.BadRequestException;
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.simulator.account.business.service.utils.AccountServiceUtils.getTransactionRequest;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:account_concurrency_db",
+      "account.lockout.snapshot.enabled=false",
+      "session.secret=atm-simulator-test-session-secret-0001"
+    })
+public class AccountServiceConcurrencyTest {
+
+  private static final int THREADS = 16;
+  private static final int WITHDRAWALS_PER_THREAD = 50;
+
+  @Autowired private AccountService accountService;
+  @Autowired private AccountRepository accountRepository;
+  @Autowired private AccountWriteProperties properties;
+  @Autowired private AccountShards shards;
+  @Autowired private AccountCache cache;
+
+  @AfterEach
+  public void tearDown() {
+    shards.flush();
+    properties.setMode(WriteMode.ATOMIC);
+    properties.setMaxAttempts(5);
+  }
+
+  @ParameterizedTest
+  @EnumSource(WriteMode.class)
+  public void withdraw_shouldNeitherLoseUpdatesNorOverdrawUnderContention(WriteMode mode)
+      throws Exception {
+    final var accountNumber = "123456789";
+    final var pin = "1234";
+    final var account = accountRepository.findByAccountNumber(accountNumber).orElseThrow();
+    account.setBalance(BigDecimal.valueOf(800));
+    accountRepository.save(account);
+    cache.evict(accountNumber);
+    properties.setMode(mode);
+    properties.setMaxAttempts(1_000);
+    final var transaction = getTransactionRequest(5);
+    final var withdrawn = new AtomicInteger();
+
+    final var start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < WITHDRAWALS_PER_THREAD; i++) {
+                    try {
+                      accountService.withdraw(accountNumber, pin, transaction);
+                      withdrawn.incrementAndGet();
+                    } catch (BadRequestException e) {
+                      // balance plus overdraft is used up
+                    }
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    // 800 balance plus 200 overdraft pays for exactly 200 withdrawals of 5
+    assertEquals(200, withdrawn.get());
+    assertEquals(
+        0,
+        BigDecimal.valueOf(-200)
+            .compareTo(accountService.balance(accountNumber, pin).getBalance()));
+  }
+}
@@ -1,15 +1,37 @@
 package com.simulator.account.business.service;
 
 import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository;
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository.BalanceChange;
 import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.infrastructure.config.AccountCacheProperties;
+import com.simulator.account.infrastructure.config.AccountFilterProperties;
+import com.simulator.account.infrastructure.config.AccountIdempotencyProperties;
+import com.simulator.account.infrastructure.config.AccountLockoutProperties;
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
 import com.simulator.exception.BadRequestException;
+import com.simulator.exception.ConflictException;
 import com.simulator.exception.DataNotFoundException;
+import com.simulator.exception.UnauthorizedException;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.simulator.account.business.service.utils.AccountServiceUtils.getAccountEntity;
@@ -20,14 +42,64 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 public class AccountServiceTest {
 
   @Mock private AccountRepository accountRepositoryMock;
+  @Mock private AccountBalanceBatchRepository batchRepositoryMock;
+
+  private final AccountWriteProperties properties = new AccountWriteProperties();
+  private final AccountCacheProperties cacheProperties = new AccountCacheProperties();
+  private final AccountFilterProperties filterProperties = new AccountFilterProperties();
+  private final AccountPinProperties pinProperties = new AccountPinProperties();
+  private final AccountLockoutProperties lockoutProperties = new AccountLockoutProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final SessionTokens sessions =
+      new SessionTokens(
+          "account-service-test-session-secret".getBytes(StandardCharsets.UTF_8),
+          Duration.ofMinutes(5),
+          Clock.systemUTC());
+  private AccountShards shards;
+  private GroupCommitWriter groupCommit;
+  private AccountNumberFilter filter;
+  private AccountService accountService;
+
+  @BeforeEach
+  public void setUp() {
+    properties.setBackoff(Duration.ZERO);
+    properties.setShards(2);
+    properties.setFlushInterval(Duration.ofHours(1));
+    pinProperties.setIterations(1_000);
+    shards = new AccountShards(batchRepositoryMock, properties);
+    filter = new AccountNumberFilter(filterProperties, accountRepositoryMock, registry);
+    filter.add("234566");
+    groupCommit =
+        new GroupCommitWriter(
+            batchRepositoryMock, TransactionOperations.withoutTransaction(), properties, registry);
+    accountService =
+        new AccountService(
+            accountRepositoryMock,
+            properties,
+            TransactionOperations.withoutTransaction(),
+            new OptimisticWriteRetry(properties, registry),
+            shards,
+            groupCommit,
+            new AccountCache(cacheProperties, registry),
+            filter,
+            new IdempotencyStore(new AccountIdempotencyProperties(), registry),
+            sessions,
+            new VerifiedPins(pinProperties, new PinHasher(pinProperties), registry),
+            new AccountLockout(lockoutProperties, registry));
+  }
 
-  @InjectMocks private AccountService accountService;
+  @AfterEach
+  public void tearDown() throws InterruptedException {
+    shards.close();
+    groupCommit.close();
+  }
 
   @Test
   public void getBalance_shouldGetBalance() {
@@ -56,8 +128,7 @@ public class AccountServiceTest {
     final var assertThrows =
         assertThrows(DataNotFoundException.class, () -> accountService.balance(accountNumber, pin));
 
-    assertEquals(
-        "Account number '%s' was not found".formatted(accountNumber), assertThrows.getMessage());
+    assertEquals("Account number was not found", assertThrows.getMessage());
 
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
   }
@@ -87,15 +158,15 @@ public class AccountServiceTest {
 
     final var transaction = getTransactionRequest(500);
 
-    final var returnedAccount = getAccountEntity(accountNumber, pin, 800, 200);
-
     when(accountRepositoryMock.findByAccountNumber(accountNumber))
-        .thenReturn(Optional.of(returnedAccount));
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount())).thenReturn(1);
 
     accountService.withdraw(accountNumber, pin, transaction);
 
+    verify(accountRepositoryMock, times(1)).debit(accountNumber, transaction.getAmount());
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
-    verify(accountRepositoryMock, times(1)).save(any(AccountEntity.class));
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
   }
 
   @Test
@@ -111,8 +182,7 @@ public class AccountServiceTest {
             DataNotFoundException.class,
             () -> accountService.withdraw(accountNumber, pin, transaction));
 
-    assertEquals(
-        "Account number '%s' was not found".formatted(accountNumber), assertThrows.getMessage());
+    assertEquals("Account number was not found", assertThrows.getMessage());
 
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
     verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
@@ -137,6 +207,7 @@ public class AccountServiceTest {
     assertEquals("Pin account is invalid!", assertThrows.getMessage());
 
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
+    verify(accountRepositoryMock, times(0)).debit(anyString(), any());
     verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
   }
 
@@ -148,6 +219,7 @@ public class AccountServiceTest {
 
     final var returnedAccount = getAccountEntity(accountNumber, pin, 200, 200);
 
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount())).thenReturn(0);
     when(accountRepositoryMock.findByAccountNumber(accountNumber))
         .thenReturn(Optional.of(returnedAccount));
 
@@ -170,15 +242,15 @@ public class AccountServiceTest {
 
     final var transaction = getTransactionRequest(500);
 
-    final var returnedAccount = getAccountEntity(accountNumber, pin, 800, 200);
-
     when(accountRepositoryMock.findByAccountNumber(accountNumber))
-        .thenReturn(Optional.of(returnedAccount));
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+    when(accountRepositoryMock.credit(accountNumber, transaction.getAmount())).thenReturn(1);
 
     accountService.deposit(accountNumber, pin, transaction);
 
+    verify(accountRepositoryMock, times(1)).credit(accountNumber, transaction.getAmount());
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
-    verify(accountRepositoryMock, times(1)).save(any(AccountEntity.class));
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
   }
 
   @Test
@@ -194,8 +266,7 @@ public class AccountServiceTest {
             DataNotFoundException.class,
             () -> accountService.deposit(accountNumber, pin, transaction));
 
-    assertEquals(
-        "Account number '%s' was not found".formatted(accountNumber), assertThrows.getMessage());
+    assertEquals("Account number was not found", assertThrows.getMessage());
 
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
     verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
@@ -222,4 +293,482 @@ public class AccountServiceTest {
     verify(accountRepositoryMock, times(1)).findByAccountNumber(anyString());
     verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
   }
+
+  @Test
+  public void withdraw_shouldSaveTheNewBalanceWhenModeIsOptimistic() {
+    properties.setMode(WriteMode.OPTIMISTIC);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var returnedAccount = getAccountEntity(accountNumber, pin, 800, 200);
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(returnedAccount));
+
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(900));
+
+    assertEquals(BigDecimal.valueOf(-100), returnedAccount.getBalance());
+    verify(accountRepositoryMock, times(1)).save(returnedAccount);
+    verify(accountRepositoryMock, times(0)).debit(anyString(), any());
+  }
+
+  @Test
+  public void withdraw_shouldRetryWhenAnotherRequestChangedTheAccount() {
+    properties.setMode(WriteMode.OPTIMISTIC);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+    when(accountRepositoryMock.save(any(AccountEntity.class)))
+        .thenThrow(new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500));
+
+    verify(accountRepositoryMock, times(3)).findByAccountNumber(accountNumber);
+    verify(accountRepositoryMock, times(2)).save(any(AccountEntity.class));
+    assertEquals(
+        1, registry.get("account.write.conflicts").tag("endpoint", "withdraw").counter().count());
+    assertEquals(
+        1, registry.get("account.write.retries").tag("endpoint", "withdraw").counter().count());
+  }
+
+  @Test
+  public void deposit_shouldConflictWhenEveryAttemptConflicts() {
+    properties.setMode(WriteMode.OPTIMISTIC);
+    properties.setMaxAttempts(3);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+    when(accountRepositoryMock.save(any(AccountEntity.class)))
+        .thenThrow(new ObjectOptimisticLockingFailureException(AccountEntity.class, 1L));
+
+    final var assertThrows =
+        assertThrows(
+            ConflictException.class,
+            () -> accountService.deposit(accountNumber, pin, getTransactionRequest(500)));
+
+    assertEquals(
+        "The account is being updated by another request, please try again",
+        assertThrows.getMessage());
+    assertEquals(
+        3, registry.get("account.write.conflicts").tag("endpoint", "deposit").counter().count());
+    assertEquals(
+        2, registry.get("account.write.retries").tag("endpoint", "deposit").counter().count());
+    assertEquals(
+        1, registry.get("account.write.exhausted").tag("endpoint", "deposit").counter().count());
+  }
+
+  @Test
+  public void withdraw_shouldBadRequestWhenAccountHasInsufficientFundsAndModeIsOptimistic() {
+    properties.setMode(WriteMode.OPTIMISTIC);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 200, 200)));
+
+    final var assertThrows =
+        assertThrows(
+            BadRequestException.class,
+            () -> accountService.withdraw(accountNumber, pin, getTransactionRequest(800)));
+
+    assertEquals(
+        "Your Account has insufficient funds to complete this request", assertThrows.getMessage());
+    verify(accountRepositoryMock, times(2)).findByAccountNumber(accountNumber);
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
+  }
+
+  @Test
+  public void withdraw_shouldLockTheAccountWhenModeIsPessimistic() {
+    properties.setMode(WriteMode.PESSIMISTIC);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var returnedAccount = getAccountEntity(accountNumber, pin, 800, 200);
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(returnedAccount.toBuilder().build()));
+    when(accountRepositoryMock.findForUpdate(accountNumber))
+        .thenReturn(Optional.of(returnedAccount));
+
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500));
+
+    assertEquals(BigDecimal.valueOf(300), returnedAccount.getBalance());
+    verify(accountRepositoryMock, times(1)).save(returnedAccount);
+    verify(accountRepositoryMock, times(1)).findForUpdate(accountNumber);
+  }
+
+  @Test
+  public void deposit_shouldDataNotFoundWhenAccountIsNotFoundAndModeIsPessimistic() {
+    properties.setMode(WriteMode.PESSIMISTIC);
+    final var accountNumber = "234566";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, "12345", 800, 200)));
+    when(accountRepositoryMock.findForUpdate(accountNumber)).thenReturn(Optional.empty());
+
+    assertThrows(
+        DataNotFoundException.class,
+        () -> accountService.deposit(accountNumber, "12345", getTransactionRequest(500)));
+
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
+  }
+
+  @Test
+  public void withdraw_shouldChangeTheBalanceInMemoryAndWriteItBackWhenModeIsSharded() {
+    properties.setMode(WriteMode.SHARDED);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500));
+    accountService.deposit(accountNumber, pin, getTransactionRequest(100));
+
+    assertEquals(BigDecimal.valueOf(400), accountService.balance(accountNumber, pin).getBalance());
+    verify(batchRepositoryMock, times(0)).updateBalances(any());
+
+    shards.flush();
+
+    verify(batchRepositoryMock, times(1))
+        .updateBalances(Map.of(accountNumber, BigDecimal.valueOf(400)));
+    verify(accountRepositoryMock, times(1)).findByAccountNumber(accountNumber);
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
+  }
+
+  @Test
+  public void withdraw_shouldKeepTheBalanceWhenAccountHasInsufficientFundsAndModeIsSharded() {
+    properties.setMode(WriteMode.SHARDED);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 200, 200)));
+
+    final var assertThrows =
+        assertThrows(
+            BadRequestException.class,
+            () -> accountService.withdraw(accountNumber, pin, getTransactionRequest(800)));
+
+    assertEquals(
+        "Your Account has insufficient funds to complete this request", assertThrows.getMessage());
+    assertEquals(BigDecimal.valueOf(200), accountService.balance(accountNumber, pin).getBalance());
+
+    shards.flush();
+
+    verify(batchRepositoryMock, times(0)).updateBalances(any());
+  }
+
+  @Test
+  public void withdraw_shouldApplyTheChangeInAGroupCommitWhenModeIsGroupCommit() {
+    properties.setMode(WriteMode.GROUP_COMMIT);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+    when(batchRepositoryMock.applyChanges(
+            List.of(new BalanceChange(accountNumber, BigDecimal.valueOf(-500)))))
+        .thenReturn(new int[] {1});
+
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500));
+
+    assertEquals(1, registry.get("account.write.batch.size").summary().count());
+    assertEquals(1, registry.get("account.write.batch.wait").timer().count());
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
+  }
+
+  @Test
+  public void withdraw_shouldBadRequestWhenAccountHasInsufficientFundsAndModeIsGroupCommit() {
+    properties.setMode(WriteMode.GROUP_COMMIT);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(batchRepositoryMock.applyChanges(any())).thenReturn(new int[] {0});
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 200, 200)));
+
+    final var assertThrows =
+        assertThrows(
+            BadRequestException.class,
+            () -> accountService.withdraw(accountNumber, pin, getTransactionRequest(800)));
+
+    assertEquals(
+        "Your Account has insufficient funds to complete this request", assertThrows.getMessage());
+    verify(accountRepositoryMock, times(0)).save(any(AccountEntity.class));
+  }
+
+  @Test
+  public void getBalance_shouldServeTheAccountFromTheCacheOnceRead() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+
+    accountService.balance(accountNumber, pin);
+    final var accountEntity = accountService.balance(accountNumber, pin);
+
+    assertEquals(BigDecimal.valueOf(800), accountEntity.getBalance());
+    verify(accountRepositoryMock, times(1)).findByAccountNumber(accountNumber);
+    assertEquals(1, registry.get("account.cache.gets").tag("result", "hit").counter().count());
+    assertEquals(1, registry.get("account.cache.gets").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  public void getBalance_shouldReadTheDatabaseEveryTimeWhenTheCacheIsOff() {
+    cacheProperties.setEnabled(false);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+
+    accountService.balance(accountNumber, pin);
+    accountService.balance(accountNumber, pin);
+
+    verify(accountRepositoryMock, times(2)).findByAccountNumber(accountNumber);
+  }
+
+  @Test
+  public void getBalance_shouldServeTheNewBalanceFromTheCacheAfterAPessimisticWithdraw() {
+    properties.setMode(WriteMode.PESSIMISTIC);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var stored = getAccountEntity(accountNumber, pin, 800, 200);
+    stored.setVersion(1L);
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(stored.toBuilder().build()));
+    when(accountRepositoryMock.findForUpdate(accountNumber))
+        .thenReturn(Optional.of(stored.toBuilder().version(2L).build()));
+
+    accountService.balance(accountNumber, pin);
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500));
+
+    assertEquals(BigDecimal.valueOf(300), accountService.balance(accountNumber, pin).getBalance());
+    verify(accountRepositoryMock, times(1)).findByAccountNumber(accountNumber);
+  }
+
+  @Test
+  public void getBalance_shouldReadTheDatabaseAgainAfterAnAtomicWithdraw() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 300, 200)));
+    when(accountRepositoryMock.debit(accountNumber, BigDecimal.valueOf(500))).thenReturn(1);
+
+    accountService.balance(accountNumber, pin);
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500));
+
+    assertEquals(BigDecimal.valueOf(300), accountService.balance(accountNumber, pin).getBalance());
+    verify(accountRepositoryMock, times(2)).findByAccountNumber(accountNumber);
+  }
+
+  @Test
+  public void withdraw_shouldDataNotFoundWithoutQueryingWhenTheFilterDoesNotKnowTheAccount() {
+    final var accountNumber = "999999";
+
+    final var assertThrows =
+        assertThrows(
+            DataNotFoundException.class,
+            () -> accountService.withdraw(accountNumber, "12345", getTransactionRequest(500)));
+
+    assertEquals("Account number was not found", assertThrows.getMessage());
+    assertEquals(1, registry.get("account.filter.rejections").counter().count());
+    verifyNoInteractions(accountRepositoryMock);
+  }
+
+  @Test
+  public void withdraw_shouldDebitOnceWhenTheIdempotencyKeyIsRepeated() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var transaction = getTransactionRequest(500);
+
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount())).thenReturn(1);
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 300, 200)));
+
+    accountService.withdraw(accountNumber, pin, transaction, "key-1");
+    accountService.withdraw(accountNumber, pin, getTransactionRequest(500), "key-1");
+
+    verify(accountRepositoryMock, times(1)).debit(accountNumber, transaction.getAmount());
+    assertEquals(
+        1,
+        registry.get("account.idempotency.requests").tag("result", "replayed").counter().count());
+  }
+
+  @Test
+  public void withdraw_shouldCheckThePinWhenReplayingAnIdempotencyKey() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var transaction = getTransactionRequest(500);
+
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount())).thenReturn(1);
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 300, 200)));
+
+    accountService.withdraw(accountNumber, pin, transaction, "key-1");
+    final var assertThrows =
+        assertThrows(
+            BadRequestException.class,
+            () -> accountService.withdraw(accountNumber, "4321", transaction, "key-1"));
+
+    assertEquals("Pin account is invalid!", assertThrows.getMessage());
+  }
+
+  @Test
+  public void withdraw_shouldConflictWhenTheIdempotencyKeyIsReusedForAnotherAmount() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var transaction = getTransactionRequest(500);
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount())).thenReturn(1);
+
+    accountService.withdraw(accountNumber, pin, transaction, "key-1");
+
+    assertThrows(
+        ConflictException.class,
+        () -> accountService.withdraw(accountNumber, pin, getTransactionRequest(400), "key-1"));
+    verify(accountRepositoryMock, times(1)).debit(anyString(), any());
+  }
+
+  @Test
+  public void withdraw_shouldRunAgainWhenTheFirstAttemptWithTheKeyFailed() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var transaction = getTransactionRequest(500);
+
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount()))
+        .thenReturn(0)
+        .thenReturn(1);
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 0, 0)));
+
+    assertThrows(
+        BadRequestException.class,
+        () -> accountService.withdraw(accountNumber, pin, transaction, "key-1"));
+    accountService.withdraw(accountNumber, pin, transaction, "key-1");
+
+    verify(accountRepositoryMock, times(2)).debit(accountNumber, transaction.getAmount());
+  }
+
+  @Test
+  public void openSession_shouldIssueATokenOnceThePinIsChecked() {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+
+    final var session = accountService.openSession(accountNumber, pin);
+
+    assertEquals(accountNumber, sessions.verify(session.getToken()).getAccountNumber());
+  }
+
+  @Test
+  public void openSession_shouldBadRequestWhenPinIsInvalid() {
+    final var accountNumber = "234566";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, "12345", 800, 200)));
+
+    final var assertThrows =
+        assertThrows(
+            BadRequestException.class, () -> accountService.openSession(accountNumber, "11111"));
+
+    assertEquals("Pin account is invalid!", assertThrows.getMessage());
+  }
+
+  @Test
+  public void withdraw_shouldDebitWithoutReadingTheAccountWhenTheSessionTokenIsValid() {
+    final var accountNumber = "234566";
+    final var transaction = getTransactionRequest(500);
+    final var token = sessions.issue(accountNumber).getToken();
+
+    when(accountRepositoryMock.debit(accountNumber, transaction.getAmount())).thenReturn(1);
+
+    accountService.withdraw(accountNumber, Credentials.session(token), transaction, null);
+
+    verify(accountRepositoryMock, times(1)).debit(accountNumber, transaction.getAmount());
+    verify(accountRepositoryMock, times(0)).findByAccountNumber(anyString());
+  }
+
+  @Test
+  public void withdraw_shouldUnauthorizedWhenTheSessionTokenIsForAnotherAccount() {
+    final var transaction = getTransactionRequest(500);
+    final var token = sessions.issue("987654").getToken();
+
+    assertThrows(
+        UnauthorizedException.class,
+        () -> accountService.withdraw("234566", Credentials.session(token), transaction, null));
+
+    verifyNoInteractions(accountRepositoryMock);
+  }
+
+  @Test
+  public void getBalance_shouldUnauthorizedOnceTheSessionIsClosed() {
+    final var accountNumber = "234566";
+    final var token = sessions.issue(accountNumber).getToken();
+
+    accountService.closeSession(token);
+
+    assertThrows(
+        UnauthorizedException.class,
+        () -> accountService.balance(accountNumber, Credentials.session(token)));
+  }
+
+  @Test
+  public void getBalance_shouldUnauthorizedWithoutReadingTheAccountOnceLocked() {
+    cacheProperties.setEnabled(false);
+    lockoutProperties.setMaxAttempts(3);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+
+    for (int i = 0; i < 3; i++) {
+      assertThrows(BadRequestException.class, () -> accountService.balance(accountNumber, "4321"));
+    }
+    final var assertThrows =
+        assertThrows(UnauthorizedException.class, () -> accountService.balance(accountNumber, pin));
+
+    assertEquals(
+        "Account is locked after too many invalid pins, please try again later",
+        assertThrows.getMessage());
+    assertThrows(
+        UnauthorizedException.class,
+        () -> accountService.withdraw(accountNumber, pin, getTransactionRequest(500)));
+    verify(accountRepositoryMock, times(3)).findByAccountNumber(accountNumber);
+    verify(accountRepositoryMock, times(0)).debit(anyString(), any());
+    assertEquals(1, registry.get("account.lockout.locks").counter().count());
+  }
+
+  @Test
+  public void getBalance_shouldForgetTheInvalidPinsAfterAValidOne() {
+    lockoutProperties.setMaxAttempts(3);
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(accountRepositoryMock.findByAccountNumber(accountNumber))
+        .thenReturn(Optional.of(getAccountEntity(accountNumber, pin, 800, 200)));
+
+    for (int i = 0; i < 2; i++) {
+      assertThrows(BadRequestException.class, () -> accountService.balance(accountNumber, "4321"));
+    }
+    accountService.balance(accountNumber, pin);
+    for (int i = 0; i < 2; i++) {
+      assertThrows(BadRequestException.class, () -> accountService.balance(accountNumber, "4321"));
+    }
+
+    assertEquals(BigDecimal.valueOf(800), accountService.balance(accountNumber, pin).getBalance());
+  }
 }
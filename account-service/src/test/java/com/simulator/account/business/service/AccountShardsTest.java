@@ -0,0 +1,113 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static com.simulator.account.business.service.utils.AccountServiceUtils.getAccountEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class AccountShardsTest {
+
+  private static final int THREADS = 8;
+  private static final int DEPOSITS_PER_THREAD = 1_000;
+  private static final List<String> ACCOUNTS = List.of("111", "222", "333", "444", "555");
+
+  private final AccountBalanceBatchRepository batchRepositoryMock =
+      mock(AccountBalanceBatchRepository.class);
+  private final Function<String, AccountEntity> loader =
+      accountNumber -> getAccountEntity(accountNumber, "1234", 0, 0);
+  private AccountShards shards;
+
+  @AfterEach
+  public void tearDown() throws InterruptedException {
+    shards.close();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void update_shouldApplyEveryChangeOnceAndWriteBackTheLatestBalances() throws Exception {
+    shards = new AccountShards(batchRepositoryMock, properties(3, Duration.ofMillis(1)));
+
+    final var start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+                    shards.update(
+                        ACCOUNTS.get(i % ACCOUNTS.size()),
+                        loader,
+                        account -> account.setBalance(account.getBalance().add(BigDecimal.ONE)));
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    shards.flush();
+
+    final var written = new HashMap<String, BigDecimal>();
+    final ArgumentCaptor<Map<String, BigDecimal>> batches = ArgumentCaptor.forClass(Map.class);
+    verify(batchRepositoryMock, atLeastOnce()).updateBalances(batches.capture());
+    batches.getAllValues().forEach(written::putAll);
+
+    final var expected = BigDecimal.valueOf(THREADS * DEPOSITS_PER_THREAD / ACCOUNTS.size());
+    for (String accountNumber : ACCOUNTS) {
+      assertEquals(expected, shards.read(accountNumber, loader).getBalance());
+      assertEquals(expected, written.get(accountNumber));
+    }
+  }
+
+  @Test
+  public void update_shouldWriteTheBalanceAgainWhenTheBatchFails() throws Exception {
+    shards = new AccountShards(batchRepositoryMock, properties(1, Duration.ofMillis(1)));
+    doThrow(new IllegalStateException("database is down"))
+        .doNothing()
+        .when(batchRepositoryMock)
+        .updateBalances(any());
+
+    shards.update("111", loader, account -> account.setBalance(BigDecimal.TEN));
+
+    verify(batchRepositoryMock, timeout(5_000).times(2))
+        .updateBalances(Map.of("111", BigDecimal.TEN));
+  }
+
+  private static AccountWriteProperties properties(int shards, Duration flushInterval) {
+    final var properties = new AccountWriteProperties();
+    properties.setShards(shards);
+    properties.setFlushInterval(flushInterval);
+    return properties;
+  }
+}
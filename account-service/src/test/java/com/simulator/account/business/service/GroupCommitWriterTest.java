@@ -0,0 +1,167 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository;
+import com.simulator.account.business.persistence.repository.AccountBalanceBatchRepository.BalanceChange;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GroupCommitWriterTest {
+
+  private static final int THREADS = 16;
+  private static final int WRITES_PER_THREAD = 20;
+
+  private final AccountBalanceBatchRepository batchRepositoryMock =
+      mock(AccountBalanceBatchRepository.class);
+  private final AccountWriteProperties properties = new AccountWriteProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private GroupCommitWriter groupCommit;
+
+  @BeforeEach
+  public void setUp() {
+    properties.setBatchWindow(Duration.ofMillis(5));
+    properties.setMaxBatch(8);
+    groupCommit =
+        new GroupCommitWriter(
+            batchRepositoryMock, TransactionOperations.withoutTransaction(), properties, registry);
+  }
+
+  @AfterEach
+  public void tearDown() throws InterruptedException {
+    groupCommit.close();
+  }
+
+  @Test
+  public void apply_shouldCommitConcurrentWritesTogetherAndAnswerEachOne() throws Exception {
+    // credits are applied, debits are refused
+    when(batchRepositoryMock.applyChanges(any()))
+        .thenAnswer(
+            invocation -> {
+              final List<BalanceChange> changes = invocation.getArgument(0);
+              return changes.stream()
+                  .mapToInt(change -> change.getAmount().signum() > 0 ? 1 : 0)
+                  .toArray();
+            });
+
+    final var start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        final var credit = t % 2 == 0;
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  for (int i = 0; i < WRITES_PER_THREAD; i++) {
+                    final var amount = credit ? BigDecimal.TEN : BigDecimal.TEN.negate();
+                    assertEquals(credit, groupCommit.apply("123456789", amount));
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    final var batchSize = registry.get("account.write.batch.size").summary();
+    assertEquals(THREADS * WRITES_PER_THREAD, batchSize.totalAmount());
+    assertTrue(batchSize.count() < THREADS * WRITES_PER_THREAD, "No writes were grouped");
+    assertTrue(batchSize.max() <= properties.getMaxBatch());
+    assertEquals(
+        THREADS * WRITES_PER_THREAD, registry.get("account.write.batch.wait").timer().count());
+  }
+
+  @Test
+  public void apply_shouldFailEveryWriteOfTheBatchWhenTheCommitFails() {
+    final var failure = new DataAccessResourceFailureException("database is down");
+    when(batchRepositoryMock.applyChanges(any())).thenThrow(failure);
+
+    final var assertThrows =
+        assertThrows(
+            DataAccessResourceFailureException.class,
+            () -> groupCommit.apply("123456789", BigDecimal.TEN));
+
+    assertEquals(failure, assertThrows);
+  }
+
+  @Test
+  public void apply_shouldApplyEachWriteAloneWhenTheDriverGivesNoCountPerWrite() {
+    when(batchRepositoryMock.applyChanges(any())).thenReturn(new int[] {Statement.SUCCESS_NO_INFO});
+    when(batchRepositoryMock.applyEach(any())).thenReturn(new int[] {0});
+
+    assertFalse(groupCommit.apply("123456789", BigDecimal.TEN.negate()));
+    verify(batchRepositoryMock)
+        .applyEach(List.of(new BalanceChange("123456789", BigDecimal.TEN.negate())));
+  }
+
+  @Test
+  public void apply_shouldStartANewCommitterWhenTheThreadDied() {
+    when(batchRepositoryMock.applyChanges(any()))
+        .thenThrow(new StackOverflowError())
+        .thenReturn(new int[] {1});
+
+    assertThrows(IllegalStateException.class, () -> groupCommit.apply("123456789", BigDecimal.TEN));
+    assertTrue(groupCommit.apply("123456789", BigDecimal.TEN));
+  }
+
+  @Test
+  public void apply_shouldLeaveTheOutcomeOpenWhenTheCommitTakesLongerThanTheTimeout()
+      throws Exception {
+    properties.setCommitTimeout(Duration.ofMillis(100));
+    final var release = new CountDownLatch(1);
+    when(batchRepositoryMock.applyChanges(any()))
+        .thenAnswer(
+            invocation -> {
+              release.await(10, TimeUnit.SECONDS);
+              return new int[] {1};
+            });
+
+    final WriteOutcomeUnknownException unknown;
+    try {
+      unknown =
+          assertThrows(
+              WriteOutcomeUnknownException.class,
+              () -> groupCommit.apply("123456789", BigDecimal.TEN));
+    } finally {
+      release.countDown();
+    }
+    assertEquals(true, unknown.outcome().get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void apply_shouldRefuseWritesOnceClosed() throws InterruptedException {
+    groupCommit.close();
+
+    assertThrows(IllegalStateException.class, () -> groupCommit.apply("123456789", BigDecimal.TEN));
+    assertFalse(registry.get("account.write.batch.size").summary().count() > 0);
+  }
+}
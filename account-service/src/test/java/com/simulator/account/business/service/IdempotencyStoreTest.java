@@ -0,0 +1,198 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountIdempotencyProperties;
+import com.simulator.exception.BadRequestException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class IdempotencyStoreTest {
+
+  private final AccountIdempotencyProperties properties = new AccountIdempotencyProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AtomicInteger writes = new AtomicInteger();
+  private final Runnable write = writes::incrementAndGet;
+  private final Runnable noCheck = () -> {};
+
+  @Test
+  public void execute_shouldMakeARepeatWaitForTheRunningWrite() throws Exception {
+    final var store = new IdempotencyStore(properties, registry);
+    final var started = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var executor = Executors.newFixedThreadPool(2);
+    try {
+      final var first =
+          executor.submit(
+              () ->
+                  store.execute(
+                      "key",
+                      BigDecimal.TEN,
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        writes.incrementAndGet();
+                      },
+                      noCheck));
+      started.await(5, TimeUnit.SECONDS);
+
+      final var repeat =
+          executor.submit(() -> store.execute("key", BigDecimal.TEN, write, noCheck));
+      Thread.sleep(50);
+      assertEquals(0, writes.get());
+
+      release.countDown();
+      first.get(5, TimeUnit.SECONDS);
+      repeat.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(1, writes.get());
+  }
+
+  @Test
+  public void execute_shouldShareTheFailureWithRepeatsThatWaitedForIt() throws Exception {
+    final var store = new IdempotencyStore(properties, registry);
+    final var failure = BadRequestException.rejection("Pin account is invalid!");
+    final var started = new CountDownLatch(1);
+    final var release = new CountDownLatch(1);
+    final var executor = Executors.newFixedThreadPool(2);
+    try {
+      final var first =
+          executor.submit(
+              () ->
+                  store.execute(
+                      "key",
+                      BigDecimal.TEN,
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        throw failure;
+                      },
+                      noCheck));
+      started.await(5, TimeUnit.SECONDS);
+      final var repeat =
+          executor.submit(() -> store.execute("key", BigDecimal.TEN, write, noCheck));
+      Thread.sleep(50);
+      release.countDown();
+
+      assertSame(failure, assertThrows(Exception.class, first::get).getCause());
+      assertSame(failure, assertThrows(Exception.class, repeat::get).getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(0, writes.get());
+    assertEquals(0, store.size());
+  }
+
+  @Test
+  public void execute_shouldKeepTheKeyUntilAWriteWhoseOutcomeIsUnknownSettles() throws Exception {
+    final var store = new IdempotencyStore(properties, registry);
+    final var outcome = new CompletableFuture<Void>();
+    final Runnable pending =
+        () -> {
+          throw new WriteOutcomeUnknownException(
+              "The group commit did not finish in time", outcome);
+        };
+
+    assertThrows(
+        WriteOutcomeUnknownException.class,
+        () -> store.execute("key", BigDecimal.TEN, pending, noCheck));
+    assertEquals(1, store.size());
+
+    final var executor = Executors.newSingleThreadExecutor();
+    try {
+      final var retry = executor.submit(() -> store.execute("key", BigDecimal.TEN, write, noCheck));
+      Thread.sleep(50);
+      assertFalse(retry.isDone());
+
+      outcome.complete(null);
+      retry.get(5, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    store.execute("key", BigDecimal.TEN, write, noCheck);
+    assertEquals(0, writes.get());
+  }
+
+  @Test
+  public void execute_shouldForgetTheKeyOnceTheUnknownOutcomeTurnsOutAFailure() {
+    final var store = new IdempotencyStore(properties, registry);
+    final var failure = BadRequestException.rejection("Your Account has insufficient funds");
+    final var outcome = new CompletableFuture<Void>();
+    final Runnable pending =
+        () -> {
+          throw new WriteOutcomeUnknownException(
+              "The group commit did not finish in time", outcome);
+        };
+    assertThrows(
+        WriteOutcomeUnknownException.class,
+        () -> store.execute("key", BigDecimal.TEN, pending, noCheck));
+
+    outcome.completeExceptionally(failure);
+
+    assertEquals(0, store.size());
+    store.execute("key", BigDecimal.TEN, write, noCheck);
+    assertEquals(1, writes.get());
+  }
+
+  @Test
+  public void execute_shouldForgetKeysAfterTheTtl() throws Exception {
+    properties.setTtl(Duration.ofMillis(20));
+    final var store = new IdempotencyStore(properties, registry);
+
+    store.execute("key", BigDecimal.TEN, write, noCheck);
+    Thread.sleep(40);
+    store.execute("key", BigDecimal.TEN, write, noCheck);
+
+    assertEquals(2, writes.get());
+  }
+
+  @Test
+  public void execute_shouldForgetTheLeastRecentlyUsedKeysBeyondTheMaxSize() {
+    properties.setMaxSize(16);
+    final var store = new IdempotencyStore(properties, registry);
+
+    for (int i = 0; i < 1_000; i++) {
+      store.execute("key-" + i, BigDecimal.TEN, write, noCheck);
+    }
+
+    assertEquals(1_000, writes.get());
+    assertEquals(16, store.size());
+    assertEquals(16, registry.get("account.idempotency.size").gauge().value());
+  }
+
+  @Test
+  public void execute_shouldRunEveryWriteWhenDisabled() {
+    properties.setEnabled(false);
+    final var store = new IdempotencyStore(properties, registry);
+
+    store.execute("key", BigDecimal.TEN, write, noCheck);
+    store.execute("key", BigDecimal.TEN, write, noCheck);
+
+    assertEquals(2, writes.get());
+    assertEquals(0, store.size());
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PinHasherTest {
+
+  private final AccountPinProperties properties = new AccountPinProperties();
+  private final PinHasher hasher = new PinHasher(properties);
+
+  {
+    properties.setIterations(1_000);
+  }
+
+  @Test
+  public void matches_shouldAcceptOnlyThePinTheHashWasMadeFrom() {
+    final var stored = hasher.hash("1234");
+
+    assertTrue(PinHasher.isHashed(stored));
+    assertTrue(hasher.matches("1234", stored));
+    assertFalse(hasher.matches("4321", stored));
+    assertFalse(hasher.matches("12345", stored));
+  }
+
+  @Test
+  public void hash_shouldSaltEveryHash() {
+    assertNotEquals(hasher.hash("1234"), hasher.hash("1234"));
+  }
+
+  @Test
+  public void matches_shouldKeepTheIterationsAHashWasMadeWith() {
+    final var stored = hasher.hash("1234");
+
+    properties.setIterations(2_000);
+
+    assertTrue(stored.startsWith("pbkdf2-sha256$1000$"));
+    assertTrue(hasher.matches("1234", stored));
+  }
+
+  @Test
+  public void matches_shouldCompareAPlaintextPinAsIs() {
+    assertFalse(PinHasher.isHashed("1234"));
+    assertTrue(hasher.matches("1234", "1234"));
+    assertFalse(hasher.matches("4321", "1234"));
+  }
+
+  @Test
+  public void matches_shouldRejectAMalformedHash() {
+    assertFalse(hasher.matches("1234", "pbkdf2-sha256$"));
+    assertFalse(hasher.matches("1234", "pbkdf2-sha256$x$c2FsdA$aGFzaA"));
+    assertFalse(hasher.matches("1234", "pbkdf2-sha256$1000$!!$aGFzaA"));
+    assertFalse(hasher.matches("1234", "pbkdf2-sha256$1000$$aGFzaA"));
+  }
+}
@@ -0,0 +1,67 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.business.persistence.repository.AccountPinRepository;
+import com.simulator.account.business.persistence.repository.AccountPinRepository.PinReplacement;
+import com.simulator.account.business.persistence.repository.AccountPinRepository.StoredPin;
+import com.simulator.account.infrastructure.config.AccountCacheProperties;
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PinMigrationTest {
+
+  @Mock private AccountPinRepository repositoryMock;
+
+  private final AccountPinProperties properties = new AccountPinProperties();
+  private final PinHasher hasher = new PinHasher(properties);
+  private final AccountCache cache =
+      new AccountCache(new AccountCacheProperties(), new SimpleMeterRegistry());
+
+  {
+    properties.setIterations(1_000);
+  }
+
+  @Test
+  public void migrate_shouldHashEveryPlaintextPin() {
+    when(repositoryMock.findPinsNotStartingWith("pbkdf2-sha256$"))
+        .thenReturn(
+            List.of(new StoredPin("123456789", "1234"), new StoredPin("987654321", "4321")));
+    when(repositoryMock.replacePins(any())).thenReturn(new int[] {1, 1});
+
+    new PinMigration(properties, repositoryMock, hasher, cache).migrate();
+
+    @SuppressWarnings("unchecked")
+    final ArgumentCaptor<List<PinReplacement>> replacements = ArgumentCaptor.forClass(List.class);
+    verify(repositoryMock).replacePins(replacements.capture());
+    final var replaced = replacements.getValue();
+    assertEquals(2, replaced.size());
+    assertEquals("123456789", replaced.get(0).getAccountNumber());
+    assertEquals("1234", replaced.get(0).getPreviousPin());
+    assertTrue(hasher.matches("1234", replaced.get(0).getPin()));
+    assertTrue(PinHasher.isHashed(replaced.get(1).getPin()));
+    assertTrue(hasher.matches("4321", replaced.get(1).getPin()));
+  }
+
+  @Test
+  public void migrate_shouldDoNothingWhenOff() {
+    properties.setMigrate(false);
+
+    new PinMigration(properties, repositoryMock, hasher, cache).migrate();
+
+    verifyNoInteractions(repositoryMock);
+  }
+}
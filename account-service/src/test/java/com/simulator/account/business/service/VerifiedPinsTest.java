@@ -0,0 +1,116 @@
+package com.simulator.account.business.service;
+
+import com.simulator.account.infrastructure.config.AccountPinProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VerifiedPinsTest {
+
+  private final AccountPinProperties properties = new AccountPinProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final PinHasher hasher = new PinHasher(properties);
+  private final AtomicInteger reads = new AtomicInteger();
+  private String stored;
+
+  {
+    properties.setIterations(1_000);
+    stored = hasher.hash("1234");
+  }
+
+  private final Supplier<String> storedPin =
+      () -> {
+        reads.incrementAndGet();
+        return stored;
+      };
+
+  @Test
+  public void matches_shouldNotHashAgainAPinVerifiedRecently() {
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+
+    assertEquals(1, reads.get());
+    assertEquals(1, registry.get("account.pin.cache.gets").tag("result", "hit").counter().count());
+    assertEquals(1, registry.get("account.pin.cache.gets").tag("result", "miss").counter().count());
+  }
+
+  @Test
+  public void matches_shouldCheckEveryWrongPinAgainstTheHash() {
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    assertFalse(pins.matches("123456789", "4321", storedPin));
+    assertFalse(pins.matches("123456789", "4321", storedPin));
+
+    assertEquals(3, reads.get());
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    assertEquals(3, reads.get());
+  }
+
+  @Test
+  public void matches_shouldNotAcceptAPinVerifiedForAnotherAccount() {
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    stored = hasher.hash("4321");
+
+    assertFalse(pins.matches("987654321", "1234", storedPin));
+    assertEquals(2, reads.get());
+  }
+
+  @Test
+  public void matches_shouldHashAgainOnceTheEntryExpired() throws InterruptedException {
+    properties.getCache().setTtl(Duration.ofMillis(20));
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    Thread.sleep(40);
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+
+    assertEquals(2, reads.get());
+  }
+
+  @Test
+  public void matches_shouldHashAgainOnceEvicted() {
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    pins.evict("123456789");
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+
+    assertEquals(2, reads.get());
+    assertEquals(1, pins.size());
+  }
+
+  @Test
+  public void matches_shouldKeepAtMostMaxSizeAccounts() {
+    properties.getCache().setMaxSize(16);
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    for (int i = 0; i < 100; i++) {
+      pins.matches(String.valueOf(100_000 + i), "1234", storedPin);
+    }
+
+    assertTrue(pins.size() <= 16);
+  }
+
+  @Test
+  public void matches_shouldHashEveryTimeWhenTheCacheIsOff() {
+    properties.getCache().setEnabled(false);
+    final var pins = new VerifiedPins(properties, hasher, registry);
+
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+    assertTrue(pins.matches("123456789", "1234", storedPin));
+
+    assertEquals(2, reads.get());
+  }
+}
@@ -1,13 +1,23 @@
 package com.simulator.account.business.web.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.simulator.account.AccountApplication;
 import com.simulator.account.business.persistence.entity.AccountEntity;
 import com.simulator.account.business.service.AccountService;
 import com.simulator.account.business.web.helper.AccountHelper;
-import com.simulator.account.infrastructure.config.ModelMapperConfig;
+import com.simulator.account.business.web.helper.BatchExecutor;
+import com.simulator.account.infrastructure.config.AccountWriteProperties;
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.BatchWithdrawRequest;
+import com.simulator.dto.BatchWithdrawResponse;
 import com.simulator.dto.TransactionRequest;
+import com.simulator.dto.SessionResponse;
+import com.simulator.dto.WithdrawalItem;
 import com.simulator.exception.BadRequestException;
 import com.simulator.exception.DataNotFoundException;
+import com.simulator.exception.UnauthorizedException;
+import com.simulator.session.Credentials;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,25 +28,40 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import static com.simulator.account.business.web.controller.utils.AccountControllerUtils.getBatchWithdrawRequestJson;
 import static com.simulator.account.business.web.controller.utils.AccountControllerUtils.getTransactionRequestJson;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.http.MediaType.APPLICATION_CBOR;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest({AccountController.class})
-@ContextConfiguration(classes = { AccountApplication.class, ModelMapperConfig.class, AccountHelper.class})
+@ContextConfiguration(
+    classes = { AccountApplication.class, AccountHelper.class, BatchExecutor.class, AccountWriteProperties.class})
 public class AccountControllerTest {
 
+  private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
   @Autowired private MockMvc mockMvc;
 
   @MockBean private AccountService accountServiceMock;
@@ -56,7 +81,26 @@ public class AccountControllerTest {
         .andExpect(status().is(200));
 
     verify(accountServiceMock, times(1))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .withdraw(anyString(), anyString(), any(TransactionRequest.class), any());
+  }
+
+  @Test
+  public void withdraw_shouldPassTheIdempotencyKeyOn() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var requestJson = getTransactionRequestJson();
+
+    mockMvc
+        .perform(
+            put("/v1/accounts/{accountNumber}/withdraw", accountNumber)
+                .header("pin", pin)
+                .header("Idempotency-Key", "key-1")
+                .contentType(APPLICATION_JSON)
+                .content(requestJson))
+        .andExpect(status().is(200));
+
+    verify(accountServiceMock, times(1))
+        .withdraw(eq(accountNumber), eq(pin), any(TransactionRequest.class), eq("key-1"));
   }
 
   @Test
@@ -78,7 +122,7 @@ public class AccountControllerTest {
                     "Required request header 'pin' for method parameter type String is not present"));
 
     verify(accountServiceMock, times(0))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .withdraw(anyString(), anyString(), any(TransactionRequest.class), any());
   }
 
   @Test
@@ -90,7 +134,7 @@ public class AccountControllerTest {
 
     doThrow(new DataNotFoundException("Account number '%s' was not found".formatted(accountNumber)))
         .when(accountServiceMock)
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .withdraw(anyString(), anyString(), any(TransactionRequest.class), any());
 
     mockMvc
         .perform(
@@ -114,7 +158,7 @@ public class AccountControllerTest {
 
     doThrow(new BadRequestException("Pin account is invalid!"))
         .when(accountServiceMock)
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .withdraw(anyString(), anyString(), any(TransactionRequest.class), any());
 
     mockMvc
         .perform(
@@ -136,7 +180,7 @@ public class AccountControllerTest {
 
     doThrow(new BadRequestException("Your Account has insufficient funds to complete this request"))
         .when(accountServiceMock)
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .withdraw(anyString(), anyString(), any(TransactionRequest.class), any());
 
     mockMvc
         .perform(
@@ -324,4 +368,261 @@ public class AccountControllerTest {
         .andExpect(jsonPath("status").value("Bad Request"))
         .andExpect(jsonPath("description").value("Pin account is invalid!"));
   }
+
+  @Test
+  public void withdraw_shouldAnswerARejectionWithItsPreparedBody() throws Exception {
+
+    final var accountNumber = "234566";
+    final var requestJson = getTransactionRequestJson();
+    final var pin = "1234";
+
+    doThrow(BadRequestException.rejection("Your Account has \"insufficient\" funds"))
+        .when(accountServiceMock)
+        .withdraw(anyString(), anyString(), any(TransactionRequest.class), any());
+
+    mockMvc
+        .perform(
+            put("/v1/accounts/{accountNumber}/withdraw", accountNumber)
+                .contentType(APPLICATION_JSON)
+                .header("pin", pin)
+                .content(requestJson))
+        .andExpect(status().is(400))
+        .andExpect(content().contentTypeCompatibleWith(APPLICATION_JSON))
+        .andExpect(jsonPath("code").value(400))
+        .andExpect(jsonPath("status").value("Bad Request"))
+        .andExpect(jsonPath("description").value("Your Account has \"insufficient\" funds"))
+        .andExpect(jsonPath("date").isNotEmpty());
+  }
+
+  @Test
+  public void withdrawBatch_shouldAnswerAResultPerWithdrawal() throws Exception {
+
+    doThrow(BadRequestException.rejection("Your Account has insufficient funds to complete this request"))
+        .when(accountServiceMock)
+        .withdraw(
+            eq("345677"), any(Credentials.class), any(TransactionRequest.class), eq("key-2"));
+
+    mockMvc
+        .perform(
+            put("/v1/accounts/withdraw:batch")
+                .contentType(APPLICATION_JSON)
+                .content(getBatchWithdrawRequestJson()))
+        .andExpect(status().is(200))
+        .andExpect(jsonPath("results.length()").value(3))
+        .andExpect(jsonPath("results[0].status").value(200))
+        .andExpect(jsonPath("results[0].error").doesNotExist())
+        .andExpect(jsonPath("results[1].status").value(400))
+        .andExpect(jsonPath("results[1].error.status").value("Bad Request"))
+        .andExpect(
+            jsonPath("results[1].error.description")
+                .value("Your Account has insufficient funds to complete this request"))
+        .andExpect(jsonPath("results[2].status").value(200));
+
+    verify(accountServiceMock, times(1))
+        .withdraw(
+            eq("234566"),
+            eq(Credentials.pin("1234")),
+            any(TransactionRequest.class),
+            eq("key-1"));
+    verify(accountServiceMock, times(1))
+        .withdraw(
+            eq("456788"), eq(Credentials.pin("1234")), any(TransactionRequest.class), isNull());
+  }
+
+  @Test
+  public void withdrawBatch_shouldRunTheWithdrawalsOfABatchAtOnce() throws Exception {
+    final var withdrawalMillis = 200;
+    final var withdrawals = 20;
+
+    doAnswer(
+            invocation -> {
+              Thread.sleep(withdrawalMillis);
+              return null;
+            })
+        .when(accountServiceMock)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), any());
+
+    final var started = System.nanoTime();
+    mockMvc
+        .perform(
+            put("/v1/accounts/withdraw:batch")
+                .contentType(APPLICATION_JSON)
+                .content(getBatchWithdrawRequestJson(withdrawals)))
+        .andExpect(status().is(200))
+        .andExpect(jsonPath("results.length()").value(withdrawals))
+        .andExpect(jsonPath("results[%d].status".formatted(withdrawals - 1)).value(200));
+    final var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+    assertTrue(
+        elapsed < 5 * withdrawalMillis,
+        "%d withdrawals of %d ms took %d ms".formatted(withdrawals, withdrawalMillis, elapsed));
+    verify(accountServiceMock, times(withdrawals))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), any());
+  }
+
+  @Test
+  public void withdrawBatch_shouldBadRequestWhenAWithdrawalIsInvalid() throws Exception {
+
+    mockMvc
+        .perform(
+            put("/v1/accounts/withdraw:batch")
+                .contentType(APPLICATION_JSON)
+                .content(
+                    """
+                        {"withdrawals": [{"accountNumber":"234566", "pin":"1234", "amount":1}]}
+                    """))
+        .andExpect(status().is(400))
+        .andExpect(jsonPath("description").value("Validation Exception"));
+
+    verify(accountServiceMock, times(0))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), any());
+  }
+
+  @Test
+  public void balance_shouldAnswerCborWhenAskedFor() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var account =
+        AccountEntity.builder()
+            .id(1L)
+            .pin(pin)
+            .accountNumber(accountNumber)
+            .balance(new BigDecimal("800.50"))
+            .overdraft(BigDecimal.valueOf(200))
+            .build();
+
+    when(accountServiceMock.balance(anyString(), anyString())).thenReturn(account);
+
+    final var response =
+        mockMvc
+            .perform(
+                get("/v1/accounts/{accountNumber}/balance", accountNumber)
+                    .header("pin", pin)
+                    .accept(APPLICATION_CBOR))
+            .andExpect(status().is(200))
+            .andExpect(content().contentType(APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+    assertEquals(
+        new AccountBalanceDto(new BigDecimal("800.50"), BigDecimal.valueOf(200)),
+        CBOR_MAPPER.readValue(response, AccountBalanceDto.class));
+  }
+
+  @Test
+  public void balance_shouldAnswerJsonWhenNoFormatIsAskedFor() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var account =
+        AccountEntity.builder()
+            .id(1L)
+            .pin(pin)
+            .accountNumber(accountNumber)
+            .balance(BigDecimal.valueOf(800))
+            .overdraft(BigDecimal.valueOf(200))
+            .build();
+
+    when(accountServiceMock.balance(anyString(), anyString())).thenReturn(account);
+
+    mockMvc
+        .perform(get("/v1/accounts/{accountNumber}/balance", accountNumber).header("pin", pin))
+        .andExpect(status().is(200))
+        .andExpect(content().contentType(APPLICATION_JSON))
+        .andExpect(jsonPath("balance").value(800));
+  }
+
+  @Test
+  public void withdrawBatch_shouldReadAndAnswerCbor() throws Exception {
+    final var request =
+        new BatchWithdrawRequest(
+            List.of(
+                new WithdrawalItem("234566", "1234", BigDecimal.valueOf(500), "key-1", null),
+                new WithdrawalItem("345677", "1234", new BigDecimal("20.00"), "key-2", null)));
+
+    final var response =
+        mockMvc
+            .perform(
+                put("/v1/accounts/withdraw:batch")
+                    .contentType(APPLICATION_CBOR)
+                    .accept(APPLICATION_CBOR)
+                    .content(CBOR_MAPPER.writeValueAsBytes(request)))
+            .andExpect(status().is(200))
+            .andExpect(content().contentType(APPLICATION_CBOR))
+            .andReturn()
+            .getResponse()
+            .getContentAsByteArray();
+
+    final var results = CBOR_MAPPER.readValue(response, BatchWithdrawResponse.class).getResults();
+    assertEquals(2, results.size());
+    assertEquals(200, results.get(1).getStatus());
+    verify(accountServiceMock, times(1))
+        .withdraw(
+            eq("345677"),
+            eq(Credentials.pin("1234")),
+            eq(new TransactionRequest(new BigDecimal("20.00"))),
+            eq("key-2"));
+  }
+
+  @Test
+  public void openSession_shouldIssueASessionToken() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "1234";
+
+    when(accountServiceMock.openSession(accountNumber, pin))
+        .thenReturn(new SessionResponse("token", "2022-01-01T00:05:00Z"));
+
+    mockMvc
+        .perform(post("/v1/accounts/{accountNumber}/sessions", accountNumber).header("pin", pin))
+        .andExpect(status().is(201))
+        .andExpect(jsonPath("token").value("token"))
+        .andExpect(jsonPath("expiresAt").value("2022-01-01T00:05:00Z"));
+  }
+
+  @Test
+  public void closeSession_shouldRevokeTheSessionToken() throws Exception {
+
+    mockMvc
+        .perform(delete("/v1/accounts/sessions").header("Session-Token", "token"))
+        .andExpect(status().is(204));
+
+    verify(accountServiceMock, times(1)).closeSession("token");
+  }
+
+  @Test
+  public void withdraw_shouldTakeASessionTokenInsteadOfThePin() throws Exception {
+    final var accountNumber = "234566";
+
+    mockMvc
+        .perform(
+            put("/v1/accounts/{accountNumber}/withdraw", accountNumber)
+                .header("Session-Token", "token")
+                .contentType(APPLICATION_JSON)
+                .content(getTransactionRequestJson()))
+        .andExpect(status().is(200));
+
+    verify(accountServiceMock, times(1))
+        .withdraw(
+            eq(accountNumber),
+            eq(Credentials.session("token")),
+            any(TransactionRequest.class),
+            isNull());
+  }
+
+  @Test
+  public void balance_shouldUnauthorizedWhenTheSessionTokenIsInvalid() throws Exception {
+    final var accountNumber = "234566";
+
+    doThrow(UnauthorizedException.rejection("Session token is invalid or expired"))
+        .when(accountServiceMock)
+        .balance(anyString(), any(Credentials.class));
+
+    mockMvc
+        .perform(
+            get("/v1/accounts/{accountNumber}/balance", accountNumber)
+                .header("Session-Token", "expired"))
+        .andExpect(status().is(401))
+        .andExpect(jsonPath("status").value("Unauthorized"))
+        .andExpect(jsonPath("description").value("Session token is invalid or expired"));
+  }
 }
@@ -1,5 +1,8 @@
 package com.simulator.account.business.web.controller.utils;
 
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
 public class AccountControllerUtils {
     public static String getTransactionRequestJson() {
         return """
@@ -8,4 +11,23 @@ public class AccountControllerUtils {
                 }
             """;
     }
+
+    public static String getBatchWithdrawRequestJson() {
+        return """
+                {
+                    "withdrawals": [
+                        {"accountNumber":"234566", "pin":"1234", "amount":500, "idempotencyKey":"key-1"},
+                        {"accountNumber":"345677", "pin":"1234", "amount":500, "idempotencyKey":"key-2"},
+                        {"accountNumber":"456788", "pin":"1234", "amount":500}
+                    ]
+                }
+            """;
+    }
+
+    public static String getBatchWithdrawRequestJson(int withdrawals) {
+        return IntStream.range(0, withdrawals)
+            .mapToObj(i -> "{\"accountNumber\":\"%06d\", \"pin\":\"1234\", \"amount\":50, \"idempotencyKey\":\"key-%d\"}"
+                .formatted(100000 + i, i))
+            .collect(Collectors.joining(",", "{\"withdrawals\": [", "]}"));
+    }
 }
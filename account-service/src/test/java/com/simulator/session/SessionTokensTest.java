@@ -0,0 +1,129 @@
+package com.simulator.session;
+
+import com.simulator.exception.UnauthorizedException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class SessionTokensTest {
+
+  private static final byte[] SECRET =
+      "account-service-test-session-secret".getBytes(StandardCharsets.UTF_8);
+  private static final Duration TTL = Duration.ofMinutes(5);
+
+  private final MovingClock clock = new MovingClock();
+  private final SessionTokens sessions = new SessionTokens(SECRET, TTL, clock);
+
+  @Test
+  public void verify_shouldReturnTheAccountOfAnIssuedToken() {
+    final var issued = sessions.issue("123456789");
+
+    final var session = sessions.verify(issued.getToken(), "123456789");
+
+    assertEquals("123456789", session.getAccountNumber());
+    assertEquals(Instant.parse(issued.getExpiresAt()).toEpochMilli(), session.getExpiresAt());
+  }
+
+  @Test
+  public void verify_shouldUnauthorizedWhenTheTokenIsForAnotherAccount() {
+    final var token = sessions.issue("123456789").getToken();
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(token, "987654321"));
+  }
+
+  @Test
+  public void verify_shouldUnauthorizedWhenTheTokenWasTamperedWith() {
+    final var token = sessions.issue("123456789").getToken();
+    final var forged =
+        sessions.issue("987654321").getToken().split("\\.")[0]
+            + token.substring(token.indexOf('.'));
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(forged));
+    assertThrows(UnauthorizedException.class, () -> sessions.verify("not-a-token"));
+    assertThrows(UnauthorizedException.class, () -> sessions.verify("!!.??"));
+  }
+
+  @Test
+  public void verify_shouldUnauthorizedWhenTheTokenWasSignedWithAnotherSecret() {
+    final var other =
+        new SessionTokens(
+            "another-service-test-session-secret".getBytes(StandardCharsets.UTF_8), TTL, clock);
+    final var token = other.issue("123456789").getToken();
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(token));
+  }
+
+  @Test
+  public void verify_shouldUnauthorizedOnceTheTokenExpired() {
+    final var token = sessions.issue("123456789").getToken();
+
+    clock.advance(TTL.minusMillis(1));
+    sessions.verify(token);
+    clock.advance(Duration.ofMillis(1));
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(token));
+  }
+
+  @Test
+  public void revoke_shouldRejectTheTokenUntilItExpires() {
+    final var revoked = sessions.issue("123456789").getToken();
+    final var other = sessions.issue("123456789").getToken();
+
+    sessions.revoke(revoked);
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(revoked));
+    sessions.verify(other);
+    clock.advance(TTL.minusMillis(1));
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(revoked));
+  }
+
+  @Test
+  public void revoke_shouldKeepTheRevocationAcrossARotation() {
+    clock.advance(TTL.dividedBy(2));
+    final var token = sessions.issue("123456789").getToken();
+    sessions.revoke(token);
+
+    clock.advance(TTL.dividedBy(2));
+    sessions.verify(sessions.issue("123456789").getToken());
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(token));
+  }
+
+  @Test
+  public void constructor_shouldRefuseAShortSecret() {
+    final var secret = "too-short".getBytes(StandardCharsets.UTF_8);
+
+    assertThrows(IllegalArgumentException.class, () -> new SessionTokens(secret, TTL, clock));
+  }
+
+  private static class MovingClock extends Clock {
+    private Instant now = Instant.parse("2022-01-01T00:00:00Z");
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
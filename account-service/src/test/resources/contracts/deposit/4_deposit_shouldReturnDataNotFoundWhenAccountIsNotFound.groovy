@@ -16,7 +16,7 @@ Contract.make {
     response {
         status 404
         body([
-                description: "Account number '54644' was not found"
+                description: "Account number was not found"
         ]
         )
         headers {
@@ -10,6 +10,7 @@ Contract.make {
         headers {
             header("Content-type", applicationJson())
             header('pin','1234')
+            header('Idempotency-Key', $(consumer(regex('[A-Za-z0-9-]{1,64}')), producer('5f0c6c1e-8f4b-4a43-9b1e-2f0e4d7c9a11')))
         }
         body(amount : 500)
     }
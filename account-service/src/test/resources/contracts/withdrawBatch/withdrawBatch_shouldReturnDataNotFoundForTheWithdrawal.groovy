@@ -0,0 +1,33 @@
+package contracts.withdrawBatch
+
+import org.springframework.cloud.contract.spec.Contract
+
+Contract.make {
+    description("Withdraw Funds in a batch :: Return DataNotFound for a withdrawal whose account is not found on the database")
+    request {
+        method 'PUT'
+        url '/v1/accounts/withdraw:batch'
+        headers {
+            header("Content-type", applicationJson())
+        }
+        body(withdrawals: [[
+                accountNumber : '54644',
+                pin           : '1234',
+                amount        : 100,
+                idempotencyKey: $(consumer(regex('[A-Za-z0-9-]{1,64}')), producer('5f0c6c1e-8f4b-4a43-9b1e-2f0e4d7c9a13'))
+        ]])
+    }
+    response {
+        status 200
+        body(results: [[
+                status: 404,
+                error : [
+                        code       : 404,
+                        description: "Account number was not found"
+                ]
+        ]])
+        headers {
+            contentType(applicationJson())
+        }
+    }
+}
@@ -1,40 +1,91 @@
 package com.simulator.atm.business.service;
 
 import com.simulator.atm.business.service.client.AccountServiceClient;
-import com.simulator.atm.business.service.dispenser.Cash;
-import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.client.AccountServiceFailures;
+import com.simulator.atm.business.service.client.AccountServiceGuard;
+import com.simulator.atm.business.service.client.IdempotencyKeys;
+import com.simulator.atm.business.service.client.WithdrawalCoalescer;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.service.dispenser.Money;
 import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.SessionResponse;
 import com.simulator.dto.TransactionRequest;
-import feign.FeignException;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.function.Predicate;
 
 @Service
 @Slf4j
 public class AtmService {
+  private static final Predicate<Throwable> OUTCOME_UNKNOWN = new AccountServiceFailures();
 
   private final AccountServiceClient client;
-  private final CashDispenser cashDispenser;
+  private final CashDispenserRegistry cashDispensers;
+  private final AccountServiceGuard guard;
+  private final WithdrawalCoalescer withdrawals;
+  private final SessionTokens sessions;
 
-  public AtmService(AccountServiceClient client, CashDispenser cashDispenser) {
+  public AtmService(
+      AccountServiceClient client,
+      CashDispenserRegistry cashDispensers,
+      AccountServiceGuard guard,
+      WithdrawalCoalescer withdrawals,
+      SessionTokens sessions) {
     this.client = client;
-    this.cashDispenser = cashDispenser;
+    this.cashDispensers = cashDispensers;
+    this.guard = guard;
+    this.withdrawals = withdrawals;
+    this.sessions = sessions;
   }
 
-  public List<Cash> dispense(String accountNumber, String pin, Integer amount) {
-    log.info("Dispense cash: account number: [{}], amount: [{}]", accountNumber, amount);
+  public DispensedNotes dispense(
+      String atmId,
+      String accountNumber,
+      String pin,
+      BigDecimal amount,
+      DispensedNotes cashedDispensed) {
+    return dispense(atmId, accountNumber, Credentials.pin(pin), amount, cashedDispensed);
+  }
+
+  /**
+   * Dispenses {@code amount} and withdraws it from the account. A session token is checked here,
+   * before any cash leaves the cassettes, and again by account-service.
+   */
+  public DispensedNotes dispense(
+      String atmId,
+      String accountNumber,
+      Credentials credentials,
+      BigDecimal amount,
+      DispensedNotes cashedDispensed) {
+    verify(accountNumber, credentials);
+    log.info(
+        "Dispense cash: atm: [{}], account number: [{}], amount: [{}]",
+        atmId,
+        accountNumber,
+        amount);
 
-    final var cashedDispensed = cashDispenser.dispense(amount);
+    final var cashDispenser = cashDispensers.get(atmId);
+    final var call = guard.acquire();
+    try {
+      cashDispenser.dispense(Money.toMinor(amount), cashedDispensed);
+    } catch (RuntimeException e) {
+      call.released();
+      throw e;
+    }
 
-    final var transaction = TransactionRequest.builder().amount(BigDecimal.valueOf(amount)).build();
+    final var transaction = TransactionRequest.builder().amount(amount).build();
 
     try {
       log.info("Call account-api :: withdraw funds");
-      client.withdraw(accountNumber, pin, transaction);
-    } catch (FeignException e) {
+      withdraw(accountNumber, credentials, transaction, IdempotencyKeys.next());
+      call.succeeded();
+    } catch (RuntimeException e) {
+      call.failed(e);
       log.error("Error during withdraw process :: refund cash to ATM machine...");
       cashDispenser.refund(cashedDispensed);
       throw e;
@@ -42,8 +93,56 @@ public class AtmService {
     return cashedDispensed;
   }
 
+  /**
+   * Withdraws under {@code idempotencyKey}. A failure that is not an answer from account-service,
+   * such as a read timeout, or a 5xx, leaves it unknown whether the account was debited, so the
+   * withdrawal is sent once more with the same key before the cash is refunded: account-service
+   * replays it if it went through and applies it otherwise.
+   */
+  private void withdraw(
+      String accountNumber,
+      Credentials credentials,
+      TransactionRequest transaction,
+      String idempotencyKey) {
+    try {
+      withdrawals.withdraw(accountNumber, credentials, transaction, idempotencyKey);
+    } catch (RuntimeException e) {
+      if (!OUTCOME_UNKNOWN.test(e)) throw e;
+      log.warn("Withdrawal outcome unknown, confirming it :: {}", e.getMessage());
+      withdrawals.withdraw(accountNumber, credentials, transaction, idempotencyKey);
+    }
+  }
+
   public AccountBalanceDto balance(String accountNumber, String pin) {
+    return balance(accountNumber, Credentials.pin(pin));
+  }
+
+  public AccountBalanceDto balance(String accountNumber, Credentials credentials) {
+    verify(accountNumber, credentials);
     log.info("Get Balance: account number: [{}]", accountNumber);
-    return client.balance(accountNumber, pin);
+    return guard.execute(
+        () ->
+            credentials.isSession()
+                ? client.balanceInSession(accountNumber, credentials.getSessionToken())
+                : client.balance(accountNumber, credentials.getPin()));
+  }
+
+  public SessionResponse openSession(String accountNumber, String pin) {
+    log.info("Open session: account number: [{}]", accountNumber);
+    return guard.execute(() -> client.openSession(accountNumber, pin));
+  }
+
+  /** Revokes the token here at once, and at account-service. */
+  public void closeSession(String sessionToken) {
+    sessions.revoke(sessionToken);
+    guard.execute(
+        () -> {
+          client.closeSession(sessionToken);
+          return null;
+        });
+  }
+
+  private void verify(String accountNumber, Credentials credentials) {
+    if (credentials.isSession()) sessions.verify(credentials.getSessionToken(), accountNumber);
   }
 }
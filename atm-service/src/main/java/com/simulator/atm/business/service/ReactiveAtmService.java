@@ -0,0 +1,141 @@
+package com.simulator.atm.business.service;
+
+import com.simulator.atm.business.service.client.AccountServiceFailures;
+import com.simulator.atm.business.service.client.AccountServiceGuard;
+import com.simulator.atm.business.service.client.IdempotencyKeys;
+import com.simulator.atm.business.service.client.ReactiveAccountServiceClient;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.service.dispenser.Money;
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.SessionResponse;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.math.BigDecimal;
+import java.util.function.Predicate;
+
+/**
+ * {@link AtmService} for the reactive stack: the cash is taken from the cassettes on the calling
+ * thread, as it is in memory, and no thread waits for account-service while it withdraws the funds.
+ */
+@Service
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAtmService {
+  private static final Predicate<Throwable> OUTCOME_UNKNOWN = new AccountServiceFailures();
+
+  private final ReactiveAccountServiceClient client;
+  private final CashDispenserRegistry cashDispensers;
+  private final AccountServiceGuard guard;
+  private final SessionTokens sessions;
+
+  public ReactiveAtmService(
+      ReactiveAccountServiceClient client,
+      CashDispenserRegistry cashDispensers,
+      AccountServiceGuard guard,
+      SessionTokens sessions) {
+    this.client = client;
+    this.cashDispensers = cashDispensers;
+    this.guard = guard;
+    this.sessions = sessions;
+  }
+
+  public Mono<DispensedNotes> dispense(
+      String atmId, String accountNumber, String pin, BigDecimal amount) {
+    return dispense(atmId, accountNumber, Credentials.pin(pin), amount);
+  }
+
+  /**
+   * Like {@link AtmService#dispense}, the cash goes back into the cassettes if the withdrawal
+   * fails, after a withdrawal whose outcome is unknown was confirmed with its key. The withdrawal
+   * is not cancelled with the request: once the cash is out, it runs to the end, as it would on a
+   * servlet thread, so a client hanging up cannot leave the account and the cassettes out of step.
+   */
+  public Mono<DispensedNotes> dispense(
+      String atmId, String accountNumber, Credentials credentials, BigDecimal amount) {
+    return Mono.defer(
+        () -> {
+          verify(accountNumber, credentials);
+          log.info(
+              "Dispense cash: atm: [{}], account number: [{}], amount: [{}]",
+              atmId,
+              accountNumber,
+              amount);
+
+          final var cashDispenser = cashDispensers.get(atmId);
+          final var cashDispensed = new DispensedNotes();
+          final var call = guard.acquire();
+          try {
+            cashDispenser.dispense(Money.toMinor(amount), cashDispensed);
+          } catch (RuntimeException e) {
+            call.released();
+            throw e;
+          }
+
+          final var transaction = TransactionRequest.builder().amount(amount).build();
+          final var withdrawn = Sinks.<DispensedNotes>one();
+
+          final var idempotencyKey = IdempotencyKeys.next();
+          final var withdrawal =
+              Mono.defer(
+                  () -> client.withdraw(accountNumber, credentials, transaction, idempotencyKey));
+
+          log.info("Call account-api :: withdraw funds");
+          withdrawal
+              .onErrorResume(
+                  OUTCOME_UNKNOWN,
+                  e -> {
+                    log.warn("Withdrawal outcome unknown, confirming it :: {}", e.getMessage());
+                    return withdrawal;
+                  })
+              .doOnSuccess(done -> call.succeeded())
+              .doOnError(
+                  e -> {
+                    call.failed(e);
+                    log.error("Error during withdraw process :: refund cash to ATM machine...");
+                    cashDispenser.refund(cashDispensed);
+                  })
+              .thenReturn(cashDispensed)
+              .subscribe(withdrawn::tryEmitValue, withdrawn::tryEmitError);
+          return withdrawn.asMono();
+        });
+  }
+
+  public Mono<AccountBalanceDto> balance(String accountNumber, String pin) {
+    return balance(accountNumber, Credentials.pin(pin));
+  }
+
+  public Mono<AccountBalanceDto> balance(String accountNumber, Credentials credentials) {
+    return Mono.defer(
+        () -> {
+          verify(accountNumber, credentials);
+          log.info("Get Balance: account number: [{}]", accountNumber);
+          return guard.execute(client.balance(accountNumber, credentials));
+        });
+  }
+
+  public Mono<SessionResponse> openSession(String accountNumber, String pin) {
+    log.info("Open session: account number: [{}]", accountNumber);
+    return guard.execute(client.openSession(accountNumber, pin));
+  }
+
+  /** Revokes the token here at once, and at account-service. */
+  public Mono<Void> closeSession(String sessionToken) {
+    return Mono.defer(
+        () -> {
+          sessions.revoke(sessionToken);
+          return guard.execute(client.closeSession(sessionToken));
+        });
+  }
+
+  private void verify(String accountNumber, Credentials credentials) {
+    if (credentials.isSession()) sessions.verify(credentials.getSessionToken(), accountNumber);
+  }
+}
@@ -1,11 +1,17 @@
 package com.simulator.atm.business.service.client;
 
 import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.BatchWithdrawRequest;
+import com.simulator.dto.BatchWithdrawResponse;
+import com.simulator.dto.SessionResponse;
 import com.simulator.dto.TransactionRequest;
+import com.simulator.session.SessionTokens;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
@@ -18,10 +24,34 @@ public interface AccountServiceClient {
   void withdraw(
       @PathVariable("accountNumber") String accountNumber,
       @RequestHeader(value = "pin", name = "pin") String pin,
-      @RequestBody TransactionRequest request);
+      @RequestBody TransactionRequest request,
+      @RequestHeader(IdempotencyKeys.HEADER) String idempotencyKey);
+
+  @PutMapping(value = "/v1/accounts/withdraw:batch")
+  BatchWithdrawResponse withdrawBatch(@RequestBody BatchWithdrawRequest request);
 
   @GetMapping(value = "/v1/accounts/{accountNumber}/balance")
   AccountBalanceDto balance(
       @PathVariable("accountNumber") String accountNumber,
       @RequestHeader(value = "pin", name = "pin") String pin);
+
+  @PutMapping(value = "/v1/accounts/{accountNumber}/withdraw")
+  void withdrawInSession(
+      @PathVariable("accountNumber") String accountNumber,
+      @RequestHeader(SessionTokens.HEADER) String sessionToken,
+      @RequestBody TransactionRequest request,
+      @RequestHeader(IdempotencyKeys.HEADER) String idempotencyKey);
+
+  @GetMapping(value = "/v1/accounts/{accountNumber}/balance")
+  AccountBalanceDto balanceInSession(
+      @PathVariable("accountNumber") String accountNumber,
+      @RequestHeader(SessionTokens.HEADER) String sessionToken);
+
+  @PostMapping(value = "/v1/accounts/{accountNumber}/sessions")
+  SessionResponse openSession(
+      @PathVariable("accountNumber") String accountNumber,
+      @RequestHeader(value = "pin", name = "pin") String pin);
+
+  @DeleteMapping(value = "/v1/accounts/sessions")
+  void closeSession(@RequestHeader(SessionTokens.HEADER) String sessionToken);
 }
@@ -0,0 +1,22 @@
+package com.simulator.atm.business.service.client;
+
+import feign.FeignException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.function.Predicate;
+
+/**
+ * Which errors of an account-service call count against its circuit breaker: the service not
+ * answering, timing out or failing with a 5xx. A 4xx, such as a wrong pin or insufficient funds, is
+ * account-service working as intended.
+ */
+public class AccountServiceFailures implements Predicate<Throwable> {
+
+  @Override
+  public boolean test(Throwable throwable) {
+    if (throwable instanceof FeignException e) return e.status() < 0 || e.status() >= 500;
+    if (throwable instanceof WebClientResponseException e) return e.getRawStatusCode() >= 500;
+    return throwable instanceof WebClientRequestException;
+  }
+}
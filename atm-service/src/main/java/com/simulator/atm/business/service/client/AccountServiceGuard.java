@@ -0,0 +1,94 @@
+package com.simulator.atm.business.service.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * The {@code account-service} circuit breaker and bulkhead, configured under {@code
+ * resilience4j.circuitbreaker} and {@code resilience4j.bulkhead}. A dispense takes its {@link Call}
+ * before the cassettes are touched, so while account-service is down, or already has as many calls
+ * in flight as the bulkhead allows, it fails at once with {@link CallNotPermittedException} or
+ * {@link BulkheadFullException} instead of dispensing, waiting for a timeout and refunding.
+ */
+@Component
+public class AccountServiceGuard {
+  public static final String NAME = "account-service";
+
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+
+  public AccountServiceGuard(CircuitBreakerRegistry circuitBreakers, BulkheadRegistry bulkheads) {
+    this.circuitBreaker = circuitBreakers.circuitBreaker(NAME);
+    this.bulkhead = bulkheads.bulkhead(NAME);
+  }
+
+  public Call acquire() {
+    circuitBreaker.acquirePermission();
+    try {
+      bulkhead.acquirePermission();
+    } catch (BulkheadFullException e) {
+      circuitBreaker.releasePermission();
+      throw e;
+    }
+    return new Call();
+  }
+
+  public <T> T execute(Supplier<T> call) {
+    final var permit = acquire();
+    try {
+      final var result = call.get();
+      permit.succeeded();
+      return result;
+    } catch (RuntimeException e) {
+      permit.failed(e);
+      throw e;
+    }
+  }
+
+  public <T> Mono<T> execute(Mono<T> call) {
+    return Mono.defer(
+        () -> {
+          final var permit = acquire();
+          return call.doOnSuccess(result -> permit.succeeded())
+              .doOnError(permit::failed)
+              .doOnCancel(permit::released);
+        });
+  }
+
+  /** A permitted call. Exactly one of its outcomes is recorded, later ones are ignored. */
+  public final class Call {
+    private final long start = System.nanoTime();
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    private Call() {}
+
+    public void succeeded() {
+      if (!done.compareAndSet(false, true)) return;
+      circuitBreaker.onSuccess(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      bulkhead.onComplete();
+    }
+
+    public void failed(Throwable error) {
+      if (!done.compareAndSet(false, true)) return;
+      circuitBreaker.onError(System.nanoTime() - start, TimeUnit.NANOSECONDS, error);
+      bulkhead.onComplete();
+    }
+
+    /** Gives the permission back without a result, when the call was not made or abandoned. */
+    public void released() {
+      if (!done.compareAndSet(false, true)) return;
+      circuitBreaker.releasePermission();
+      bulkhead.onComplete();
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package com.simulator.atm.business.service.client;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * {@code Idempotency-Key}s for withdrawals. account-service scopes a key to its account, so it only
+ * has to be unique, not unguessable, and is drawn from {@link ThreadLocalRandom} rather than the
+ * shared {@code SecureRandom} behind {@link UUID#randomUUID()}.
+ */
+public final class IdempotencyKeys {
+  public static final String HEADER = "Idempotency-Key";
+
+  private IdempotencyKeys() {}
+
+  public static String next() {
+    final var random = ThreadLocalRandom.current();
+    return new UUID(random.nextLong(), random.nextLong()).toString();
+  }
+}
@@ -0,0 +1,101 @@
+package com.simulator.atm.business.service.client;
+
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.atm.infrastructure.config.AccountClientProperties;
+import com.simulator.dto.SessionResponse;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+/**
+ * Non-blocking counterpart of {@link AccountServiceClient}. An error answer from account-service
+ * fails the {@link Mono} with a {@link
+ * org.springframework.web.reactive.function.client.WebClientResponseException} carrying its body. A
+ * call that got no answer at all is sent again, up to {@code atm.account-client.max-attempts}
+ * times; a withdrawal keeps its {@code Idempotency-Key}, so account-service applies it once. Bodies
+ * go both ways in {@code atm.account-client.wire-format}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountServiceClient {
+
+  private final WebClient webClient;
+  private final Retry retry;
+  private final MediaType mediaType;
+
+  public ReactiveAccountServiceClient(
+      WebClient accountWebClient, AccountClientProperties properties) {
+    this.webClient = accountWebClient;
+    this.retry =
+        Retry.backoff(properties.getMaxAttempts() - 1, properties.getRetryBackoff())
+            .filter(WebClientRequestException.class::isInstance)
+            .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    this.mediaType = properties.getWireFormat().mediaType();
+  }
+
+  public Mono<Void> withdraw(
+      String accountNumber,
+      Credentials credentials,
+      TransactionRequest request,
+      String idempotencyKey) {
+    return webClient
+        .put()
+        .uri("/v1/accounts/{accountNumber}/withdraw", accountNumber)
+        .headers(headers -> authenticate(headers, credentials))
+        .header(IdempotencyKeys.HEADER, idempotencyKey)
+        .contentType(mediaType)
+        .accept(mediaType)
+        .bodyValue(request)
+        .retrieve()
+        .toBodilessEntity()
+        .retryWhen(retry)
+        .then();
+  }
+
+  public Mono<AccountBalanceDto> balance(String accountNumber, Credentials credentials) {
+    return webClient
+        .get()
+        .uri("/v1/accounts/{accountNumber}/balance", accountNumber)
+        .headers(headers -> authenticate(headers, credentials))
+        .accept(mediaType)
+        .retrieve()
+        .bodyToMono(AccountBalanceDto.class)
+        .retryWhen(retry);
+  }
+
+  public Mono<SessionResponse> openSession(String accountNumber, String pin) {
+    return webClient
+        .post()
+        .uri("/v1/accounts/{accountNumber}/sessions", accountNumber)
+        .header("pin", pin)
+        .accept(mediaType)
+        .retrieve()
+        .bodyToMono(SessionResponse.class)
+        .retryWhen(retry);
+  }
+
+  public Mono<Void> closeSession(String sessionToken) {
+    return webClient
+        .delete()
+        .uri("/v1/accounts/sessions")
+        .header(SessionTokens.HEADER, sessionToken)
+        .accept(mediaType)
+        .retrieve()
+        .toBodilessEntity()
+        .retryWhen(retry)
+        .then();
+  }
+
+  private static void authenticate(HttpHeaders headers, Credentials credentials) {
+    if (credentials.isSession()) headers.set(SessionTokens.HEADER, credentials.getSessionToken());
+    else headers.set("pin", credentials.getPin());
+  }
+}
@@ -0,0 +1,205 @@
+package com.simulator.atm.business.service.client;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simulator.atm.infrastructure.config.AccountClientProperties;
+import com.simulator.dto.BatchWithdrawRequest;
+import com.simulator.dto.BatchWithdrawResponse;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.dto.WithdrawalItem;
+import com.simulator.dto.WithdrawalResult;
+import com.simulator.session.Credentials;
+import feign.FeignException;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends withdrawals to account-service, gathering concurrent ones into a single {@code PUT
+ * /v1/accounts/withdraw:batch} when {@code atm.account-client.batch-enabled} is set. The first
+ * withdrawal to arrive opens a batch and waits up to {@code batch-window} for others to join it, or
+ * until {@code max-batch} did, then sends it from its own thread; every caller waits for the answer
+ * and gets its own result back. A withdrawal account-service turned down fails with the same {@link
+ * FeignException} the single withdraw endpoint would have caused, and a batch that got no answer
+ * fails every withdrawal in it, so callers refund and answer exactly as before. So does a batch
+ * still unanswered after {@code batch-timeout}, or whose sender died before answering it. The
+ * number of withdrawals per batch is recorded as the {@code atm.withdraw.batch.size} histogram.
+ */
+@Component
+public class WithdrawalCoalescer {
+  private final AccountServiceClient client;
+  private final AccountClientProperties properties;
+  private final ObjectMapper objectMapper;
+  private final DistributionSummary batchSize;
+  private Batch open;
+
+  public WithdrawalCoalescer(
+      AccountServiceClient client,
+      AccountClientProperties properties,
+      ObjectMapper objectMapper,
+      MeterRegistry registry) {
+    this.client = client;
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.batchSize =
+        DistributionSummary.builder("atm.withdraw.batch.size")
+            .description("Withdrawals sent to account-service together in one batch")
+            .publishPercentileHistogram()
+            .register(registry);
+  }
+
+  public void withdraw(
+      String accountNumber, String pin, TransactionRequest request, String idempotencyKey) {
+    withdraw(accountNumber, Credentials.pin(pin), request, idempotencyKey);
+  }
+
+  public void withdraw(
+      String accountNumber,
+      Credentials credentials,
+      TransactionRequest request,
+      String idempotencyKey) {
+    if (!properties.isBatchEnabled()) {
+      if (credentials.isSession())
+        client.withdrawInSession(
+            accountNumber, credentials.getSessionToken(), request, idempotencyKey);
+      else client.withdraw(accountNumber, credentials.getPin(), request, idempotencyKey);
+      return;
+    }
+    final var item =
+        new WithdrawalItem(
+            accountNumber,
+            credentials.getPin(),
+            request.getAmount(),
+            idempotencyKey,
+            credentials.getSessionToken());
+    final Batch batch;
+    final int index;
+    final boolean leader;
+    synchronized (this) {
+      leader = open == null;
+      if (leader) open = new Batch(properties.getBatchTimeout());
+      batch = open;
+      index = batch.items.size();
+      batch.items.add(item);
+      if (batch.items.size() >= properties.getMaxBatch()) {
+        open = null;
+        batch.full.countDown();
+      }
+    }
+    if (leader) {
+      awaitOthers(batch);
+      send(batch);
+    }
+    check(batch, index);
+  }
+
+  private void awaitOthers(Batch batch) {
+    try {
+      batch.full.await(properties.getBatchWindow().toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    synchronized (this) {
+      if (open == batch) open = null;
+    }
+  }
+
+  /** Whatever happens, the batch is answered, so no withdrawal waiting on it is left hanging. */
+  private void send(Batch batch) {
+    batchSize.record(batch.items.size());
+    try {
+      batch.response.complete(client.withdrawBatch(new BatchWithdrawRequest(batch.items)));
+    } catch (Throwable e) {
+      batch.response.completeExceptionally(e);
+      if (e instanceof Error error) throw error;
+    }
+  }
+
+  private void check(Batch batch, int index) {
+    final var item = batch.items.get(index);
+    final BatchWithdrawResponse response;
+    try {
+      response = batch.response.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof FeignException cause) throw cause;
+      throw unanswered(item, "the batch got no answer :: " + e.getCause());
+    }
+    final var results = response.getResults();
+    if (results == null || results.size() != batch.items.size())
+      throw unanswered(
+          item,
+          "account-service answered %d results for %d withdrawals"
+              .formatted(results == null ? 0 : results.size(), batch.items.size()));
+    final var result = results.get(index);
+    if (result == null) throw unanswered(item, "account-service answered no result for it");
+    if (result.getStatus() / 100 != 2) throw failure(item, result);
+  }
+
+  /** A 500, so the caller refunds and the circuit breaker counts it, as for any failed call. */
+  private static FeignException unanswered(WithdrawalItem item, String reason) {
+    return FeignException.errorStatus(
+        "AccountServiceClient#withdrawBatch(BatchWithdrawRequest)",
+        Response.builder()
+            .status(500)
+            .reason("Internal Server Error")
+            .request(request(item))
+            .headers(Map.of())
+            .body(reason, StandardCharsets.UTF_8)
+            .build());
+  }
+
+  /** What Feign would have thrown had the withdrawal been sent on its own. */
+  private FeignException failure(WithdrawalItem item, WithdrawalResult result) {
+    final var error = result.getError();
+    byte[] body;
+    try {
+      body = error == null ? new byte[0] : objectMapper.writeValueAsBytes(error);
+    } catch (JsonProcessingException e) {
+      body = new byte[0];
+    }
+    return FeignException.errorStatus(
+        "AccountServiceClient#withdraw(String,String,TransactionRequest,String)",
+        Response.builder()
+            .status(result.getStatus())
+            .reason(error == null ? null : error.getStatus())
+            .request(request(item))
+            .headers(Map.of())
+            .body(body)
+            .build());
+  }
+
+  private static Request request(WithdrawalItem item) {
+    return Request.create(
+        Request.HttpMethod.PUT,
+        "/v1/accounts/%s/withdraw".formatted(item.getAccountNumber()),
+        Map.of(),
+        null,
+        StandardCharsets.UTF_8,
+        new RequestTemplate());
+  }
+
+  private static final class Batch {
+    private final List<WithdrawalItem> items = new ArrayList<>();
+    private final CountDownLatch full = new CountDownLatch(1);
+    private final CompletableFuture<BatchWithdrawResponse> response;
+
+    private Batch(Duration timeout) {
+      response =
+          new CompletableFuture<BatchWithdrawResponse>()
+              .orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+  }
+}
@@ -1,20 +1,15 @@
 package com.simulator.atm.business.service.dispenser;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.ToString;
 
 @Getter
+@ToString
+@EqualsAndHashCode
 @AllArgsConstructor
 public class Cash {
-  private CashType type;
-  private int total;
-  private Cash nextChain;
-
-  public void subtract(int value) {
-    this.total -= value;
-  }
-
-  public void add(int value) {
-    this.total += value;
-  }
+  private final String type;
+  private final int total;
 }
@@ -2,76 +2,142 @@ package com.simulator.atm.business.service.dispenser;
 
 import com.simulator.exception.BadRequestException;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
-@Service
+/**
+ * Lock-free cash dispenser of one terminal, handed out by {@link CashDispenserRegistry}. The
+ * cassette levels live in an immutable {@link Cassettes} snapshot that is replaced with a
+ * compare-and-set, so a withdrawal claims every note it needs in a single step or not at all, and
+ * concurrent refunds are never lost. Breakdowns are greedy whenever that provably uses the fewest
+ * notes, and come from the snapshot's {@link NoteBreakdownTable} otherwise. Each published snapshot
+ * is appended to the {@link CassetteJournal} once it has won the CAS, and the notes it moved are
+ * added to the fleet's {@link CassetteTotals}.
+ */
 @Slf4j
 public class CashDispenser {
-  private final Cash notesChain;
-
-  public CashDispenser() {
-    Cash fiveCash = new Cash(CashType.FIVE, 20, null);
-    Cash tenCash = new Cash(CashType.TEN, 30, fiveCash);
-    Cash twentyCash = new Cash(CashType.TWENTY, 30, tenCash);
-    this.notesChain = new Cash(CashType.FIFTY, 10, twentyCash);
-    log.info("Initializing cash dispenser :: {}", notesChain);
+  private static final BadRequestException INSUFFICIENT_CASH =
+      BadRequestException.rejection("Atm does not have the funds to complete your request");
+  private static final BadRequestException ABOVE_MAXIMUM_WITHDRAWAL =
+      BadRequestException.rejection("Amount exceeds the maximum withdrawal of this ATM");
+
+  private final String atmId;
+  private final AtomicReference<Cassettes> cassettes;
+  private final CassetteJournal journal;
+  private final CassetteTotals totals;
+
+  public CashDispenser(String atmId, Cassettes initial, CassetteJournal journal) {
+    this(atmId, initial, journal, CassetteTotals.NONE);
   }
 
-  public Integer getTotalCash() {
-    return calculateCash(this.notesChain);
+  public CashDispenser(
+      String atmId, Cassettes initial, CassetteJournal journal, CassetteTotals totals) {
+    this.atmId = atmId;
+    this.cassettes = new AtomicReference<>(initial);
+    this.journal = journal;
+    this.totals = totals;
+    totals.add(initial);
   }
 
-  private Integer calculateCash(Cash notesChain) {
-    if (notesChain == null) return 0;
-    return notesChain.getTotal() * notesChain.getType().value().intValue()
-        + calculateCash(notesChain.getNextChain());
+  public String getAtmId() {
+    return atmId;
   }
 
-  public List<Cash> dispense(Integer amount) {
-    if (amount > getTotalCash())
-      throw new BadRequestException("Atm does not have the funds to complete your request");
+  public Cassettes getCassettes() {
+    return cassettes.get();
+  }
 
-    if (amount % 5 > 0) {
-      throw new BadRequestException("It is not possible to dispense this value");
-    }
+  public CassetteLayout getLayout() {
+    return cassettes.get().layout();
+  }
+
+  /** Cash left in the cassettes, in {@link Money} minor units. */
+  public long getTotalCash() {
+    return cassettes.get().totalCash();
+  }
+
+  public boolean canDispense(long amount) {
+    return cassettes.get().canDispense(amount);
+  }
 
-    List<Cash> dispensed = new ArrayList<>();
-    dispenseMoney(amount, notesChain, dispensed);
-    return dispensed;
+  public List<Cash> dispense(long amount) {
+    final var notes = new DispensedNotes();
+    dispense(amount, notes);
+    return notes.toCash();
   }
 
-  private void dispenseMoney(Integer amount, Cash cash, List<Cash> dispensed) {
-    if (cash == null) return;
-    log.info("Dispense cash :: amount {}, cash type {}, notes {}", amount, cash.getType(), cash.getTotal());
-    var currentNotesNumber = cash.getType().value().intValue();
-    if (cash.getTotal() > 0) {
-      int num = Math.min(amount / currentNotesNumber, cash.getTotal());
-      log.info("Notes dispensed: {}", num);
-      amount -= num * currentNotesNumber;
-      cash.subtract(num);
-      dispensed.add(new Cash(cash.getType(), num, null));
-      if (amount == 0) return;
+  /**
+   * Dispenses {@code amount}, in {@link Money} minor units, into {@code notes}, overwriting whatever
+   * it held before.
+   */
+  public void dispense(long amount, DispensedNotes notes) {
+    final var counts = notes.counts(getLayout());
+    while (true) {
+      final var current = cassettes.get();
+      if (amount > current.totalCash())
+        throw INSUFFICIENT_CASH;
+      if (amount > current.layout().maxWithdrawal())
+        throw ABOVE_MAXIMUM_WITHDRAWAL;
+
+      if (current.breakdown(amount, counts) < 0) {
+        throw Money.NOT_DISPENSABLE;
+      }
+
+      final var next = current.minus(counts);
+      if (next != null && cassettes.compareAndSet(current, next)) {
+        notes.complete(amount, current);
+        totals.remove(current.layout(), counts, amount);
+        journal.append(atmId, JournalOperation.DISPENSE, amount, next);
+        log.debug("Cash dispensed :: amount {}, cassettes left {}", amount, next);
+        return;
+      }
     }
-    dispenseMoney(amount, cash.getNextChain(), dispensed);
   }
 
   public void refund(List<Cash> cashedDispensed) {
-    cashedDispensed.forEach(
-        e -> {
-          refundMoney(notesChain, e);
-        });
+    final var layout = getLayout();
+    final var counts = new int[layout.size()];
+    var amount = 0L;
+    for (Cash cash : cashedDispensed) {
+      final var index = layout.indexOf(cash.getType());
+      if (index < 0) throw new IllegalArgumentException("Unknown denomination " + cash.getType());
+      counts[index] += cash.getTotal();
+      amount += cash.getTotal() * layout.value(index);
+    }
+    log.info("Cash to be refunded :: {}", cashedDispensed);
+    add(JournalOperation.REFUND, amount, counts);
   }
 
-  private void refundMoney(Cash currentCash, Cash cashToRefund) {
-    if (currentCash == null) return;
-    log.info("Cash to be refunded : cash type {}, notes {}", cashToRefund.getType(), cashToRefund.getTotal());
-    if (currentCash.getType().equals(cashToRefund.getType())) {
-      currentCash.add(cashToRefund.getTotal());
-    } else {
-      refundMoney(currentCash.getNextChain(), cashToRefund);
-    }
+  public void refund(DispensedNotes notes) {
+    log.info("Cash to be refunded :: amount {}", notes.amount());
+    add(JournalOperation.REFUND, notes.amount(), notes.counts());
+  }
+
+  /** Loads {@code notes} more notes of denomination {@code name} into its cassette. */
+  public void replenish(String name, int notes) {
+    final var layout = getLayout();
+    final var index = layout.indexOf(name);
+    if (index < 0) throw new BadRequestException("This ATM has no " + name + " cassette");
+    if (notes <= 0) throw new BadRequestException("Replenishment must add notes");
+
+    final var counts = new int[layout.size()];
+    counts[index] = notes;
+    final var next =
+        cassettes.updateAndGet(
+            current -> {
+              if (current.notes(index) + (long) notes > layout.capacity(index))
+                throw new BadRequestException("Cassette " + name + " cannot hold more notes");
+              return current.plus(counts);
+            });
+    log.info("Cassette {} replenished with {} notes", name, notes);
+    totals.add(layout, counts, notes * layout.value(index));
+    journal.append(atmId, JournalOperation.REPLENISH, notes * layout.value(index), next);
+  }
+
+  private void add(JournalOperation operation, long amount, int[] counts) {
+    final var next = cassettes.updateAndGet(current -> current.plus(counts));
+    totals.add(next.layout(), counts, amount);
+    journal.append(atmId, operation, amount, next);
   }
 }
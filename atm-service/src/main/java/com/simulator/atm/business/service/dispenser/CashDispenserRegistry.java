@@ -0,0 +1,156 @@
+package com.simulator.atm.business.service.dispenser;
+
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import com.simulator.exception.BadRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The dispensers of every terminal hosted by this node, keyed by {@code atmId}. A terminal's
+ * dispenser is created on its first request, and each one owns its own cassette snapshot, so
+ * withdrawals at different terminals never touch the same memory. The map only locks a bin while a
+ * new terminal is being loaded.
+ *
+ * <p>Terminals recorded in the {@link CassetteJournal} are restored on startup with the cassettes
+ * they had, the others are loaded from configuration.
+ *
+ * <p>Layouts are resolved once, at startup, and every terminal without its own layout starts from
+ * the same immutable snapshot, so an idle terminal costs little more than its dispenser; the note
+ * breakdown table is only built while the terminal is dispensing.
+ */
+@Service
+@Slf4j
+public class CashDispenserRegistry {
+  private static final Pattern ATM_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+  private final DispenserProperties properties;
+  private final CassetteJournal journal;
+  private final CassetteTotals totals;
+  private final Map<String, CashDispenser> dispensers;
+  private final Cassettes defaultCassettes;
+  private final Map<String, Cassettes> terminalCassettes = new HashMap<>();
+
+  public CashDispenserRegistry(DispenserProperties properties, CassetteJournal journal) {
+    this.properties = properties;
+    this.journal = journal;
+    this.totals = new CassetteTotals(properties.getDenominations());
+    this.dispensers = new ConcurrentHashMap<>(Math.min(properties.getMaxTerminals(), 1 << 16));
+
+    this.defaultCassettes = cassettes(properties.getCassettes(), Map.of(), null);
+    properties
+        .getTerminals()
+        .forEach(
+            (atmId, terminal) ->
+                terminalCassettes.put(
+                    atmId,
+                    cassettes(
+                        terminal.getCassettes() != null
+                            ? terminal.getCassettes()
+                            : properties.getCassettes(),
+                        terminal.getCapacities(),
+                        terminal.getMaxWithdrawal())));
+
+    journal.replay().forEach((atmId, cassettes) -> dispensers.put(atmId, restore(atmId, cassettes)));
+    if (!dispensers.isEmpty()) log.info("Restored cassettes of {} terminals", dispensers.size());
+  }
+
+  /** The dispenser of {@code atmId}, or of the default terminal when it is {@code null}. */
+  public CashDispenser get(String atmId) {
+    final var id = atmId == null ? properties.getDefaultAtmId() : atmId;
+    final var dispenser = dispensers.get(id);
+    return dispenser != null ? dispenser : dispensers.computeIfAbsent(validate(id), this::load);
+  }
+
+  public Collection<CashDispenser> all() {
+    return Collections.unmodifiableCollection(dispensers.values());
+  }
+
+  public int size() {
+    return dispensers.size();
+  }
+
+  /** Cassette levels summed over every loaded terminal. */
+  public CassetteTotals totals() {
+    return totals;
+  }
+
+  /** Names of every denomination a terminal may be loaded with. */
+  public Set<String> denominations() {
+    return Collections.unmodifiableSet(properties.getDenominations().keySet());
+  }
+
+  /** The current cassettes of every loaded terminal. */
+  public Map<String, Cassettes> cassettes() {
+    final var cassettes = new HashMap<String, Cassettes>(dispensers.size() * 2);
+    dispensers.forEach((atmId, dispenser) -> cassettes.put(atmId, dispenser.getCassettes()));
+    return cassettes;
+  }
+
+  private String validate(String atmId) {
+    if (!ATM_ID.matcher(atmId).matches()) throw new BadRequestException("Invalid atm id");
+    return atmId;
+  }
+
+  private CashDispenser load(String atmId) {
+    if (dispensers.size() >= properties.getMaxTerminals())
+      throw new BadRequestException("This node cannot host more terminals");
+
+    final var cassettes = configuredCassettes(atmId);
+    log.info("Loading cash dispenser of terminal {} :: {}", atmId, cassettes);
+    return new CashDispenser(atmId, cassettes, journal, totals);
+  }
+
+  private CashDispenser restore(String atmId, Cassettes recorded) {
+    final var cassettes = recorded.relayout(configuredCassettes(atmId).layout());
+    if (cassettes.totalCash() != recorded.totalCash())
+      log.warn(
+          "Terminal {} held {} in denominations that are no longer configured",
+          atmId,
+          Money.toMajor(recorded.totalCash() - cassettes.totalCash()));
+    return new CashDispenser(atmId, cassettes, journal, totals);
+  }
+
+  private Cassettes configuredCassettes(String atmId) {
+    return terminalCassettes.getOrDefault(atmId, defaultCassettes);
+  }
+
+  private Cassettes cassettes(
+      Map<String, Integer> load, Map<String, Integer> capacities, BigDecimal maxWithdrawal) {
+    final var names = load.keySet().toArray(String[]::new);
+    final var values = new long[names.length];
+    final var limits = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      final var value = properties.getDenominations().get(names[i]);
+      if (value == null) throw new IllegalStateException("Unknown denomination " + names[i]);
+      values[i] = Money.toMinor(value);
+      limits[i] =
+          capacities.getOrDefault(
+              names[i],
+              properties.getCapacities().getOrDefault(names[i], properties.getCassetteCapacity()));
+    }
+    final var layout =
+        CassetteLayout.of(
+            names,
+            values,
+            limits,
+            Money.toMinor(maxWithdrawal != null ? maxWithdrawal : properties.getMaxWithdrawal()));
+
+    final var notes = new int[layout.size()];
+    for (int i = 0; i < notes.length; i++) {
+      notes[i] = load.get(layout.name(i));
+      if (notes[i] > layout.capacity(i))
+        throw new IllegalStateException(
+            "Cassette " + layout.name(i) + " cannot hold " + notes[i] + " notes");
+    }
+    return Cassettes.of(layout, notes);
+  }
+}
@@ -0,0 +1,44 @@
+package com.simulator.atm.business.service.dispenser;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Durable record of every change to the cassettes of the fleet. {@link CashDispenser} appends the
+ * snapshot each operation produced, and {@link CashDispenserRegistry} replays the latest one of
+ * every terminal on startup.
+ */
+public interface CassetteJournal {
+
+  /** Journal that keeps nothing, so cassettes start from configuration on every restart. */
+  CassetteJournal NONE =
+      new CassetteJournal() {
+        @Override
+        public Map<String, Cassettes> replay() {
+          return Map.of();
+        }
+
+        @Override
+        public void append(
+            String atmId, JournalOperation operation, long amount, Cassettes cassettes) {}
+
+        @Override
+        public void snapshot(Supplier<Map<String, Cassettes>> cassettes) {}
+      };
+
+  /** The latest cassettes recorded for each terminal. */
+  Map<String, Cassettes> replay();
+
+  /**
+   * Records that {@code operation} of {@code amount} left terminal {@code atmId} at {@code
+   * cassettes}.
+   */
+  void append(String atmId, JournalOperation operation, long amount, Cassettes cassettes);
+
+  /** Persists the cassettes of every terminal and drops the records they supersede. */
+  void snapshot(Supplier<Map<String, Cassettes>> cassettes);
+
+  default void force() {}
+
+  default void close() {}
+}
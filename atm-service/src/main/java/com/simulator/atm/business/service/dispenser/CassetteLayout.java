@@ -0,0 +1,168 @@
+package com.simulator.atm.business.service.dispenser;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The denominations a terminal is loaded with, in ascending value, precomputed into flat arrays so
+ * the dispense path only ever indexes primitives. Values are in {@link Money} minor units and the
+ * capacity is the most notes or coins each cassette holds. Every terminal with the same
+ * configuration shares one layout.
+ */
+public final class CassetteLayout {
+  /** {@link DispensedNotes} tracks listed denominations in a {@code long} bitmask. */
+  public static final int MAX_DENOMINATIONS = Long.SIZE;
+
+  private final String[] names;
+  private final long[] values;
+  private final int[] capacities;
+  private final long unit;
+  private final long maxWithdrawal;
+  private volatile int[] fewestNotes;
+
+  private CassetteLayout(String[] names, long[] values, int[] capacities, long maxWithdrawal) {
+    this.names = names;
+    this.values = values;
+    this.capacities = capacities;
+    this.maxWithdrawal = maxWithdrawal;
+    var gcd = 0L;
+    for (long value : values) {
+      gcd = gcd(gcd, value);
+    }
+    this.unit = gcd;
+  }
+
+  /**
+   * A layout of the given denominations, in any order; {@code maxWithdrawal} also bounds how far
+   * the note breakdown tables of these cassettes may grow.
+   */
+  public static CassetteLayout of(
+      String[] names, long[] values, int[] capacities, long maxWithdrawal) {
+    if (names.length != values.length || names.length != capacities.length)
+      throw new IllegalArgumentException("Expected a value and a capacity per denomination");
+    if (names.length == 0 || names.length > MAX_DENOMINATIONS)
+      throw new IllegalArgumentException("A terminal holds 1 to 64 denominations");
+    if (maxWithdrawal <= 0) throw new IllegalArgumentException("Maximum withdrawal must be positive");
+
+    final var order = new Integer[names.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+      if (values[i] <= 0) throw new IllegalArgumentException("Denominations must be positive");
+      if (capacities[i] < 0) throw new IllegalArgumentException("Capacity cannot be negative");
+    }
+    Arrays.sort(order, Comparator.comparingLong(i -> values[i]));
+
+    final var sortedNames = new String[names.length];
+    final var sortedValues = new long[names.length];
+    final var sortedCapacities = new int[names.length];
+    for (int i = 0; i < order.length; i++) {
+      sortedNames[i] = names[order[i]];
+      sortedValues[i] = values[order[i]];
+      sortedCapacities[i] = capacities[order[i]];
+      if (i > 0 && sortedValues[i] == sortedValues[i - 1])
+        throw new IllegalArgumentException("Denomination " + sortedNames[i] + " is configured twice");
+    }
+    return new CassetteLayout(sortedNames, sortedValues, sortedCapacities, maxWithdrawal);
+  }
+
+  public int size() {
+    return values.length;
+  }
+
+  public String name(int index) {
+    return names[index];
+  }
+
+  public long value(int index) {
+    return values[index];
+  }
+
+  public int capacity(int index) {
+    return capacities[index];
+  }
+
+  /** Greatest common divisor of the values: every amount these cassettes can pay is a multiple. */
+  public long unit() {
+    return unit;
+  }
+
+  public long maxWithdrawal() {
+    return maxWithdrawal;
+  }
+
+  /**
+   * Fewest notes that make up {@code amount} with no cassette ever running dry, or {@code -1} when
+   * no mix of these denominations adds up to it. Real cassettes can never do better, so a
+   * breakdown using this many notes is already the best they allow. Built once per layout, on
+   * first use, for every amount up to {@link #maxWithdrawal()}.
+   */
+  public int fewestNotes(long amount) {
+    if (amount < 0 || amount > maxWithdrawal || amount % unit != 0) return -1;
+    var table = fewestNotes;
+    if (table == null) {
+      table = buildFewestNotes();
+      fewestNotes = table;
+    }
+    return table[Math.toIntExact(amount / unit)];
+  }
+
+  private int[] buildFewestNotes() {
+    final var table = new int[Math.toIntExact(maxWithdrawal / unit + 1)];
+    Arrays.fill(table, -1);
+    table[0] = 0;
+    for (long value : values) {
+      final var step = Math.toIntExact(value / unit);
+      for (int amount = step; amount < table.length; amount++) {
+        final var previous = table[amount - step];
+        if (previous >= 0 && (table[amount] < 0 || previous + 1 < table[amount])) {
+          table[amount] = previous + 1;
+        }
+      }
+    }
+    return table;
+  }
+
+  /** Index of the denomination called {@code name}, or {@code -1} when the terminal has none. */
+  public int indexOf(String name) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) return i;
+    }
+    return -1;
+  }
+
+  /** Index of the denomination worth {@code value}, or {@code -1} when the terminal has none. */
+  public int indexOf(long value) {
+    final var index = Arrays.binarySearch(values, value);
+    return index >= 0 ? index : -1;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o
+        || (o instanceof CassetteLayout other
+            && maxWithdrawal == other.maxWithdrawal
+            && Arrays.equals(names, other.names)
+            && Arrays.equals(values, other.values)
+            && Arrays.equals(capacities, other.capacities));
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  @Override
+  public String toString() {
+    final var builder = new StringBuilder("CassetteLayout{");
+    for (int i = 0; i < names.length; i++) {
+      if (i > 0) builder.append(", ");
+      builder.append(names[i]).append('=').append(Money.toMajor(values[i]));
+      builder.append(" x").append(capacities[i]);
+    }
+    return builder.append(", maxWithdrawal=").append(Money.toMajor(maxWithdrawal)).append('}').toString();
+  }
+
+  private static long gcd(long a, long b) {
+    return b == 0 ? a : gcd(b, a % b);
+  }
+}
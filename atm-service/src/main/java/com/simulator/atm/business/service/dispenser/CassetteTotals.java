@@ -0,0 +1,70 @@
+package com.simulator.atm.business.service.dispenser;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the cassettes of every terminal in this node. Each {@link CashDispenser} adds
+ * what it starts with and every change it publishes, so reading the fleet-wide levels costs one sum
+ * per denomination instead of a walk over every terminal.
+ */
+public final class CassetteTotals {
+
+  /** Totals that keep nothing, for dispensers that are not part of a registry. */
+  public static final CassetteTotals NONE = new CassetteTotals(Map.of());
+
+  private final Map<String, LongAdder> notes = new HashMap<>();
+  private final Map<String, Long> values = new HashMap<>();
+  private final LongAdder cash = new LongAdder();
+
+  public CassetteTotals(Map<String, BigDecimal> denominations) {
+    denominations.forEach(
+        (name, value) -> {
+          notes.put(name, new LongAdder());
+          values.put(name, Money.toMinor(value));
+        });
+  }
+
+  /** Notes of denomination {@code name} loaded across the fleet. */
+  public long notes(String name) {
+    final var adder = notes.get(name);
+    return adder != null ? adder.sum() : 0;
+  }
+
+  /** Cash of denomination {@code name} held across the fleet, in {@link Money} minor units. */
+  public long cash(String name) {
+    final var value = values.get(name);
+    return value != null ? notes(name) * value : 0;
+  }
+
+  /** Cash held across the fleet, in {@link Money} minor units. */
+  public long totalCash() {
+    return cash.sum();
+  }
+
+  void add(Cassettes cassettes) {
+    add(cassettes.layout(), cassettes.toArray(), cassettes.totalCash());
+  }
+
+  /** Adds {@code counts} notes, indexed like {@code layout}, worth {@code amount} in total. */
+  void add(CassetteLayout layout, int[] counts, long amount) {
+    change(layout, counts, 1, amount);
+  }
+
+  /** Takes out {@code counts} notes, indexed like {@code layout}, worth {@code amount} in total. */
+  void remove(CassetteLayout layout, int[] counts, long amount) {
+    change(layout, counts, -1, amount);
+  }
+
+  private void change(CassetteLayout layout, int[] counts, int sign, long amount) {
+    if (notes.isEmpty()) return;
+    for (int i = 0; i < counts.length; i++) {
+      if (counts[i] == 0) continue;
+      final var adder = notes.get(layout.name(i));
+      if (adder != null) adder.add(sign * (long) counts[i]);
+    }
+    cash.add(sign * amount);
+  }
+}
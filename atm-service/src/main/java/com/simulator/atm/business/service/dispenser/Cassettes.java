@@ -0,0 +1,203 @@
+package com.simulator.atm.business.service.dispenser;
+
+import java.util.Arrays;
+
+/**
+ * Immutable snapshot of the notes loaded in each cassette, indexed like its {@link CassetteLayout}.
+ * The dispenser publishes a new instance on every change, so a reader always sees a consistent view
+ * of all denominations, and of the total cash they add up to, at once. The running total is carried
+ * from snapshot to snapshot, so reading it never walks the cassettes, and every change bumps the
+ * version, so the {@link CassetteJournal} can tell which recorded snapshot is the latest.
+ *
+ * <p>A breakdown first tries greedy, highest denomination first, which is one step per
+ * denomination. Its result is kept when it uses no more notes than a lower bound, either {@link
+ * CassetteLayout#fewestNotes(long)} with unlimited notes or the count when the last note may be
+ * split, since then nothing can beat it. Only when greedy fails, or may have picked too many
+ * notes, is the {@link NoteBreakdownTable} built, on first use and covering only the amounts
+ * asked for so far; it lives exactly as long as the snapshot.
+ */
+public final class Cassettes {
+  private final CassetteLayout layout;
+  private final int[] notes;
+  private final long totalCash;
+  private final long version;
+  private volatile NoteBreakdownTable breakdownTable;
+
+  private Cassettes(CassetteLayout layout, int[] notes, long totalCash, long version) {
+    this.layout = layout;
+    this.notes = notes;
+    this.totalCash = totalCash;
+    this.version = version;
+  }
+
+  public static Cassettes of(CassetteLayout layout, int[] notes) {
+    return of(layout, notes, 0);
+  }
+
+  /** Cassettes restored at {@code version}, the number of changes they went through so far. */
+  public static Cassettes of(CassetteLayout layout, int[] notes, long version) {
+    if (notes.length != layout.size())
+      throw new IllegalArgumentException("Expected one cassette per denomination");
+    for (int count : notes) {
+      if (count < 0) throw new IllegalArgumentException("Cassette cannot hold negative notes");
+    }
+    long total = 0;
+    for (int i = 0; i < notes.length; i++) {
+      total = Math.addExact(total, Math.multiplyExact(notes[i], layout.value(i)));
+    }
+    return new Cassettes(layout, notes.clone(), total, version);
+  }
+
+  public CassetteLayout layout() {
+    return layout;
+  }
+
+  public int notes(int index) {
+    return notes[index];
+  }
+
+  /** Notes of the denomination called {@code name}, zero when the terminal has none. */
+  public int notes(String name) {
+    final var index = layout.indexOf(name);
+    return index < 0 ? 0 : notes[index];
+  }
+
+  public long cash(int index) {
+    return notes[index] * layout.value(index);
+  }
+
+  public long totalCash() {
+    return totalCash;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public boolean canDispense(long amount) {
+    return amount >= 0
+        && amount <= totalCash
+        && amount <= layout.maxWithdrawal()
+        && (greedy(amount, null) >= 0 || breakdownTable(amount).canDispense(amount));
+  }
+
+  /**
+   * Fills {@code counts} with the fewest notes that make up {@code amount} and returns how many
+   * notes that is, or {@code -1} if these cassettes cannot pay the amount exactly.
+   */
+  public int breakdown(long amount, int[] counts) {
+    if (amount < 0 || amount > totalCash || amount > layout.maxWithdrawal()) return -1;
+    final var dispensed = greedy(amount, counts);
+    if (dispensed >= 0
+        && (dispensed == layout.fewestNotes(amount) || dispensed == fewestNotesBound(amount)))
+      return dispensed;
+    return breakdownTable(amount).breakdown(amount, counts);
+  }
+
+  /**
+   * Takes as many notes of each denomination as fit, highest first, filling {@code counts} when
+   * given. Returns how many notes that is, or {@code -1} if it leaves a remainder. A greedy
+   * breakdown that pays the amount has the most high-value notes of any, which is also how the
+   * {@link NoteBreakdownTable} breaks ties.
+   */
+  private int greedy(long amount, int[] counts) {
+    var remaining = amount;
+    var dispensed = 0;
+    for (int i = notes.length - 1; i >= 0; i--) {
+      final var count = (int) Math.min(notes[i], remaining / layout.value(i));
+      if (counts != null) counts[i] = count;
+      remaining -= count * layout.value(i);
+      dispensed += count;
+    }
+    return remaining == 0 ? dispensed : -1;
+  }
+
+  /**
+   * No breakdown of {@code amount} uses fewer notes than this: the count when every note taken,
+   * highest first, may be split, so the last one only pays what is left.
+   */
+  private int fewestNotesBound(long amount) {
+    var remaining = amount;
+    var bound = 0;
+    for (int i = notes.length - 1; i >= 0 && remaining > 0; i--) {
+      final var value = layout.value(i);
+      if (notes[i] * value >= remaining) return bound + (int) ((remaining + value - 1) / value);
+      bound += notes[i];
+      remaining -= notes[i] * value;
+    }
+    return bound;
+  }
+
+  private NoteBreakdownTable breakdownTable(long amount) {
+    var table = breakdownTable;
+    if (table == null || table.maxAmount() < amount) {
+      final var covered = table == null ? 0 : table.maxAmount();
+      final var bound = Math.min(totalCash, layout.maxWithdrawal());
+      table = NoteBreakdownTable.build(layout, notes, Math.min(Math.max(amount, 2 * covered), bound));
+      breakdownTable = table;
+    }
+    return table;
+  }
+
+  public int[] toArray() {
+    return notes.clone();
+  }
+
+  /** Returns the cassettes left after removing {@code counts}, or {@code null} if one runs dry. */
+  public Cassettes minus(int[] counts) {
+    final var next = new int[notes.length];
+    var total = totalCash;
+    for (int i = 0; i < notes.length; i++) {
+      next[i] = notes[i] - counts[i];
+      if (next[i] < 0) return null;
+      total -= counts[i] * layout.value(i);
+    }
+    return new Cassettes(layout, next, total, version + 1);
+  }
+
+  public Cassettes plus(int[] counts) {
+    final var next = new int[notes.length];
+    var total = totalCash;
+    for (int i = 0; i < notes.length; i++) {
+      next[i] = Math.addExact(notes[i], counts[i]);
+      total = Math.addExact(total, Math.multiplyExact(counts[i], layout.value(i)));
+    }
+    return new Cassettes(layout, next, total, version + 1);
+  }
+
+  /**
+   * These cassettes moved onto {@code target}, matching denominations by value. Notes of values
+   * {@code target} does not have are left out.
+   */
+  public Cassettes relayout(CassetteLayout target) {
+    final var moved = new int[target.size()];
+    for (int i = 0; i < notes.length; i++) {
+      final var index = target.indexOf(layout.value(i));
+      if (index >= 0) moved[index] = notes[i];
+    }
+    return of(target, moved, version);
+  }
+
+  @Override
+  public String toString() {
+    final var builder = new StringBuilder("Cassettes{");
+    for (int i = notes.length - 1; i >= 0; i--) {
+      if (i < notes.length - 1) builder.append(", ");
+      builder.append(layout.name(i)).append('=').append(notes[i]);
+    }
+    return builder.append('}').toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o
+        || (o instanceof Cassettes other
+            && layout.equals(other.layout)
+            && Arrays.equals(notes, other.notes));
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(notes);
+  }
+}
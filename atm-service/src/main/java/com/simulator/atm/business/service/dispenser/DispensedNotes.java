@@ -0,0 +1,78 @@
+package com.simulator.atm.business.service.dispenser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable, primitive result of a dispense: the notes handed out per denomination of the terminal's
+ * {@link CassetteLayout} plus which denominations the receipt lists. A caller can keep one instance
+ * per thread and pass it to {@link CashDispenser#dispense(long, DispensedNotes)} on every request,
+ * so the steady-state path does not allocate a result object.
+ */
+public final class DispensedNotes {
+  private CassetteLayout layout;
+  private int[] counts = new int[0];
+  private long amount;
+  private long listed;
+
+  /** The amount dispensed, in {@link Money} minor units. */
+  public long amount() {
+    return amount;
+  }
+
+  public int size() {
+    return layout == null ? 0 : layout.size();
+  }
+
+  public String name(int index) {
+    return layout.name(index);
+  }
+
+  public int notes(int index) {
+    return counts[index];
+  }
+
+  /**
+   * Whether the receipt lists denomination {@code index}: every loaded denomination from the highest
+   * down to the last one needed to complete the amount, including those that contributed no notes.
+   */
+  public boolean isListed(int index) {
+    return (listed & (1L << index)) != 0;
+  }
+
+  public List<Cash> toCash() {
+    List<Cash> cash = new ArrayList<>();
+    for (int i = size() - 1; i >= 0; i--) {
+      if (isListed(i)) cash.add(new Cash(layout.name(i), counts[i]));
+    }
+    return cash;
+  }
+
+  public void clear() {
+    Arrays.fill(counts, 0);
+    amount = 0;
+    listed = 0;
+  }
+
+  int[] counts() {
+    return counts;
+  }
+
+  /** The count buffer, sized for {@code layout}. */
+  int[] counts(CassetteLayout layout) {
+    if (counts.length < layout.size()) counts = new int[layout.size()];
+    this.layout = layout;
+    return counts;
+  }
+
+  void complete(long amount, Cassettes before) {
+    this.amount = amount;
+    this.listed = 0;
+    for (int i = layout.size() - 1; i >= 0 && amount > 0; i--) {
+      if (before.notes(i) == 0) continue;
+      amount -= counts[i] * layout.value(i);
+      listed |= 1L << i;
+    }
+  }
+}
@@ -0,0 +1,8 @@
+package com.simulator.atm.business.service.dispenser;
+
+public enum JournalOperation {
+  DISPENSE,
+  REFUND,
+  REPLENISH,
+  SNAPSHOT
+}
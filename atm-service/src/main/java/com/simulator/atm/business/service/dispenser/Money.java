@@ -0,0 +1,43 @@
+package com.simulator.atm.business.service.dispenser;
+
+import com.simulator.exception.BadRequestException;
+
+import java.math.BigDecimal;
+
+/** Conversions between API amounts and the {@code long} minor units (cents) the dispenser uses. */
+public final class Money {
+  public static final int SCALE = 2;
+  private static final long MINOR_PER_MAJOR = 100;
+
+  static final BadRequestException NOT_DISPENSABLE =
+      BadRequestException.rejection("It is not possible to dispense this value");
+
+  private Money() {}
+
+  public static long toMinor(BigDecimal amount) {
+    try {
+      return amount.movePointRight(SCALE).longValueExact();
+    } catch (ArithmeticException e) {
+      throw NOT_DISPENSABLE;
+    }
+  }
+
+  public static long toMinor(long major) {
+    return Math.multiplyExact(major, MINOR_PER_MAJOR);
+  }
+
+  /** Whole amounts keep a scale of zero, so {@code 24500} reads back as {@code 245}. */
+  public static BigDecimal toMajor(long minor) {
+    return minor % MINOR_PER_MAJOR == 0
+        ? BigDecimal.valueOf(minor / MINOR_PER_MAJOR)
+        : BigDecimal.valueOf(minor, SCALE);
+  }
+
+  public static boolean isWhole(long minor) {
+    return minor % MINOR_PER_MAJOR == 0;
+  }
+
+  public static long wholePart(long minor) {
+    return minor / MINOR_PER_MAJOR;
+  }
+}
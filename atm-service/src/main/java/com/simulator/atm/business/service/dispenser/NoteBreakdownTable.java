@@ -0,0 +1,96 @@
+package com.simulator.atm.business.service.dispenser;
+
+import java.util.Arrays;
+
+/**
+ * Minimum-notes table for one {@link Cassettes} snapshot, built with a bounded-change DP over the
+ * notes actually loaded. Amounts are indexed in units of {@link CassetteLayout#unit()}, so "can
+ * dispense X?" is a single lookup and a breakdown is one step per denomination. Empty cassettes are
+ * skipped, so denominations a terminal has run out of, or was never loaded with, cost nothing. The
+ * table only covers amounts up to {@link #maxAmount()}; {@link Cassettes} grows it on demand.
+ *
+ * <p>When several breakdowns use the same number of notes, the one with the most high-value notes
+ * wins.
+ */
+public final class NoteBreakdownTable {
+  private static final int UNREACHABLE = Integer.MAX_VALUE / 4;
+
+  private final long unit;
+  private final int[] steps;
+  private final int[] minNotes;
+  private final int[][] used;
+
+  private NoteBreakdownTable(long unit, int[] steps, int[] minNotes, int[][] used) {
+    this.unit = unit;
+    this.steps = steps;
+    this.minNotes = minNotes;
+    this.used = used;
+  }
+
+  static NoteBreakdownTable build(CassetteLayout layout, int[] notes, long maxAmount) {
+    final var unit = layout.unit();
+    final var size = Math.toIntExact(maxAmount / unit + 1);
+    var previous = new int[size];
+    Arrays.fill(previous, UNREACHABLE);
+    previous[0] = 0;
+
+    final var steps = new int[layout.size()];
+    final var used = new int[layout.size()][];
+    final var window = new int[size];
+    final var windowValue = new int[size];
+    for (int k = 0; k < layout.size(); k++) {
+      final var step = Math.toIntExact(layout.value(k) / unit);
+      final var limit = notes[k];
+      steps[k] = step;
+      if (limit == 0) continue;
+
+      final var current = new int[size];
+      final var use = new int[size];
+      for (int residue = 0; residue < Math.min(step, size); residue++) {
+        int head = 0;
+        int tail = 0;
+        for (int j = 0, amount = residue; amount < size; j++, amount += step) {
+          if (previous[amount] < UNREACHABLE) {
+            final var value = previous[amount] - j;
+            while (tail > head && windowValue[tail - 1] > value) tail--;
+            window[tail] = j;
+            windowValue[tail++] = value;
+          }
+          while (tail > head && window[head] < j - limit) head++;
+          if (tail > head) {
+            current[amount] = windowValue[head] + j;
+            use[amount] = j - window[head];
+          } else {
+            current[amount] = UNREACHABLE;
+          }
+        }
+      }
+      used[k] = use;
+      previous = current;
+    }
+    return new NoteBreakdownTable(unit, steps, previous, used);
+  }
+
+  public long maxAmount() {
+    return (minNotes.length - 1) * unit;
+  }
+
+  public boolean canDispense(long amount) {
+    if (amount < 0 || amount % unit != 0) return false;
+    final var index = amount / unit;
+    return index < minNotes.length && minNotes[(int) index] < UNREACHABLE;
+  }
+
+  /** Fills {@code counts} (indexed like the {@link CassetteLayout}) and returns the number of notes. */
+  public int breakdown(long amount, int[] counts) {
+    if (!canDispense(amount)) return -1;
+    var index = (int) (amount / unit);
+    final var notes = minNotes[index];
+    for (int k = steps.length - 1; k >= 0; k--) {
+      final var num = used[k] == null ? 0 : used[k][index];
+      counts[k] = num;
+      index -= num * steps[k];
+    }
+    return notes;
+  }
+}
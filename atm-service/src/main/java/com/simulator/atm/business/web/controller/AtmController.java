@@ -1,11 +1,14 @@
 package com.simulator.atm.business.web.controller;
 
 import com.simulator.atm.business.service.AtmService;
-import com.simulator.atm.business.service.dispenser.Cash;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
 import com.simulator.atm.business.web.dto.DispenseResponse;
 import com.simulator.atm.business.web.helper.AtmHelper;
 import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.SessionResponse;
 import com.simulator.dto.TransactionRequest;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -14,7 +17,10 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -24,11 +30,11 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
-import java.util.List;
 
 @RestController
 @RequestMapping(path = "/v1/atm")
 @Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(
     name = "Atm Api",
     description =
@@ -49,7 +55,12 @@ public class AtmController {
       value = {
         @ApiResponse(
             responseCode = "200",
-            description = "Dispense funds request completed successfully"),
+            description = "Dispense funds request completed successfully",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = DispenseResponse.class))
+            }),
         @ApiResponse(
             responseCode = "400",
             description = "Invalid account number supplied",
@@ -63,7 +74,11 @@ public class AtmController {
             description = "Account number not found",
             content = @Content)
       })
-  public ResponseEntity<DispenseResponse> dispense(
+  public ResponseEntity<DispensedNotes> dispense(
+      @Parameter(description = "Terminal identifier, the default terminal when missing",
+              example = "ATM-0001")
+          @RequestHeader(value = "atmId", required = false)
+          String atmId,
       @Parameter(description = "Account number", example = "328762", required = true)
           @RequestHeader(value = "accountNumber")
           @NotNull(message = "Missing account number")
@@ -75,15 +90,11 @@ public class AtmController {
       @RequestBody @Valid TransactionRequest request) {
 
     log.info("Request for dispense cash €{}", request.getAmount());
-    List<Cash> cashDispensed = service.dispense(accountNumber, pin, request.getAmount().intValue());
-
-    DispenseResponse response =
-        DispenseResponse.builder()
-            .dispensedCash(request.getAmount().intValue())
-            .notes(helper.toModel(cashDispensed))
-            .build();
+    DispensedNotes cashDispensed =
+        service.dispense(
+            atmId, accountNumber, pin, request.getAmount(), helper.dispensedNotes());
 
-    return ResponseEntity.ok(response);
+    return ResponseEntity.ok(cashDispensed);
   }
 
   @GetMapping(value = "/balance", produces = "application/json")
@@ -124,4 +135,131 @@ public class AtmController {
     AccountBalanceDto accountBalanceDto = service.balance(accountNumber, pin);
     return ResponseEntity.ok(accountBalanceDto);
   }
+
+  @PostMapping(path = "/session")
+  @Operation(
+      summary = "Open a session",
+      description =
+          "Checks the pin once and issues a short-lived token to send instead of it")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "201",
+            description = "Session opened",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = SessionResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "400",
+            description = "Invalid pin supplied",
+            content = @Content),
+        @ApiResponse(
+            responseCode = "404",
+            description = "Account number not found",
+            content = @Content)
+      })
+  public ResponseEntity<SessionResponse> openSession(
+      @Parameter(description = "Account number", example = "328762", required = true)
+          @RequestHeader(value = "accountNumber")
+          @NotNull(message = "Missing account number")
+          String accountNumber,
+      @Parameter(description = "Pin of account", example = "1234", required = true)
+          @RequestHeader(value = "pin")
+          @NotNull(message = "Missing pin")
+          String pin) {
+    log.info("Request for a session of account number {}", accountNumber);
+    return ResponseEntity.status(HttpStatus.CREATED).body(service.openSession(accountNumber, pin));
+  }
+
+  @DeleteMapping(path = "/session")
+  @Operation(summary = "Close a session, so its token is no longer accepted")
+  @ApiResponses(
+      value = {
+        @ApiResponse(responseCode = "204", description = "Session closed"),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<Void> closeSession(
+      @Parameter(description = "Session token to close", required = true)
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken) {
+    service.closeSession(sessionToken);
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping(path = "/dispense", headers = SessionTokens.HEADER)
+  @Operation(summary = "Dispense amount requested by the user, with a session token")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Dispense funds request completed successfully",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = DispenseResponse.class))
+            }),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<DispensedNotes> dispenseInSession(
+      @Parameter(description = "Terminal identifier, the default terminal when missing",
+              example = "ATM-0001")
+          @RequestHeader(value = "atmId", required = false)
+          String atmId,
+      @Parameter(description = "Account number", example = "328762", required = true)
+          @RequestHeader(value = "accountNumber")
+          @NotNull(message = "Missing account number")
+          String accountNumber,
+      @Parameter(description = "Session token of the account", required = true)
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken,
+      @RequestBody @Valid TransactionRequest request) {
+
+    log.info("Request for dispense cash €{} in a session", request.getAmount());
+    DispensedNotes cashDispensed =
+        service.dispense(
+            atmId,
+            accountNumber,
+            Credentials.session(sessionToken),
+            request.getAmount(),
+            helper.dispensedNotes());
+
+    return ResponseEntity.ok(cashDispensed);
+  }
+
+  @GetMapping(value = "/balance", headers = SessionTokens.HEADER, produces = "application/json")
+  @Operation(summary = "Get balance from account, with a session token instead of the pin")
+  @ApiResponses(
+      value = {
+        @ApiResponse(
+            responseCode = "200",
+            description = "Return a account balance",
+            content = {
+              @Content(
+                  mediaType = "application/json",
+                  schema = @Schema(implementation = AccountBalanceDto.class))
+            }),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid or expired session token supplied",
+            content = @Content)
+      })
+  public ResponseEntity<AccountBalanceDto> balanceInSession(
+      @Parameter(description = "Account number")
+          @RequestHeader(value = "accountNumber")
+          @NotNull(message = "Missing account number")
+          String accountNumber,
+      @Parameter(description = "Session token of the account")
+          @RequestHeader(value = SessionTokens.HEADER)
+          String sessionToken) {
+    log.info("Request for get balance by account number {} in a session", accountNumber);
+    return ResponseEntity.ok(service.balance(accountNumber, Credentials.session(sessionToken)));
+  }
 }
@@ -0,0 +1,93 @@
+package com.simulator.atm.business.web.controller;
+
+import com.simulator.atm.business.service.ReactiveAtmService;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.SessionResponse;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import javax.validation.Valid;
+
+/** The {@link AtmController} endpoints on the reactive stack. */
+@RestController
+@RequestMapping(path = "/v1/atm")
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAtmController {
+
+  private final ReactiveAtmService service;
+
+  public ReactiveAtmController(ReactiveAtmService service) {
+    this.service = service;
+  }
+
+  @PostMapping(path = "/dispense")
+  public Mono<ResponseEntity<DispensedNotes>> dispense(
+      @RequestHeader(value = "atmId", required = false) String atmId,
+      @RequestHeader(value = "accountNumber") String accountNumber,
+      @RequestHeader(value = "pin") String pin,
+      @RequestBody @Valid TransactionRequest request) {
+    log.info("Request for dispense cash €{}", request.getAmount());
+    return service.dispense(atmId, accountNumber, pin, request.getAmount()).map(ResponseEntity::ok);
+  }
+
+  @GetMapping(value = "/balance", produces = "application/json")
+  public Mono<ResponseEntity<AccountBalanceDto>> balance(
+      @RequestHeader(value = "accountNumber") String accountNumber,
+      @RequestHeader(value = "pin") String pin) {
+    log.info("Request for get balance by account number {}", accountNumber);
+    return service.balance(accountNumber, pin).map(ResponseEntity::ok);
+  }
+
+  @PostMapping(path = "/session")
+  public Mono<ResponseEntity<SessionResponse>> openSession(
+      @RequestHeader(value = "accountNumber") String accountNumber,
+      @RequestHeader(value = "pin") String pin) {
+    log.info("Request for a session of account number {}", accountNumber);
+    return service
+        .openSession(accountNumber, pin)
+        .map(session -> ResponseEntity.status(HttpStatus.CREATED).body(session));
+  }
+
+  @DeleteMapping(path = "/session")
+  public Mono<ResponseEntity<Void>> closeSession(
+      @RequestHeader(value = SessionTokens.HEADER) String sessionToken) {
+    return service.closeSession(sessionToken).thenReturn(ResponseEntity.noContent().build());
+  }
+
+  @PostMapping(path = "/dispense", headers = SessionTokens.HEADER)
+  public Mono<ResponseEntity<DispensedNotes>> dispenseInSession(
+      @RequestHeader(value = "atmId", required = false) String atmId,
+      @RequestHeader(value = "accountNumber") String accountNumber,
+      @RequestHeader(value = SessionTokens.HEADER) String sessionToken,
+      @RequestBody @Valid TransactionRequest request) {
+    log.info("Request for dispense cash €{} in a session", request.getAmount());
+    return service
+        .dispense(atmId, accountNumber, Credentials.session(sessionToken), request.getAmount())
+        .map(ResponseEntity::ok);
+  }
+
+  @GetMapping(value = "/balance", headers = SessionTokens.HEADER, produces = "application/json")
+  public Mono<ResponseEntity<AccountBalanceDto>> balanceInSession(
+      @RequestHeader(value = "accountNumber") String accountNumber,
+      @RequestHeader(value = SessionTokens.HEADER) String sessionToken) {
+    log.info("Request for get balance by account number {} in a session", accountNumber);
+    return service
+        .balance(accountNumber, Credentials.session(sessionToken))
+        .map(ResponseEntity::ok);
+  }
+}
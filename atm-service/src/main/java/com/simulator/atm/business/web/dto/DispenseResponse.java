@@ -6,6 +6,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -15,7 +16,7 @@ import java.util.List;
 public class DispenseResponse {
 
   @Schema(description = "Cash dispensed", name = "dispensedCash", example = "1000")
-  private Integer dispensedCash;
+  private BigDecimal dispensedCash;
 
   private List<CashDispensedDto> notes;
 }
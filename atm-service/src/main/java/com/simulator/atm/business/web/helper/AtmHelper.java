@@ -1,27 +1,46 @@
 package com.simulator.atm.business.web.helper;
 
 import com.simulator.atm.business.service.dispenser.Cash;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.service.dispenser.Money;
 import com.simulator.atm.business.web.dto.CashDispensedDto;
-import org.modelmapper.ModelMapper;
+import com.simulator.atm.business.web.dto.DispenseResponse;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.List;
 
-import static java.util.stream.Collectors.toList;
-
 @Component
 public class AtmHelper {
-  private final ModelMapper modelMapper;
+  private static final ThreadLocal<DispensedNotes> DISPENSED_NOTES =
+      ThreadLocal.withInitial(DispensedNotes::new);
 
-  public AtmHelper(ModelMapper modelMapper) {
-    this.modelMapper = modelMapper;
+  /**
+   * The calling thread's reusable dispense buffer. Only safe while the response is written on the
+   * same thread that handled the request, as it is for the servlet stack.
+   */
+  public DispensedNotes dispensedNotes() {
+    final var notes = DISPENSED_NOTES.get();
+    notes.clear();
+    return notes;
   }
 
   public CashDispensedDto toModel(Cash cash) {
-    return modelMapper.map(cash, CashDispensedDto.class);
+    return new CashDispensedDto(cash.getType(), cash.getTotal());
   }
 
   public List<CashDispensedDto> toModel(List<Cash> cashList) {
-    return cashList.stream().map(this::toModel).collect(toList());
+    final List<CashDispensedDto> dtos = new ArrayList<>(cashList.size());
+    for (Cash cash : cashList) {
+      dtos.add(toModel(cash));
+    }
+    return dtos;
+  }
+
+  public DispenseResponse toModel(DispensedNotes notes) {
+    return DispenseResponse.builder()
+        .dispensedCash(Money.toMajor(notes.amount()))
+        .notes(toModel(notes.toCash()))
+        .build();
   }
 }
@@ -0,0 +1,46 @@
+package com.simulator.atm.business.web.serializer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.service.dispenser.Money;
+import com.simulator.atm.business.web.dto.DispenseResponse;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link DispensedNotes} straight into the {@link DispenseResponse} JSON shape, without
+ * building the DTOs first.
+ */
+@JsonComponent
+public class DispensedNotesSerializer extends JsonSerializer<DispensedNotes> {
+  private static final SerializedString DISPENSED_CASH = new SerializedString("dispensedCash");
+  private static final SerializedString NOTES = new SerializedString("notes");
+  private static final SerializedString TYPE = new SerializedString("type");
+  private static final SerializedString TOTAL = new SerializedString("total");
+
+  @Override
+  public void serialize(DispensedNotes notes, JsonGenerator gen, SerializerProvider serializers)
+      throws IOException {
+    gen.writeStartObject();
+    gen.writeFieldName(DISPENSED_CASH);
+    if (Money.isWhole(notes.amount())) gen.writeNumber(Money.wholePart(notes.amount()));
+    else gen.writeNumber(Money.toMajor(notes.amount()));
+    gen.writeFieldName(NOTES);
+    gen.writeStartArray();
+    for (int i = notes.size() - 1; i >= 0; i--) {
+      if (!notes.isListed(i)) continue;
+      gen.writeStartObject();
+      gen.writeFieldName(TYPE);
+      gen.writeString(notes.name(i));
+      gen.writeFieldName(TOTAL);
+      gen.writeNumber(notes.notes(i));
+      gen.writeEndObject();
+    }
+    gen.writeEndArray();
+    gen.writeEndObject();
+  }
+}
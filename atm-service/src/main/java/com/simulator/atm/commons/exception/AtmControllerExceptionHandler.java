@@ -1,28 +1,115 @@
 package com.simulator.atm.commons.exception;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
 import com.simulator.exception.handler.ControllerExceptionHandler;
+import com.simulator.exception.model.AttributeMessage;
 import com.simulator.exception.model.ExceptionResponse;
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @RestControllerAdvice
 public class AtmControllerExceptionHandler extends ControllerExceptionHandler {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
     @ExceptionHandler(FeignException.class)
     @ResponseBody
-    public ResponseEntity<ExceptionResponse> handlingFeignException(FeignException e) throws JsonProcessingException {
-        return switch (e.status()) {
-            case 400 -> ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                .body(new ObjectMapper().readValue(e.contentUTF8(), ExceptionResponse.class));
-            case 404 -> ResponseEntity.status(HttpStatus.NOT_FOUND)
-                .body(new ObjectMapper().readValue(e.contentUTF8(), ExceptionResponse.class));
-            default -> ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                .body(new ExceptionResponse(HttpStatus.INTERNAL_SERVER_ERROR, e.getMessage()));
-        };
+    public ResponseEntity<ExceptionResponse> handlingFeignException(FeignException e) {
+        final var contentType = e.responseHeaders().getOrDefault(HttpHeaders.CONTENT_TYPE, List.of());
+        return forward(e.status(), body(e), contentType.stream().findFirst().orElse(null), e.getMessage());
+    }
+
+    @ExceptionHandler(WebClientResponseException.class)
+    @ResponseBody
+    public ResponseEntity<ExceptionResponse> handlingWebClientResponseException(WebClientResponseException e) {
+        final var contentType = e.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE);
+        return forward(e.getRawStatusCode(), e.getResponseBodyAsByteArray(), contentType, e.getMessage());
+    }
+
+    @ExceptionHandler({CallNotPermittedException.class, BulkheadFullException.class})
+    @ResponseBody
+    public ResponseEntity<ExceptionResponse> handlingAccountServiceUnavailable(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .body(new ExceptionResponse(HttpStatus.SERVICE_UNAVAILABLE,
+                "Account service is unavailable, try again later"));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseBody
+    public ResponseEntity<ExceptionResponse> handlingWebExchangeBindException(WebExchangeBindException e) {
+        ExceptionResponse err = new ExceptionResponse(HttpStatus.BAD_REQUEST, "Validation Exception");
+        Map<String, AttributeMessage> errors = new LinkedHashMap<>();
+        for (FieldError x : e.getFieldErrors()) {
+            if (errors.containsKey(x.getField())) {
+                errors.get(x.getField()).addError(x.getDefaultMessage());
+            } else {
+                errors.put(x.getField(), new AttributeMessage(x.getField(), x.getDefaultMessage()));
+            }
+        }
+        err.getAttributes().addAll(errors.values());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    @ResponseBody
+    public ResponseEntity<ExceptionResponse> handlingServerWebInputException(ServerWebInputException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+            .body(new ExceptionResponse(HttpStatus.BAD_REQUEST, e.getReason()));
+    }
+
+    private static byte[] body(FeignException e) {
+        return e.responseBody()
+            .map(body -> {
+                final var bytes = new byte[body.remaining()];
+                body.duplicate().get(bytes);
+                return bytes;
+            })
+            .orElse(new byte[0]);
+    }
+
+    /**
+     * Answers with the error account-service gave, whichever client brought it back and whether it
+     * came as JSON or as CBOR. Any 4xx is passed through with its status; a body that is missing or
+     * cannot be read is replaced by one carrying the client's message.
+     */
+    private ResponseEntity<ExceptionResponse> forward(int status, byte[] body, String contentType, String message) {
+        final var httpStatus = HttpStatus.resolve(status);
+        if (httpStatus == null || !httpStatus.is4xxClientError())
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ExceptionResponse(HttpStatus.INTERNAL_SERVER_ERROR, message));
+
+        final var mapper = contentType != null
+            && MediaType.APPLICATION_CBOR.isCompatibleWith(MediaType.parseMediaType(contentType))
+            ? CBOR_MAPPER : OBJECT_MAPPER;
+        return ResponseEntity.status(httpStatus).body(decode(mapper, body, httpStatus, message));
+    }
+
+    private static ExceptionResponse decode(ObjectMapper mapper, byte[] body, HttpStatus status, String message) {
+        if (body.length > 0) {
+            try {
+                return mapper.readValue(body, ExceptionResponse.class);
+            } catch (IOException e) {
+                // not an ExceptionResponse, answer with the status alone
+            }
+        }
+        return new ExceptionResponse(status, message);
     }
 }
@@ -0,0 +1,38 @@
+package com.simulator.atm.infrastructure.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * {@link Jackson2CborEncoder} that also takes a body handed over as a {@link Publisher}, as
+ * WebClient does with {@code bodyValue}, as long as it holds a single value. CBOR has no framing
+ * for a stream of values, so only the first one is written.
+ */
+public class CborValueEncoder extends Jackson2CborEncoder {
+
+  public CborValueEncoder(ObjectMapper cborMapper) {
+    super(cborMapper, MediaType.APPLICATION_CBOR);
+  }
+
+  @Override
+  public Flux<DataBuffer> encode(
+      Publisher<?> inputStream,
+      DataBufferFactory bufferFactory,
+      ResolvableType elementType,
+      MimeType mimeType,
+      Map<String, Object> hints) {
+    return Mono.from(inputStream)
+        .map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints))
+        .flux();
+  }
+}
@@ -0,0 +1,94 @@
+package com.simulator.atm.infrastructure.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keep-alive connection pool of an Apache HttpClient that exports, under {@code name}, how it is
+ * used: the pool gauges of {@link PoolingHttpClientConnectionManagerMetricsBinder} (max, leased,
+ * available and pending connections), how long each call waited for a connection ({@code
+ * http.client.pool.lease}) and how many connections were opened ({@code
+ * http.client.pool.connections.opened}). Opened connections growing while the pool is not full is
+ * churn: connections are closed and opened again instead of being reused.
+ */
+public class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+  private final Timer lease;
+  private final Counter opened;
+
+  public MeteredConnectionManager(
+      String name, Duration timeToLive, int maxTotal, int maxPerRoute, MeterRegistry registry) {
+    super(
+        RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", SSLConnectionSocketFactory.getSocketFactory())
+            .build(),
+        null,
+        null,
+        null,
+        timeToLive.toMillis(),
+        TimeUnit.MILLISECONDS);
+    setMaxTotal(maxTotal);
+    setDefaultMaxPerRoute(maxPerRoute);
+
+    new PoolingHttpClientConnectionManagerMetricsBinder(this, name).bindTo(registry);
+    this.lease =
+        Timer.builder("http.client.pool.lease")
+            .description("Time spent waiting for a pooled connection")
+            .tag("httpclient", name)
+            .publishPercentileHistogram()
+            .register(registry);
+    this.opened =
+        Counter.builder("http.client.pool.connections.opened")
+            .description("Connections opened by the pool")
+            .tag("httpclient", name)
+            .register(registry);
+  }
+
+  @Override
+  public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+    final var request = super.requestConnection(route, state);
+    return new ConnectionRequest() {
+      @Override
+      public HttpClientConnection get(long timeout, TimeUnit unit)
+          throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+        final var start = System.nanoTime();
+        try {
+          return request.get(timeout, unit);
+        } finally {
+          lease.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+      }
+
+      @Override
+      public boolean cancel() {
+        return request.cancel();
+      }
+    };
+  }
+
+  @Override
+  public void connect(
+      HttpClientConnection connection, HttpRoute route, int connectTimeout, HttpContext context)
+      throws IOException {
+    super.connect(connection, route, connectTimeout, context);
+    opened.increment();
+  }
+}
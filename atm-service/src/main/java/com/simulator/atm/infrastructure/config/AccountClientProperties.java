@@ -0,0 +1,94 @@
+package com.simulator.atm.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+
+import java.time.Duration;
+
+/**
+ * Connection pool and timeouts of the clients to account-service under {@code atm.account-client},
+ * the pooled Feign client on the servlet stack and the WebClient on the reactive one.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "atm.account-client")
+public class AccountClientProperties {
+
+  /** Connections open to account-service at once, each carrying one request in flight. */
+  private int maxConnections = 500;
+
+  /**
+   * Connections the Feign pool keeps to a single route (scheme, host and port). The reactive pool
+   * is already one per host, sized by {@code max-connections}.
+   */
+  private int maxConnectionsPerRoute = 200;
+
+  /** Requests allowed to wait for a free connection before they are failed (reactive only). */
+  private int maxPendingRequests = 1000;
+
+  private Duration connectTimeout = Duration.ofSeconds(2);
+
+  /** How long a call waits for account-service to answer before it fails. */
+  private Duration readTimeout = Duration.ofSeconds(5);
+
+  /** How long a call waits for a free connection from the pool before it fails. */
+  private Duration leaseTimeout = Duration.ofSeconds(1);
+
+  /** Pooled connections unused for this long are closed. */
+  private Duration idleTimeout = Duration.ofSeconds(30);
+
+  /** Connections are closed once this old, even if busy, so they follow account-service moves. */
+  private Duration timeToLive = Duration.ofMinutes(5);
+
+  /**
+   * Attempts of a call that got no answer from account-service, such as a connection error or a
+   * read timeout, the first one included. A withdrawal is sent again with the same {@code
+   * Idempotency-Key}, so it is never applied twice.
+   */
+  private int maxAttempts = 2;
+
+  /** Wait before the first retry, doubling with every further one. */
+  private Duration retryBackoff = Duration.ofMillis(100);
+
+  /**
+   * Whether concurrent withdrawals are gathered and sent to account-service together, as one batch
+   * request, instead of one request each (servlet stack only).
+   */
+  private boolean batchEnabled = false;
+
+  /** How long the first withdrawal of a batch waits for others to join it. */
+  private Duration batchWindow = Duration.ofMillis(2);
+
+  /** Withdrawals sent in one batch at most; a full batch is sent without waiting. */
+  private int maxBatch = 64;
+
+  /**
+   * How long a withdrawal waits for the answer to its batch, window included, before it fails as
+   * if account-service had not answered. Keep it above what every attempt of the call may take.
+   */
+  private Duration batchTimeout = Duration.ofSeconds(20);
+
+  /**
+   * How bodies to and from account-service are encoded: {@code json}, or {@code cbor}, a binary
+   * form of the same fields that is smaller and cheaper to read and write. account-service takes
+   * either and answers in the one asked for.
+   */
+  private WireFormat wireFormat = WireFormat.JSON;
+
+  public enum WireFormat {
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+      this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+      return mediaType;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package com.simulator.atm.infrastructure.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Fleet settings under {@code atm.dispenser}: the denominations terminals may hold, what every
+ * terminal is loaded with, per-terminal layouts, and how many terminals a single node may host.
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "atm.dispenser")
+public class DispenserProperties {
+
+  /** Terminal used when a request carries no {@code atmId} header. */
+  private String defaultAtmId = "ATM-0001";
+
+  private int maxTerminals = 10_000;
+
+  /** Every denomination a terminal may be loaded with: its name and value, in major units. */
+  private Map<String, BigDecimal> denominations = defaultDenominations();
+
+  /** Notes or coins loaded per denomination in every terminal without its own layout. */
+  private Map<String, Integer> cassettes = defaultCassettes();
+
+  /** Notes a cassette holds, unless {@link #capacities} says otherwise for its denomination. */
+  private int cassetteCapacity = 2_000;
+
+  private Map<String, Integer> capacities = new HashMap<>();
+
+  /** Largest single withdrawal, in major units; it also bounds the note breakdown tables. */
+  private BigDecimal maxWithdrawal = BigDecimal.valueOf(2_000);
+
+  private Map<String, Terminal> terminals = new HashMap<>();
+
+  /** Layout of one terminal; whatever it leaves out is taken from the fleet defaults. */
+  @Data
+  public static class Terminal {
+
+    /** Replaces the default cassettes, and so the denominations, of this terminal. */
+    private Map<String, Integer> cassettes;
+
+    private Map<String, Integer> capacities = new HashMap<>();
+
+    private BigDecimal maxWithdrawal;
+  }
+
+  private static Map<String, BigDecimal> defaultDenominations() {
+    final var denominations = new LinkedHashMap<String, BigDecimal>();
+    denominations.put("FIVE_HUNDRED", BigDecimal.valueOf(500));
+    denominations.put("TWO_HUNDRED", BigDecimal.valueOf(200));
+    denominations.put("HUNDRED", BigDecimal.valueOf(100));
+    denominations.put("FIFTY", BigDecimal.valueOf(50));
+    denominations.put("TWENTY", BigDecimal.valueOf(20));
+    denominations.put("TEN", BigDecimal.valueOf(10));
+    denominations.put("FIVE", BigDecimal.valueOf(5));
+    denominations.put("TWO_EUROS", BigDecimal.valueOf(2));
+    denominations.put("ONE_EURO", BigDecimal.valueOf(1));
+    return denominations;
+  }
+
+  private static Map<String, Integer> defaultCassettes() {
+    final var cassettes = new LinkedHashMap<String, Integer>();
+    cassettes.put("FIFTY", 10);
+    cassettes.put("TWENTY", 30);
+    cassettes.put("TEN", 30);
+    cassettes.put("FIVE", 20);
+    return cassettes;
+  }
+}
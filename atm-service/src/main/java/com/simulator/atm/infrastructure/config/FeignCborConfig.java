@@ -0,0 +1,65 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import feign.RequestInterceptor;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
+import feign.optionals.OptionalDecoder;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * With {@code atm.account-client.wire-format=cbor}, Feign sends its bodies to account-service as
+ * CBOR and asks for CBOR back. JSON is still read, for answers account-service gives as JSON. The
+ * converters are kept to the Feign client, so atm-service's own API keeps answering JSON.
+ */
+@Configuration
+@ConditionalOnProperty(value = "atm.account-client.wire-format", havingValue = "cbor")
+public class FeignCborConfig {
+
+  private final ObjectFactory<HttpMessageConverters> messageConverters;
+
+  public FeignCborConfig(
+      Jackson2ObjectMapperBuilder objectMapperBuilder, ObjectMapper objectMapper) {
+    final var converters =
+        new HttpMessageConverters(
+            false,
+            List.of(
+                new MappingJackson2CborHttpMessageConverter(
+                    objectMapperBuilder.factory(new CBORFactory()).build()),
+                new MappingJackson2HttpMessageConverter(objectMapper)));
+    this.messageConverters = () -> converters;
+  }
+
+  @Bean
+  public Encoder feignEncoder() {
+    return new SpringEncoder(messageConverters);
+  }
+
+  @Bean
+  public Decoder feignDecoder(ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+    return new OptionalDecoder(
+        new ResponseEntityDecoder(new SpringDecoder(messageConverters, customizers)));
+  }
+
+  @Bean
+  public RequestInterceptor cborAcceptInterceptor() {
+    return template -> template.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_CBOR_VALUE);
+  }
+}
@@ -0,0 +1,67 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.simulator.atm.infrastructure.client.MeteredConnectionManager;
+import feign.Client;
+import feign.Request;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feign calls account-service over a pooled keep-alive Apache HttpClient instead of a new {@code
+ * HttpURLConnection} per call, with the pool, timeouts and idle eviction set under {@code
+ * atm.account-client}. {@code feign.httpclient.enabled=false} goes back to Feign's default client.
+ */
+@Configuration
+@ConditionalOnProperty(value = "feign.httpclient.enabled", matchIfMissing = true)
+public class FeignClientConfig {
+
+  @Bean(destroyMethod = "shutdown")
+  public MeteredConnectionManager accountConnectionManager(
+      AccountClientProperties properties, MeterRegistry registry) {
+    return new MeteredConnectionManager(
+        "account-service",
+        properties.getTimeToLive(),
+        properties.getMaxConnections(),
+        properties.getMaxConnectionsPerRoute(),
+        registry);
+  }
+
+  @Bean
+  public CloseableHttpClient accountHttpClient(
+      MeteredConnectionManager accountConnectionManager, AccountClientProperties properties) {
+    return HttpClientBuilder.create()
+        .setConnectionManager(accountConnectionManager)
+        .setDefaultRequestConfig(
+            RequestConfig.custom()
+                .setConnectionRequestTimeout((int) properties.getLeaseTimeout().toMillis())
+                .setConnectTimeout((int) properties.getConnectTimeout().toMillis())
+                .setSocketTimeout((int) properties.getReadTimeout().toMillis())
+                .build())
+        .evictExpiredConnections()
+        .evictIdleConnections(properties.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+        .build();
+  }
+
+  @Bean
+  public Client feignClient(CloseableHttpClient accountHttpClient) {
+    return new ApacheHttpClient(accountHttpClient);
+  }
+
+  @Bean
+  public Request.Options feignRequestOptions(AccountClientProperties properties) {
+    return new Request.Options(
+        properties.getConnectTimeout().toMillis(),
+        TimeUnit.MILLISECONDS,
+        properties.getReadTimeout().toMillis(),
+        TimeUnit.MILLISECONDS,
+        true);
+  }
+}
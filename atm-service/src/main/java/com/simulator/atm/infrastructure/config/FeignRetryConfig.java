@@ -0,0 +1,20 @@
+package com.simulator.atm.infrastructure.config;
+
+import feign.Retryer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Feign sends a call that got no answer from account-service again, up to {@code
+ * atm.account-client.max-attempts} times. Answers, errors included, are never retried, and a
+ * withdrawal keeps its {@code Idempotency-Key}, so account-service applies it once.
+ */
+@Configuration
+public class FeignRetryConfig {
+
+  @Bean
+  public Retryer feignRetryer(AccountClientProperties properties) {
+    final var backoff = properties.getRetryBackoff().toMillis();
+    return new Retryer.Default(backoff, backoff << 2, properties.getMaxAttempts());
+  }
+}
@@ -0,0 +1,22 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.infrastructure.journal.MappedCassetteJournal;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class JournalConfig {
+
+  @Bean(destroyMethod = "close")
+  public CassetteJournal cassetteJournal(JournalProperties properties) throws IOException {
+    if (!properties.isEnabled()) return CassetteJournal.NONE;
+    return new MappedCassetteJournal(
+        Path.of(properties.getDirectory()),
+        Math.toIntExact(properties.getSegmentSize().toBytes()),
+        properties.getFsync());
+  }
+}
@@ -0,0 +1,31 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.simulator.atm.infrastructure.journal.FsyncMode;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/** Cassette journal settings under {@code atm.journal}. */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "atm.journal")
+public class JournalProperties {
+
+  /** Without the journal, cassettes are loaded from configuration on every restart. */
+  private boolean enabled = false;
+
+  private String directory = "data/journal";
+
+  private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+  private FsyncMode fsync = FsyncMode.GROUP;
+
+  /** How often a group commit forces the journal to disk. */
+  private Duration fsyncInterval = Duration.ofMillis(10);
+
+  /** How often the cassettes of every terminal are snapshotted and older segments dropped. */
+  private Duration snapshotInterval = Duration.ofMinutes(1);
+}
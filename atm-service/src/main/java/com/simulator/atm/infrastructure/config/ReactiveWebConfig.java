@@ -0,0 +1,73 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.simulator.atm.infrastructure.client.CborValueEncoder;
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * The reactive stack, on when atm-service runs as a reactive web application (the {@code reactive}
+ * profile): Netty instead of Tomcat, which is also on the classpath, and a pooled, non-blocking
+ * client to account-service. Its pool is exported as {@code reactor.netty.connection.provider.*},
+ * and it reads and writes CBOR as well as JSON, for {@code atm.account-client.wire-format=cbor}.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWebConfig {
+
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider accountConnections(AccountClientProperties properties) {
+    return ConnectionProvider.builder("account-service")
+        .maxConnections(properties.getMaxConnections())
+        .pendingAcquireMaxCount(properties.getMaxPendingRequests())
+        .pendingAcquireTimeout(properties.getLeaseTimeout())
+        .maxIdleTime(properties.getIdleTimeout())
+        .maxLifeTime(properties.getTimeToLive())
+        .evictInBackground(properties.getIdleTimeout())
+        .metrics(true)
+        .build();
+  }
+
+  @Bean
+  public WebClient accountWebClient(
+      WebClient.Builder builder,
+      ConnectionProvider accountConnections,
+      AccountClientProperties properties,
+      Jackson2ObjectMapperBuilder objectMapperBuilder,
+      @Value("${account-api-url}") String accountApiUrl) {
+    final var httpClient =
+        HttpClient.create(accountConnections)
+            .option(
+                ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                (int) properties.getConnectTimeout().toMillis())
+            .responseTimeout(properties.getReadTimeout());
+    final var cborMapper = objectMapperBuilder.factory(new CBORFactory()).build();
+    return builder
+        .baseUrl(accountApiUrl)
+        .clientConnector(new ReactorClientHttpConnector(httpClient))
+        .codecs(
+            codecs -> {
+              codecs.customCodecs().register(new CborValueEncoder(cborMapper));
+              codecs
+                  .customCodecs()
+                  .register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+            })
+        .build();
+  }
+}
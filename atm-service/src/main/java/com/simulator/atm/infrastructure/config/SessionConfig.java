@@ -0,0 +1,24 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.simulator.session.SessionTokens;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+
+@Configuration
+public class SessionConfig {
+
+  @Bean
+  public SessionTokens sessionTokens(SessionProperties properties) {
+    if (!StringUtils.hasText(properties.getSecret()))
+      throw new IllegalStateException(
+          "session.secret is not set: export SESSION_SECRET, or run with the local profile");
+    return new SessionTokens(
+        properties.getSecret().getBytes(StandardCharsets.UTF_8),
+        properties.getTtl(),
+        Clock.systemUTC());
+  }
+}
@@ -0,0 +1,75 @@
+package com.simulator.atm.infrastructure.journal;
+
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.infrastructure.config.JournalProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the group commits and periodic snapshots of the cassette journal on a background thread, and
+ * takes a last snapshot on shutdown so the next start replays as little as possible.
+ */
+@Component
+@Slf4j
+@ConditionalOnProperty(prefix = "atm.journal", name = "enabled", havingValue = "true")
+public class CassetteJournalScheduler {
+
+  private final CashDispenserRegistry cashDispensers;
+  private final CassetteJournal journal;
+  private final JournalProperties properties;
+  private final ScheduledExecutorService executor =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            final var thread = new Thread(runnable, "cassette-journal");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public CassetteJournalScheduler(
+      CashDispenserRegistry cashDispensers, CassetteJournal journal, JournalProperties properties) {
+    this.cashDispensers = cashDispensers;
+    this.journal = journal;
+    this.properties = properties;
+  }
+
+  @PostConstruct
+  public void start() {
+    if (properties.getFsync() == FsyncMode.GROUP) {
+      final var interval = properties.getFsyncInterval().toNanos();
+      executor.scheduleWithFixedDelay(this::force, interval, interval, TimeUnit.NANOSECONDS);
+    }
+    final var interval = properties.getSnapshotInterval().toNanos();
+    executor.scheduleWithFixedDelay(this::snapshot, interval, interval, TimeUnit.NANOSECONDS);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(10, TimeUnit.SECONDS);
+    snapshot();
+  }
+
+  private void force() {
+    try {
+      journal.force();
+    } catch (RuntimeException e) {
+      log.error("Could not force the cassette journal to disk", e);
+    }
+  }
+
+  private void snapshot() {
+    try {
+      journal.snapshot(cashDispensers::cassettes);
+    } catch (RuntimeException e) {
+      log.error("Could not snapshot the cassettes", e);
+    }
+  }
+}
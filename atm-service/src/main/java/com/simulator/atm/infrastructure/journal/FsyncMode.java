@@ -0,0 +1,11 @@
+package com.simulator.atm.infrastructure.journal;
+
+/** When journal records are forced from the page cache to disk. */
+public enum FsyncMode {
+  /** Left to the operating system; survives a crash of the service, not of the host. */
+  NONE,
+  /** Group commit: every record written since the last tick is forced together. */
+  GROUP,
+  /** Each record is forced before the operation returns. */
+  EVERY_WRITE
+}
@@ -0,0 +1,133 @@
+package com.simulator.atm.infrastructure.journal;
+
+import com.simulator.atm.business.service.dispenser.CassetteLayout;
+import com.simulator.atm.business.service.dispenser.Cassettes;
+import com.simulator.atm.business.service.dispenser.JournalOperation;
+import com.simulator.atm.business.service.dispenser.Money;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary layout of a journal record: {@code short length, byte operation, byte idLength, id, long
+ * version, long amount, byte cassettes, (long value, int notes)[cassettes], int crc32c}, padded to
+ * {@link #ALIGNMENT} bytes. Cassettes are keyed by denomination value, so a terminal can be restored
+ * onto a reordered or extended layout. A writer that dies between claiming its bytes and copying
+ * the record in leaves a slot that fails its checksum, or never got a length at all; the reader
+ * steps over it one alignment at a time and carries on with the records after it.
+ */
+final class JournalCodec {
+  static final int ALIGNMENT = Long.BYTES;
+
+  private static final int MAX_ID_LENGTH = 64;
+  private static final int MIN_RECORD_SIZE =
+      Short.BYTES + Byte.BYTES * 2 + Long.BYTES * 2 + Byte.BYTES + Integer.BYTES;
+
+  static final int MAX_RECORD_SIZE =
+      align(
+          Short.BYTES
+              + Byte.BYTES * 2
+              + MAX_ID_LENGTH
+              + Long.BYTES * 2
+              + Byte.BYTES
+              + (Long.BYTES + Integer.BYTES) * CassetteLayout.MAX_DENOMINATIONS
+              + Integer.BYTES);
+
+  private static final ThreadLocal<CRC32C> CHECKSUMS = ThreadLocal.withInitial(CRC32C::new);
+
+  private JournalCodec() {}
+
+  /** Writes a record from position 0 of {@code record}, flipped and ready to be copied. */
+  static void encode(
+      ByteBuffer record, String atmId, JournalOperation operation, long amount, Cassettes cassettes) {
+    final var layout = cassettes.layout();
+    record.clear();
+    record.putShort((short) 0);
+    record.put((byte) operation.ordinal());
+    record.put((byte) atmId.length());
+    for (int i = 0; i < atmId.length(); i++) {
+      record.put((byte) atmId.charAt(i));
+    }
+    record.putLong(cassettes.version());
+    record.putLong(amount);
+    record.put((byte) layout.size());
+    for (int i = 0; i < layout.size(); i++) {
+      record.putLong(layout.value(i));
+      record.putInt(cassettes.notes(i));
+    }
+    final var length = record.position() + Integer.BYTES;
+    record.putShort(0, (short) length);
+    record.putInt(checksum(record, 0, length));
+    while (record.position() < align(length)) record.put((byte) 0);
+    record.flip();
+  }
+
+  /** Keeps, for every terminal in {@code records}, whichever cassettes have the highest version. */
+  static void decodeAll(ByteBuffer records, Map<String, Cassettes> latest) {
+    var position = 0;
+    while (position + MIN_RECORD_SIZE <= records.limit()) {
+      final var length = records.getShort(position);
+      if (isComplete(records, position, length)) {
+        decode(records, position, latest);
+        position += align(length);
+      } else {
+        position += ALIGNMENT;
+      }
+    }
+  }
+
+  private static boolean isComplete(ByteBuffer records, int position, int length) {
+    return length >= MIN_RECORD_SIZE
+        && length <= MAX_RECORD_SIZE
+        && position + length <= records.limit()
+        && records.getInt(position + length - Integer.BYTES) == checksum(records, position, length);
+  }
+
+  /** CRC32C of the record at {@code position}, up to its checksum. */
+  private static int checksum(ByteBuffer records, int position, int length) {
+    final var checksum = CHECKSUMS.get();
+    checksum.reset();
+    checksum.update(records.slice(position, length - Integer.BYTES));
+    return (int) checksum.getValue();
+  }
+
+  private static int align(int length) {
+    return (length + ALIGNMENT - 1) & -ALIGNMENT;
+  }
+
+  private static void decode(ByteBuffer records, int position, Map<String, Cassettes> latest) {
+    var offset = position + Short.BYTES + Byte.BYTES;
+    final var idLength = records.get(offset++);
+    final var id = new byte[idLength];
+    records.get(offset, id);
+    offset += idLength;
+    final var version = records.getLong(offset);
+    offset += Long.BYTES * 2;
+
+    final var atmId = new String(id, StandardCharsets.US_ASCII);
+    final var known = latest.get(atmId);
+    if (known != null && known.version() >= version) return;
+
+    final var size = records.get(offset++);
+    final var names = new String[size];
+    final var values = new long[size];
+    final var notes = new int[size];
+    for (int i = 0; i < size; i++, offset += Long.BYTES + Integer.BYTES) {
+      values[i] = records.getLong(offset);
+      notes[i] = records.getInt(offset + Long.BYTES);
+      names[i] = Money.toMajor(values[i]).toPlainString();
+    }
+    final var capacities = new int[size];
+    Arrays.fill(capacities, Integer.MAX_VALUE);
+    final var layout = CassetteLayout.of(names, values, capacities, Long.MAX_VALUE);
+
+    final var sorted = new int[size];
+    for (int i = 0; i < size; i++) {
+      sorted[layout.indexOf(values[i])] = notes[i];
+    }
+    latest.put(atmId, Cassettes.of(layout, sorted, version));
+  }
+}
@@ -0,0 +1,80 @@
+package com.simulator.atm.infrastructure.journal;
+
+import com.simulator.atm.business.service.dispenser.Cassettes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One memory-mapped journal file. Writers claim their bytes with a single {@code getAndAdd} on the
+ * write position and then copy the record in without any lock; a claim that runs past the end of
+ * the file fails and the writer moves on to the next segment.
+ */
+final class JournalSegment {
+  private final long index;
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final AtomicInteger position = new AtomicInteger();
+
+  private JournalSegment(long index, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    this.index = index;
+    this.path = path;
+    this.channel = channel;
+    this.buffer = buffer;
+  }
+
+  static JournalSegment create(long index, Path path, int size) throws IOException {
+    final var channel =
+        FileChannel.open(
+            path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    return new JournalSegment(
+        index, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+  }
+
+  static void read(Path path, Map<String, Cassettes> latest) throws IOException {
+    try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      JournalCodec.decodeAll(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), latest);
+    }
+  }
+
+  long index() {
+    return index;
+  }
+
+  Path path() {
+    return path;
+  }
+
+  /**
+   * Claims {@code length} bytes and returns where they start, or {@code -1} if the file is full.
+   */
+  int reserve(int length) {
+    final var start = position.getAndAdd(length);
+    return start >= 0 && start <= buffer.capacity() - length ? start : -1;
+  }
+
+  /** Copies {@code record} to {@code start}; its checksum tells a reader whether it all landed. */
+  void write(int start, ByteBuffer record) {
+    buffer.put(start, record, 0, record.limit());
+  }
+
+  void force(int start, int length) {
+    buffer.force(start, length);
+  }
+
+  void force() {
+    buffer.force();
+  }
+
+  void close() throws IOException {
+    buffer.force();
+    channel.close();
+  }
+}
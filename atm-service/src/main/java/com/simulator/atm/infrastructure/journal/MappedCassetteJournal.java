@@ -0,0 +1,189 @@
+package com.simulator.atm.infrastructure.journal;
+
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.Cassettes;
+import com.simulator.atm.business.service.dispenser.JournalOperation;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link CassetteJournal} kept in memory-mapped, append-only segment files. Every record carries
+ * the whole cassette snapshot an operation produced and its version, so replay only has to keep the
+ * highest version per terminal, regardless of the order concurrent writers landed in.
+ *
+ * <p>Appending encodes into a per-thread buffer and copies it into the current segment, which costs
+ * no system call unless {@link FsyncMode#EVERY_WRITE} is set. A snapshot first moves appends to a
+ * fresh segment, then reads the cassettes, so every record in the older segments is already
+ * reflected in it and those files can be deleted once the snapshot is on disk.
+ */
+@Slf4j
+public class MappedCassetteJournal implements CassetteJournal {
+  private static final Pattern SEGMENT = Pattern.compile("journal-(\\d{12})\\.log");
+  private static final String SNAPSHOT = "snapshot.bin";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final FsyncMode fsync;
+  private final ThreadLocal<ByteBuffer> records =
+      ThreadLocal.withInitial(() -> ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE));
+
+  private volatile JournalSegment current;
+  private volatile JournalSegment previous;
+
+  public MappedCassetteJournal(Path directory, int segmentSize, FsyncMode fsync)
+      throws IOException {
+    if (segmentSize < JournalCodec.MAX_RECORD_SIZE)
+      throw new IllegalArgumentException("Journal segments must hold at least one record");
+    this.directory = Files.createDirectories(directory);
+    this.segmentSize = segmentSize;
+    this.fsync = fsync;
+
+    final var segments = segments();
+    final var next = segments.isEmpty() ? 0 : index(segments.get(segments.size() - 1)) + 1;
+    this.current = JournalSegment.create(next, segment(next), segmentSize);
+  }
+
+  @Override
+  public Map<String, Cassettes> replay() {
+    final var start = System.nanoTime();
+    final var latest = new HashMap<String, Cassettes>();
+    try {
+      final var snapshot = directory.resolve(SNAPSHOT);
+      if (Files.exists(snapshot)) JournalSegment.read(snapshot, latest);
+      for (Path segment : segments()) {
+        if (index(segment) < current.index()) JournalSegment.read(segment, latest);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not replay the cassette journal", e);
+    }
+    log.info(
+        "Replayed cassette journal of {} terminals in {} ms",
+        latest.size(),
+        (System.nanoTime() - start) / 1_000_000);
+    return latest;
+  }
+
+  @Override
+  public void append(String atmId, JournalOperation operation, long amount, Cassettes cassettes) {
+    final var record = records.get();
+    JournalCodec.encode(record, atmId, operation, amount, cassettes);
+    final var length = record.limit();
+    try {
+      var segment = current;
+      var start = segment.reserve(length);
+      while (start < 0) {
+        segment = roll(segment);
+        start = segment.reserve(length);
+      }
+      segment.write(start, record);
+      if (fsync == FsyncMode.EVERY_WRITE) segment.force(start, length);
+    } catch (UncheckedIOException e) {
+      log.error("Could not journal {} of terminal {} :: {}", operation, atmId, cassettes, e);
+    }
+  }
+
+  @Override
+  public synchronized void snapshot(Supplier<Map<String, Cassettes>> cassettes) {
+    final var covered = current;
+    roll(covered);
+    final var state = cassettes.get();
+
+    final var buffer =
+        ByteBuffer.allocate(Math.max(1, state.size()) * JournalCodec.MAX_RECORD_SIZE);
+    final var record = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+    state.forEach(
+        (atmId, snapshot) -> {
+          JournalCodec.encode(record, atmId, JournalOperation.SNAPSHOT, 0, snapshot);
+          buffer.put(record);
+        });
+    buffer.flip();
+
+    try {
+      final var temporary = directory.resolve(SNAPSHOT + ".tmp");
+      try (var channel =
+          FileChannel.open(
+              temporary,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.WRITE)) {
+        while (buffer.hasRemaining()) channel.write(buffer);
+        channel.force(true);
+      }
+      Files.move(
+          temporary,
+          directory.resolve(SNAPSHOT),
+          StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+
+      for (Path segment : segments()) {
+        if (index(segment) <= covered.index()) Files.deleteIfExists(segment);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write the cassette snapshot", e);
+    }
+    log.debug("Cassette snapshot of {} terminals written", state.size());
+  }
+
+  @Override
+  public void force() {
+    final var last = previous;
+    if (last != null) last.force();
+    current.force();
+  }
+
+  @Override
+  public synchronized void close() {
+    try {
+      if (previous != null) previous.close();
+      current.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not close the cassette journal", e);
+    }
+  }
+
+  private synchronized JournalSegment roll(JournalSegment full) {
+    if (current != full) return current;
+    try {
+      if (previous != null) previous.close();
+      previous = full;
+      current = JournalSegment.create(full.index() + 1, segment(full.index() + 1), segmentSize);
+      return current;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not open a new journal segment", e);
+    }
+  }
+
+  private Path segment(long index) {
+    return directory.resolve("journal-%012d.log".formatted(index));
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(file -> SEGMENT.matcher(file.getFileName().toString()).matches())
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static long index(Path segment) {
+    final var matcher = SEGMENT.matcher(segment.getFileName().toString());
+    if (!matcher.matches()) throw new IllegalArgumentException("Not a journal segment: " + segment);
+    return Long.parseLong(matcher.group(1));
+  }
+}
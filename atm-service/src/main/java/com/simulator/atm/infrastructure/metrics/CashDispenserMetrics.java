@@ -0,0 +1,54 @@
+package com.simulator.atm.infrastructure.metrics;
+
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteTotals;
+import com.simulator.atm.business.service.dispenser.Money;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the cassette levels of the whole fleet as gauges. Tagging per terminal would create
+ * tens of thousands of meters, so each gauge reads the {@link CassetteTotals} the dispensers keep
+ * up to date, and a scrape costs the same however many terminals are loaded.
+ */
+@Component
+public class CashDispenserMetrics implements MeterBinder {
+
+  private final CashDispenserRegistry cashDispensers;
+
+  public CashDispenserMetrics(CashDispenserRegistry cashDispensers) {
+    this.cashDispensers = cashDispensers;
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    final var totals = cashDispensers.totals();
+
+    Gauge.builder("atm.terminals", cashDispensers, CashDispenserRegistry::size)
+        .description("Terminals loaded in this node")
+        .register(registry);
+
+    Gauge.builder("atm.cash.total", totals, t -> major(t.totalCash()))
+        .description("Cash available in the ATMs")
+        .baseUnit("euros")
+        .register(registry);
+
+    for (String type : cashDispensers.denominations()) {
+      Gauge.builder("atm.cash.notes", totals, t -> t.notes(type))
+          .description("Notes loaded in the cassettes")
+          .tag("type", type)
+          .register(registry);
+      Gauge.builder("atm.cash.amount", totals, t -> major(t.cash(type)))
+          .description("Cash held in the cassettes")
+          .baseUnit("euros")
+          .tag("type", type)
+          .register(registry);
+    }
+  }
+
+  private static double major(long minor) {
+    return minor / Math.pow(10, Money.SCALE);
+  }
+}
@@ -15,7 +15,9 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+    "atm.journal.enabled=false",
+    "session.secret=atm-simulator-test-session-secret-0001"})
 @AutoConfigureMockMvc
 @AutoConfigureStubRunner(ids = {"com.simulator:account-service:+:stubs:7501"}, stubsMode = StubRunnerProperties.StubsMode.LOCAL)
 public class AtmIntegrationTest {
@@ -146,4 +148,20 @@ public class AtmIntegrationTest {
                     .value("Atm does not have the funds to complete your request"));
 
     }
+
+    @Test
+    public void Integration_circuitBreakers_shouldExposeAccountServiceBreaker() throws Exception {
+
+        mockMvc
+            .perform(get("/actuator/circuitbreakers"))
+            .andExpect(status().is(200))
+            .andExpect(jsonPath("$.circuitBreakers[0]").value("account-service"));
+
+        mockMvc
+            .perform(
+                get("/actuator/metrics/resilience4j.circuitbreaker.state")
+                    .param("tag", "name:account-service", "state:closed"))
+            .andExpect(status().is(200))
+            .andExpect(jsonPath("$.measurements[0].value").value(1.0));
+    }
 }
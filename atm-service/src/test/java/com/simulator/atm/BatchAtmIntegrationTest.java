@@ -0,0 +1,61 @@
+package com.simulator.atm;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.stubrunner.spring.AutoConfigureStubRunner;
+import org.springframework.cloud.contract.stubrunner.spring.StubRunnerProperties;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.simulator.atm.business.web.controller.utils.AtmControllerUtils.getTransactionRequestJson;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "atm.journal.enabled=false",
+    "atm.account-client.batch-enabled=true",
+    "atm.account-client.batch-window=1ms",
+    "account-api-url=http://localhost:7503",
+    "session.secret=atm-simulator-test-session-secret-0001"})
+@AutoConfigureMockMvc
+@AutoConfigureStubRunner(ids = {"com.simulator:account-service:+:stubs:7503"}, stubsMode = StubRunnerProperties.StubsMode.LOCAL)
+public class BatchAtmIntegrationTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void Integration_dispense_shouldDispenseMoneyThroughTheBatchEndpoint() throws Exception {
+        final var accountNumber = "123456789";
+        final var pin = "1234";
+        final var requestJson = getTransactionRequestJson(100);
+
+        mockMvc
+            .perform(
+                post("/v1/atm/dispense")
+                    .header("accountNumber", accountNumber)
+                    .header("pin", pin)
+                    .contentType(APPLICATION_JSON)
+                    .content(requestJson))
+            .andExpect(status().is(200));
+    }
+
+    @Test
+    public void Integration_dispense_shouldDataNotFoundWhenAccountOfTheBatchIsNotFound() throws Exception {
+        final var accountNumber = "54644";
+        final var pin = "1234";
+        final var requestJson = getTransactionRequestJson(100);
+
+        mockMvc
+            .perform(
+                post("/v1/atm/dispense")
+                    .header("accountNumber", accountNumber)
+                    .header("pin", pin)
+                    .contentType(APPLICATION_JSON)
+                    .content(requestJson))
+            .andExpect(status().is(404))
+            .andExpect(jsonPath("description").value("Account number was not found"));
+    }
+}
@@ -0,0 +1,100 @@
+package com.simulator.atm;
+
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.contract.stubrunner.spring.AutoConfigureStubRunner;
+import org.springframework.cloud.contract.stubrunner.spring.StubRunnerProperties;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static com.simulator.atm.business.web.controller.utils.AtmControllerUtils.getTransactionRequestJson;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+@SpringBootTest(properties = {
+    "spring.main.web-application-type=reactive",
+    "atm.journal.enabled=false",
+    "account-api-url=http://localhost:7502",
+    "session.secret=atm-simulator-test-session-secret-0001"})
+@AutoConfigureWebTestClient
+@AutoConfigureStubRunner(ids = {"com.simulator:account-service:+:stubs:7502"}, stubsMode = StubRunnerProperties.StubsMode.LOCAL)
+public class ReactiveAtmIntegrationTest {
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private CashDispenserRegistry cashDispensers;
+
+    /** The withdraw contracts are steps of one scenario, so every test starts it over. */
+    @BeforeEach
+    public void setUp() {
+        new WireMock(7502).resetScenarios();
+    }
+
+    @Test
+    public void Integration_balance_shouldBalance() {
+        webTestClient
+            .get()
+            .uri("/v1/atm/balance")
+            .header("accountNumber", "123456789")
+            .header("pin", "1234")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.balance").isNumber()
+            .jsonPath("$.overdraft").isNumber();
+    }
+
+    @Test
+    public void Integration_dispense_shouldDispenseMoney() {
+        dispense(null, 500)
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.dispensedCash").isEqualTo(500);
+    }
+
+    @Test
+    public void Integration_dispense_shouldRefundCashWhenAccountHasInsufficientFunds() {
+        final var cashDispenser = cashDispensers.get("ATM-0100");
+        final var before = cashDispenser.getTotalCash();
+
+        dispense("ATM-0100", 500).expectStatus().isOk();
+        dispense("ATM-0100", 2000)
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("description").isEqualTo("Your Account has insufficient funds to complete this request");
+
+        assertEquals(before - toMinor(500), cashDispenser.getTotalCash());
+    }
+
+    @Test
+    public void Integration_dispense_shouldBadRequestWhenPinIsMissing() {
+        webTestClient
+            .post()
+            .uri("/v1/atm/dispense")
+            .header("accountNumber", "123456789")
+            .contentType(APPLICATION_JSON)
+            .bodyValue(getTransactionRequestJson(500))
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody()
+            .jsonPath("status").isEqualTo("Bad Request");
+    }
+
+    private WebTestClient.ResponseSpec dispense(String atmId, int amount) {
+        final var request = webTestClient
+            .post()
+            .uri("/v1/atm/dispense")
+            .header("accountNumber", "123456789")
+            .header("pin", "1234")
+            .contentType(APPLICATION_JSON)
+            .bodyValue(getTransactionRequestJson(amount));
+        if (atmId != null) request.header("atmId", atmId);
+        return request.exchange();
+    }
+}
@@ -1,34 +1,52 @@
 package com.simulator.atm.business.service;
 
+import com.simulator.atm.business.service.client.AccountServiceGuard;
+import com.simulator.atm.business.service.client.WithdrawalCoalescer;
 import com.simulator.atm.business.service.client.AccountServiceClient;
 import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
 import com.simulator.dto.AccountBalanceDto;
 import com.simulator.dto.TransactionRequest;
 import com.simulator.exception.BadRequestException;
+import com.simulator.exception.UnauthorizedException;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
 
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
 import static com.simulator.atm.business.service.utils.AtmServiceUtils.getBadRequestExceptionAtmCanNotGiveAmount;
 import static com.simulator.atm.business.service.utils.AtmServiceUtils.getBadRequestExceptionAtmHasNoCash;
-import static com.simulator.atm.business.service.utils.AtmServiceUtils.getCashDispensed;
 import static com.simulator.atm.business.service.utils.AtmServiceUtils.getRetryableExceptionAccountHasInsufficientFunds;
 import static com.simulator.atm.business.service.utils.AtmServiceUtils.getRetryableExceptionAccountIsNotFound;
 import static com.simulator.atm.business.service.utils.AtmServiceUtils.getRetryableExceptionPinIsInvalid;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getRetryableExceptionReadTimedOut;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyInt;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,8 +56,26 @@ public class AtmServiceTest {
 
   @Mock private AccountServiceClient accountClient;
 
+  @Mock private CashDispenserRegistry cashDispensers;
+
   @Mock private CashDispenser cashDispenser;
 
+  @Mock private WithdrawalCoalescer withdrawals;
+
+  private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+
+  private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+
+  @Spy
+  private AccountServiceGuard guard = new AccountServiceGuard(circuitBreakers, bulkheads);
+
+  @Spy
+  private SessionTokens sessions =
+      new SessionTokens(
+          "atm-service-test-session-secret-0001".getBytes(StandardCharsets.UTF_8),
+          Duration.ofMinutes(5),
+          Clock.systemUTC());
+
   @Test
   public void balance_shouldGetBalance() {
 
@@ -100,17 +136,20 @@ public class AtmServiceTest {
 
     final var accountNumber = "234566";
     final var pin = "12345";
-    final var amount = 150;
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
 
-    final var cashDispensed = getCashDispensed();
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
 
-    when(cashDispenser.dispense(amount)).thenReturn(cashDispensed);
+    final var cashDispensed = new DispensedNotes();
 
-    final var returnedCashDispensed = atmService.dispense(accountNumber, pin, amount);
+    final var returnedCashDispensed =
+        atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed);
 
     assertEquals(cashDispensed, returnedCashDispensed);
-    verify(accountClient, times(1))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+    verify(cashDispenser, times(1)).dispense(toMinor(150), cashDispensed);
+    verify(withdrawals, times(1))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
   }
 
   @Test
@@ -118,19 +157,25 @@ public class AtmServiceTest {
 
     final var accountNumber = "234566";
     final var pin = "12345";
-    final var amount = 150;
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
 
-    doThrow(getBadRequestExceptionAtmHasNoCash()).when(cashDispenser).dispense(anyInt());
+    doThrow(getBadRequestExceptionAtmHasNoCash())
+        .when(cashDispenser)
+        .dispense(anyLong(), any(DispensedNotes.class));
 
     final var assertThrows =
         assertThrows(
-            BadRequestException.class, () -> atmService.dispense(accountNumber, pin, amount));
+            BadRequestException.class,
+            () -> atmService.dispense(atmId, accountNumber, pin, amount, new DispensedNotes()));
 
     assertEquals("Atm does not have the funds to complete your request", assertThrows.getMessage());
     assertEquals(400, assertThrows.getStatus().value());
 
-    verify(accountClient, times(0))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+    verify(withdrawals, times(0))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
   }
 
   @Test
@@ -138,19 +183,25 @@ public class AtmServiceTest {
 
     final var accountNumber = "234566";
     final var pin = "12345";
-    final var amount = 150;
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
 
-    doThrow(getBadRequestExceptionAtmCanNotGiveAmount()).when(cashDispenser).dispense(anyInt());
+    doThrow(getBadRequestExceptionAtmCanNotGiveAmount())
+        .when(cashDispenser)
+        .dispense(anyLong(), any(DispensedNotes.class));
 
     final var assertThrows =
         assertThrows(
-            BadRequestException.class, () -> atmService.dispense(accountNumber, pin, amount));
+            BadRequestException.class,
+            () -> atmService.dispense(atmId, accountNumber, pin, amount, new DispensedNotes()));
 
     assertEquals("It is not possible to dispense this value", assertThrows.getMessage());
     assertEquals(400, assertThrows.getStatus().value());
 
-    verify(accountClient, times(0))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+    verify(withdrawals, times(0))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
   }
 
   @Test
@@ -158,26 +209,29 @@ public class AtmServiceTest {
 
     final var accountNumber = "234566";
     final var pin = "12345";
-    final var amount = 150;
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
 
-    final var cashDispensed = getCashDispensed();
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
 
-    when(cashDispenser.dispense(amount)).thenReturn(cashDispensed);
+    final var cashDispensed = new DispensedNotes();
 
     doThrow(getRetryableExceptionAccountIsNotFound(accountNumber))
-        .when(accountClient)
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .when(withdrawals)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
 
     final var assertThrows =
-        assertThrows(FeignException.class, () -> atmService.dispense(accountNumber, pin, amount));
+        assertThrows(
+            FeignException.class,
+            () -> atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed));
 
     assertEquals(
         "Account number '%s' was not found".formatted(accountNumber), assertThrows.getMessage());
     assertEquals(404, assertThrows.status());
 
-    verify(accountClient, times(1))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
-    verify(cashDispenser, times(1)).refund(anyList());
+    verify(withdrawals, times(1))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
+    verify(cashDispenser, times(1)).refund(cashDispensed);
   }
 
   @Test
@@ -185,25 +239,28 @@ public class AtmServiceTest {
 
     final var accountNumber = "234566";
     final var pin = "12345";
-    final var amount = 150;
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
 
-    final var cashDispensed = getCashDispensed();
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
 
-    when(cashDispenser.dispense(amount)).thenReturn(cashDispensed);
+    final var cashDispensed = new DispensedNotes();
 
     doThrow(getRetryableExceptionPinIsInvalid())
-        .when(accountClient)
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .when(withdrawals)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
 
     final var assertThrows =
-        assertThrows(FeignException.class, () -> atmService.dispense(accountNumber, pin, amount));
+        assertThrows(
+            FeignException.class,
+            () -> atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed));
 
     assertEquals("Pin account is invalid!", assertThrows.getMessage());
     assertEquals(400, assertThrows.status());
 
-    verify(accountClient, times(1))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
-    verify(cashDispenser, times(1)).refund(anyList());
+    verify(withdrawals, times(1))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
+    verify(cashDispenser, times(1)).refund(cashDispensed);
   }
 
   @Test
@@ -211,25 +268,183 @@ public class AtmServiceTest {
 
     final var accountNumber = "234566";
     final var pin = "12345";
-    final var amount = 150;
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
 
-    final var cashDispensed = getCashDispensed();
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
 
-    when(cashDispenser.dispense(amount)).thenReturn(cashDispensed);
+    final var cashDispensed = new DispensedNotes();
 
     doThrow(getRetryableExceptionAccountHasInsufficientFunds())
-        .when(accountClient)
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
+        .when(withdrawals)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
 
     final var assertThrows =
-        assertThrows(FeignException.class, () -> atmService.dispense(accountNumber, pin, amount));
+        assertThrows(
+            FeignException.class,
+            () -> atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed));
 
     assertEquals(
         "Your Account has insufficient funds to complete this request", assertThrows.getMessage());
     assertEquals(400, assertThrows.status());
 
-    verify(accountClient, times(1))
-        .withdraw(anyString(), anyString(), any(TransactionRequest.class));
-    verify(cashDispenser, times(1)).refund(anyList());
+    verify(withdrawals, times(1))
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
+    verify(cashDispenser, times(1)).refund(cashDispensed);
+  }
+
+  @Test
+  public void dispense_shouldRefundAndReleaseTheCallWhenTheWithdrawalFailsUnexpectedly() {
+
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
+
+    final var cashDispensed = new DispensedNotes();
+
+    doThrow(new IllegalStateException("Withdrawal batch failed"))
+        .when(withdrawals)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed));
+
+    verify(cashDispenser, times(1)).refund(cashDispensed);
+    final var bulkhead = bulkheads.bulkhead(AccountServiceGuard.NAME);
+    assertEquals(
+        bulkhead.getBulkheadConfig().getMaxConcurrentCalls(),
+        bulkhead.getMetrics().getAvailableConcurrentCalls());
+  }
+
+  @Test
+  public void dispense_shouldConfirmAWithdrawalThatTimedOutInsteadOfRefunding() {
+
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
+
+    final var cashDispensed = new DispensedNotes();
+
+    // the debit went through, but its answer never arrived
+    doThrow(getRetryableExceptionReadTimedOut())
+        .doNothing()
+        .when(withdrawals)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
+
+    assertEquals(
+        cashDispensed, atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed));
+
+    final var keys = ArgumentCaptor.forClass(String.class);
+    verify(withdrawals, times(2))
+        .withdraw(
+            eq(accountNumber),
+            any(Credentials.class),
+            any(TransactionRequest.class),
+            keys.capture());
+    assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+    verify(cashDispenser, never()).refund(any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldRefundWhenTheConfirmationIsRejected() {
+
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
+
+    final var cashDispensed = new DispensedNotes();
+
+    doThrow(getRetryableExceptionReadTimedOut(), getRetryableExceptionAccountHasInsufficientFunds())
+        .when(withdrawals)
+        .withdraw(anyString(), any(Credentials.class), any(TransactionRequest.class), anyString());
+
+    final var assertThrows =
+        assertThrows(
+            FeignException.class,
+            () -> atmService.dispense(atmId, accountNumber, pin, amount, cashDispensed));
+
+    assertEquals(400, assertThrows.status());
+    verify(cashDispenser, times(1)).refund(cashDispensed);
+  }
+
+  @Test
+  public void dispense_shouldFailFastWhenCircuitIsOpen() {
+
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var amount = BigDecimal.valueOf(150);
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
+    circuitBreakers.circuitBreaker(AccountServiceGuard.NAME).transitionToForcedOpenState();
+
+    assertThrows(
+        CallNotPermittedException.class,
+        () -> atmService.dispense(atmId, accountNumber, pin, amount, new DispensedNotes()));
+
+    verifyNoInteractions(cashDispenser, accountClient, withdrawals);
+  }
+
+  @Test
+  public void dispense_shouldWithdrawWithTheSessionToken() {
+
+    final var accountNumber = "234566";
+    final var token = sessions.issue(accountNumber).getToken();
+    final var atmId = "ATM-0001";
+
+    when(cashDispensers.get(atmId)).thenReturn(cashDispenser);
+
+    atmService.dispense(
+        atmId,
+        accountNumber,
+        Credentials.session(token),
+        BigDecimal.valueOf(150),
+        new DispensedNotes());
+
+    verify(withdrawals, times(1))
+        .withdraw(
+            eq(accountNumber),
+            eq(Credentials.session(token)),
+            any(TransactionRequest.class),
+            anyString());
+  }
+
+  @Test
+  public void dispense_shouldUnauthorizedBeforeDispensingWhenTheSessionTokenIsForAnotherAccount() {
+
+    final var token = sessions.issue("987654").getToken();
+
+    assertThrows(
+        UnauthorizedException.class,
+        () ->
+            atmService.dispense(
+                "ATM-0001",
+                "234566",
+                Credentials.session(token),
+                BigDecimal.valueOf(150),
+                new DispensedNotes()));
+
+    verifyNoInteractions(cashDispensers, accountClient, withdrawals);
+  }
+
+  @Test
+  public void closeSession_shouldRevokeTheTokenHereAndAtAccountService() {
+
+    final var token = sessions.issue("234566").getToken();
+
+    atmService.closeSession(token);
+
+    assertThrows(UnauthorizedException.class, () -> sessions.verify(token));
+    verify(accountClient, times(1)).closeSession(token);
   }
 }
@@ -0,0 +1,234 @@
+package com.simulator.atm.business.service;
+
+import com.simulator.atm.business.service.client.AccountServiceGuard;
+import com.simulator.atm.business.service.client.ReactiveAccountServiceClient;
+import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.exception.BadRequestException;
+import com.simulator.exception.UnauthorizedException;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getBadRequestExceptionAtmHasNoCash;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getWebClientRequestExceptionReadTimedOut;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getWebClientResponseExceptionPinIsInvalid;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveAtmServiceTest {
+
+  private static final String ACCOUNT_NUMBER = "234566";
+  private static final String PIN = "12345";
+  private static final String ATM_ID = "ATM-0001";
+
+  @InjectMocks private ReactiveAtmService atmService;
+
+  @Mock private ReactiveAccountServiceClient accountClient;
+
+  @Mock private CashDispenserRegistry cashDispensers;
+
+  @Mock private CashDispenser cashDispenser;
+
+  private final CircuitBreakerRegistry circuitBreakers = CircuitBreakerRegistry.ofDefaults();
+
+  private final BulkheadRegistry bulkheads = BulkheadRegistry.ofDefaults();
+
+  @Spy
+  private AccountServiceGuard guard = new AccountServiceGuard(circuitBreakers, bulkheads);
+
+  @Spy
+  private SessionTokens sessions =
+      new SessionTokens(
+          "atm-service-test-session-secret-0001".getBytes(StandardCharsets.UTF_8),
+          Duration.ofMinutes(5),
+          Clock.systemUTC());
+
+  @Test
+  public void balance_shouldGetBalance() {
+    final var account = new AccountBalanceDto(BigDecimal.valueOf(800), BigDecimal.valueOf(200));
+    when(accountClient.balance(ACCOUNT_NUMBER, Credentials.pin(PIN)))
+        .thenReturn(Mono.just(account));
+
+    StepVerifier.create(atmService.balance(ACCOUNT_NUMBER, PIN))
+        .expectNext(account)
+        .verifyComplete();
+  }
+
+  @Test
+  public void dispense_shouldDispenseFunds() {
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    when(accountClient.withdraw(
+            eq(ACCOUNT_NUMBER),
+            eq(Credentials.pin(PIN)),
+            any(TransactionRequest.class),
+            anyString()))
+        .thenReturn(Mono.empty());
+
+    StepVerifier.create(atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(150)))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    verify(cashDispenser, times(1)).dispense(eq(toMinor(150)), any(DispensedNotes.class));
+    verify(cashDispenser, never()).refund(any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldRefundCashWhenPinIsInvalid() {
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    when(accountClient.withdraw(
+            anyString(), any(Credentials.class), any(TransactionRequest.class), anyString()))
+        .thenReturn(Mono.error(getWebClientResponseExceptionPinIsInvalid()));
+
+    StepVerifier.create(atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(150)))
+        .expectError(WebClientResponseException.BadRequest.class)
+        .verify();
+
+    verify(cashDispenser, times(1)).refund(any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldConfirmAWithdrawalThatTimedOutInsteadOfRefunding() {
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    // the debit went through, but its answer never arrived
+    when(accountClient.withdraw(
+            anyString(), any(Credentials.class), any(TransactionRequest.class), anyString()))
+        .thenReturn(Mono.error(getWebClientRequestExceptionReadTimedOut()), Mono.empty());
+
+    StepVerifier.create(atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(150)))
+        .expectNextCount(1)
+        .verifyComplete();
+
+    final var keys = ArgumentCaptor.forClass(String.class);
+    verify(accountClient, times(2))
+        .withdraw(
+            eq(ACCOUNT_NUMBER),
+            any(Credentials.class),
+            any(TransactionRequest.class),
+            keys.capture());
+    assertEquals(keys.getAllValues().get(0), keys.getAllValues().get(1));
+    verify(cashDispenser, never()).refund(any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldRefundAndReleaseTheCallWhenTheWithdrawalFailsUnexpectedly() {
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    when(accountClient.withdraw(
+            anyString(), any(Credentials.class), any(TransactionRequest.class), anyString()))
+        .thenThrow(new IllegalStateException("Withdrawal could not be encoded"));
+
+    StepVerifier.create(atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(150)))
+        .expectError(IllegalStateException.class)
+        .verify();
+
+    verify(cashDispenser, times(1)).refund(any(DispensedNotes.class));
+    final var bulkhead = bulkheads.bulkhead(AccountServiceGuard.NAME);
+    assertEquals(
+        bulkhead.getBulkheadConfig().getMaxConcurrentCalls(),
+        bulkhead.getMetrics().getAvailableConcurrentCalls());
+  }
+
+  @Test
+  public void dispense_shouldNotCallAccountServiceWhenAtmHasNoCash() {
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    doThrow(getBadRequestExceptionAtmHasNoCash())
+        .when(cashDispenser)
+        .dispense(anyLong(), any(DispensedNotes.class));
+
+    StepVerifier.create(atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(5000)))
+        .expectError(BadRequestException.class)
+        .verify();
+
+    verifyNoInteractions(accountClient);
+  }
+
+  @Test
+  public void dispense_shouldStillRefundWhenTheRequestWasCancelled() {
+    final var withdrawal = Sinks.<Void>empty();
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    when(accountClient.withdraw(
+            anyString(), any(Credentials.class), any(TransactionRequest.class), anyString()))
+        .thenReturn(withdrawal.asMono());
+
+    atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(150)).subscribe().dispose();
+    withdrawal.tryEmitError(getWebClientResponseExceptionPinIsInvalid());
+
+    verify(cashDispenser, times(1)).refund(any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldFailFastWhenCircuitIsOpen() {
+
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    circuitBreakers.circuitBreaker(AccountServiceGuard.NAME).transitionToForcedOpenState();
+
+    StepVerifier.create(atmService.dispense(ATM_ID, ACCOUNT_NUMBER, PIN, BigDecimal.valueOf(150)))
+        .expectError(CallNotPermittedException.class)
+        .verify();
+
+    verifyNoInteractions(cashDispenser, accountClient);
+  }
+
+  @Test
+  public void dispense_shouldWithdrawWithTheSessionToken() {
+    final var token = sessions.issue(ACCOUNT_NUMBER).getToken();
+    when(cashDispensers.get(ATM_ID)).thenReturn(cashDispenser);
+    when(accountClient.withdraw(
+            eq(ACCOUNT_NUMBER),
+            eq(Credentials.session(token)),
+            any(TransactionRequest.class),
+            anyString()))
+        .thenReturn(Mono.empty());
+
+    StepVerifier.create(
+            atmService.dispense(
+                ATM_ID, ACCOUNT_NUMBER, Credentials.session(token), BigDecimal.valueOf(150)))
+        .expectNextCount(1)
+        .verifyComplete();
+  }
+
+  @Test
+  public void dispense_shouldUnauthorizedBeforeDispensingWhenTheSessionTokenIsInvalid() {
+    final var token = sessions.issue("987654").getToken();
+
+    StepVerifier.create(
+            atmService.dispense(
+                ATM_ID, ACCOUNT_NUMBER, Credentials.session(token), BigDecimal.valueOf(150)))
+        .expectError(UnauthorizedException.class)
+        .verify();
+
+    verifyNoInteractions(cashDispensers, accountClient);
+  }
+}
@@ -0,0 +1,115 @@
+package com.simulator.atm.business.service.client;
+
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getFeignExceptionAccountServiceUnavailable;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getRetryableExceptionPinIsInvalid;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class AccountServiceGuardTest {
+
+  private CircuitBreakerRegistry circuitBreakers;
+  private BulkheadRegistry bulkheads;
+  private AccountServiceGuard guard;
+
+  @BeforeEach
+  public void setUp() {
+    circuitBreakers =
+        CircuitBreakerRegistry.of(
+            CircuitBreakerConfig.custom()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .permittedNumberOfCallsInHalfOpenState(1)
+                .recordException(new AccountServiceFailures())
+                .build());
+    bulkheads =
+        BulkheadRegistry.of(
+            BulkheadConfig.custom().maxConcurrentCalls(1).maxWaitDuration(Duration.ZERO).build());
+    guard = new AccountServiceGuard(circuitBreakers, bulkheads);
+  }
+
+  @Test
+  public void execute_shouldOpenCircuitWhenAccountServiceKeepsFailing() {
+    for (int i = 0; i < 4; i++) {
+      assertThrows(
+          RuntimeException.class,
+          () ->
+              guard.execute(
+                  () -> {
+                    throw getFeignExceptionAccountServiceUnavailable();
+                  }));
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker().getState());
+    assertThrows(CallNotPermittedException.class, () -> guard.execute(() -> "balance"));
+  }
+
+  @Test
+  public void execute_shouldNotCountClientErrorsAsFailures() {
+    for (int i = 0; i < 4; i++) {
+      assertThrows(
+          RuntimeException.class,
+          () ->
+              guard.execute(
+                  () -> {
+                    throw getRetryableExceptionPinIsInvalid();
+                  }));
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker().getState());
+    assertEquals(0, circuitBreaker().getMetrics().getNumberOfFailedCalls());
+  }
+
+  @Test
+  public void acquire_shouldGiveCircuitPermissionBackWhenBulkheadIsFull() {
+    circuitBreaker().transitionToOpenState();
+    circuitBreaker().transitionToHalfOpenState();
+    final var bulkhead = bulkheads.bulkhead(AccountServiceGuard.NAME);
+    bulkhead.acquirePermission();
+
+    assertThrows(BulkheadFullException.class, guard::acquire);
+
+    bulkhead.onComplete();
+    guard.acquire().succeeded();
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker().getState());
+  }
+
+  @Test
+  public void call_shouldRecordOnlyTheFirstOutcome() {
+    final var call = guard.acquire();
+    call.succeeded();
+    call.failed(getFeignExceptionAccountServiceUnavailable());
+    call.released();
+
+    assertEquals(1, circuitBreaker().getMetrics().getNumberOfSuccessfulCalls());
+    assertEquals(0, circuitBreaker().getMetrics().getNumberOfFailedCalls());
+    assertEquals(
+        1, bulkheads.bulkhead(AccountServiceGuard.NAME).getMetrics().getAvailableConcurrentCalls());
+  }
+
+  @Test
+  public void execute_shouldReleasePermissionWhenMonoIsCancelled() {
+    StepVerifier.create(guard.execute(Mono.never())).thenCancel().verify();
+
+    assertEquals(0, circuitBreaker().getMetrics().getNumberOfBufferedCalls());
+    assertEquals(
+        1, bulkheads.bulkhead(AccountServiceGuard.NAME).getMetrics().getAvailableConcurrentCalls());
+  }
+
+  private CircuitBreaker circuitBreaker() {
+    return circuitBreakers.circuitBreaker(AccountServiceGuard.NAME);
+  }
+}
@@ -0,0 +1,282 @@
+package com.simulator.atm.business.service.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simulator.atm.infrastructure.config.AccountClientProperties;
+import com.simulator.dto.BatchWithdrawRequest;
+import com.simulator.dto.BatchWithdrawResponse;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.dto.WithdrawalResult;
+import com.simulator.session.Credentials;
+import com.simulator.exception.model.ExceptionResponse;
+import feign.FeignException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getFeignExceptionAccountServiceUnavailable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class WithdrawalCoalescerTest {
+
+  private static final TransactionRequest TRANSACTION =
+      TransactionRequest.builder().amount(BigDecimal.valueOf(100)).build();
+
+  @Mock private AccountServiceClient client;
+
+  private final AccountClientProperties properties = new AccountClientProperties();
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private WithdrawalCoalescer coalescer;
+
+  @BeforeEach
+  public void setUp() {
+    properties.setBatchEnabled(true);
+    properties.setBatchWindow(Duration.ofSeconds(5));
+    properties.setMaxBatch(4);
+    coalescer = new WithdrawalCoalescer(client, properties, new ObjectMapper(), registry);
+  }
+
+  @Test
+  public void withdraw_shouldCallTheSingleEndpointWhenBatchingIsDisabled() {
+    properties.setBatchEnabled(false);
+
+    coalescer.withdraw("123456789", "1234", TRANSACTION, "key-1");
+
+    verify(client, times(1)).withdraw("123456789", "1234", TRANSACTION, "key-1");
+    verify(client, never()).withdrawBatch(any());
+  }
+
+  @Test
+  public void withdraw_shouldSendTheSessionTokenInsteadOfThePin() {
+    properties.setBatchEnabled(false);
+
+    coalescer.withdraw("123456789", Credentials.session("token"), TRANSACTION, "key-1");
+
+    verify(client, times(1)).withdrawInSession("123456789", "token", TRANSACTION, "key-1");
+    verify(client, never()).withdraw(any(), any(), any(), any());
+  }
+
+  @Test
+  public void withdraw_shouldSendConcurrentWithdrawalsAsOneBatch() throws Exception {
+    when(client.withdrawBatch(any()))
+        .thenAnswer(invocation -> results(invocation.getArgument(0), WithdrawalResult.ok()));
+
+    final var outcomes = concurrently(4, i -> null);
+
+    for (Future<Object> outcome : outcomes) {
+      outcome.get(5, TimeUnit.SECONDS);
+    }
+    final var captor = ArgumentCaptor.forClass(BatchWithdrawRequest.class);
+    verify(client, times(1)).withdrawBatch(captor.capture());
+    assertEquals(4, captor.getValue().getWithdrawals().size());
+    assertEquals(1, registry.get("atm.withdraw.batch.size").summary().count());
+  }
+
+  @Test
+  public void withdraw_shouldSendWhatGatheredOnceTheWindowIsOver() {
+    properties.setBatchWindow(Duration.ofMillis(10));
+    when(client.withdrawBatch(any()))
+        .thenAnswer(invocation -> results(invocation.getArgument(0), WithdrawalResult.ok()));
+
+    coalescer.withdraw("123456789", "1234", TRANSACTION, "key-1");
+
+    final var captor = ArgumentCaptor.forClass(BatchWithdrawRequest.class);
+    verify(client, times(1)).withdrawBatch(captor.capture());
+    final var withdrawal = captor.getValue().getWithdrawals().get(0);
+    assertEquals("123456789", withdrawal.getAccountNumber());
+    assertEquals("key-1", withdrawal.getIdempotencyKey());
+  }
+
+  @Test
+  public void withdraw_shouldCarryTheSessionTokenInTheBatch() {
+    properties.setBatchWindow(Duration.ofMillis(10));
+    when(client.withdrawBatch(any()))
+        .thenAnswer(invocation -> results(invocation.getArgument(0), WithdrawalResult.ok()));
+
+    coalescer.withdraw("123456789", Credentials.session("token"), TRANSACTION, "key-1");
+
+    final var captor = ArgumentCaptor.forClass(BatchWithdrawRequest.class);
+    verify(client, times(1)).withdrawBatch(captor.capture());
+    final var withdrawal = captor.getValue().getWithdrawals().get(0);
+    assertEquals("token", withdrawal.getSessionToken());
+    assertNull(withdrawal.getPin());
+  }
+
+  @Test
+  public void withdraw_shouldFailOnlyTheWithdrawalsAccountServiceTurnedDown() throws Exception {
+    final var insufficientFunds =
+        WithdrawalResult.failed(
+            new ExceptionResponse(
+                HttpStatus.BAD_REQUEST,
+                "Your Account has insufficient funds to complete this request"));
+    when(client.withdrawBatch(any()))
+        .thenAnswer(
+            invocation -> {
+              final BatchWithdrawRequest request = invocation.getArgument(0);
+              final List<WithdrawalResult> results = new ArrayList<>();
+              request
+                  .getWithdrawals()
+                  .forEach(
+                      withdrawal ->
+                          results.add(
+                              withdrawal.getAccountNumber().equals("poor")
+                                  ? insufficientFunds
+                                  : WithdrawalResult.ok()));
+              return new BatchWithdrawResponse(results);
+            });
+
+    final var outcomes = concurrently(4, i -> i == 2 ? "poor" : null);
+
+    for (int i = 0; i < outcomes.size(); i++) {
+      if (i == 2) {
+        final var failure =
+            (FeignException)
+                assertThrows(Exception.class, () -> outcomes.get(2).get(5, TimeUnit.SECONDS))
+                    .getCause();
+        assertEquals(400, failure.status());
+        final var body =
+            new ObjectMapper().readValue(failure.contentUTF8(), ExceptionResponse.class);
+        assertEquals(
+            "Your Account has insufficient funds to complete this request", body.getDescription());
+      } else {
+        outcomes.get(i).get(5, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+  @Test
+  public void withdraw_shouldFailEveryWithdrawalWhenTheBatchGotNoAnswer() throws Exception {
+    final var unavailable = getFeignExceptionAccountServiceUnavailable();
+    when(client.withdrawBatch(any())).thenThrow(unavailable);
+
+    final var outcomes = concurrently(4, i -> null);
+
+    for (Future<Object> outcome : outcomes) {
+      assertSame(
+          unavailable,
+          assertThrows(Exception.class, () -> outcome.get(5, TimeUnit.SECONDS)).getCause());
+    }
+  }
+
+  @Test
+  public void withdraw_shouldFailWhenAccountServiceAnsweredTooFewResults() {
+    properties.setBatchWindow(Duration.ofMillis(10));
+    when(client.withdrawBatch(any())).thenReturn(new BatchWithdrawResponse(List.of()));
+
+    final var failure =
+        assertThrows(
+            FeignException.class,
+            () -> coalescer.withdraw("123456789", "1234", TRANSACTION, "key-1"));
+
+    assertEquals(500, failure.status());
+    assertTrue(failure.contentUTF8().contains("answered 0 results for 1 withdrawals"));
+  }
+
+  @Test
+  public void withdraw_shouldFailWhenAccountServiceAnsweredNoResultForTheWithdrawal() {
+    properties.setBatchWindow(Duration.ofMillis(10));
+    when(client.withdrawBatch(any()))
+        .thenReturn(new BatchWithdrawResponse(Arrays.asList((WithdrawalResult) null)));
+
+    final var failure =
+        assertThrows(
+            FeignException.class,
+            () -> coalescer.withdraw("123456789", "1234", TRANSACTION, "key-1"));
+
+    assertEquals(500, failure.status());
+    assertTrue(failure.contentUTF8().contains("answered no result"));
+  }
+
+  @Test
+  public void withdraw_shouldFailEveryWithdrawalWhenTheBatchIsNotAnsweredInTime() throws Exception {
+    properties.setMaxBatch(2);
+    properties.setBatchTimeout(Duration.ofMillis(100));
+    when(client.withdrawBatch(any()))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(500);
+              return results(invocation.getArgument(0), new WithdrawalResult(200, null));
+            });
+
+    final var outcomes = concurrently(2, i -> null);
+
+    for (Future<Object> outcome : outcomes) {
+      final var failure =
+          assertThrows(Exception.class, () -> outcome.get(5, TimeUnit.SECONDS)).getCause();
+      assertEquals(500, ((FeignException) failure).status());
+    }
+  }
+
+  @Test
+  public void withdraw_shouldFailTheOtherWithdrawalsWhenTheSenderDies() throws Exception {
+    properties.setMaxBatch(2);
+    final var error = new StackOverflowError();
+    when(client.withdrawBatch(any())).thenThrow(error);
+
+    final var outcomes = concurrently(2, i -> null);
+
+    final List<Throwable> failures = new ArrayList<>();
+    for (Future<Object> outcome : outcomes) {
+      failures.add(
+          assertThrows(Exception.class, () -> outcome.get(5, TimeUnit.SECONDS)).getCause());
+    }
+    assertTrue(failures.contains(error));
+    assertTrue(
+        failures.stream()
+            .anyMatch(failure -> failure instanceof FeignException e && e.status() == 500));
+  }
+
+  private List<Future<Object>> concurrently(int withdrawals, IntFunction<String> accountOf) {
+    final ExecutorService executor = Executors.newFixedThreadPool(withdrawals);
+    try {
+      final List<Future<Object>> outcomes = new ArrayList<>();
+      for (int i = 0; i < withdrawals; i++) {
+        final var accountNumber = accountOf.apply(i);
+        final var key = "key-" + i;
+        final Callable<Object> withdrawal =
+            () -> {
+              coalescer.withdraw(
+                  accountNumber == null ? "123456789" : accountNumber, "1234", TRANSACTION, key);
+              return null;
+            };
+        outcomes.add(executor.submit(withdrawal));
+      }
+      return outcomes;
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  private static BatchWithdrawResponse results(
+      BatchWithdrawRequest request, WithdrawalResult result) {
+    final List<WithdrawalResult> results = new ArrayList<>();
+    request.getWithdrawals().forEach(withdrawal -> results.add(result));
+    return new BatchWithdrawResponse(results);
+  }
+}
@@ -0,0 +1,108 @@
+package com.simulator.atm.business.service.dispenser;
+
+import com.simulator.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getCashDispenser;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getLayout;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CashDispenserConcurrencyTest {
+
+  private static final int THREADS = 64;
+  private static final int OPERATIONS_PER_THREAD = 2_000;
+
+  /**
+   * Every thread puts back what it took, and the cassettes are full, so each thread holds at most
+   * one withdrawal and nearly every operation is a successful compare-and-set racing the others.
+   */
+  @Test
+  public void dispenseAndRefund_shouldNotLoseUpdatesUnderContention() throws Exception {
+    final var layout = getLayout();
+    final var cashDispenser =
+        new CashDispenser(
+            "ATM-0001",
+            Cassettes.of(layout, new int[] {2_000, 2_000, 2_000, 2_000}),
+            CassetteJournal.NONE);
+    final var initial = cashDispenser.getCassettes();
+    final var initialTotal = cashDispenser.getTotalCash();
+    final var outstanding = new AtomicLongArray(layout.size());
+    final var dispensedTotal = new AtomicLong();
+    final var successes = new AtomicInteger();
+
+    final var start = new CountDownLatch(1);
+    final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    try {
+      final List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  final var random = ThreadLocalRandom.current();
+                  for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    final var amount = 500L * random.nextInt(1, 40);
+                    final var dispensed = cashDispenser.dispense(amount);
+                    successes.incrementAndGet();
+                    dispensedTotal.addAndGet(amount);
+                    dispensed.forEach(
+                        cash ->
+                            outstanding.addAndGet(layout.indexOf(cash.getType()), cash.getTotal()));
+                    cashDispenser.refund(dispensed);
+                    dispensed.forEach(
+                        cash ->
+                            outstanding.addAndGet(
+                                layout.indexOf(cash.getType()), -cash.getTotal()));
+                  }
+                  return null;
+                }));
+      }
+      start.countDown();
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(THREADS * OPERATIONS_PER_THREAD, successes.get());
+    assertTrue(dispensedTotal.get() > 10 * initialTotal);
+    final var remaining = cashDispenser.getCassettes();
+    for (int i = 0; i < layout.size(); i++) {
+      assertEquals(0, outstanding.get(i));
+      assertEquals(initial.notes(i), remaining.notes(i), "Cassette " + layout.name(i));
+    }
+    assertEquals(initial, remaining);
+    assertEquals(initialTotal, cashDispenser.getTotalCash());
+  }
+
+  @Test
+  public void dispense_shouldNotTouchCassettesWhenAmountCannotBeCompleted() {
+    final var cashDispenser = getCashDispenser();
+    for (int i = 0; i < 20; i++) {
+      cashDispenser.dispense(500);
+    }
+    final var drained = cashDispenser.getCassettes();
+
+    final var assertThrows =
+        assertThrows(BadRequestException.class, () -> cashDispenser.dispense(1_500));
+
+    assertEquals("It is not possible to dispense this value", assertThrows.getMessage());
+    assertEquals(0, drained.notes("FIVE"));
+    assertEquals(drained, cashDispenser.getCassettes());
+  }
+}
@@ -0,0 +1,107 @@
+package com.simulator.atm.business.service.dispenser;
+
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import com.simulator.exception.BadRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CashDispenserRegistryTest {
+
+  @Test
+  public void get_shouldLoadEachTerminalOnce() {
+    final var registry = new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE);
+
+    final var dispenser = registry.get("ATM-0042");
+
+    assertSame(dispenser, registry.get("ATM-0042"));
+    assertEquals(1, registry.size());
+    assertEquals(toMinor(1500), dispenser.getTotalCash());
+  }
+
+  @Test
+  public void get_shouldUseTheDefaultTerminalWhenAtmIdIsMissing() {
+    final var properties = new DispenserProperties();
+    final var registry = new CashDispenserRegistry(properties, CassetteJournal.NONE);
+
+    assertSame(registry.get(properties.getDefaultAtmId()), registry.get(null));
+  }
+
+  @Test
+  public void get_shouldKeepTerminalsIndependent() {
+    final var registry = new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE);
+
+    registry.get("ATM-0001").dispense(toMinor(1500));
+
+    assertEquals(toMinor(0), registry.get("ATM-0001").getTotalCash());
+    assertEquals(toMinor(1500), registry.get("ATM-0002").getTotalCash());
+    assertNotSame(registry.get("ATM-0001"), registry.get("ATM-0002"));
+  }
+
+  @Test
+  public void get_shouldLoadTerminalsWithTheirOwnLayout() {
+    final var terminal = new DispenserProperties.Terminal();
+    terminal.setCassettes(Map.of("HUNDRED", 20, "FIFTY", 40, "TWO_EUROS", 100));
+    terminal.setCapacities(Map.of("TWO_EUROS", 500));
+    final var properties = new DispenserProperties();
+    properties.setTerminals(Map.of("ATM-0007", terminal));
+    final var registry = new CashDispenserRegistry(properties, CassetteJournal.NONE);
+
+    final var cassettes = registry.get("ATM-0007").getCassettes();
+
+    assertEquals(3, cassettes.layout().size());
+    assertEquals("TWO_EUROS", cassettes.layout().name(0));
+    assertEquals(500, cassettes.layout().capacity(0));
+    assertEquals(2_000, cassettes.layout().capacity(2));
+    assertEquals(20, cassettes.notes("HUNDRED"));
+    assertEquals(0, cassettes.notes("FIVE"));
+    assertEquals(toMinor(4200), cassettes.totalCash());
+    assertEquals(4, registry.get("ATM-0001").getCassettes().layout().size());
+  }
+
+  @Test
+  public void new_shouldFailWhenADenominationIsUnknown() {
+    final var properties = new DispenserProperties();
+    properties.setCassettes(Map.of("THREE", 10));
+
+    final var assertThrows =
+        assertThrows(
+            IllegalStateException.class,
+            () -> new CashDispenserRegistry(properties, CassetteJournal.NONE));
+
+    assertEquals("Unknown denomination THREE", assertThrows.getMessage());
+  }
+
+  @Test
+  public void get_shouldBadRequestWhenAtmIdIsInvalid() {
+    final var registry = new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE);
+
+    final var assertThrows =
+        assertThrows(BadRequestException.class, () -> registry.get("ATM 42/../"));
+
+    assertEquals("Invalid atm id", assertThrows.getMessage());
+    assertEquals(0, registry.size());
+  }
+
+  @Test
+  public void get_shouldBadRequestWhenNodeIsFull() {
+    final var properties = new DispenserProperties();
+    properties.setMaxTerminals(2);
+    final var registry = new CashDispenserRegistry(properties, CassetteJournal.NONE);
+    registry.get("ATM-0001");
+    registry.get("ATM-0002");
+
+    final var assertThrows =
+        assertThrows(BadRequestException.class, () -> registry.get("ATM-0003"));
+
+    assertEquals("This node cannot host more terminals", assertThrows.getMessage());
+    assertEquals(2, registry.size());
+    assertEquals(toMinor(1500), registry.get("ATM-0001").getTotalCash());
+  }
+}
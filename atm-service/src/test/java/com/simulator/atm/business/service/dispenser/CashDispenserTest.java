@@ -3,94 +3,101 @@ package com.simulator.atm.business.service.dispenser;
 import com.simulator.exception.BadRequestException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getCashDispenser;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getCassettes;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getLayout;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 
 @ExtendWith(MockitoExtension.class)
 public class CashDispenserTest {
 
-  @InjectMocks private CashDispenser cashDispenser;
+  private final CashDispenser cashDispenser = getCashDispenser();
 
   @Test
   public void getTotalCash_shouldHas1500InCashWhenAtmStarted() {
     final var totalCash = cashDispenser.getTotalCash();
-    assertEquals(totalCash, 1500);
+    assertEquals(totalCash, toMinor(1500));
   }
 
   @Test
   public void getTotalCash_shouldHasZeroInCashWhenAtmHasNoMoreCash() {
-    cashDispenser.dispense(1500);
+    cashDispenser.dispense(toMinor(1500));
     final var totalCash = cashDispenser.getTotalCash();
-    assertEquals(totalCash, 0);
+    assertEquals(totalCash, toMinor(0));
   }
 
   @Test
   public void dispense_shouldDispenseWhenAmountIs1410() {
-    final var cashedDispensed = cashDispenser.dispense(1410);
+    final var cashedDispensed = cashDispenser.dispense(toMinor(1410));
 
-    assertEquals(cashedDispensed.get(0).getType(), CashType.FIFTY);
+    assertEquals(cashedDispensed.get(0).getType(), "FIFTY");
     assertEquals(cashedDispensed.get(0).getTotal(), 10);
-    assertEquals(cashedDispensed.get(1).getType(), CashType.TWENTY);
+    assertEquals(cashedDispensed.get(1).getType(), "TWENTY");
     assertEquals(cashedDispensed.get(1).getTotal(), 30);
-    assertEquals(cashedDispensed.get(2).getType(), CashType.TEN);
+    assertEquals(cashedDispensed.get(2).getType(), "TEN");
     assertEquals(cashedDispensed.get(2).getTotal(), 30);
-    assertEquals(cashedDispensed.get(3).getType(), CashType.FIVE);
+    assertEquals(cashedDispensed.get(3).getType(), "FIVE");
     assertEquals(cashedDispensed.get(3).getTotal(), 2);
 
-    assertEquals(cashDispenser.getTotalCash(), 90);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(90));
   }
 
   @Test
   public void dispense_shouldDispenseWhenAmountIs600() {
-    final var cashedDispensed = cashDispenser.dispense(600);
+    final var cashedDispensed = cashDispenser.dispense(toMinor(600));
 
-    assertEquals(cashedDispensed.get(0).getType(), CashType.FIFTY);
+    assertEquals(cashedDispensed.get(0).getType(), "FIFTY");
     assertEquals(cashedDispensed.get(0).getTotal(), 10);
-    assertEquals(cashedDispensed.get(1).getType(), CashType.TWENTY);
+    assertEquals(cashedDispensed.get(1).getType(), "TWENTY");
     assertEquals(cashedDispensed.get(1).getTotal(), 5);
 
-    assertEquals(cashDispenser.getTotalCash(), 900);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(900));
   }
 
   @Test
   public void dispense_shouldDispenseWhenAmountIs245() {
-    final var cashedDispensed = cashDispenser.dispense(245);
+    final var cashedDispensed = cashDispenser.dispense(toMinor(245));
 
-    assertEquals(cashedDispensed.get(0).getType(), CashType.FIFTY);
+    assertEquals(cashedDispensed.get(0).getType(), "FIFTY");
     assertEquals(cashedDispensed.get(0).getTotal(), 4);
-    assertEquals(cashedDispensed.get(1).getType(), CashType.TWENTY);
+    assertEquals(cashedDispensed.get(1).getType(), "TWENTY");
     assertEquals(cashedDispensed.get(1).getTotal(), 2);
-    assertEquals(cashedDispensed.get(2).getType(), CashType.TEN);
+    assertEquals(cashedDispensed.get(2).getType(), "TEN");
     assertEquals(cashedDispensed.get(2).getTotal(), 0);
-    assertEquals(cashedDispensed.get(3).getType(), CashType.FIVE);
+    assertEquals(cashedDispensed.get(3).getType(), "FIVE");
     assertEquals(cashedDispensed.get(3).getTotal(), 1);
 
-    assertEquals(cashDispenser.getTotalCash(), 1255);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(1255));
   }
 
   @Test
   public void dispense_shouldDispenseWhenAmountIs1500() {
-    final var cashedDispensed = cashDispenser.dispense(1500);
+    final var cashedDispensed = cashDispenser.dispense(toMinor(1500));
 
-    assertEquals(cashedDispensed.get(0).getType(), CashType.FIFTY);
+    assertEquals(cashedDispensed.get(0).getType(), "FIFTY");
     assertEquals(cashedDispensed.get(0).getTotal(), 10);
-    assertEquals(cashedDispensed.get(1).getType(), CashType.TWENTY);
+    assertEquals(cashedDispensed.get(1).getType(), "TWENTY");
     assertEquals(cashedDispensed.get(1).getTotal(), 30);
-    assertEquals(cashedDispensed.get(2).getType(), CashType.TEN);
+    assertEquals(cashedDispensed.get(2).getType(), "TEN");
     assertEquals(cashedDispensed.get(2).getTotal(), 30);
-    assertEquals(cashedDispensed.get(3).getType(), CashType.FIVE);
+    assertEquals(cashedDispensed.get(3).getType(), "FIVE");
     assertEquals(cashedDispensed.get(3).getTotal(), 20);
 
-    assertEquals(cashDispenser.getTotalCash(), 0);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(0));
   }
 
   @Test
   public void dispense_shouldNotDispenseWhenAtmHasNoCash() {
     final var assertThrows =
-        assertThrows(BadRequestException.class, () -> cashDispenser.dispense(2000));
+        assertThrows(BadRequestException.class, () -> cashDispenser.dispense(toMinor(2000)));
 
     assertEquals("Atm does not have the funds to complete your request", assertThrows.getMessage());
   }
@@ -98,19 +105,127 @@ public class CashDispenserTest {
   @Test
   public void dispense_shouldNotDispenseWhenAmountIsNotDivisibleByFive() {
     final var assertThrows =
-        assertThrows(BadRequestException.class, () -> cashDispenser.dispense(143));
+        assertThrows(BadRequestException.class, () -> cashDispenser.dispense(toMinor(143)));
 
     assertEquals("It is not possible to dispense this value", assertThrows.getMessage());
   }
 
   @Test
   public void refund_shouldRefundWhenAmountIs1500() {
-    final var cashedDispensed = cashDispenser.dispense(1500);
+    final var cashedDispensed = cashDispenser.dispense(toMinor(1500));
 
-    assertEquals(cashDispenser.getTotalCash(), 0);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(0));
 
     cashDispenser.refund(cashedDispensed);
 
-    assertEquals(cashDispenser.getTotalCash(), 1500);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(1500));
+  }
+
+  @Test
+  public void dispense_shouldDispenseWhenGreedyChoiceWouldDeadEnd() {
+    final var cashDispenser =
+        new CashDispenser(
+            "ATM-0001", Cassettes.of(getLayout(), new int[] {0, 0, 30, 10}), CassetteJournal.NONE);
+
+    final var sixty = cashDispenser.dispense(toMinor(60));
+    assertEquals(sixty.get(0).getType(), "FIFTY");
+    assertEquals(sixty.get(0).getTotal(), 0);
+    assertEquals(sixty.get(1).getType(), "TWENTY");
+    assertEquals(sixty.get(1).getTotal(), 3);
+
+    final var eighty = cashDispenser.dispense(toMinor(80));
+    assertEquals(eighty.get(1).getType(), "TWENTY");
+    assertEquals(eighty.get(1).getTotal(), 4);
+
+    final var hundredTen = cashDispenser.dispense(toMinor(110));
+    assertEquals(hundredTen.get(0).getTotal(), 1);
+    assertEquals(hundredTen.get(1).getTotal(), 3);
+
+    assertEquals(cashDispenser.getTotalCash(), toMinor(1100 - 250));
+  }
+
+  @Test
+  public void replenish_shouldAddNotesToTheCassette() {
+    cashDispenser.replenish("FIFTY", 5);
+
+    assertEquals(cashDispenser.getCassettes().notes("FIFTY"), 15);
+    assertEquals(cashDispenser.getTotalCash(), toMinor(1750));
+  }
+
+  @Test
+  public void replenish_shouldBadRequestWhenCassetteIsFull() {
+    final var assertThrows =
+        assertThrows(BadRequestException.class, () -> cashDispenser.replenish("FIFTY", 1_991));
+
+    assertEquals("Cassette FIFTY cannot hold more notes", assertThrows.getMessage());
+    assertEquals(cashDispenser.getTotalCash(), toMinor(1500));
+  }
+
+  @Test
+  public void dispense_shouldNotDispenseMoreThanTheMaximumWithdrawal() {
+    cashDispenser.replenish("FIFTY", 100);
+
+    final var assertThrows =
+        assertThrows(BadRequestException.class, () -> cashDispenser.dispense(toMinor(2005)));
+
+    assertEquals("Amount exceeds the maximum withdrawal of this ATM", assertThrows.getMessage());
+  }
+
+  @Test
+  public void dispense_shouldDispenseNotesAndCoinsInMinorUnits() {
+    final var layout =
+        CassetteLayout.of(
+            new String[] {"HUNDRED", "FIVE_HUNDRED", "FIFTY_CENTS", "TWO_EUROS", "TWENTY"},
+            new long[] {10_000, 50_000, 50, 200, 2_000},
+            new int[] {100, 100, 100, 100, 100},
+            toMinor(1000));
+    final var cashDispenser =
+        new CashDispenser(
+            "ATM-0001", Cassettes.of(layout, new int[] {10, 10, 10, 10, 10}), CassetteJournal.NONE);
+
+    final var cashedDispensed = cashDispenser.dispense(64_650);
+
+    assertEquals(cashedDispensed.get(0), new Cash("FIVE_HUNDRED", 1));
+    assertEquals(cashedDispensed.get(1), new Cash("HUNDRED", 1));
+    assertEquals(cashedDispensed.get(2), new Cash("TWENTY", 2));
+    assertEquals(cashedDispensed.get(3), new Cash("TWO_EUROS", 3));
+    assertEquals(cashedDispensed.get(4), new Cash("FIFTY_CENTS", 1));
+    assertEquals(cashDispenser.getTotalCash(), 622_500 - 64_650);
+  }
+
+  @Test
+  public void dispense_shouldJournalEveryChangeWithItsVersion() {
+    final var journal = mock(CassetteJournal.class);
+    final var cashDispenser = new CashDispenser("ATM-0001", getCassettes(), journal);
+
+    final var dispensed = cashDispenser.dispense(toMinor(245));
+    cashDispenser.refund(dispensed);
+    cashDispenser.replenish("FIFTY", 5);
+
+    final var inOrder = inOrder(journal);
+    inOrder
+        .verify(journal)
+        .append(
+            eq("ATM-0001"),
+            eq(JournalOperation.DISPENSE),
+            eq(toMinor(245)),
+            argThat(
+                cassettes -> cassettes.version() == 1 && cassettes.totalCash() == toMinor(1255)));
+    inOrder
+        .verify(journal)
+        .append(
+            eq("ATM-0001"),
+            eq(JournalOperation.REFUND),
+            eq(toMinor(245)),
+            argThat(
+                cassettes -> cassettes.version() == 2 && cassettes.totalCash() == toMinor(1500)));
+    inOrder
+        .verify(journal)
+        .append(
+            eq("ATM-0001"),
+            eq(JournalOperation.REPLENISH),
+            eq(toMinor(250)),
+            argThat(
+                cassettes -> cassettes.version() == 3 && cassettes.totalCash() == toMinor(1750)));
   }
 }
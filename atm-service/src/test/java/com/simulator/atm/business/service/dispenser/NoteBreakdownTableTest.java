@@ -0,0 +1,131 @@
+package com.simulator.atm.business.service.dispenser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getLayout;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NoteBreakdownTableTest {
+
+  private static final CassetteLayout COINS_AND_NOTES =
+      CassetteLayout.of(
+          new String[] {"FIFTY_CENTS", "TWO_EUROS", "TWENTY", "HUNDRED", "TWO_HUNDRED"},
+          new long[] {50, 200, 2_000, 10_000, 20_000},
+          new int[] {100, 100, 100, 100, 100},
+          toMinor(5_000));
+
+  @Test
+  public void breakdown_shouldMatchBruteForceForRandomInventories() {
+    assertMatchesBruteForce(getLayout(), 20220131L);
+  }
+
+  @Test
+  public void breakdown_shouldMatchBruteForceWithCoinsAndNotes() {
+    assertMatchesBruteForce(COINS_AND_NOTES, 20220207L);
+  }
+
+  @Test
+  public void canDispense_shouldRejectAmountsThatAreNotMultiplesOfTheSmallestNote() {
+    final var cassettes = Cassettes.of(getLayout(), new int[] {20, 30, 30, 10});
+
+    assertFalse(cassettes.canDispense(toMinor(143)));
+    assertFalse(cassettes.canDispense(-500));
+    assertFalse(cassettes.canDispense(toMinor(1505)));
+    assertFalse(cassettes.canDispense(1_050));
+    assertTrue(cassettes.canDispense(toMinor(1500)));
+  }
+
+  @Test
+  public void breakdown_shouldGrowTheTableWhenLargerAmountsAreRequested() {
+    final var cassettes = Cassettes.of(getLayout(), new int[] {20, 30, 30, 10});
+    final var small = new int[4];
+    final var large = new int[4];
+
+    assertEquals(1, cassettes.breakdown(toMinor(50), small));
+    assertEquals(72, cassettes.breakdown(toMinor(1410), large));
+
+    assertArrayEquals(new int[] {0, 0, 0, 1}, small);
+    assertArrayEquals(new int[] {2, 30, 30, 10}, large);
+  }
+
+  @Test
+  public void breakdown_shouldFallBackToTheTableWhenGreedyLeavesARemainder() {
+    final var cassettes = Cassettes.of(getLayout(), new int[] {0, 0, 3, 1});
+    final var counts = new int[4];
+
+    assertTrue(cassettes.canDispense(toMinor(60)));
+    assertEquals(3, cassettes.breakdown(toMinor(60), counts));
+    assertArrayEquals(new int[] {0, 0, 3, 0}, counts);
+  }
+
+  private static void assertMatchesBruteForce(CassetteLayout layout, long seed) {
+    final var random = new Random(seed);
+    for (int round = 0; round < 200; round++) {
+      final var notes = new int[layout.size()];
+      for (int i = 0; i < notes.length; i++) {
+        notes[i] = random.nextInt(7);
+      }
+      final var cassettes = Cassettes.of(layout, notes);
+      final var table = NoteBreakdownTable.build(layout, notes, cassettes.totalCash());
+
+      for (long amount = 0; amount <= cassettes.totalCash() + 1_000; amount += layout.unit()) {
+        final var expected = bruteForce(layout, notes, amount);
+        final var counts = new int[layout.size()];
+        final var dispensedNotes = table.breakdown(amount, counts);
+        final var fastCounts = new int[layout.size()];
+        final var fastNotes = cassettes.breakdown(amount, fastCounts);
+
+        final var context = Arrays.toString(notes) + " amount " + amount;
+        if (expected == null) {
+          assertFalse(table.canDispense(amount), context);
+          assertFalse(cassettes.canDispense(amount), context);
+          assertEquals(-1, dispensedNotes, context);
+          assertEquals(-1, fastNotes, context);
+        } else {
+          assertTrue(table.canDispense(amount), context);
+          assertTrue(cassettes.canDispense(amount), context);
+          assertArrayEquals(expected, counts, context);
+          assertArrayEquals(expected, fastCounts, context);
+          assertEquals(Arrays.stream(expected).sum(), dispensedNotes, context);
+          assertEquals(dispensedNotes, fastNotes, context);
+        }
+      }
+    }
+  }
+
+  /** Fewest notes first, then the most notes of the highest denomination, and so on down. */
+  private static int[] bruteForce(CassetteLayout layout, int[] notes, long amount) {
+    return bruteForce(layout, notes, amount, 0, new int[layout.size()], null);
+  }
+
+  private static int[] bruteForce(
+      CassetteLayout layout, int[] notes, long remaining, int index, int[] counts, int[] best) {
+    if (index == layout.size()) {
+      return remaining == 0 && (best == null || isBetter(counts, best)) ? counts.clone() : best;
+    }
+    final var value = layout.value(index);
+    for (int n = 0; n <= notes[index] && n * value <= remaining; n++) {
+      counts[index] = n;
+      best = bruteForce(layout, notes, remaining - n * value, index + 1, counts, best);
+    }
+    counts[index] = 0;
+    return best;
+  }
+
+  private static boolean isBetter(int[] candidate, int[] best) {
+    final var candidateNotes = Arrays.stream(candidate).sum();
+    final var bestNotes = Arrays.stream(best).sum();
+    if (candidateNotes != bestNotes) return candidateNotes < bestNotes;
+    for (int i = candidate.length - 1; i >= 0; i--) {
+      if (candidate[i] != best[i]) return candidate[i] > best[i];
+    }
+    return false;
+  }
+}
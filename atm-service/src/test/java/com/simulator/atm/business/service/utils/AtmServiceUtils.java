@@ -1,20 +1,44 @@
 package com.simulator.atm.business.service.utils;
 
-import com.simulator.atm.business.service.dispenser.Cash;
-import com.simulator.atm.business.service.dispenser.CashType;
+import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.CassetteLayout;
+import com.simulator.atm.business.service.dispenser.Cassettes;
 import com.simulator.exception.BadRequestException;
 import feign.FeignException;
 import feign.Request;
 import feign.RequestTemplate;
 import feign.RetryableException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 
 public class AtmServiceUtils {
 
+  public static CassetteLayout getLayout() {
+    return CassetteLayout.of(
+        new String[] {"FIVE", "TEN", "TWENTY", "FIFTY"},
+        new long[] {500, 1_000, 2_000, 5_000},
+        new int[] {2_000, 2_000, 2_000, 2_000},
+        200_000);
+  }
+
+  public static Cassettes getCassettes() {
+    return Cassettes.of(getLayout(), new int[] {20, 30, 30, 10});
+  }
+
+  public static CashDispenser getCashDispenser() {
+    return new CashDispenser("ATM-0001", getCassettes(), CassetteJournal.NONE);
+  }
+
   public static RetryableException getRetryableExceptionPinIsInvalid() {
     Request request =
         Request.create(Request.HttpMethod.GET, "url", new HashMap<>(), null, new RequestTemplate());
@@ -51,10 +75,40 @@ public class AtmServiceUtils {
         "Your Account has insufficient funds to complete this request", request, null, null);
   }
 
-  public static List<Cash> getCashDispensed() {
-    return List.of(
-        new Cash(CashType.FIFTY, 2, null),
-        new Cash(CashType.TWENTY, 2, null),
-        new Cash(CashType.TWENTY, 1, null));
+  public static FeignException getFeignExceptionAccountServiceUnavailable() {
+    Request request =
+        Request.create(Request.HttpMethod.GET, "url", new HashMap<>(), null, new RequestTemplate());
+
+    return new FeignException.ServiceUnavailable("Service Unavailable", request, null, null);
+  }
+
+  public static RetryableException getRetryableExceptionReadTimedOut() {
+    Request request =
+        Request.create(Request.HttpMethod.PUT, "url", new HashMap<>(), null, new RequestTemplate());
+
+    return new RetryableException(
+        -1,
+        "Read timed out executing PUT url",
+        Request.HttpMethod.PUT,
+        new SocketTimeoutException("Read timed out"),
+        null,
+        request);
+  }
+
+  public static WebClientRequestException getWebClientRequestExceptionReadTimedOut() {
+    return new WebClientRequestException(
+        new SocketTimeoutException("Read timed out"),
+        HttpMethod.PUT,
+        URI.create("http://localhost/v1/accounts/234566/withdraw"),
+        HttpHeaders.EMPTY);
+  }
+
+  public static WebClientResponseException getWebClientResponseExceptionPinIsInvalid() {
+    return WebClientResponseException.create(
+        HttpStatus.BAD_REQUEST.value(),
+        HttpStatus.BAD_REQUEST.getReasonPhrase(),
+        HttpHeaders.EMPTY,
+        "{\"description\":\"Pin account is invalid!\"}".getBytes(StandardCharsets.UTF_8),
+        StandardCharsets.UTF_8);
   }
 }
@@ -2,39 +2,48 @@ package com.simulator.atm.business.web.controller;
 
 import com.simulator.atm.AtmApplication;
 import com.simulator.atm.business.service.AtmService;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
 import com.simulator.atm.business.web.helper.AtmHelper;
-import com.simulator.atm.infrastructure.config.ModelMapperConfig;
 import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.SessionResponse;
 import com.simulator.exception.BadRequestException;
 import com.simulator.exception.DataNotFoundException;
+import com.simulator.exception.UnauthorizedException;
+import com.simulator.session.Credentials;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 
+import static com.simulator.atm.business.web.controller.utils.AtmControllerUtils.getFeignExceptionAnsweredInCbor;
+import static com.simulator.atm.business.web.controller.utils.AtmControllerUtils.getFeignExceptionWithoutBody;
 import static com.simulator.atm.business.web.controller.utils.AtmControllerUtils.getRetryableException;
 import static com.simulator.atm.business.web.controller.utils.AtmControllerUtils.getTransactionRequestJson;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @ExtendWith(SpringExtension.class)
 @WebMvcTest({AtmController.class})
-@ContextConfiguration(classes = { AtmApplication.class, ModelMapperConfig.class, AtmHelper.class})
+@ContextConfiguration(classes = { AtmApplication.class, AtmHelper.class})
 public class AtmControllerTest {
 
   @Autowired private MockMvc mockMvc;
@@ -165,6 +174,29 @@ public class AtmControllerTest {
     verify(atmServiceMock, times(1)).balance(anyString(), anyString());
   }
 
+  @Test
+  public void balance_shouldForwardAnErrorAccountServiceAnsweredInCbor() throws Exception {
+
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    doThrow(
+            getFeignExceptionAnsweredInCbor(
+                HttpStatus.NOT_FOUND, "Account number '234566' was not found"))
+        .when(atmServiceMock)
+        .balance(anyString(), anyString());
+
+    mockMvc
+        .perform(
+            get("/v1/atm/balance")
+                .header("accountNumber", accountNumber)
+                .header("pin", pin)
+                .contentType(APPLICATION_JSON))
+        .andExpect(status().is(404))
+        .andExpect(content().contentType(APPLICATION_JSON))
+        .andExpect(jsonPath("description").value("Account number '234566' was not found"));
+  }
+
   @Test
   public void dispense_shouldDispenseMoney() throws Exception {
     final var accountNumber = "234566";
@@ -180,7 +212,34 @@ public class AtmControllerTest {
                 .content(requestJson))
         .andExpect(status().is(200));
 
-    verify(atmServiceMock, times(1)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(1))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldDispenseFromTheRequestedAtm() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var requestJson = getTransactionRequestJson(500);
+
+    mockMvc
+        .perform(
+            post("/v1/atm/dispense")
+                .header("atmId", "ATM-0042")
+                .header("accountNumber", accountNumber)
+                .header("pin", pin)
+                .contentType(APPLICATION_JSON)
+                .content(requestJson))
+        .andExpect(status().is(200));
+
+    verify(atmServiceMock, times(1))
+        .dispense(
+            eq("ATM-0042"),
+            eq(accountNumber),
+            eq(pin),
+            eq(BigDecimal.valueOf(500)),
+            any(DispensedNotes.class));
   }
 
   @Test
@@ -200,7 +259,9 @@ public class AtmControllerTest {
                 .value(
                     "Required request header 'pin' for method parameter type String is not present"));
 
-    verify(atmServiceMock, times(0)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(0))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
   }
 
   @Test
@@ -217,7 +278,9 @@ public class AtmControllerTest {
                 .value(
                     "Required request header 'accountNumber' for method parameter type String is not present"));
 
-    verify(atmServiceMock, times(0)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(0))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
   }
 
   @Test
@@ -229,7 +292,8 @@ public class AtmControllerTest {
 
     doThrow(new DataNotFoundException("Account number '%s' was not found".formatted(accountNumber)))
         .when(atmServiceMock)
-        .dispense(anyString(), anyString(), anyInt());
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
 
     mockMvc
         .perform(
@@ -244,7 +308,9 @@ public class AtmControllerTest {
             jsonPath("description")
                 .value("Account number '%s' was not found".formatted(accountNumber)));
 
-    verify(atmServiceMock, times(1)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(1))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
   }
 
   @Test
@@ -256,7 +322,8 @@ public class AtmControllerTest {
 
     doThrow(new BadRequestException("Your Account has insufficient funds to complete this request"))
         .when(atmServiceMock)
-        .dispense(anyString(), anyString(), anyInt());
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
 
     mockMvc
         .perform(
@@ -271,7 +338,9 @@ public class AtmControllerTest {
             jsonPath("description")
                 .value("Your Account has insufficient funds to complete this request"));
 
-    verify(atmServiceMock, times(1)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(1))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
   }
 
   @Test
@@ -283,7 +352,8 @@ public class AtmControllerTest {
 
     doThrow(new BadRequestException("Atm does not have the funds to complete your request"))
         .when(atmServiceMock)
-        .dispense(anyString(), anyString(), anyInt());
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
 
     mockMvc
         .perform(
@@ -297,7 +367,9 @@ public class AtmControllerTest {
         .andExpect(
             jsonPath("description").value("Atm does not have the funds to complete your request"));
 
-    verify(atmServiceMock, times(1)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(1))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
   }
 
   @Test
@@ -309,7 +381,8 @@ public class AtmControllerTest {
 
     doThrow(new BadRequestException("It is not possible to dispense this value"))
         .when(atmServiceMock)
-        .dispense(anyString(), anyString(), anyInt());
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
 
     mockMvc
         .perform(
@@ -322,6 +395,121 @@ public class AtmControllerTest {
         .andExpect(jsonPath("status").value("Bad Request"))
         .andExpect(jsonPath("description").value("It is not possible to dispense this value"));
 
-    verify(atmServiceMock, times(1)).dispense(anyString(), anyString(), anyInt());
+    verify(atmServiceMock, times(1))
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
+  }
+
+  @Test
+  public void dispense_shouldForwardAConflictAccountServiceAnswered() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var requestJson = getTransactionRequestJson(500);
+
+    doThrow(
+            getFeignExceptionAnsweredInCbor(
+                HttpStatus.CONFLICT, "Idempotency key was already used for another withdrawal"))
+        .when(atmServiceMock)
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
+
+    mockMvc
+        .perform(
+            post("/v1/atm/dispense")
+                .header("accountNumber", accountNumber)
+                .header("pin", pin)
+                .content(requestJson)
+                .contentType(APPLICATION_JSON))
+        .andExpect(status().is(409))
+        .andExpect(jsonPath("status").value("Conflict"))
+        .andExpect(
+            jsonPath("description")
+                .value("Idempotency key was already used for another withdrawal"));
+  }
+
+  @Test
+  public void dispense_shouldForwardAClientErrorAccountServiceAnsweredWithoutBody()
+      throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+    final var requestJson = getTransactionRequestJson(500);
+
+    doThrow(getFeignExceptionWithoutBody(HttpStatus.CONFLICT))
+        .when(atmServiceMock)
+        .dispense(
+            any(), anyString(), anyString(), any(BigDecimal.class), any(DispensedNotes.class));
+
+    mockMvc
+        .perform(
+            post("/v1/atm/dispense")
+                .header("accountNumber", accountNumber)
+                .header("pin", pin)
+                .content(requestJson)
+                .contentType(APPLICATION_JSON))
+        .andExpect(status().is(409))
+        .andExpect(jsonPath("status").value("Conflict"));
+  }
+
+  @Test
+  public void openSession_shouldIssueASessionToken() throws Exception {
+    final var accountNumber = "234566";
+    final var pin = "12345";
+
+    when(atmServiceMock.openSession(accountNumber, pin))
+        .thenReturn(new SessionResponse("token", "2022-01-01T00:05:00Z"));
+
+    mockMvc
+        .perform(post("/v1/atm/session").header("accountNumber", accountNumber).header("pin", pin))
+        .andExpect(status().is(201))
+        .andExpect(jsonPath("token").value("token"))
+        .andExpect(jsonPath("expiresAt").value("2022-01-01T00:05:00Z"));
+  }
+
+  @Test
+  public void closeSession_shouldCloseTheSession() throws Exception {
+
+    mockMvc
+        .perform(delete("/v1/atm/session").header("Session-Token", "token"))
+        .andExpect(status().is(204));
+
+    verify(atmServiceMock, times(1)).closeSession("token");
+  }
+
+  @Test
+  public void dispense_shouldDispenseMoneyWithASessionToken() throws Exception {
+    final var accountNumber = "234566";
+
+    mockMvc
+        .perform(
+            post("/v1/atm/dispense")
+                .header("accountNumber", accountNumber)
+                .header("Session-Token", "token")
+                .contentType(APPLICATION_JSON)
+                .content(getTransactionRequestJson(500)))
+        .andExpect(status().is(200));
+
+    verify(atmServiceMock, times(1))
+        .dispense(
+            any(),
+            eq(accountNumber),
+            eq(Credentials.session("token")),
+            any(BigDecimal.class),
+            any(DispensedNotes.class));
+  }
+
+  @Test
+  public void balance_shouldUnauthorizedWhenTheSessionTokenIsInvalid() throws Exception {
+
+    doThrow(UnauthorizedException.rejection("Session token is invalid or expired"))
+        .when(atmServiceMock)
+        .balance(anyString(), any(Credentials.class));
+
+    mockMvc
+        .perform(
+            get("/v1/atm/balance")
+                .header("accountNumber", "234566")
+                .header("Session-Token", "expired"))
+        .andExpect(status().is(401))
+        .andExpect(jsonPath("description").value("Session token is invalid or expired"));
   }
 }
@@ -1,12 +1,22 @@
 package com.simulator.atm.business.web.controller.utils;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.simulator.exception.model.ExceptionResponse;
+import feign.FeignException;
 import feign.Request;
 import feign.RequestTemplate;
+import feign.Response;
 import feign.RetryableException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 public class AtmControllerUtils {
 
@@ -18,7 +28,33 @@ public class AtmControllerUtils {
             Request.HttpMethod.GET, new Date(), request);
     }
 
+    public static FeignException getFeignExceptionAnsweredInCbor(HttpStatus status, String description)
+        throws JsonProcessingException {
+        Request request = Request.create(Request.HttpMethod.GET, "url",
+            new HashMap<>(), null, new RequestTemplate());
+        Response response = Response.builder()
+            .status(status.value())
+            .reason(status.getReasonPhrase())
+            .request(request)
+            .headers(Map.of(HttpHeaders.CONTENT_TYPE, List.of(MediaType.APPLICATION_CBOR_VALUE)))
+            .body(new ObjectMapper(new CBORFactory()).writeValueAsBytes(new ExceptionResponse(status, description)))
+            .build();
+
+        return FeignException.errorStatus("AccountClient#balance(String,String)", response);
+    }
 
+    public static FeignException getFeignExceptionWithoutBody(HttpStatus status) {
+        Request request = Request.create(Request.HttpMethod.POST, "url",
+            new HashMap<>(), null, new RequestTemplate());
+        Response response = Response.builder()
+            .status(status.value())
+            .reason(status.getReasonPhrase())
+            .request(request)
+            .headers(Map.of())
+            .build();
+
+        return FeignException.errorStatus("AccountClient#withdraw(String,String,TransactionRequest)", response);
+    }
 
     public static String getTransactionRequestJson(Integer amount) {
         return """
@@ -0,0 +1,80 @@
+package com.simulator.atm.business.web.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.CassetteLayout;
+import com.simulator.atm.business.service.dispenser.Cassettes;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.web.helper.AtmHelper;
+import org.junit.jupiter.api.Test;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getCashDispenser;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DispensedNotesSerializerTest {
+
+  private final ObjectMapper objectMapper =
+      new ObjectMapper()
+          .registerModule(
+              new SimpleModule()
+                  .addSerializer(DispensedNotes.class, new DispensedNotesSerializer()));
+
+  private final AtmHelper helper = new AtmHelper();
+
+  @Test
+  public void serialize_shouldWriteTheSameJsonAsDispenseResponse() throws Exception {
+    final var cashDispenser = getCashDispenser();
+
+    for (int amount : new int[] {245, 600, 1410}) {
+      final var notes = new DispensedNotes();
+      cashDispenser.dispense(toMinor(amount), notes);
+
+      assertEquals(
+          objectMapper.writeValueAsString(helper.toModel(notes)),
+          objectMapper.writeValueAsString(notes));
+
+      cashDispenser.refund(notes);
+    }
+  }
+
+  @Test
+  public void serialize_shouldWriteNotesFromTheHighestDenomination() throws Exception {
+    final var notes = new DispensedNotes();
+    getCashDispenser().dispense(toMinor(245), notes);
+
+    assertEquals(
+        "{\"dispensedCash\":245,\"notes\":["
+            + "{\"type\":\"FIFTY\",\"total\":4},"
+            + "{\"type\":\"TWENTY\",\"total\":2},"
+            + "{\"type\":\"TEN\",\"total\":0},"
+            + "{\"type\":\"FIVE\",\"total\":1}]}",
+        objectMapper.writeValueAsString(notes));
+  }
+
+  @Test
+  public void serialize_shouldWriteFractionalAmountsAsDecimals() throws Exception {
+    final var layout =
+        CassetteLayout.of(
+            new String[] {"FIFTY_CENTS", "TWO_EUROS"},
+            new long[] {50, 200},
+            new int[] {500, 500},
+            toMinor(100));
+    final var cashDispenser =
+        new CashDispenser(
+            "ATM-0100", Cassettes.of(layout, new int[] {10, 10}), CassetteJournal.NONE);
+    final var notes = new DispensedNotes();
+    cashDispenser.dispense(250, notes);
+
+    assertEquals(
+        "{\"dispensedCash\":2.50,\"notes\":["
+            + "{\"type\":\"TWO_EUROS\",\"total\":1},"
+            + "{\"type\":\"FIFTY_CENTS\",\"total\":1}]}",
+        objectMapper.writeValueAsString(notes));
+    assertEquals(
+        objectMapper.writeValueAsString(helper.toModel(notes)),
+        objectMapper.writeValueAsString(notes));
+  }
+}
@@ -0,0 +1,52 @@
+package com.simulator.atm.infrastructure.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.simulator.dto.TransactionRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CborValueEncoderTest {
+
+  private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+  private final CborValueEncoder encoder = new CborValueEncoder(CBOR_MAPPER);
+
+  @Test
+  public void encode_shouldWriteASingleValueBodyAsCbor() throws Exception {
+    final var request = new TransactionRequest(new BigDecimal("120.50"));
+
+    final var buffer =
+        DataBufferUtils.join(
+                encoder.encode(
+                    Mono.just(request),
+                    DefaultDataBufferFactory.sharedInstance,
+                    ResolvableType.forClass(TransactionRequest.class),
+                    MediaType.APPLICATION_CBOR,
+                    Map.of()))
+            .block();
+    final var bytes = new byte[buffer.readableByteCount()];
+    buffer.read(bytes);
+
+    assertEquals(request, CBOR_MAPPER.readValue(bytes, TransactionRequest.class));
+  }
+
+  @Test
+  public void canEncode_shouldOnlyTakeCbor() {
+    final var type = ResolvableType.forClass(TransactionRequest.class);
+
+    assertTrue(encoder.canEncode(type, MediaType.APPLICATION_CBOR));
+    assertFalse(encoder.canEncode(type, MediaType.APPLICATION_JSON));
+  }
+}
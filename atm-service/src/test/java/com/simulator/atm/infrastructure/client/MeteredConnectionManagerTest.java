@@ -0,0 +1,137 @@
+package com.simulator.atm.infrastructure.client;
+
+import com.simulator.atm.infrastructure.config.AccountClientProperties;
+import com.simulator.atm.infrastructure.config.FeignClientConfig;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MeteredConnectionManagerTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final AccountClientProperties properties = new AccountClientProperties();
+  private final CountDownLatch release = new CountDownLatch(1);
+  private HttpServer server;
+  private MeteredConnectionManager connectionManager;
+  private CloseableHttpClient httpClient;
+
+  @BeforeEach
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.createContext("/fast", exchange -> respond(exchange, false));
+    server.createContext("/slow", exchange -> respond(exchange, true));
+    server.start();
+
+    properties.setMaxConnectionsPerRoute(1);
+    properties.setReadTimeout(Duration.ofMillis(200));
+    properties.setLeaseTimeout(Duration.ofMillis(100));
+  }
+
+  @AfterEach
+  public void tearDown() throws IOException {
+    release.countDown();
+    httpClient.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void execute_shouldReuseTheKeptAliveConnection() throws IOException {
+    start();
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals("ok", get("/fast"));
+    }
+
+    assertEquals(1, registry.get("http.client.pool.connections.opened").counter().count());
+    assertEquals(3, registry.get("http.client.pool.lease").timer().count());
+    assertEquals(
+        1,
+        registry
+            .get("httpcomponents.httpclient.pool.total.connections")
+            .tag("state", "available")
+            .gauge()
+            .value());
+    assertEquals(
+        1, registry.get("httpcomponents.httpclient.pool.route.max.default").gauge().value());
+  }
+
+  @Test
+  public void execute_shouldFailWhenTheServerDoesNotAnswerInTime() {
+    start();
+
+    assertThrows(SocketTimeoutException.class, () -> get("/slow"));
+  }
+
+  @Test
+  public void execute_shouldFailWhenTheRouteHasNoFreeConnection() throws Exception {
+    properties.setReadTimeout(Duration.ofSeconds(5));
+    start();
+
+    final var executor = Executors.newSingleThreadExecutor();
+    try {
+      final var busy = executor.submit(() -> get("/slow"));
+      while (registry
+              .get("httpcomponents.httpclient.pool.total.connections")
+              .tag("state", "leased")
+              .gauge()
+              .value()
+          < 1) {
+        Thread.onSpinWait();
+      }
+
+      assertThrows(ConnectionPoolTimeoutException.class, () -> get("/fast"));
+
+      release.countDown();
+      assertEquals("ok", busy.get(5, TimeUnit.SECONDS));
+      assertTrue(registry.get("http.client.pool.lease").timer().max(TimeUnit.MILLISECONDS) >= 50);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void start() {
+    final var config = new FeignClientConfig();
+    connectionManager = config.accountConnectionManager(properties, registry);
+    httpClient = config.accountHttpClient(connectionManager, properties);
+  }
+
+  private String get(String path) throws IOException {
+    final var request =
+        new HttpGet("http://localhost:%d%s".formatted(server.getAddress().getPort(), path));
+    try (var response = httpClient.execute(request)) {
+      return EntityUtils.toString(response.getEntity());
+    }
+  }
+
+  private void respond(HttpExchange exchange, boolean slow) throws IOException {
+    try {
+      if (slow) release.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    final var body = "ok".getBytes();
+    exchange.sendResponseHeaders(200, body.length);
+    exchange.getResponseBody().write(body);
+    exchange.close();
+  }
+}
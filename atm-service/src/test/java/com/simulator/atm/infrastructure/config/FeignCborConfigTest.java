@@ -0,0 +1,91 @@
+package com.simulator.atm.infrastructure.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.TransactionRequest;
+import feign.Request;
+import feign.RequestTemplate;
+import feign.Response;
+import feign.codec.Decoder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertIterableEquals;
+
+public class FeignCborConfigTest {
+
+  private static final ObjectMapper CBOR_MAPPER = new ObjectMapper(new CBORFactory());
+
+  private final FeignCborConfig config =
+      new FeignCborConfig(Jackson2ObjectMapperBuilder.json(), new ObjectMapper());
+
+  private final Decoder decoder =
+      config.feignDecoder(
+          new DefaultListableBeanFactory().getBeanProvider(HttpMessageConverterCustomizer.class));
+
+  @Test
+  public void feignEncoder_shouldSendBodiesAsCbor() throws Exception {
+    final var template = new RequestTemplate();
+    final var request = new TransactionRequest(new BigDecimal("120.50"));
+
+    config.feignEncoder().encode(request, TransactionRequest.class, template);
+
+    assertIterableEquals(
+        List.of(MediaType.APPLICATION_CBOR_VALUE),
+        template.headers().get(HttpHeaders.CONTENT_TYPE));
+    assertEquals(request, CBOR_MAPPER.readValue(template.body(), TransactionRequest.class));
+  }
+
+  @Test
+  public void feignDecoder_shouldReadCborAndJsonAnswers() throws Exception {
+    final var balance = new AccountBalanceDto(new BigDecimal("800.50"), BigDecimal.valueOf(200));
+
+    final var cbor =
+        decoder.decode(
+            response(MediaType.APPLICATION_CBOR_VALUE, CBOR_MAPPER.writeValueAsBytes(balance)),
+            AccountBalanceDto.class);
+    final var json =
+        decoder.decode(
+            response(
+                MediaType.APPLICATION_JSON_VALUE,
+                "{\"balance\":800.50,\"overdraft\":200}".getBytes(StandardCharsets.UTF_8)),
+            AccountBalanceDto.class);
+
+    assertEquals(balance, cbor);
+    assertEquals(balance, json);
+  }
+
+  @Test
+  public void cborAcceptInterceptor_shouldAskForCbor() {
+    final var template = new RequestTemplate();
+
+    config.cborAcceptInterceptor().apply(template);
+
+    assertIterableEquals(
+        List.of(MediaType.APPLICATION_CBOR_VALUE), template.headers().get(HttpHeaders.ACCEPT));
+  }
+
+  private static Response response(String contentType, byte[] body) {
+    return Response.builder()
+        .status(200)
+        .reason("OK")
+        .request(
+            Request.create(
+                Request.HttpMethod.GET, "url", new HashMap<>(), null, new RequestTemplate()))
+        .headers(Map.of(HttpHeaders.CONTENT_TYPE, List.of(contentType)))
+        .body(body)
+        .build();
+  }
+}
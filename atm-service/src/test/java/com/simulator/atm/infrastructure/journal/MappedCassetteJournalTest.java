@@ -0,0 +1,169 @@
+package com.simulator.atm.infrastructure.journal;
+
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.Cassettes;
+import com.simulator.atm.business.service.dispenser.JournalOperation;
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static com.simulator.atm.business.service.utils.AtmServiceUtils.getLayout;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MappedCassetteJournalTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir Path directory;
+
+  @Test
+  public void replay_shouldRestoreTheLatestCassettesOfEveryTerminal() throws IOException {
+    final var journal = journal();
+    final var registry = new CashDispenserRegistry(new DispenserProperties(), journal);
+
+    registry.get("ATM-0001").dispense(toMinor(245));
+    registry.get("ATM-0002").dispense(toMinor(1500));
+    registry.get("ATM-0002").replenish("TWENTY", 10);
+    journal.close();
+
+    final var restored = new CashDispenserRegistry(new DispenserProperties(), journal());
+
+    assertEquals(2, restored.size());
+    assertEquals(toMinor(1255), restored.get("ATM-0001").getTotalCash());
+    assertEquals(toMinor(200), restored.get("ATM-0002").getTotalCash());
+    assertEquals(10, restored.get("ATM-0002").getCassettes().notes("TWENTY"));
+    assertEquals(2, restored.get("ATM-0002").getCassettes().version());
+  }
+
+  @Test
+  public void replay_shouldKeepTheHighestVersionWhateverTheOrderOfRecords() throws IOException {
+    final var journal = journal();
+    journal.append("ATM-0001", JournalOperation.DISPENSE, 5_000, cassettes(2, 9));
+    journal.append("ATM-0001", JournalOperation.DISPENSE, 10_000, cassettes(1, 10));
+    journal.close();
+
+    final var replayed = journal().replay();
+
+    final var cassettes = replayed.get("ATM-0001");
+    assertEquals(9, cassettes.notes(cassettes.layout().indexOf(5_000L)));
+    assertEquals(2, cassettes.version());
+  }
+
+  @Test
+  public void append_shouldRollOverToNewSegmentsWhenOneIsFull() throws IOException {
+    final var journal = journal();
+    for (int version = 1; version <= 500; version++) {
+      journal.append("ATM-0001", JournalOperation.DISPENSE, 500, cassettes(version, version));
+    }
+    journal.close();
+
+    assertTrue(segments() > 1);
+    assertEquals(500, journal().replay().get("ATM-0001").version());
+  }
+
+  @Test
+  public void snapshot_shouldDropTheSegmentsItCovers() throws IOException {
+    final var journal = journal();
+    final var registry = new CashDispenserRegistry(new DispenserProperties(), journal);
+    for (int i = 0; i < 200; i++) {
+      registry.get("ATM-0001").dispense(toMinor(5));
+      registry.get("ATM-0001").replenish("FIVE", 1);
+    }
+    registry.get("ATM-0001").dispense(toMinor(50));
+    final var before = segments();
+
+    journal.snapshot(registry::cassettes);
+    registry.get("ATM-0001").dispense(toMinor(20));
+    journal.close();
+
+    assertTrue(before > 1);
+    assertEquals(1, segments());
+    assertTrue(Files.exists(directory.resolve("snapshot.bin")));
+    final var restored = journal().replay().get("ATM-0001");
+    assertEquals(toMinor(1430), restored.totalCash());
+    assertEquals(402, restored.version());
+  }
+
+  @Test
+  public void replay_shouldSkipRecordsThatWereNeverCompletedAndKeepTheOnesAfterThem()
+      throws IOException {
+    final var journal = journal();
+    journal.append("ATM-0001", JournalOperation.DISPENSE, 5_000, cassettes(1, 9));
+    journal.close();
+
+    final var record = ByteBuffer.allocate(JournalCodec.MAX_RECORD_SIZE);
+    JournalCodec.encode(record, "ATM-0001", JournalOperation.DISPENSE, 5_000, cassettes(2, 8));
+    final var length = record.limit();
+    try (var segment =
+        FileChannel.open(lastSegment(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      JournalCodec.encode(record, "ATM-0001", JournalOperation.DISPENSE, 5_000, cassettes(3, 7));
+      record.put(length - Integer.BYTES - 1, (byte) 0);
+      segment.write(record, length * 2L);
+
+      JournalCodec.encode(record, "ATM-0001", JournalOperation.DISPENSE, 5_000, cassettes(4, 6));
+      segment.write(record, length * 3L);
+
+      JournalCodec.encode(record, "ATM-0002", JournalOperation.DISPENSE, 5_000, cassettes(5, 5));
+      record.limit(length / 2);
+      segment.write(record, length * 4L);
+    }
+
+    final var replayed = journal().replay();
+    assertEquals(1, replayed.size());
+    assertEquals(4, replayed.get("ATM-0001").version());
+    assertArrayEquals(new int[] {20, 30, 30, 6}, replayed.get("ATM-0001").toArray());
+  }
+
+  @Test
+  public void replay_shouldMoveTerminalsOntoTheirConfiguredLayout() throws IOException {
+    final var journal = journal();
+    new CashDispenserRegistry(new DispenserProperties(), journal)
+        .get("ATM-0001")
+        .dispense(toMinor(5));
+    journal.close();
+
+    final var properties = new DispenserProperties();
+    properties.setCassettes(Map.of("HUNDRED", 10, "FIFTY", 10, "TWENTY", 30, "TEN", 30));
+    final var restored = new CashDispenserRegistry(properties, journal()).get("ATM-0001");
+
+    assertEquals(4, restored.getLayout().size());
+    assertEquals(0, restored.getCassettes().notes("HUNDRED"));
+    assertEquals(10, restored.getCassettes().notes("FIFTY"));
+    assertEquals(toMinor(1400), restored.getTotalCash());
+  }
+
+  private MappedCassetteJournal journal() throws IOException {
+    return new MappedCassetteJournal(directory, SEGMENT_SIZE, FsyncMode.NONE);
+  }
+
+  private static Cassettes cassettes(long version, int fifties) {
+    return Cassettes.of(getLayout(), new int[] {20, 30, 30, fifties}, version);
+  }
+
+  private long segments() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+    }
+  }
+
+  private Path lastSegment() throws IOException {
+    try (var files = Files.list(directory)) {
+      return files
+          .filter(file -> file.getFileName().toString().endsWith(".log"))
+          .sorted()
+          .reduce((first, second) -> second)
+          .orElseThrow();
+    }
+  }
+}
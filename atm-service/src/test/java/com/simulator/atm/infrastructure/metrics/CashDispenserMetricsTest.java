@@ -0,0 +1,69 @@
+package com.simulator.atm.infrastructure.metrics;
+
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static com.simulator.atm.business.service.dispenser.Money.toMinor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CashDispenserMetricsTest {
+
+  @Test
+  public void bindTo_shouldTrackCassettesAfterDispenseAndRefund() {
+    final var cashDispensers =
+        new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE);
+    final var cashDispenser = cashDispensers.get(null);
+    final var registry = new SimpleMeterRegistry();
+    new CashDispenserMetrics(cashDispensers).bindTo(registry);
+
+    assertEquals(1500, registry.get("atm.cash.total").gauge().value());
+
+    final var dispensed = cashDispenser.dispense(toMinor(245));
+
+    assertEquals(1255, registry.get("atm.cash.total").gauge().value());
+    assertEquals(6, registry.get("atm.cash.notes").tag("type", "FIFTY").gauge().value());
+    assertEquals(300, registry.get("atm.cash.amount").tag("type", "FIFTY").gauge().value());
+    assertEquals(95, registry.get("atm.cash.amount").tag("type", "FIVE").gauge().value());
+
+    cashDispenser.refund(dispensed);
+
+    assertEquals(1500, registry.get("atm.cash.total").gauge().value());
+    assertEquals(10, registry.get("atm.cash.notes").tag("type", "FIFTY").gauge().value());
+  }
+
+  @Test
+  public void bindTo_shouldSumEveryLoadedTerminal() {
+    final var cashDispensers =
+        new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE);
+    final var registry = new SimpleMeterRegistry();
+    new CashDispenserMetrics(cashDispensers).bindTo(registry);
+
+    cashDispensers.get("ATM-0001");
+    cashDispensers.get("ATM-0002").dispense(toMinor(100));
+
+    assertEquals(2, registry.get("atm.terminals").gauge().value());
+    assertEquals(2900, registry.get("atm.cash.total").gauge().value());
+    assertEquals(18, registry.get("atm.cash.notes").tag("type", "FIFTY").gauge().value());
+  }
+
+  @Test
+  public void bindTo_shouldMatchEveryTerminalAfterReplenishing() {
+    final var cashDispensers =
+        new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE);
+    final var registry = new SimpleMeterRegistry();
+    new CashDispenserMetrics(cashDispensers).bindTo(registry);
+
+    for (int i = 0; i < 20; i++) cashDispensers.get("ATM-" + i).dispense(toMinor(5 + 15 * i));
+    cashDispensers.get("ATM-3").replenish("TWENTY", 5);
+
+    final var total =
+        cashDispensers.all().stream().mapToLong(d -> d.getCassettes().totalCash()).sum();
+    final var twenties =
+        cashDispensers.all().stream().mapToLong(d -> d.getCassettes().notes("TWENTY")).sum();
+    assertEquals(total / 100.0, registry.get("atm.cash.total").gauge().value());
+    assertEquals(twenties, registry.get("atm.cash.notes").tag("type", "TWENTY").gauge().value());
+  }
+}
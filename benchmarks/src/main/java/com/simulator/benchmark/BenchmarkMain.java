@@ -0,0 +1,25 @@
+package com.simulator.benchmark;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs JMH with its usual command line, but writes the results as JSON ({@code jmh-result.json}
+ * unless {@code -rff} says otherwise) when no {@code -rf} format is given, so every run leaves a
+ * file {@link CompareResults} can diff against a baseline.
+ */
+public final class BenchmarkMain {
+
+  private BenchmarkMain() {}
+
+  public static void main(String[] args) throws Exception {
+    final List<String> arguments = new ArrayList<>(List.of(args));
+    if (!arguments.contains("-rf")) {
+      arguments.add("-rf");
+      arguments.add("json");
+    }
+    Main.main(arguments.toArray(String[]::new));
+  }
+}
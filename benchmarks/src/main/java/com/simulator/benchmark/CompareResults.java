@@ -0,0 +1,68 @@
+package com.simulator.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Prints how every benchmark of a JMH JSON result moved against a baseline result:
+ *
+ * <pre>
+ * java -cp benchmarks.jar com.simulator.benchmark.CompareResults baseline.json jmh-result.json
+ * </pre>
+ */
+public final class CompareResults {
+
+  private CompareResults() {}
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("usage: CompareResults <baseline.json> <result.json>");
+      System.exit(2);
+    }
+    final var baseline = scores(Path.of(args[0]));
+    final var result = scores(Path.of(args[1]));
+
+    System.out.printf("%-70s %14s %14s %9s%n", "Benchmark", "Baseline", "Result", "Change");
+    result.forEach(
+        (name, score) -> {
+          final var before = baseline.get(name);
+          System.out.printf(
+              "%-70s %14s %14s %9s%n",
+              name,
+              before == null ? "-" : format(before),
+              format(score),
+              before == null
+                  ? "new"
+                  : "%+.1f%%".formatted((score.value - before.value) * 100 / before.value));
+        });
+  }
+
+  private static Map<String, Score> scores(Path file) throws IOException {
+    final Map<String, Score> scores = new LinkedHashMap<>();
+    for (JsonNode run : new ObjectMapper().readTree(file.toFile())) {
+      final var name = new StringBuilder(run.get("benchmark").asText());
+      final var params = run.get("params");
+      if (params != null)
+        params
+            .fields()
+            .forEachRemaining(
+                p -> name.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+      final var metric = run.get("primaryMetric");
+      scores.put(
+          name.toString(),
+          new Score(metric.get("score").asDouble(), metric.get("scoreUnit").asText()));
+    }
+    return scores;
+  }
+
+  private static String format(Score score) {
+    return "%.3f %s".formatted(score.value, score.unit);
+  }
+
+  private record Score(double value, String unit) {}
+}
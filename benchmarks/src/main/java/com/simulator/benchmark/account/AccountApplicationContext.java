@@ -0,0 +1,36 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.AccountApplication;
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts account-service, on a random port and its own in-memory H2 database, with a throwaway
+ * session secret and without writing account lockout snapshots into the working directory. The
+ * Spring Cloud compatibility check is off because it reads the Boot version from the manifest,
+ * which is the shaded jar's own.
+ */
+final class AccountApplicationContext {
+
+  private AccountApplicationContext() {}
+
+  static ConfigurableApplicationContext start(String database, String... properties) {
+    final List<String> args = new ArrayList<>();
+    args.add("--server.port=0");
+    args.add("--spring.cloud.compatibility-verifier.enabled=false");
+    args.add("--account.lockout.snapshot.enabled=false");
+    args.add("--session.secret=atm-simulator-benchmark-session-secret");
+    args.add("--spring.datasource.url=jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1".formatted(database));
+    for (String property : properties) {
+      args.add("--" + property);
+    }
+    return new SpringApplicationBuilder(AccountApplication.class)
+        .bannerMode(Banner.Mode.OFF)
+        .logStartupInfo(false)
+        .run(args.toArray(String[]::new));
+  }
+}
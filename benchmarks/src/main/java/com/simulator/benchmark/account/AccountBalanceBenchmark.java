@@ -0,0 +1,72 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.service.AccountService;
+import com.simulator.dto.TransactionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#balance} with the account cache on and off, alone and right after a
+ * deposit: {@code PESSIMISTIC} writes put the committed account in the cache, {@code ATOMIC} ones
+ * evict it, so the next balance reads the database again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBalanceBenchmark {
+  private static final String ACCOUNT_NUMBER = "123456789";
+  private static final String PIN = "1234";
+
+  @Param({"true", "false"})
+  public boolean cache;
+
+  @Param({"ATOMIC", "PESSIMISTIC"})
+  public String mode;
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private TransactionRequest request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context =
+        AccountApplicationContext.start(
+            "account_balance", "account.cache.enabled=" + cache, "account.write.mode=" + mode);
+    accountService = context.getBean(AccountService.class);
+    request = TransactionRequest.builder().amount(BigDecimal.ONE).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public BigDecimal balance() {
+    return accountService.balance(ACCOUNT_NUMBER, PIN).getBalance();
+  }
+
+  @Benchmark
+  public BigDecimal depositThenBalance() {
+    accountService.deposit(ACCOUNT_NUMBER, PIN, request);
+    return accountService.balance(ACCOUNT_NUMBER, PIN).getBalance();
+  }
+}
@@ -0,0 +1,68 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.business.service.AccountService;
+import com.simulator.dto.TransactionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#withdraw} end to end through JPA against the in-memory H2 database the
+ * service ships with, in every write mode. The account is funded up front so the run never hits
+ * insufficient funds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountWithdrawBenchmark {
+  private static final String ACCOUNT_NUMBER = "123456789";
+  private static final String PIN = "1234";
+
+  @Param({"ATOMIC", "OPTIMISTIC", "PESSIMISTIC"})
+  public String mode;
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private TransactionRequest request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = AccountApplicationContext.start("account_benchmark", "account.write.mode=" + mode);
+    accountService = context.getBean(AccountService.class);
+
+    final var repository = context.getBean(AccountRepository.class);
+    final var account = repository.findByAccountNumber(ACCOUNT_NUMBER).orElseThrow();
+    account.setBalance(new BigDecimal("1000000000000"));
+    repository.save(account);
+
+    request = TransactionRequest.builder().amount(BigDecimal.ONE).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void withdraw() {
+    accountService.withdraw(ACCOUNT_NUMBER, PIN, request);
+  }
+}
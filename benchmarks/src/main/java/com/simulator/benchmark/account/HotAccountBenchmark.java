@@ -0,0 +1,100 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.business.service.AccountService;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.exception.ConflictException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every thread withdraws from and deposits back to the same, well funded, account, the load that
+ * makes the write modes differ: atomic updates and row locks queue on the row, optimistic writes
+ * conflict and retry, the single shard owning it applies the changes one by one in memory. {@code
+ * conflicts} counts the writes that ran out of retries and were answered with a conflict; the
+ * {@code account.write.*} counters and group commit batch sizes are printed after each run. Change
+ * the thread count with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class HotAccountBenchmark {
+  private static final String ACCOUNT_NUMBER = "123456789";
+  private static final String PIN = "1234";
+
+  @Param({"ATOMIC", "OPTIMISTIC", "PESSIMISTIC", "SHARDED", "GROUP_COMMIT"})
+  public String mode;
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private TransactionRequest request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = AccountApplicationContext.start("hot_account", "account.write.mode=" + mode);
+    accountService = context.getBean(AccountService.class);
+
+    final var repository = context.getBean(AccountRepository.class);
+    final var account = repository.findByAccountNumber(ACCOUNT_NUMBER).orElseThrow();
+    account.setBalance(new BigDecimal("1000000000000"));
+    repository.save(account);
+
+    request = TransactionRequest.builder().amount(BigDecimal.TEN).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    for (Meter meter : context.getBean(MeterRegistry.class).getMeters()) {
+      if (meter instanceof Counter counter && meter.getId().getName().startsWith("account.write"))
+        System.out.printf(
+            "%s %s{endpoint=%s} = %.0f%n",
+            mode, meter.getId().getName(), meter.getId().getTag("endpoint"), counter.count());
+      if (meter instanceof DistributionSummary summary && summary.count() > 0)
+        System.out.printf(
+            "%s %s mean = %.1f, max = %.0f%n",
+            mode, meter.getId().getName(), summary.mean(), summary.max());
+    }
+    context.close();
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Conflicts {
+    public long conflicts;
+  }
+
+  @Benchmark
+  public void withdrawAndDeposit(Conflicts conflicts) {
+    try {
+      accountService.withdraw(ACCOUNT_NUMBER, PIN, request);
+      accountService.deposit(ACCOUNT_NUMBER, PIN, request);
+    } catch (ConflictException e) {
+      conflicts.conflicts++;
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.service.AccountService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#balance} with wrong pins for one account, the brute-force load, with the
+ * account lockout on and off, and with the right pin for another account meanwhile. Once locked,
+ * a guess is turned away before the account is read or the pin hashed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PinGuessingBenchmark {
+  private static final String GUESSED_ACCOUNT = "123456789";
+  private static final String OTHER_ACCOUNT = "987654321";
+  private static final String OTHER_PIN = "4321";
+
+  @Param({"true", "false"})
+  public boolean lockout;
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context =
+        AccountApplicationContext.start(
+            "pin_guessing", "account.lockout.enabled=" + lockout, "account.lockout.window=1h");
+    accountService = context.getBean(AccountService.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object guessPin() {
+    try {
+      return accountService.balance(GUESSED_ACCOUNT, "0000");
+    } catch (RuntimeException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object validPin() {
+    return accountService.balance(OTHER_ACCOUNT, OTHER_PIN);
+  }
+}
@@ -0,0 +1,81 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.business.service.AccountService;
+import com.simulator.account.business.service.PinHasher;
+import com.simulator.account.business.service.VerifiedPins;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Checking a pin against its stored hash, as on the first request of a card session, against
+ * checking it through {@link VerifiedPins} once verified, as on the requests after it; and a whole
+ * {@link AccountService#balance} on the warm path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PinVerificationBenchmark {
+  private static final String ACCOUNT_NUMBER = "123456789";
+  private static final String PIN = "1234";
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private PinHasher hasher;
+  private VerifiedPins pins;
+  private String stored;
+  private Supplier<String> storedPin;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = AccountApplicationContext.start("pin_verification");
+    accountService = context.getBean(AccountService.class);
+    hasher = context.getBean(PinHasher.class);
+    pins = context.getBean(VerifiedPins.class);
+    stored =
+        context
+            .getBean(AccountRepository.class)
+            .findByAccountNumber(ACCOUNT_NUMBER)
+            .orElseThrow()
+            .getPin();
+    storedPin = () -> stored;
+    accountService.balance(ACCOUNT_NUMBER, PIN);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public boolean coldPin() {
+    return hasher.matches(PIN, stored);
+  }
+
+  @Benchmark
+  public boolean warmPin() {
+    return pins.matches(ACCOUNT_NUMBER, PIN, storedPin);
+  }
+
+  @Benchmark
+  public Object warmBalance() {
+    return accountService.balance(ACCOUNT_NUMBER, PIN);
+  }
+}
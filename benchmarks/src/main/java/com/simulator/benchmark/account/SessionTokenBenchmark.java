@@ -0,0 +1,70 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.service.AccountService;
+import com.simulator.session.Credentials;
+import com.simulator.session.SessionTokens;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Proving access to an account with its pin, which reads the account from H2 (the account cache is
+ * off), against checking a session token, which only recomputes its signature; and issuing one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionTokenBenchmark {
+  private static final String ACCOUNT_NUMBER = "123456789";
+  private static final String PIN = "1234";
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private SessionTokens sessions;
+  private Credentials pin;
+  private String token;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = AccountApplicationContext.start("session_token", "account.cache.enabled=false");
+    accountService = context.getBean(AccountService.class);
+    sessions = context.getBean(SessionTokens.class);
+    pin = Credentials.pin(PIN);
+    token = accountService.openSession(ACCOUNT_NUMBER, PIN).getToken();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object checkPin() {
+    return accountService.balance(ACCOUNT_NUMBER, pin);
+  }
+
+  @Benchmark
+  public Object checkToken() {
+    return sessions.verify(token, ACCOUNT_NUMBER);
+  }
+
+  @Benchmark
+  public Object issueToken() {
+    return sessions.issue(ACCOUNT_NUMBER);
+  }
+}
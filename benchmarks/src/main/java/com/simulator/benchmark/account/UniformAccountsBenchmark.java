@@ -0,0 +1,88 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.persistence.repository.AccountRepository;
+import com.simulator.account.business.service.AccountService;
+import com.simulator.dto.TransactionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every thread withdraws from and deposits back to an account picked uniformly at random out of
+ * {@code accounts}, so writers rarely meet on a row or a shard. Run it with growing {@code -t} to
+ * see how each write mode scales with the cores; {@code SHARDED} uses one shard per processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class UniformAccountsBenchmark {
+  private static final String PIN = "1234";
+
+  @Param({"ATOMIC", "SHARDED", "GROUP_COMMIT"})
+  public String mode;
+
+  @Param({"1024"})
+  public int accounts;
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private String[] accountNumbers;
+  private TransactionRequest request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context = AccountApplicationContext.start("uniform_accounts", "account.write.mode=" + mode);
+    accountService = context.getBean(AccountService.class);
+
+    accountNumbers = new String[accounts];
+    final List<AccountEntity> entities = new ArrayList<>(accounts);
+    for (int i = 0; i < accounts; i++) {
+      accountNumbers[i] = "9%08d".formatted(i);
+      entities.add(
+          AccountEntity.builder()
+              .accountNumber(accountNumbers[i])
+              .pin(PIN)
+              .balance(new BigDecimal("1000000000"))
+              .overdraft(BigDecimal.ZERO)
+              .build());
+    }
+    context.getBean(AccountRepository.class).saveAll(entities);
+
+    request = TransactionRequest.builder().amount(BigDecimal.TEN).build();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void withdrawAndDeposit() {
+    final var accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(accounts)];
+    accountService.withdraw(accountNumber, PIN, request);
+    accountService.deposit(accountNumber, PIN, request);
+  }
+}
@@ -0,0 +1,69 @@
+package com.simulator.benchmark.account;
+
+import com.simulator.account.business.service.AccountService;
+import com.simulator.exception.DataNotFoundException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#balance} for account numbers that do not exist, the card-testing load, with
+ * the account number filter on and off. Without it every lookup queries the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 2)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UnknownAccountBenchmark {
+  private static final String PIN = "1234";
+
+  @Param({"true", "false"})
+  public boolean filter;
+
+  private ConfigurableApplicationContext context;
+  private AccountService accountService;
+  private String[] accountNumbers;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    context =
+        AccountApplicationContext.start("unknown_account", "account.filter.enabled=" + filter);
+    accountService = context.getBean(AccountService.class);
+    accountNumbers = new String[1024];
+    for (int i = 0; i < accountNumbers.length; i++) {
+      accountNumbers[i] = "5%08d".formatted(i);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public Object balance() {
+    final var accountNumber =
+        accountNumbers[ThreadLocalRandom.current().nextInt(accountNumbers.length)];
+    try {
+      return accountService.balance(accountNumber, PIN);
+    } catch (DataNotFoundException e) {
+      return e;
+    }
+  }
+}
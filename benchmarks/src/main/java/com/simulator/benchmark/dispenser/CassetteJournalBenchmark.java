@@ -0,0 +1,73 @@
+package com.simulator.benchmark.dispenser;
+
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import com.simulator.atm.infrastructure.journal.FsyncMode;
+import com.simulator.atm.infrastructure.journal.MappedCassetteJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/** Cost the cassette journal adds to a dispense and its refund, each of which appends a record. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CassetteJournalBenchmark {
+
+  @Param({"false", "true"})
+  public boolean journaled;
+
+  private Path directory;
+  private CassetteJournal journal;
+  private CashDispenserRegistry cashDispensers;
+  private DispensedNotes notes;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("cassette-journal");
+    journal =
+        journaled
+            ? new MappedCassetteJournal(directory, 64 << 20, FsyncMode.NONE)
+            : CassetteJournal.NONE;
+    cashDispensers = new CashDispenserRegistry(new DispenserProperties(), journal);
+    notes = new DispensedNotes();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public long dispenseAndRefund() {
+    final var dispenser = cashDispensers.get("ATM-0001");
+    dispenser.dispense(24_500, notes);
+    dispenser.refund(notes);
+    return notes.amount();
+  }
+}
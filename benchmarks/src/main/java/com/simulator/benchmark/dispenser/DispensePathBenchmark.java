@@ -0,0 +1,89 @@
+package com.simulator.benchmark.dispenser;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.service.dispenser.Money;
+import com.simulator.atm.business.web.dto.DispenseResponse;
+import com.simulator.atm.business.web.helper.AtmHelper;
+import com.simulator.atm.business.web.serializer.DispensedNotesSerializer;
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispense plus response serialization, through the {@code List<Cash>} and its response DTOs versus
+ * the reusable {@link DispensedNotes} buffer and its direct serializer. Run with {@code -prof gc}
+ * to compare {@code gc.alloc.rate.norm}, the bytes allocated per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispensePathBenchmark {
+
+  @Param({"245"})
+  public int amount;
+
+  private CashDispenser dispenser;
+  private AtmHelper helper;
+  private ObjectMapper objectMapper;
+  private DispensedNotes notes;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() {
+    dispenser =
+        new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE).get(null);
+    helper = new AtmHelper();
+    objectMapper =
+        new ObjectMapper()
+            .registerModule(
+                new SimpleModule()
+                    .addSerializer(DispensedNotes.class, new DispensedNotesSerializer()));
+    notes = new DispensedNotes();
+    out = new ByteArrayOutputStream(256);
+  }
+
+  @Benchmark
+  public int dtoResponse() throws IOException {
+    out.reset();
+    final var dispensed = dispenser.dispense(Money.toMinor(amount));
+    objectMapper.writeValue(
+        out,
+        DispenseResponse.builder()
+            .dispensedCash(BigDecimal.valueOf(amount))
+            .notes(helper.toModel(dispensed))
+            .build());
+    dispenser.refund(dispensed);
+    return out.size();
+  }
+
+  @Benchmark
+  public int primitiveResponse() throws IOException {
+    out.reset();
+    dispenser.dispense(Money.toMinor(amount), notes);
+    objectMapper.writeValue(out, notes);
+    dispenser.refund(notes);
+    return out.size();
+  }
+}
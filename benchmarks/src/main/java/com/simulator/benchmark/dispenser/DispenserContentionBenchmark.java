@@ -0,0 +1,75 @@
+package com.simulator.benchmark.dispenser;
+
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.DispensedNotes;
+import com.simulator.atm.business.service.dispenser.Money;
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of dispense plus refund with every thread on one terminal, where they all CAS the same
+ * cassette snapshot, against one terminal per thread. Change the thread count with {@code -t}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class DispenserContentionBenchmark {
+
+  @Param({"true", "false"})
+  public boolean sharedTerminal;
+
+  @Param({"60", "245"})
+  public int amount;
+
+  private CashDispenserRegistry cashDispensers;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final var properties = new DispenserProperties();
+    properties.setCassettes(Map.of("FIFTY", 2_000, "TWENTY", 2_000, "TEN", 2_000, "FIVE", 2_000));
+    cashDispensers = new CashDispenserRegistry(properties, CassetteJournal.NONE);
+  }
+
+  @State(Scope.Thread)
+  public static class Terminal {
+    private final DispensedNotes notes = new DispensedNotes();
+    private String atmId;
+    private long amount;
+
+    @Setup(Level.Trial)
+    public void setup(DispenserContentionBenchmark benchmark, ThreadParams thread) {
+      atmId =
+          benchmark.sharedTerminal ? "ATM-0001" : "ATM-%04d".formatted(thread.getThreadIndex() + 1);
+      amount = Money.toMinor(benchmark.amount);
+    }
+  }
+
+  @Benchmark
+  public long dispenseAndRefund(Terminal terminal) {
+    final var dispenser = cashDispensers.get(terminal.atmId);
+    dispenser.dispense(terminal.amount, terminal.notes);
+    dispenser.refund(terminal.notes);
+    return terminal.notes.amount();
+  }
+}
@@ -0,0 +1,75 @@
+package com.simulator.benchmark.dispenser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** The original recursive, greedy {@code CashDispenser}, kept as a baseline for comparison. */
+public class LegacyCashDispenser {
+  private final Note notesChain;
+
+  public LegacyCashDispenser() {
+    Note fiveCash = new Note("FIVE", 5, 20, null);
+    Note tenCash = new Note("TEN", 10, 30, fiveCash);
+    Note twentyCash = new Note("TWENTY", 20, 30, tenCash);
+    this.notesChain = new Note("FIFTY", 50, 10, twentyCash);
+  }
+
+  public Integer getTotalCash() {
+    return calculateCash(this.notesChain);
+  }
+
+  private Integer calculateCash(Note notesChain) {
+    if (notesChain == null) return 0;
+    return notesChain.total * notesChain.value + calculateCash(notesChain.nextChain);
+  }
+
+  public List<Note> dispense(Integer amount) {
+    if (amount > getTotalCash()) throw new IllegalStateException("Atm does not have the funds");
+    if (amount % 5 > 0)
+      throw new IllegalStateException("It is not possible to dispense this value");
+
+    List<Note> dispensed = new ArrayList<>();
+    dispenseMoney(amount, notesChain, dispensed);
+    return dispensed;
+  }
+
+  private void dispenseMoney(Integer amount, Note cash, List<Note> dispensed) {
+    if (cash == null) return;
+    var currentNotesNumber = cash.value;
+    if (cash.total > 0) {
+      int num = Math.min(amount / currentNotesNumber, cash.total);
+      amount -= num * currentNotesNumber;
+      cash.total -= num;
+      dispensed.add(new Note(cash.type, cash.value, num, null));
+      if (amount == 0) return;
+    }
+    dispenseMoney(amount, cash.nextChain, dispensed);
+  }
+
+  public void refund(List<Note> cashedDispensed) {
+    cashedDispensed.forEach(e -> refundMoney(notesChain, e));
+  }
+
+  private void refundMoney(Note currentCash, Note cashToRefund) {
+    if (currentCash == null) return;
+    if (currentCash.type.equals(cashToRefund.type)) {
+      currentCash.total += cashToRefund.total;
+    } else {
+      refundMoney(currentCash.nextChain, cashToRefund);
+    }
+  }
+
+  public static final class Note {
+    private final String type;
+    private final int value;
+    private int total;
+    private final Note nextChain;
+
+    Note(String type, int value, int total, Note nextChain) {
+      this.type = type;
+      this.value = value;
+      this.total = total;
+      this.nextChain = nextChain;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.simulator.benchmark.dispenser;
+
+import com.simulator.atm.business.service.dispenser.CashDispenser;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import com.simulator.atm.business.service.dispenser.CassetteJournal;
+import com.simulator.atm.business.service.dispenser.Cassettes;
+import com.simulator.atm.business.service.dispenser.Money;
+import com.simulator.atm.infrastructure.config.DispenserProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded cost of a withdrawal breakdown: the legacy greedy recursion against the greedy
+ * fast path with its DP fallback. Every dispense is refunded so both dispensers keep the same
+ * inventory between invocations. €1410 empties the FIFTY cassette, so its greedy breakdown is only
+ * proven the fewest notes by the split-note bound.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteBreakdownBenchmark {
+
+  @Param({"60", "245", "1410"})
+  public int amount;
+
+  private LegacyCashDispenser legacy;
+  private CashDispenser dispenser;
+  private Cassettes cassettes;
+
+  @Setup
+  public void setup() {
+    legacy = new LegacyCashDispenser();
+    dispenser =
+        new CashDispenserRegistry(new DispenserProperties(), CassetteJournal.NONE).get(null);
+    cassettes = dispenser.getCassettes();
+  }
+
+  @Benchmark
+  public Object legacyDispenseAndRefund() {
+    final var dispensed = legacy.dispense(amount);
+    legacy.refund(dispensed);
+    return dispensed;
+  }
+
+  @Benchmark
+  public Object dispenseAndRefund() {
+    final var dispensed = dispenser.dispense(Money.toMinor(amount));
+    dispenser.refund(dispensed);
+    return dispensed;
+  }
+
+  @Benchmark
+  public void cachedBreakdown(Blackhole blackhole) {
+    final var counts = new int[cassettes.layout().size()];
+    blackhole.consume(cassettes.breakdown(Money.toMinor(amount), counts));
+    blackhole.consume(counts);
+  }
+}
@@ -0,0 +1,87 @@
+package com.simulator.benchmark.web;
+
+import com.simulator.atm.AtmApplication;
+import com.simulator.atm.business.service.client.AccountServiceClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Balance inquiries through the Feign {@link AccountServiceClient} from {@code -t} threads, on
+ * Feign's default {@code HttpURLConnection} client and on the pooled Apache HttpClient. The JDK
+ * keeps only 5 idle connections per host, so with more threads than that the default client keeps
+ * opening new ones. Each run prints how many connections account-service saw, and the pooled one
+ * its lease waits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class AccountClientBenchmark {
+
+  @Param({"false", "true"})
+  public boolean pooled;
+
+  private AccountServiceStub accountService;
+  private ConfigurableApplicationContext context;
+  private AccountServiceClient client;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    accountService = new AccountServiceStub(Duration.ZERO);
+    context =
+        new SpringApplicationBuilder(AtmApplication.class)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            .run(
+                "--server.port=0",
+                "--spring.cloud.compatibility-verifier.enabled=false",
+                "--spring.autoconfigure.exclude=" + HibernateJpaAutoConfiguration.class.getName(),
+                "--logging.level.com.simulator=WARN",
+                "--atm.journal.enabled=false",
+                "--session.secret=atm-simulator-benchmark-session-secret",
+                "--feign.httpclient.enabled=" + pooled,
+                "--account-api-url=http://localhost:" + accountService.port());
+    client = context.getBean(AccountServiceClient.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf(
+        "pooled = %s, connections opened = %d%n", pooled, accountService.connections());
+    final var lease = context.getBean(MeterRegistry.class).find("http.client.pool.lease").timer();
+    if (lease != null)
+      System.out.printf(
+          "leases = %d, lease wait mean = %.1f us, max = %.1f us%n",
+          lease.count(), lease.mean(TimeUnit.MICROSECONDS), lease.max(TimeUnit.MICROSECONDS));
+    context.close();
+    accountService.close();
+  }
+
+  @Benchmark
+  public Object balance() {
+    return client.balance("123456789", "1234");
+  }
+}
@@ -0,0 +1,103 @@
+package com.simulator.benchmark.web;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Stands in for account-service on a random port: accepts every withdrawal, single or in a batch,
+ * and answers every balance inquiry after {@code delay}, without holding a thread while it waits,
+ * and counts the connections clients opened to it and the requests they sent.
+ */
+final class AccountServiceStub implements AutoCloseable {
+  private static final String BALANCE = "{\"balance\":800,\"overdraft\":200}";
+  private static final String WITHDRAWAL = "\"accountNumber\"";
+  private static final String ACCEPTED = "{\"status\":200}";
+
+  private final LongAdder connections = new LongAdder();
+  private final LongAdder requests = new LongAdder();
+  private final DisposableServer server;
+
+  AccountServiceStub(Duration delay) {
+    server =
+        HttpServer.create()
+            .port(0)
+            .doOnChannelInit((observer, channel, address) -> connections.increment())
+            .doOnConnection(connection -> requests.increment())
+            .route(
+                routes ->
+                    routes
+                        .put(
+                            "/v1/accounts/withdraw:batch",
+                            (request, response) ->
+                                request
+                                    .receive()
+                                    .aggregate()
+                                    .asString()
+                                    .delayElement(delay)
+                                    .flatMap(
+                                        body ->
+                                            response
+                                                .header(
+                                                    HttpHeaderNames.CONTENT_TYPE,
+                                                    HttpHeaderValues.APPLICATION_JSON)
+                                                .sendString(Mono.just(results(body)))
+                                                .then()))
+                        .put(
+                            "/v1/accounts/{accountNumber}/withdraw",
+                            (request, response) ->
+                                request
+                                    .receive()
+                                    .then()
+                                    .then(Mono.delay(delay))
+                                    .then(
+                                        response
+                                            .header(HttpHeaderNames.CONTENT_LENGTH, "0")
+                                            .send()
+                                            .then()))
+                        .get(
+                            "/v1/accounts/{accountNumber}/balance",
+                            (request, response) ->
+                                Mono.delay(delay)
+                                    .then(
+                                        response
+                                            .header(
+                                                HttpHeaderNames.CONTENT_TYPE,
+                                                HttpHeaderValues.APPLICATION_JSON)
+                                            .sendString(Mono.just(BALANCE))
+                                            .then())))
+            .bindNow();
+  }
+
+  int port() {
+    return server.port();
+  }
+
+  long connections() {
+    return connections.sum();
+  }
+
+  long requests() {
+    return requests.sum();
+  }
+
+  /** One accepted result per withdrawal of the batch {@code body}. */
+  private static String results(String body) {
+    final var results = new StringBuilder("{\"results\":[");
+    for (int at = body.indexOf(WITHDRAWAL); at >= 0; at = body.indexOf(WITHDRAWAL, at + 1)) {
+      if (results.length() > 12) results.append(',');
+      results.append(ACCEPTED);
+    }
+    return results.append("]}").toString();
+  }
+
+  @Override
+  public void close() {
+    server.disposeNow();
+  }
+}
@@ -0,0 +1,127 @@
+package com.simulator.benchmark.web;
+
+import com.simulator.atm.AtmApplication;
+import com.simulator.atm.business.service.dispenser.CashDispenserRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of {@code concurrency} simultaneous dispense requests against atm-service while
+ * account-service answers every withdrawal after {@code delay} ms, on the servlet stack (Feign
+ * calls blocking Tomcat's 200 worker threads) and on the reactive one (WebClient on Netty, pooled
+ * as {@code atm.account-client} says). The score is the time until the whole burst is answered.
+ * account-service is a Netty stub that delays without holding a thread, so only atm-service limits
+ * how many withdrawals are in flight.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class DownstreamDelayBenchmark {
+  private static final String DISPENSE_BODY = "{\"amount\":10}";
+
+  @Param({"SERVLET", "REACTIVE"})
+  public WebApplicationType stack;
+
+  @Param({"200", "1000"})
+  public int concurrency;
+
+  @Param({"200"})
+  public int delay;
+
+  private AccountServiceStub accountService;
+  private ConfigurableApplicationContext context;
+  private CashDispenserRegistry cashDispensers;
+  private HttpClient httpClient;
+  private HttpRequest request;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    accountService = new AccountServiceStub(Duration.ofMillis(delay));
+
+    context =
+        new SpringApplicationBuilder(AtmApplication.class)
+            .web(stack)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            .run(
+                "--server.port=0",
+                "--spring.cloud.compatibility-verifier.enabled=false",
+                "--spring.autoconfigure.exclude=" + HibernateJpaAutoConfiguration.class.getName(),
+                "--logging.level.com.simulator=WARN",
+                "--atm.journal.enabled=false",
+                "--session.secret=atm-simulator-benchmark-session-secret",
+                "--atm.dispenser.cassettes.TEN=2000",
+                "--account-api-url=http://localhost:" + accountService.port());
+    cashDispensers = context.getBean(CashDispenserRegistry.class);
+
+    httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    request =
+        HttpRequest.newBuilder(
+                URI.create(
+                    "http://localhost:%s/v1/atm/dispense"
+                        .formatted(context.getEnvironment().getProperty("local.server.port"))))
+            .header("accountNumber", "123456789")
+            .header("pin", "1234")
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(DISPENSE_BODY))
+            .build();
+  }
+
+  /** Puts back the TEN notes the previous burst took out. */
+  @Setup(Level.Iteration)
+  public void refill() {
+    final var cashDispenser = cashDispensers.get(null);
+    final var missing = 2000 - cashDispenser.getCassettes().notes("TEN");
+    if (missing > 0) cashDispenser.replenish("TEN", missing);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+    accountService.close();
+  }
+
+  @Benchmark
+  public int burst() {
+    final var responses = new CompletableFuture<?>[concurrency];
+    for (int i = 0; i < concurrency; i++) {
+      responses[i] =
+          httpClient
+              .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+              .thenAccept(
+                  response -> {
+                    if (response.statusCode() != 200)
+                      throw new IllegalStateException("Dispense answered " + response.statusCode());
+                  });
+    }
+    CompletableFuture.allOf(responses).join();
+    return responses.length;
+  }
+}
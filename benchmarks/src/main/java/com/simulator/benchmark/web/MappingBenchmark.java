@@ -0,0 +1,85 @@
+package com.simulator.benchmark.web;
+
+import com.simulator.account.business.persistence.entity.AccountEntity;
+import com.simulator.account.business.web.helper.AccountHelper;
+import com.simulator.atm.business.service.dispenser.Cash;
+import com.simulator.atm.business.web.dto.CashDispensedDto;
+import com.simulator.atm.business.web.helper.AtmHelper;
+import com.simulator.dto.AccountBalanceDto;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity and service results to response DTOs: the explicit helpers the controllers use against the
+ * reflective ModelMapper conversion they replaced.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+  private AtmHelper atmHelper;
+  private AccountHelper accountHelper;
+  private ModelMapper modelMapper;
+  private List<Cash> cash;
+  private AccountEntity account;
+
+  @Setup
+  public void setup() {
+    atmHelper = new AtmHelper();
+    accountHelper = new AccountHelper();
+    modelMapper = new ModelMapper();
+    cash =
+        List.of(
+            new Cash("FIFTY", 4), new Cash("TWENTY", 2), new Cash("TEN", 0), new Cash("FIVE", 1));
+    account =
+        AccountEntity.builder()
+            .id(1L)
+            .accountNumber("123456789")
+            .pin("1234")
+            .balance(BigDecimal.valueOf(800))
+            .overdraft(BigDecimal.valueOf(200))
+            .build();
+  }
+
+  @Benchmark
+  public Object dispensedCash() {
+    return atmHelper.toModel(cash);
+  }
+
+  @Benchmark
+  public Object accountBalance() {
+    return accountHelper.toModel(account);
+  }
+
+  @Benchmark
+  public Object modelMapperDispensedCash() {
+    final List<CashDispensedDto> dtos = new ArrayList<>(cash.size());
+    for (Cash note : cash) {
+      dtos.add(modelMapper.map(note, CashDispensedDto.class));
+    }
+    return dtos;
+  }
+
+  @Benchmark
+  public Object modelMapperAccountBalance() {
+    return modelMapper.map(account, AccountBalanceDto.class);
+  }
+}
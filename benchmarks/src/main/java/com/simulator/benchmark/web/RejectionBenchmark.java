@@ -0,0 +1,84 @@
+package com.simulator.benchmark.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simulator.exception.BadRequestException;
+import com.simulator.exception.handler.ControllerExceptionHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A routine rejection, insufficient funds, thrown {@code depth} frames down, the way a request
+ * reaches the service through the servlet and Spring MVC stack, caught and answered by {@link
+ * ControllerExceptionHandler}: a new exception with its stack trace and a body serialized by
+ * Jackson, against a preallocated stackless one with its prepared body.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RejectionBenchmark {
+  private static final String MESSAGE =
+      "Your Account has insufficient funds to complete this request";
+  private static final BadRequestException REJECTION = BadRequestException.rejection(MESSAGE);
+
+  @Param({"100"})
+  public int depth;
+
+  private final ControllerExceptionHandler handler = new ControllerExceptionHandler();
+  private ObjectMapper objectMapper;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    out = new ByteArrayOutputStream(256);
+  }
+
+  @Benchmark
+  public int newException() throws IOException {
+    try {
+      throwAt(depth, false);
+      return 0;
+    } catch (BadRequestException e) {
+      out.reset();
+      objectMapper.writeValue(out, handler.handlingBadRequestException(e).getBody());
+      return out.size();
+    }
+  }
+
+  @Benchmark
+  public int rejection() {
+    try {
+      throwAt(depth, true);
+      return 0;
+    } catch (BadRequestException e) {
+      final var body = (String) handler.handlingBadRequestException(e).getBody();
+      return body.getBytes(StandardCharsets.UTF_8).length;
+    }
+  }
+
+  private static void throwAt(int depth, boolean rejection) {
+    if (depth > 0) {
+      throwAt(depth - 1, rejection);
+      return;
+    }
+    throw rejection ? REJECTION : new BadRequestException(MESSAGE);
+  }
+}
@@ -0,0 +1,72 @@
+package com.simulator.benchmark.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simulator.atm.business.web.dto.CashDispensedDto;
+import com.simulator.atm.business.web.dto.DispenseResponse;
+import com.simulator.dto.AccountBalanceDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the two response bodies, with an {@link ObjectMapper} configured the way
+ * Spring MVC builds its own.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  private ObjectMapper objectMapper;
+  private DispenseResponse dispenseResponse;
+  private AccountBalanceDto accountBalance;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() {
+    objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    dispenseResponse =
+        DispenseResponse.builder()
+            .dispensedCash(BigDecimal.valueOf(245))
+            .notes(
+                List.of(
+                    new CashDispensedDto("FIFTY", 4),
+                    new CashDispensedDto("TWENTY", 2),
+                    new CashDispensedDto("TEN", 0),
+                    new CashDispensedDto("FIVE", 1)))
+            .build();
+    accountBalance = new AccountBalanceDto(BigDecimal.valueOf(555), BigDecimal.valueOf(200));
+    out = new ByteArrayOutputStream(256);
+  }
+
+  @Benchmark
+  public int dispenseResponse() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, dispenseResponse);
+    return out.size();
+  }
+
+  @Benchmark
+  public int accountBalance() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, accountBalance);
+    return out.size();
+  }
+}
@@ -0,0 +1,119 @@
+package com.simulator.benchmark.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.simulator.dto.AccountBalanceDto;
+import com.simulator.dto.BatchWithdrawRequest;
+import com.simulator.dto.TransactionRequest;
+import com.simulator.dto.WithdrawalItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing and reading the bodies atm-service and account-service exchange, as JSON and as CBOR
+ * ({@code atm.account-client.wire-format}): a withdrawal, a balance and a batch of 64 withdrawals.
+ * The payload sizes are printed once per fork.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+  private static final int BATCH_SIZE = 64;
+
+  @Param({"json", "cbor"})
+  public String format;
+
+  private ObjectMapper objectMapper;
+  private TransactionRequest withdrawal;
+  private AccountBalanceDto balance;
+  private BatchWithdrawRequest batch;
+  private byte[] withdrawalBytes;
+  private byte[] balanceBytes;
+  private byte[] batchBytes;
+  private ByteArrayOutputStream out;
+
+  @Setup
+  public void setup() throws IOException {
+    objectMapper =
+        "cbor".equals(format)
+            ? Jackson2ObjectMapperBuilder.cbor().build()
+            : Jackson2ObjectMapperBuilder.json().build();
+    withdrawal = new TransactionRequest(new BigDecimal("120.00"));
+    balance = new AccountBalanceDto(new BigDecimal("10891.35"), new BigDecimal("25000.00"));
+    final var withdrawals = new ArrayList<WithdrawalItem>(BATCH_SIZE);
+    for (int i = 0; i < BATCH_SIZE; i++) {
+      withdrawals.add(
+          new WithdrawalItem(
+              String.valueOf(100_000 + i),
+              "1234",
+              BigDecimal.valueOf(20 + 5 * i),
+              UUID.randomUUID().toString(),
+              null));
+    }
+    batch = new BatchWithdrawRequest(withdrawals);
+
+    withdrawalBytes = objectMapper.writeValueAsBytes(withdrawal);
+    balanceBytes = objectMapper.writeValueAsBytes(balance);
+    batchBytes = objectMapper.writeValueAsBytes(batch);
+    out = new ByteArrayOutputStream(8192);
+    System.out.printf(
+        "%n%s payload bytes: withdrawal %d, balance %d, batch of %d %d%n",
+        format, withdrawalBytes.length, balanceBytes.length, BATCH_SIZE, batchBytes.length);
+  }
+
+  @Benchmark
+  public int writeWithdrawal() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, withdrawal);
+    return out.size();
+  }
+
+  @Benchmark
+  public TransactionRequest readWithdrawal() throws IOException {
+    return objectMapper.readValue(withdrawalBytes, TransactionRequest.class);
+  }
+
+  @Benchmark
+  public int writeBalance() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, balance);
+    return out.size();
+  }
+
+  @Benchmark
+  public AccountBalanceDto readBalance() throws IOException {
+    return objectMapper.readValue(balanceBytes, AccountBalanceDto.class);
+  }
+
+  @Benchmark
+  public int writeBatch() throws IOException {
+    out.reset();
+    objectMapper.writeValue(out, batch);
+    return out.size();
+  }
+
+  @Benchmark
+  public BatchWithdrawRequest readBatch() throws IOException {
+    return objectMapper.readValue(batchBytes, BatchWithdrawRequest.class);
+  }
+}
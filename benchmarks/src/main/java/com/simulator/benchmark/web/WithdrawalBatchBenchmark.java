@@ -0,0 +1,90 @@
+package com.simulator.benchmark.web;
+
+import com.simulator.atm.AtmApplication;
+import com.simulator.atm.business.service.client.IdempotencyKeys;
+import com.simulator.atm.business.service.client.WithdrawalCoalescer;
+import com.simulator.dto.TransactionRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Withdrawals sent to account-service from {@code -t} threads through the {@link
+ * WithdrawalCoalescer}, one request each and gathered into batches. account-service answers after 5
+ * ms, as a database commit would take, so each caller waits about as long either way and the
+ * difference is the number of requests, which each run prints with the mean batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class WithdrawalBatchBenchmark {
+  private static final TransactionRequest REQUEST =
+      TransactionRequest.builder().amount(BigDecimal.valueOf(100)).build();
+
+  @Param({"false", "true"})
+  public boolean batched;
+
+  private AccountServiceStub accountService;
+  private ConfigurableApplicationContext context;
+  private WithdrawalCoalescer withdrawals;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    accountService = new AccountServiceStub(Duration.ofMillis(5));
+    context =
+        new SpringApplicationBuilder(AtmApplication.class)
+            .bannerMode(Banner.Mode.OFF)
+            .logStartupInfo(false)
+            .run(
+                "--server.port=0",
+                "--spring.cloud.compatibility-verifier.enabled=false",
+                "--spring.autoconfigure.exclude=" + HibernateJpaAutoConfiguration.class.getName(),
+                "--logging.level.com.simulator=WARN",
+                "--atm.journal.enabled=false",
+                "--session.secret=atm-simulator-benchmark-session-secret",
+                "--atm.account-client.batch-enabled=" + batched,
+                "--account-api-url=http://localhost:" + accountService.port());
+    withdrawals = context.getBean(WithdrawalCoalescer.class);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    System.out.printf("batched = %s, requests = %d%n", batched, accountService.requests());
+    final var batchSize =
+        context.getBean(MeterRegistry.class).find("atm.withdraw.batch.size").summary();
+    if (batchSize != null && batchSize.count() > 0)
+      System.out.printf(
+          "batches = %d, mean batch size = %.1f%n", batchSize.count(), batchSize.mean());
+    context.close();
+    accountService.close();
+  }
+
+  @Benchmark
+  public void withdraw() {
+    withdrawals.withdraw("123456789", "1234", REQUEST, IdempotencyKeys.next());
+  }
+}
@@ -0,0 +1,21 @@
+package com.simulator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchWithdrawRequest {
+  public static final int MAX_WITHDRAWALS = 500;
+
+  @NotEmpty(message = "Missing withdrawals")
+  @Size(max = MAX_WITHDRAWALS, message = "At most 500 withdrawals can be sent at once")
+  private List<@Valid WithdrawalItem> withdrawals;
+}
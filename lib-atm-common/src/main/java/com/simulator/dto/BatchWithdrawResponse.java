@@ -0,0 +1,15 @@
+package com.simulator.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/** One {@link WithdrawalResult} per withdrawal, in the order they were requested. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchWithdrawResponse {
+  private List<WithdrawalResult> results;
+}
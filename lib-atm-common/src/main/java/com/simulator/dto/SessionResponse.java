@@ -0,0 +1,20 @@
+package com.simulator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A card session opened by a pin check, whose token stands in for the pin until it expires. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionResponse {
+  @Schema(
+      description = "Sent as the Session-Token header instead of the pin",
+      example = "AAGF1PpsV0cAAAGSnb3sIDEyMzQ1Njc4OQ.0mXq3cUuWkQ8uE1m0vJfBw")
+  private String token;
+
+  @Schema(description = "When the token stops being accepted", example = "2022-02-01T10:15:30Z")
+  private String expiresAt;
+}
@@ -0,0 +1,38 @@
+package com.simulator.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.validator.constraints.Range;
+
+import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
+
+/** One withdrawal of a {@link BatchWithdrawRequest}. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class WithdrawalItem {
+  @Schema(description = "Account number", example = "328762")
+  @NotNull(message = "Missing account number")
+  private String accountNumber;
+
+  @Schema(description = "Pin of account, unless a session token is sent", example = "1234")
+  private String pin;
+
+  @Schema(description = "Amount to withdraw", example = "1,000.00")
+  @NotNull(message = "Missing amount")
+  @Range(min = 5, message = "ATM cannot dispense less then €5")
+  private BigDecimal amount;
+
+  @Schema(
+      description = "Identifies the withdrawal, so a retry with the same key is applied once",
+      example = "5f0c6c1e-8f4b-4a43-9b1e-2f0e4d7c9a11")
+  private String idempotencyKey;
+
+  @Schema(description = "Session token standing in for the pin")
+  private String sessionToken;
+}
@@ -0,0 +1,31 @@
+package com.simulator.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.simulator.exception.model.ExceptionResponse;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one withdrawal of a {@link BatchWithdrawRequest}: the status and, for a failure, the
+ * error body the single withdraw endpoint would have answered with.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WithdrawalResult {
+  @Schema(description = "HTTP status of the withdrawal", example = "200")
+  private int status;
+
+  private ExceptionResponse error;
+
+  public static WithdrawalResult ok() {
+    return new WithdrawalResult(200, null);
+  }
+
+  public static WithdrawalResult failed(ExceptionResponse error) {
+    return new WithdrawalResult(error.getCode(), error);
+  }
+}
@@ -1,6 +1,7 @@
 package com.simulator.exception;
 
 import com.simulator.exception.model.AttributeMessage;
+import com.simulator.exception.model.ErrorBody;
 import lombok.Getter;
 import lombok.ToString;
 import org.springframework.http.HttpStatus;
@@ -16,6 +17,7 @@ public class BadRequestException extends RuntimeException {
 
   private List<AttributeMessage> messages;
   private String message;
+  private ErrorBody body;
 
   public BadRequestException(List<AttributeMessage> messages) {
     this.status = HttpStatus.BAD_REQUEST;
@@ -26,4 +28,20 @@ public class BadRequestException extends RuntimeException {
     this.status = HttpStatus.BAD_REQUEST;
     this.message = message;
   }
+
+  private BadRequestException(String message, ErrorBody body) {
+    super(message, null, false, false);
+    this.status = HttpStatus.BAD_REQUEST;
+    this.message = message;
+    this.body = body;
+  }
+
+  /**
+   * An expected outcome, such as insufficient funds, rather than a failure: it has no stack trace,
+   * so one instance can be kept in a constant and thrown by every request, and its response body is
+   * serialized once.
+   */
+  public static BadRequestException rejection(String message) {
+    return new BadRequestException(message, ErrorBody.of(HttpStatus.BAD_REQUEST, message));
+  }
 }
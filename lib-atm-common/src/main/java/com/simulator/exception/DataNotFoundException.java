@@ -1,14 +1,33 @@
 package com.simulator.exception;
 
+import com.simulator.exception.model.ErrorBody;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
 import java.io.Serializable;
 import java.util.function.Supplier;
 
 public class DataNotFoundException extends RuntimeException {
 
+  @Getter private ErrorBody body;
+
   public DataNotFoundException(String message) {
     super(message);
   }
 
+  private DataNotFoundException(String message, ErrorBody body) {
+    super(message, null, false, false);
+    this.body = body;
+  }
+
+  /**
+   * A lookup of something that does not exist, an expected outcome: it has no stack trace, so one
+   * instance can be kept in a constant, and its response body is serialized once.
+   */
+  public static DataNotFoundException rejection(String message) {
+    return new DataNotFoundException(message, ErrorBody.of(HttpStatus.NOT_FOUND, message));
+  }
+
   public static <T extends Serializable> Supplier<DataNotFoundException> notFound(
       final T entityId) {
     return () -> new DataNotFoundException("Could not find data identified by " + entityId);
@@ -0,0 +1,27 @@
+package com.simulator.exception;
+
+import com.simulator.exception.model.ErrorBody;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+public class UnauthorizedException extends RuntimeException {
+
+  @Getter private ErrorBody body;
+
+  public UnauthorizedException(String message) {
+    super(message);
+  }
+
+  private UnauthorizedException(String message, ErrorBody body) {
+    super(message, null, false, false);
+    this.body = body;
+  }
+
+  /**
+   * Credentials that do not hold up, an expected outcome: it has no stack trace, so one instance can
+   * be kept in a constant, and its response body is serialized once.
+   */
+  public static UnauthorizedException rejection(String message) {
+    return new UnauthorizedException(message, ErrorBody.of(HttpStatus.UNAUTHORIZED, message));
+  }
+}
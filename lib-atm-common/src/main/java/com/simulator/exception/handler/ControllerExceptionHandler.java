@@ -1,11 +1,15 @@
 package com.simulator.exception.handler;
 
 import com.simulator.exception.BadRequestException;
+import com.simulator.exception.ConflictException;
 import com.simulator.exception.DataNotFoundException;
+import com.simulator.exception.UnauthorizedException;
 import com.simulator.exception.model.AttributeMessage;
+import com.simulator.exception.model.ErrorBody;
 import com.simulator.exception.model.ExceptionResponse;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.validation.FieldError;
@@ -85,11 +89,29 @@ public class ControllerExceptionHandler {
 
   @ExceptionHandler(DataNotFoundException.class)
   @ResponseBody
-  public ResponseEntity<ExceptionResponse> dataNotFoundException(DataNotFoundException e) {
+  public ResponseEntity<?> dataNotFoundException(DataNotFoundException e) {
+    if (e.getBody() != null) return prepared(e.getBody());
+
     ExceptionResponse err = new ExceptionResponse(HttpStatus.NOT_FOUND, e.getMessage());
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(err);
   }
 
+  @ExceptionHandler(UnauthorizedException.class)
+  @ResponseBody
+  public ResponseEntity<?> unauthorizedException(UnauthorizedException e) {
+    if (e.getBody() != null) return prepared(e.getBody());
+
+    ExceptionResponse err = new ExceptionResponse(HttpStatus.UNAUTHORIZED, e.getMessage());
+    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(err);
+  }
+
+  @ExceptionHandler(ConflictException.class)
+  @ResponseBody
+  public ResponseEntity<ExceptionResponse> conflictException(ConflictException e) {
+    ExceptionResponse err = new ExceptionResponse(HttpStatus.CONFLICT, e.getMessage());
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(err);
+  }
+
   @ExceptionHandler(Exception.class)
   @ResponseBody
   public ResponseEntity<ExceptionResponse> exception(Exception e) {
@@ -122,8 +144,9 @@ public class ControllerExceptionHandler {
 
   @ExceptionHandler(BadRequestException.class)
   @ResponseBody
-  public ResponseEntity<ExceptionResponse> handlingBadRequestException(
-      BadRequestException badRequestException) {
+  public ResponseEntity<?> handlingBadRequestException(BadRequestException badRequestException) {
+    if (badRequestException.getBody() != null) return prepared(badRequestException.getBody());
+
     ExceptionResponse err =
         new ExceptionResponse(
             HttpStatus.BAD_REQUEST,
@@ -153,4 +176,10 @@ public class ControllerExceptionHandler {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
   }
 
+  /** Answers with a body serialized ahead of time instead of converting an ExceptionResponse. */
+  protected ResponseEntity<String> prepared(ErrorBody body) {
+    return ResponseEntity.status(body.getStatus())
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(body.render());
+  }
 }
@@ -0,0 +1,39 @@
+package com.simulator.exception.model;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The JSON of an {@link ExceptionResponse} with a fixed status and description, serialized once up
+ * front, so answering it only appends the current date.
+ */
+public final class ErrorBody {
+  private final HttpStatus status;
+  private final String prefix;
+
+  private ErrorBody(HttpStatus status, String prefix) {
+    this.status = status;
+    this.prefix = prefix;
+  }
+
+  public static ErrorBody of(HttpStatus status, String description) {
+    final var encoder = JsonStringEncoder.getInstance();
+    return new ErrorBody(
+        status,
+        "{\"code\":%d,\"status\":\"%s\",\"description\":\"%s\",\"date\":\""
+            .formatted(
+                status.value(),
+                new String(encoder.quoteAsString(status.getReasonPhrase())),
+                new String(encoder.quoteAsString(description))));
+  }
+
+  public HttpStatus getStatus() {
+    return status;
+  }
+
+  public String render() {
+    return prefix + LocalDateTime.now() + "\"}";
+  }
+}
@@ -0,0 +1,72 @@
+package com.simulator.session;
+
+import com.simulator.exception.BadRequestException;
+
+import java.util.Objects;
+
+/**
+ * What a caller sent to prove it may use an account: its pin, or a session token an earlier pin
+ * check issued. A token wins over a pin sent with it.
+ */
+public final class Credentials {
+  private static final BadRequestException MISSING_PIN =
+      BadRequestException.rejection("Missing pin");
+
+  private final String pin;
+  private final String sessionToken;
+
+  private Credentials(String pin, String sessionToken) {
+    this.pin = pin;
+    this.sessionToken = sessionToken;
+  }
+
+  /**
+   * The credentials from a {@code pin} and a session token, either of which may be missing, but not
+   * both.
+   */
+  public static Credentials of(String pin, String sessionToken) {
+    if (sessionToken != null) return new Credentials(null, sessionToken);
+    if (pin != null) return new Credentials(pin, null);
+    throw MISSING_PIN;
+  }
+
+  public static Credentials pin(String pin) {
+    return of(pin, null);
+  }
+
+  public static Credentials session(String sessionToken) {
+    return of(null, sessionToken);
+  }
+
+  /** The pin, {@code null} for a session. */
+  public String getPin() {
+    return pin;
+  }
+
+  /** The session token, {@code null} for a pin. */
+  public String getSessionToken() {
+    return sessionToken;
+  }
+
+  public boolean isSession() {
+    return sessionToken != null;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    return this == o
+        || (o instanceof Credentials other
+            && Objects.equals(pin, other.pin)
+            && Objects.equals(sessionToken, other.sessionToken));
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(pin, sessionToken);
+  }
+
+  @Override
+  public String toString() {
+    return isSession() ? "Credentials{session}" : "Credentials{pin}";
+  }
+}
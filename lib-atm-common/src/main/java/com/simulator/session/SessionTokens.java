@@ -0,0 +1,154 @@
+package com.simulator.session;
+
+import com.simulator.dto.SessionResponse;
+import com.simulator.exception.UnauthorizedException;
+import lombok.Value;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Signed, short-lived card-session tokens. One pin check issues a token for an account; until it
+ * expires, the token stands in for the pin, and every service holding the same secret checks it
+ * locally, from its signature and expiry, without reading the account. A token is the URL-safe
+ * Base64 of its id, expiry and account number, a dot, and the first 16 bytes of their HMAC-SHA256.
+ *
+ * <p>Revoked token ids are kept in two generations of one {@code ttl} each, and the older one is
+ * dropped as a new one starts, so an id is forgotten only once the token it names has expired
+ * anyway. Revocations are local to the instance that received them.
+ */
+public class SessionTokens {
+  public static final String HEADER = "Session-Token";
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final int SIGNATURE_BYTES = 16;
+  private static final int MIN_SECRET_BYTES = 32;
+  private static final UnauthorizedException INVALID =
+      UnauthorizedException.rejection("Session token is invalid or expired");
+
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec key;
+  private final long ttlMillis;
+  private final Clock clock;
+  private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+
+  private final Object rotation = new Object();
+  private volatile Set<Long> revoked = ConcurrentHashMap.newKeySet();
+  private volatile Set<Long> previouslyRevoked = ConcurrentHashMap.newKeySet();
+  private volatile long revokedSince;
+
+  public SessionTokens(byte[] secret, Duration ttl, Clock clock) {
+    if (secret.length < MIN_SECRET_BYTES)
+      throw new IllegalArgumentException(
+          "Session secret must be at least " + MIN_SECRET_BYTES + " bytes");
+    if (ttl.isNegative() || ttl.isZero())
+      throw new IllegalArgumentException("Session ttl must be positive");
+    this.key = new SecretKeySpec(secret.clone(), ALGORITHM);
+    this.ttlMillis = ttl.toMillis();
+    this.clock = clock;
+    this.revokedSince = clock.millis();
+    newMac();
+  }
+
+  public SessionResponse issue(String accountNumber) {
+    final var expiresAt = clock.millis() + ttlMillis;
+    final var account = accountNumber.getBytes(StandardCharsets.UTF_8);
+    final var payload =
+        ByteBuffer.allocate(2 * Long.BYTES + account.length)
+            .putLong(ThreadLocalRandom.current().nextLong())
+            .putLong(expiresAt)
+            .put(account)
+            .array();
+    final var token = ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+    return new SessionResponse(token, Instant.ofEpochMilli(expiresAt).toString());
+  }
+
+  /** The session of a token that is genuine, unexpired and not revoked. */
+  public Session verify(String token) {
+    final var separator = token.indexOf('.');
+    if (separator < 0) throw INVALID;
+    final byte[] payload;
+    final byte[] signature;
+    try {
+      payload = DECODER.decode(token.substring(0, separator));
+      signature = DECODER.decode(token.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      throw INVALID;
+    }
+    if (payload.length <= 2 * Long.BYTES || !MessageDigest.isEqual(sign(payload), signature))
+      throw INVALID;
+
+    final var buffer = ByteBuffer.wrap(payload);
+    final var id = buffer.getLong();
+    final var expiresAt = buffer.getLong();
+    final var now = clock.millis();
+    if (now >= expiresAt) throw INVALID;
+    rotate(now);
+    if (revoked.contains(id) || previouslyRevoked.contains(id)) throw INVALID;
+    final var accountNumber =
+        new String(
+            payload, 2 * Long.BYTES, payload.length - 2 * Long.BYTES, StandardCharsets.UTF_8);
+    return new Session(id, accountNumber, expiresAt);
+  }
+
+  /** Verifies {@code token} and that it was issued for {@code accountNumber}. */
+  public Session verify(String token, String accountNumber) {
+    final var session = verify(token);
+    if (!session.getAccountNumber().equals(accountNumber)) throw INVALID;
+    return session;
+  }
+
+  /** Stops {@code token} from being accepted here, for the rest of its life. */
+  public Session revoke(String token) {
+    final var session = verify(token);
+    revoked.add(session.getId());
+    return session;
+  }
+
+  private void rotate(long now) {
+    if (now - revokedSince < ttlMillis) return;
+    synchronized (rotation) {
+      final var age = now - revokedSince;
+      if (age < ttlMillis) return;
+      previouslyRevoked = age < 2 * ttlMillis ? revoked : ConcurrentHashMap.newKeySet();
+      revoked = ConcurrentHashMap.newKeySet();
+      revokedSince = now;
+    }
+  }
+
+  private byte[] sign(byte[] payload) {
+    return Arrays.copyOf(macs.get().doFinal(payload), SIGNATURE_BYTES);
+  }
+
+  private Mac newMac() {
+    try {
+      final var mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException("Cannot sign session tokens", e);
+    }
+  }
+
+  /** A verified session token. */
+  @Value
+  public static class Session {
+    long id;
+    String accountNumber;
+    long expiresAt;
+  }
+}